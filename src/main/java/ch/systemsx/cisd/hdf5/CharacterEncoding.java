@@ -19,6 +19,9 @@ package ch.systemsx.cisd.hdf5;
 import static hdf.hdf5lib.HDF5Constants.H5T_CSET_ASCII;
 import static hdf.hdf5lib.HDF5Constants.H5T_CSET_UTF8;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 /**
  * An enum for character encodings of path names and strings in JHDF5. 
  *
@@ -26,18 +29,21 @@ import static hdf.hdf5lib.HDF5Constants.H5T_CSET_UTF8;
  */
 public enum CharacterEncoding
 {
-    ASCII("ASCII", H5T_CSET_ASCII, 1), 
-    UTF8("UTF8", H5T_CSET_UTF8, 4);
+    ASCII("ASCII", StandardCharsets.US_ASCII, H5T_CSET_ASCII, 1), 
+    UTF8("UTF8", StandardCharsets.UTF_8, H5T_CSET_UTF8, 4);
 
     private final String charSetName;
+
+    private final Charset charSet;
     
     private final int cValue;
     
     private final int maxBytesPerChar;
     
-    private CharacterEncoding(String charSetName, int cValue, int maxBytesPerChar)
+    private CharacterEncoding(String charSetName, Charset charSet, int cValue, int maxBytesPerChar)
     {
         this.charSetName = charSetName;
+        this.charSet = charSet;
         this.cValue = cValue;
         this.maxBytesPerChar = maxBytesPerChar;
     }
@@ -52,6 +58,11 @@ public enum CharacterEncoding
         return charSetName;
     }
 
+    Charset getCharSet()
+    {
+        return charSet;
+    }
+
     /**
      * Returns the maximum number of bytes per character.
      */
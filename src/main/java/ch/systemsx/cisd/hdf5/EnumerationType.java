@@ -234,6 +234,35 @@ public class EnumerationType implements Iterable<String>
         throw new Error("Illegal storage size.");
     }
 
+    static int[] ordinalsFromStorageForm(byte[] data, EnumStorageForm storageForm)
+    {
+        switch (storageForm)
+        {
+            case BYTE:
+            {
+                final int[] ordinals = new int[data.length];
+                for (int i = 0; i < data.length; ++i)
+                {
+                    ordinals[i] = data[i];
+                }
+                return ordinals;
+            }
+            case SHORT:
+            {
+                final short[] shortOrdinals = NativeData.byteToShort(data, ByteOrder.NATIVE);
+                final int[] ordinals = new int[shortOrdinals.length];
+                for (int i = 0; i < shortOrdinals.length; ++i)
+                {
+                    ordinals[i] = shortOrdinals[i];
+                }
+                return ordinals;
+            }
+            case INT:
+                return NativeData.byteToInt(data, ByteOrder.NATIVE);
+        }
+        throw new Error("Illegal storage size.");
+    }
+
     static MDAbstractArray<?> fromStorageForm(byte[] data, long[] dimensions,
             EnumStorageForm storageForm)
     {
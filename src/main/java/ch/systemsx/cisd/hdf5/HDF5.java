@@ -21,12 +21,18 @@ import static ch.systemsx.cisd.hdf5.hdf5lib.HDFHelper.H5Pset_mdc_image_config;
 import static ch.systemsx.cisd.hdf5.hdf5lib.HDFHelper.H5Pget_mdc_image_enabled;
 import static hdf.hdf5lib.HDF5Constants.H5_INDEX_NAME;
 import static hdf.hdf5lib.HDF5Constants.H5_ITER_NATIVE;
+import static hdf.hdf5lib.HDF5Constants.H5D_ALLOC_TIME_EARLY;
 import static hdf.hdf5lib.HDF5Constants.H5D_CHUNKED;
 import static hdf.hdf5lib.HDF5Constants.H5D_COMPACT;
+import static hdf.hdf5lib.HDF5Constants.H5D_CONTIGUOUS;
 import static hdf.hdf5lib.HDF5Constants.H5D_FILL_TIME_ALLOC;
+import static hdf.hdf5lib.HDF5Constants.H5D_VIRTUAL;
 import static hdf.hdf5lib.HDF5Constants.H5F_ACC_RDONLY;
 import static hdf.hdf5lib.HDF5Constants.H5F_ACC_RDWR;
+import static hdf.hdf5lib.HDF5Constants.H5F_ACC_SWMR_READ;
+import static hdf.hdf5lib.HDF5Constants.H5F_ACC_SWMR_WRITE;
 import static hdf.hdf5lib.HDF5Constants.H5F_ACC_TRUNC;
+import static hdf.hdf5lib.HDF5Constants.H5F_LIBVER_V110;
 import static hdf.hdf5lib.HDF5Constants.H5F_SCOPE_GLOBAL;
 import static hdf.hdf5lib.HDF5Constants.H5O_TYPE_GROUP;
 import static hdf.hdf5lib.HDF5Constants.H5P_ATTRIBUTE_CREATE;
@@ -49,6 +55,7 @@ import static hdf.hdf5lib.HDF5Constants.H5T_FLOAT;
 import static hdf.hdf5lib.HDF5Constants.H5T_INTEGER;
 import static hdf.hdf5lib.HDF5Constants.H5T_OPAQUE;
 import static hdf.hdf5lib.HDF5Constants.H5T_OPAQUE_TAG_MAX;
+import static hdf.hdf5lib.HDF5Constants.H5T_ORDER_LE;
 import static hdf.hdf5lib.HDF5Constants.H5T_SGN_NONE;
 import static hdf.hdf5lib.HDF5Constants.H5T_STD_I16LE;
 import static hdf.hdf5lib.HDF5Constants.H5T_STD_I32LE;
@@ -60,13 +67,20 @@ import static hdf.hdf5lib.HDF5Constants.H5Z_SO_INT;
 
 import static org.bytedeco.hdf5.global.hdf5.H5Otoken_from_str;
 import static org.bytedeco.hdf5.global.hdf5.H5Oopen_by_token;
+import static org.bytedeco.hdf5.global.hdf5.H5Dget_offset;
+import static org.bytedeco.hdf5.global.hdf5.H5Dget_chunk_index_type;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
 import org.bytedeco.hdf5.H5O_token_t;
+import org.bytedeco.hdf5.global.hdf5;
+import org.bytedeco.javacpp.BytePointer;
 
 import hdf.hdf5lib.H5;
 import hdf.hdf5lib.HDF5Constants;
@@ -238,7 +252,17 @@ class HDF5
 
     public long openFileReadOnly(String fileName, ICleanUpRegistry registry)
     {
-        final long fileId = H5Fopen(fileName, H5F_ACC_RDONLY, H5P_DEFAULT);
+        return openFileReadOnly(fileName, false, registry);
+    }
+
+    /**
+     * Opens <var>fileName</var> for reading. If <var>swmrRead</var> is <code>true</code>, the file
+     * is opened as a reader of a file that is concurrently written by a SWMR writer.
+     */
+    public long openFileReadOnly(String fileName, boolean swmrRead, ICleanUpRegistry registry)
+    {
+        final int flags = swmrRead ? (H5F_ACC_RDONLY | H5F_ACC_SWMR_READ) : H5F_ACC_RDONLY;
+        final long fileId = H5Fopen(fileName, flags, H5P_DEFAULT);
         registry.registerCleanUp(new Runnable()
             {
                 @Override
@@ -277,6 +301,23 @@ class HDF5
         H5Fflush(fileId, H5F_SCOPE_GLOBAL);
     }
 
+    /**
+     * Switches the writable file <var>fileId</var> to single-writer / multiple-reader (SWMR) mode.
+     */
+    public void startSWMRWrite(long fileId)
+    {
+        H5Fstart_swmr_write(fileId);
+    }
+
+    /**
+     * Returns <code>true</code>, if <var>fileId</var> is opened in SWMR mode, either as the writer
+     * or as a reader.
+     */
+    public boolean isSWMR(long fileId)
+    {
+        return (H5Fget_intent(fileId) & (H5F_ACC_SWMR_WRITE | H5F_ACC_SWMR_READ)) != 0;
+    }
+
     //
     // Object
     //
@@ -635,7 +676,7 @@ class HDF5
         checkMaxLength(dataSetName);
         final long dataSpaceId =
                 H5Screate_simple(dimensions.length, dimensions,
-                        createMaxDimensions(dimensions, (layout == HDF5StorageLayout.CHUNKED)));
+                        createMaxDimensions(dimensions, layout, compression));
         registry.registerCleanUp(new Runnable()
             {
                 @Override
@@ -671,6 +712,7 @@ class HDF5
             {
                 setDeflate(dataSetCreationPropertyListId, compression.getDeflateLevel());
             }
+            setChunkIndex(dataSetCreationPropertyListId, compression);
         } else if (layout == HDF5StorageLayout.COMPACT)
         {
             dataSetCreationPropertyListId =
@@ -679,6 +721,51 @@ class HDF5
         {
             dataSetCreationPropertyListId = dataSetCreationPropertyListFillTimeAlloc;
         }
+        final long dataSetId =
+                createDataSetLowLevel(fileId, dataSetName, dataTypeId, dataSpaceId,
+                        dataSetCreationPropertyListId,
+                        tryGetRequestedChunkIndex(layout, chunkSizeOrNull, compression));
+        registry.registerCleanUp(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    H5Dclose(dataSetId);
+                }
+            });
+
+        return dataSetId;
+    }
+
+    /**
+     * Creates a virtual data set of type <var>dataTypeId</var> which maps the blocks of
+     * <var>mappings</var> to source data sets.
+     */
+    public long createVirtualDataSet(long fileId, long[] dimensions, long dataTypeId,
+            List<HDF5VirtualDataSetMapping> mappings, String dataSetName,
+            ICleanUpRegistry registry)
+    {
+        checkMaxLength(dataSetName);
+        final long dataSpaceId = createSimpleDataSpace(dimensions, registry);
+        final long dataSetCreationPropertyListId = createDataSetCreationPropertyList(registry);
+        for (HDF5VirtualDataSetMapping mapping : mappings)
+        {
+            final long[] blockDimensions = mapping.getBlockDimensions();
+            checkRank(dimensions.length, blockDimensions.length);
+            final long virtualSpaceId = createSimpleDataSpace(dimensions, registry);
+            setHyperslabBlock(virtualSpaceId, mapping.getVirtualOffset(), blockDimensions);
+            // The source data set needs to have at least the extent of the block.
+            final long[] sourceOffset = mapping.getSourceOffset();
+            final long[] sourceDimensions = new long[sourceOffset.length];
+            for (int i = 0; i < sourceOffset.length; ++i)
+            {
+                sourceDimensions[i] = sourceOffset[i] + blockDimensions[i];
+            }
+            final long sourceSpaceId = createSimpleDataSpace(sourceDimensions, registry);
+            setHyperslabBlock(sourceSpaceId, sourceOffset, blockDimensions);
+            H5Pset_virtual(dataSetCreationPropertyListId, virtualSpaceId,
+                    mapping.getSourceFileName(), mapping.getSourceDataSetPath(), sourceSpaceId);
+        }
         final long dataSetId =
                 H5Dcreate(fileId, dataSetName, dataTypeId, dataSpaceId,
                         lcplCreateIntermediateGroups, dataSetCreationPropertyListId, H5P_DEFAULT);
@@ -690,7 +777,6 @@ class HDF5
                     H5Dclose(dataSetId);
                 }
             });
-
         return dataSetId;
     }
 
@@ -699,7 +785,7 @@ class HDF5
             ICleanUpRegistry registry)
     {
         checkMaxLength(dataSetName);
-        final long[] maxDimensions = createMaxDimensions(dimensions, (layout == HDF5StorageLayout.CHUNKED)); 
+        final long[] maxDimensions = createMaxDimensions(dimensions, layout, compression); 
         final long dataSpaceId =
                 H5Screate_simple(dimensions.length, dimensions, maxDimensions);
         final long dataSetCreationPropertyListId;
@@ -729,6 +815,7 @@ class HDF5
             {
                 setDeflate(dataSetCreationPropertyListId, compression.getDeflateLevel());
             }
+            setChunkIndex(dataSetCreationPropertyListId, compression);
         } else if (layout == HDF5StorageLayout.COMPACT)
         {
             dataSetCreationPropertyListId =
@@ -738,8 +825,9 @@ class HDF5
             dataSetCreationPropertyListId = dataSetCreationPropertyListFillTimeAlloc;
         }
         final long dataSetId =
-                H5Dcreate(baseWriter.fileId, dataSetName, dataTypeId, dataSpaceId,
-                        lcplCreateIntermediateGroups, dataSetCreationPropertyListId, H5P_DEFAULT);
+                createDataSetLowLevel(baseWriter.fileId, dataSetName, dataTypeId, dataSpaceId,
+                        dataSetCreationPropertyListId,
+                        tryGetRequestedChunkIndex(layout, chunkSizeOrNull, compression));
 
         return new HDF5DataSet(baseWriter, dataSetName, dataSetId, dataSpaceId, dimensions, 
                     maxDimensions, layout, true);
@@ -749,7 +837,7 @@ class HDF5
             long[] chunkSizeOrNull, long dataTypeId, HDF5AbstractStorageFeatures compression,
             HDF5StorageLayout layout, FileFormatVersionBounds fileFormat)
     {
-        final long[] maxDimensions = createMaxDimensions(dimensions, (layout == HDF5StorageLayout.CHUNKED));
+        final long[] maxDimensions = createMaxDimensions(dimensions, layout, compression);
         final long dataSpaceId =
                 H5Screate_simple(dimensions.length, dimensions, maxDimensions);
         final long dataSetCreationPropertyListId;
@@ -781,6 +869,7 @@ class HDF5
             {
                 setDeflate(dataSetCreationPropertyListId, compression.getDeflateLevel());
             }
+            setChunkIndex(dataSetCreationPropertyListId, compression);
         } else if (layout == HDF5StorageLayout.COMPACT)
         {
             dataSetCreationPropertyListId =
@@ -793,17 +882,17 @@ class HDF5
         }
 
         return new HDF5DataSetTemplate(dataSpaceId, dataSetCreationPropertyListId,
-                closeCreationPropertyListId, dataTypeId, dimensions, maxDimensions, layout);
+                closeCreationPropertyListId, dataTypeId, dimensions, maxDimensions, layout,
+                tryGetRequestedChunkIndex(layout, chunkSizeOrNull, compression));
     }
 
     public long createDataSetSimple(long fileId, long dataTypeId, long dataSpaceId, 
-            long dataSetCreationPropertyListId, 
+            long dataSetCreationPropertyListId, HDF5ChunkIndexType requestedChunkIndexOrNull,
             String dataSetName, ICleanUpRegistry registryOrNull)
     {
         final long dataSetId =
-                H5Dcreate(fileId, dataSetName, dataTypeId, dataSpaceId,
-                        lcplCreateIntermediateGroups, dataSetCreationPropertyListId,
-                        H5P_DEFAULT);
+                createDataSetLowLevel(fileId, dataSetName, dataTypeId, dataSpaceId,
+                        dataSetCreationPropertyListId, requestedChunkIndexOrNull);
         if (registryOrNull != null)
         {
             registryOrNull.registerCleanUp(new Runnable()
@@ -838,7 +927,7 @@ class HDF5
     }
 
     /**
-     * Returns one of: COMPACT, CHUNKED, CONTIGUOUS.
+     * Returns one of: COMPACT, CHUNKED, CONTIGUOUS, VIRTUAL.
      */
     public HDF5StorageLayout getLayout(long dataSetId, ICleanUpRegistry registry)
     {
@@ -850,12 +939,116 @@ class HDF5
         } else if (layoutId == H5D_CHUNKED)
         {
             return HDF5StorageLayout.CHUNKED;
+        } else if (layoutId == H5D_VIRTUAL)
+        {
+            return HDF5StorageLayout.VIRTUAL;
         } else
         {
             return HDF5StorageLayout.CONTIGUOUS;
         }
     }
 
+    /**
+     * Returns the mappings of the virtual data set <var>dataSetId</var>, or an empty list, if
+     * <var>dataSetId</var> is not a virtual data set.
+     */
+    public List<HDF5VirtualDataSetMapping> getVirtualDataSetMappings(long dataSetId,
+            ICleanUpRegistry registry)
+    {
+        final long dataSetCreationPropertyListId = getCreationPropertyList(dataSetId, registry);
+        if (H5Pget_layout(dataSetCreationPropertyListId) != H5D_VIRTUAL)
+        {
+            return Collections.emptyList();
+        }
+        final int count = (int) H5Pget_virtual_count(dataSetCreationPropertyListId);
+        final List<HDF5VirtualDataSetMapping> mappings =
+                new ArrayList<HDF5VirtualDataSetMapping>(count);
+        for (int i = 0; i < count; ++i)
+        {
+            final long virtualSpaceId = H5Pget_virtual_vspace(dataSetCreationPropertyListId, i);
+            registry.registerCleanUp(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        H5Sclose(virtualSpaceId);
+                    }
+                });
+            final long sourceSpaceId = H5Pget_virtual_srcspace(dataSetCreationPropertyListId, i);
+            registry.registerCleanUp(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        H5Sclose(sourceSpaceId);
+                    }
+                });
+            final long[][] virtualBlockOrNull = tryGetSelectedBlock(virtualSpaceId);
+            final long[][] sourceBlockOrNull = tryGetSelectedBlock(sourceSpaceId);
+            if (virtualBlockOrNull == null || sourceBlockOrNull == null
+                    || Arrays.equals(virtualBlockOrNull[1], sourceBlockOrNull[1]) == false)
+            {
+                throw new HDF5JavaException("Mapping " + i
+                        + " of virtual data set is not a block of equal dimensions.");
+            }
+            mappings.add(new HDF5VirtualDataSetMapping(virtualBlockOrNull[0],
+                    H5Pget_virtual_filename(dataSetCreationPropertyListId, i),
+                    H5Pget_virtual_dsetname(dataSetCreationPropertyListId, i),
+                    sourceBlockOrNull[0], virtualBlockOrNull[1]));
+        }
+        return mappings;
+    }
+
+    /**
+     * Returns the offset and the dimensions of the selection of <var>dataSpaceId</var>, or
+     * <code>null</code>, if the selection is not a single block.
+     */
+    private long[][] tryGetSelectedBlock(long dataSpaceId)
+    {
+        final int rank = H5Sget_simple_extent_ndims(dataSpaceId);
+        final long[] start = new long[rank];
+        final long[] end = new long[rank];
+        H5Sget_select_bounds(dataSpaceId, start, end);
+        final long[] blockDimensions = new long[rank];
+        long numberOfElements = 1;
+        for (int i = 0; i < rank; ++i)
+        {
+            blockDimensions[i] = end[i] - start[i] + 1;
+            numberOfElements *= blockDimensions[i];
+        }
+        if (numberOfElements != H5Sget_select_npoints(dataSpaceId))
+        {
+            return null;
+        }
+        return new long[][]
+            { start, blockDimensions };
+    }
+
+    /**
+     * Returns the offset in the file and the size (in bytes) of the data of <var>dataSetId</var>,
+     * or <code>null</code>, if the data are not stored as one unfiltered extent of the file
+     * (because the data set is chunked, compact or external, or its storage is not allocated yet).
+     */
+    public long[] tryGetContiguousFileExtent(long dataSetId, ICleanUpRegistry registry)
+    {
+        final long dataSetCreationPropertyListId = getCreationPropertyList(dataSetId, registry);
+        if (H5Pget_layout(dataSetCreationPropertyListId) != H5D_CONTIGUOUS
+                || H5Pget_nfilters(dataSetCreationPropertyListId) > 0
+                || H5Pget_external_count(dataSetCreationPropertyListId) > 0)
+        {
+            return null;
+        }
+        // The offset from the start of the file (including the user block), HADDR_UNDEF if the
+        // storage is not allocated.
+        final long offset = H5Dget_offset(dataSetId);
+        if (offset < 0)
+        {
+            return null;
+        }
+        return new long[]
+            { offset, H5Dget_storage_size(dataSetId) };
+    }
+
     private long getCreationPropertyList(long dataSetId, ICleanUpRegistry registry)
     {
         final long dataSetCreationPropertyListId = H5Dget_create_plist(dataSetId);
@@ -870,6 +1063,38 @@ class HDF5
         return dataSetCreationPropertyListId;
     }
 
+    /**
+     * Returns the maximal dimensions for a data set of <var>layout</var>, taking into account the
+     * chunk index requested in <var>features</var>: an extensible array needs exactly one unlimited
+     * dimension, a version 2 B-tree at least two, a fixed array or an implicit index need fixed
+     * dimensions.
+     */
+    private static final long[] createMaxDimensions(long[] dimensions, HDF5StorageLayout layout,
+            HDF5AbstractStorageFeatures features)
+    {
+        final HDF5ChunkIndexType chunkIndexOrNull =
+                (features == null) ? null : features.tryGetChunkIndex();
+        if (chunkIndexOrNull == HDF5ChunkIndexType.VERSION_2_BTREE && dimensions.length < 2
+                && layout == HDF5StorageLayout.CHUNKED)
+        {
+            throw new HDF5JavaException(
+                    "Version 2 B-tree chunk index requires a data set of rank 2 or more (rank="
+                            + dimensions.length + ")");
+        }
+        if (layout != HDF5StorageLayout.CHUNKED || chunkIndexOrNull == null
+                || chunkIndexOrNull == HDF5ChunkIndexType.VERSION_2_BTREE)
+        {
+            return createMaxDimensions(dimensions, (layout == HDF5StorageLayout.CHUNKED));
+        }
+        if (chunkIndexOrNull == HDF5ChunkIndexType.EXTENSIBLE_ARRAY)
+        {
+            final long[] maxDimensions = dimensions.clone();
+            maxDimensions[0] = H5S_UNLIMITED;
+            return maxDimensions;
+        }
+        return dimensions;
+    }
+
     private static final long[] createMaxDimensions(long[] dimensions, boolean unlimited)
     {
         if (unlimited == false)
@@ -896,6 +1121,122 @@ class HDF5
         H5Pset_shuffle(dscpId);
     }
 
+    private void setChunkIndex(long dscpId, HDF5AbstractStorageFeatures features)
+    {
+        assert dscpId >= 0;
+
+        if (features.tryGetChunkIndex() == HDF5ChunkIndexType.IMPLICIT)
+        {
+            if (features.isDeflating() || features.isScaling()
+                    || features.isShuffleBeforeDeflate())
+            {
+                throw new HDF5JavaException(
+                        "Implicit chunk index cannot be used with filters.");
+            }
+            // The implicit index needs all chunks to be allocated when creating the data set.
+            H5Pset_alloc_time(dscpId, H5D_ALLOC_TIME_EARLY);
+        }
+    }
+
+    /**
+     * Returns the chunk index requested in <var>features</var>, or <code>null</code>, if no chunk
+     * index is requested or the data set is not chunked.
+     */
+    private static HDF5ChunkIndexType tryGetRequestedChunkIndex(HDF5StorageLayout layout,
+            long[] chunkSizeOrNull, HDF5AbstractStorageFeatures features)
+    {
+        return (layout == HDF5StorageLayout.CHUNKED && chunkSizeOrNull != null
+                && features != null) ? features.tryGetChunkIndex() : null;
+    }
+
+    /**
+     * Creates a data set. If <var>requestedChunkIndexOrNull</var> is not <code>null</code>, the
+     * lower file format bound of <var>fileId</var> is raised to 1.10 while creating the data set,
+     * as the chunk indexes other than the version 1 B-tree are only available from this format on,
+     * and the chunk index of the new data set is checked with
+     * {@link #checkChunkIndex(long, String, long, HDF5ChunkIndexType)}.
+     */
+    private long createDataSetLowLevel(long fileId, String dataSetName, long dataTypeId,
+            long dataSpaceId, long dataSetCreationPropertyListId,
+            HDF5ChunkIndexType requestedChunkIndexOrNull)
+    {
+        if (requestedChunkIndexOrNull == null)
+        {
+            return H5Dcreate(fileId, dataSetName, dataTypeId, dataSpaceId,
+                    lcplCreateIntermediateGroups, dataSetCreationPropertyListId, H5P_DEFAULT);
+        }
+        final int[] libraryVersionBounds = getLibraryVersionBounds(fileId);
+        final long dataSetId;
+        if (libraryVersionBounds[0] >= H5F_LIBVER_V110)
+        {
+            dataSetId = H5Dcreate(fileId, dataSetName, dataTypeId, dataSpaceId,
+                    lcplCreateIntermediateGroups, dataSetCreationPropertyListId, H5P_DEFAULT);
+        } else
+        {
+            if (libraryVersionBounds[1] < H5F_LIBVER_V110)
+            {
+                throw new HDF5JavaException("Upper file version bound V1_8 is incompatible "
+                        + "with requesting a chunk index.");
+            }
+            H5Fset_libver_bounds(fileId, H5F_LIBVER_V110, libraryVersionBounds[1]);
+            try
+            {
+                dataSetId = H5Dcreate(fileId, dataSetName, dataTypeId, dataSpaceId,
+                        lcplCreateIntermediateGroups, dataSetCreationPropertyListId,
+                        H5P_DEFAULT);
+            } finally
+            {
+                H5Fset_libver_bounds(fileId, libraryVersionBounds[0], libraryVersionBounds[1]);
+            }
+        }
+        checkChunkIndex(fileId, dataSetName, dataSetId, requestedChunkIndexOrNull);
+        return dataSetId;
+    }
+
+    /**
+     * Checks that HDF5 has used the <var>requestedChunkIndex</var> for the new data set
+     * <var>dataSetId</var>. HDF5 stores a data set of fixed dimensions that fit into one chunk with
+     * a {@link HDF5ChunkIndexType#SINGLE_CHUNK} index, which is accepted in place of a
+     * {@link HDF5ChunkIndexType#FIXED_ARRAY} or an {@link HDF5ChunkIndexType#IMPLICIT} index. On
+     * any other mismatch, the data set is deleted again and an exception is thrown.
+     */
+    private void checkChunkIndex(long fileId, String dataSetName, long dataSetId,
+            HDF5ChunkIndexType requestedChunkIndex)
+    {
+        final int[] chunkIndexType = new int[1];
+        H5Dget_chunk_index_type(dataSetId, chunkIndexType);
+        final HDF5ChunkIndexType chunkIndex = HDF5ChunkIndexType.fromId(chunkIndexType[0]);
+        if (chunkIndex == requestedChunkIndex
+                || (chunkIndex == HDF5ChunkIndexType.SINGLE_CHUNK
+                        && (requestedChunkIndex == HDF5ChunkIndexType.FIXED_ARRAY
+                                || requestedChunkIndex == HDF5ChunkIndexType.IMPLICIT)))
+        {
+            return;
+        }
+        H5Dclose(dataSetId);
+        H5Ldelete(fileId, dataSetName, H5P_DEFAULT);
+        throw new HDF5JavaException("Chunk index " + requestedChunkIndex
+                + " requested for data set '" + dataSetName + "', but HDF5 used " + chunkIndex
+                + ".");
+    }
+
+    /**
+     * Returns the current lower and upper library version bounds of <var>fileId</var>.
+     */
+    private int[] getLibraryVersionBounds(long fileId)
+    {
+        final long fileAccessPropertyListId = H5Fget_access_plist(fileId);
+        try
+        {
+            final int[] libraryVersionBounds = new int[2];
+            H5Pget_libver_bounds(fileAccessPropertyListId, libraryVersionBounds);
+            return libraryVersionBounds;
+        } finally
+        {
+            H5Pclose(fileAccessPropertyListId);
+        }
+    }
+
     private void setDeflate(long dscpId, int deflateLevel)
     {
         assert dscpId >= 0;
@@ -938,6 +1279,15 @@ class HDF5
         return dataSetId;
     }
 
+    /**
+     * Re-reads the metadata of <var>dataSetId</var> from the file, e.g. to pick up dimensions
+     * extended by a SWMR writer.
+     */
+    public void refreshDataSet(long dataSetId)
+    {
+        H5Drefresh(dataSetId);
+    }
+
     public long openDataSet(long fileId, String path, ICleanUpRegistry registry)
     {
         checkMaxLength(path);
@@ -1202,6 +1552,38 @@ class HDF5
                 numericConversionXferPropertyListID, data);
     }
 
+    /**
+     * Reads into the direct <var>buffer</var>, starting at its position. The native library
+     * writes straight into the memory of the buffer, no intermediate <code>byte[]</code> is used.
+     */
+    public void readDataSet(long dataSetId, long nativeDataTypeId, long memorySpaceId,
+            long fileSpaceId, ByteBuffer buffer)
+    {
+        final int status = hdf5.H5Dread(dataSetId, nativeDataTypeId, memorySpaceId, fileSpaceId,
+                numericConversionXferPropertyListID, new BytePointer(buffer));
+        if (status < 0)
+        {
+            throw new HDF5JavaException("H5Dread into direct buffer failed (status=" + status
+                    + ")");
+        }
+    }
+
+    /**
+     * Writes from the direct <var>buffer</var>, starting at its position. The native library
+     * reads straight from the memory of the buffer, no intermediate <code>byte[]</code> is used.
+     */
+    public void writeDataSet(long dataSetId, long memoryDataTypeId, long memorySpaceId,
+            long fileSpaceId, ByteBuffer buffer)
+    {
+        final int status = hdf5.H5Dwrite(dataSetId, memoryDataTypeId, memorySpaceId, fileSpaceId,
+                H5P_DEFAULT, new BytePointer(buffer));
+        if (status < 0)
+        {
+            throw new HDF5JavaException("H5Dwrite from direct buffer failed (status=" + status
+                    + ")");
+        }
+    }
+
     public void readDataSet(long dataSetId, long nativeDataTypeId, long memorySpaceId,
             long fileSpaceId, short[] data)
     {
@@ -1446,7 +1828,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(copiedDataTypeId);
+                    closeDataType(copiedDataTypeId);
                 }
             });
         return copiedDataTypeId;
@@ -1460,7 +1842,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(dataTypeId);
+                    closeDataType(dataTypeId);
                 }
             });
         if (useUTF8CharEncoding)
@@ -1487,7 +1869,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(dataTypeId);
+                    closeDataType(dataTypeId);
                 }
             });
         H5Tset_size(dataTypeId, length);
@@ -1512,7 +1894,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(dataTypeId);
+                    closeDataType(dataTypeId);
                 }
             });
         return dataTypeId;
@@ -1531,7 +1913,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(dataTypeId);
+                    closeDataType(dataTypeId);
                 }
             });
         return dataTypeId;
@@ -1572,7 +1954,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(dataTypeId);
+                    closeDataType(dataTypeId);
                 }
             });
         switch (size)
@@ -1714,7 +2096,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(memberTypeId);
+                    closeDataType(memberTypeId);
                 }
             });
         return memberTypeId;
@@ -1757,7 +2139,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(dataTypeId);
+                    closeDataType(dataTypeId);
                 }
             });
         return dataTypeId;
@@ -1772,7 +2154,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(dataTypeId);
+                    closeDataType(dataTypeId);
                 }
             });
         H5Tset_tag(dataTypeId,
@@ -1798,12 +2180,34 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(dataTypeId);
+                    closeDataType(dataTypeId);
                 }
             });
         return dataTypeId;
     }
 
+    /**
+     * Closes the committed data type <var>dataTypeId</var> before the clean-up registered for it
+     * runs. Required for <code>H5Fstart_swmr_write()</code>, which refuses to start while committed
+     * data types are open.
+     */
+    public void closeCommittedDataType(long dataTypeId)
+    {
+        H5Tclose(dataTypeId);
+    }
+
+    /**
+     * Closes <var>dataTypeId</var>, unless it has already been closed by
+     * {@link #closeCommittedDataType(long)}.
+     */
+    private static void closeDataType(long dataTypeId)
+    {
+        if (H5Iis_valid(dataTypeId))
+        {
+            H5Tclose(dataTypeId);
+        }
+    }
+
     public boolean dataTypesAreEqual(long dataTypeId1, long dataTypeId2)
     {
         return H5Tequal(dataTypeId1, dataTypeId2);
@@ -1817,7 +2221,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(dataTypeId);
+                    closeDataType(dataTypeId);
                 }
             });
         return dataTypeId;
@@ -1831,7 +2235,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(dataTypeId);
+                    closeDataType(dataTypeId);
                 }
             });
         return dataTypeId;
@@ -1850,7 +2254,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(nativeDataTypeId);
+                    closeDataType(nativeDataTypeId);
                 }
             });
         return nativeDataTypeId;
@@ -1864,7 +2268,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(dataTypeId);
+                    closeDataType(dataTypeId);
                 }
             });
         return getNativeDataType(dataTypeId, registry);
@@ -1878,7 +2282,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(dataTypeId);
+                    closeDataType(dataTypeId);
                 }
             });
         return getNativeDataType(dataTypeId, registry);
@@ -1904,6 +2308,11 @@ class HDF5
         return H5Tget_class(dataTypeId);
     }
 
+    public boolean isLittleEndian(long dataTypeId)
+    {
+        return H5Tget_order(dataTypeId) == H5T_ORDER_LE;
+    }
+
     public CharacterEncoding getCharacterEncoding(long dataTypeId)
     {
         final int cValue = H5Tget_cset(dataTypeId);
@@ -1932,7 +2341,7 @@ class HDF5
                 @Override
                 public void run()
                 {
-                    H5Tclose(baseDataTypeId);
+                    closeDataType(baseDataTypeId);
                 }
             });
         return baseDataTypeId;
@@ -1943,6 +2352,19 @@ class HDF5
         return H5Tget_sign(dataTypeId) != H5T_SGN_NONE;
     }
 
+    /**
+     * Returns the path of <var>dataTypeId</var>, if it is an open, committed data type, or
+     * <code>null</code> otherwise.
+     */
+    public String tryGetOpenCommittedDataTypePath(long dataTypeId)
+    {
+        if (dataTypeId < 0 || H5Iis_valid(dataTypeId) == false)
+        {
+            return null;
+        }
+        return tryGetDataTypePath(dataTypeId);
+    }
+
     public String tryGetDataTypePath(long dataTypeId)
     {
         if (dataTypeId < 0 || H5Tcommitted(dataTypeId) == false)
@@ -2151,6 +2573,9 @@ class HDF5
             {
                 H5Pget_chunk(creationPropertyList, rank, chunkSizes);
                 dataSetInfo.setChunkSizes(MDAbstractArray.toInt(chunkSizes));
+                final int[] chunkIndexType = new int[1];
+                H5Dget_chunk_index_type(dataSetOrAttributeId, chunkIndexType);
+                dataSetInfo.setChunkIndexType(HDF5ChunkIndexType.fromId(chunkIndexType[0]));
             }
         }
     }
@@ -38,6 +38,9 @@ import hdf.hdf5lib.exceptions.HDF5JavaException;
  * <p>
  * For <i>scaling</i>, the scaling factor can be chosen that determines the accuracy of the values
  * saved. What exactly the scaling factor means, differs between float and integer values.
+ * <p>
+ * For chunked data sets, a {@link HDF5ChunkIndexType} can be requested, e.g. an
+ * {@link HDF5ChunkIndexType#EXTENSIBLE_ARRAY} for data sets that are appended to.
  * 
  * @author Bernd Rinn
  */
@@ -98,6 +101,8 @@ abstract class HDF5AbstractStorageFeatures
 
     private final boolean shuffleBeforeDeflate;
 
+    private final HDF5ChunkIndexType chunkIndexOrNull;
+
     public abstract static class HDF5AbstractStorageFeatureBuilder
     {
         private byte deflateLevel;
@@ -111,6 +116,8 @@ abstract class HDF5AbstractStorageFeatures
 
         private boolean shuffleBeforeDeflate;
 
+        private HDF5ChunkIndexType chunkIndexOrNull;
+
         HDF5AbstractStorageFeatureBuilder()
         {
         }
@@ -122,6 +129,7 @@ abstract class HDF5AbstractStorageFeatures
             storageLayout(template.tryGetProposedLayout());
             datasetReplacementPolicy(template.getDatasetReplacementPolicy());
             shuffleBeforeDeflate(template.isShuffleBeforeDeflate());
+            chunkIndex(template.tryGetChunkIndex());
         }
 
         byte getDeflateLevel()
@@ -149,6 +157,11 @@ abstract class HDF5AbstractStorageFeatures
             return shuffleBeforeDeflate;
         }
 
+        HDF5ChunkIndexType tryGetChunkIndex()
+        {
+            return chunkIndexOrNull;
+        }
+
         public HDF5AbstractStorageFeatureBuilder compress(boolean compress)
         {
             this.deflateLevel = compress ? DEFAULT_DEFLATION_LEVEL : NO_DEFLATION_LEVEL;
@@ -231,6 +244,19 @@ abstract class HDF5AbstractStorageFeatures
             return this;
         }
 
+        public HDF5AbstractStorageFeatureBuilder chunkIndex(HDF5ChunkIndexType chunkIndex)
+        {
+            if (chunkIndex == HDF5ChunkIndexType.BTREE
+                    || chunkIndex == HDF5ChunkIndexType.SINGLE_CHUNK
+                    || chunkIndex == HDF5ChunkIndexType.NOT_APPLICABLE)
+            {
+                throw new IllegalArgumentException("Chunk index " + chunkIndex
+                        + " cannot be requested.");
+            }
+            this.chunkIndexOrNull = chunkIndex;
+            return this;
+        }
+
         public HDF5AbstractStorageFeatureBuilder datasetReplacementPolicy(
                 @SuppressWarnings("hiding")
                 DataSetReplacementPolicy datasetReplacementPolicy)
@@ -270,6 +296,22 @@ abstract class HDF5AbstractStorageFeatures
     HDF5AbstractStorageFeatures(final HDF5StorageLayout proposedLayoutOrNull,
             final DataSetReplacementPolicy datasetReplacementPolicy,
             final boolean shuffleBeforeDeflate, final byte deflateLevel, final byte scalingFactor)
+    {
+        this(proposedLayoutOrNull, datasetReplacementPolicy, shuffleBeforeDeflate, deflateLevel,
+                scalingFactor, null);
+    }
+
+    HDF5AbstractStorageFeatures(final HDF5AbstractStorageFeatureBuilder builder)
+    {
+        this(builder.getStorageLayout(), builder.getDatasetReplacementPolicy(), builder
+                .isShuffleBeforeDeflate(), builder.getDeflateLevel(), builder.getScalingFactor(),
+                builder.tryGetChunkIndex());
+    }
+
+    HDF5AbstractStorageFeatures(final HDF5StorageLayout proposedLayoutOrNull,
+            final DataSetReplacementPolicy datasetReplacementPolicy,
+            final boolean shuffleBeforeDeflate, final byte deflateLevel, final byte scalingFactor,
+            final HDF5ChunkIndexType chunkIndexOrNull)
     {
         if (deflateLevel < 0)
         {
@@ -280,6 +322,7 @@ abstract class HDF5AbstractStorageFeatures
         this.shuffleBeforeDeflate = shuffleBeforeDeflate;
         this.deflateLevel = deflateLevel;
         this.scalingFactor = scalingFactor;
+        this.chunkIndexOrNull = chunkIndexOrNull;
     }
 
     /**
@@ -305,9 +348,19 @@ abstract class HDF5AbstractStorageFeatures
         return datasetReplacementPolicy;
     }
 
+    /**
+     * Returns the requested chunk index, or <code>null</code>, if the HDF5 library should choose
+     * the chunk index based on the file format bounds.
+     */
+    public HDF5ChunkIndexType tryGetChunkIndex()
+    {
+        return chunkIndexOrNull;
+    }
+
     boolean requiresChunking()
     {
-        return isDeflating() || isScaling() || proposedLayoutOrNull == HDF5StorageLayout.CHUNKED;
+        return isDeflating() || isScaling() || proposedLayoutOrNull == HDF5StorageLayout.CHUNKED
+                || chunkIndexOrNull != null;
     }
 
     boolean allowsCompact()
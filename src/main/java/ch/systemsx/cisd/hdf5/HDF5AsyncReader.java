@@ -0,0 +1,869 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ch.systemsx.cisd.hdf5;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import hdf.hdf5lib.exceptions.HDF5JavaException;
+import ch.systemsx.cisd.base.mdarray.MDByteArray;
+import ch.systemsx.cisd.base.mdarray.MDDoubleArray;
+import ch.systemsx.cisd.base.mdarray.MDFloatArray;
+import ch.systemsx.cisd.base.mdarray.MDIntArray;
+import ch.systemsx.cisd.base.mdarray.MDLongArray;
+import ch.systemsx.cisd.base.mdarray.MDShortArray;
+
+/**
+ * The implementation of {@link IHDF5AsyncReader}.
+ */
+final class HDF5AsyncReader implements IHDF5AsyncReader
+{
+    /**
+     * The maximal number of elements read by one combined block read.
+     */
+    static final int MAX_COMBINED_BLOCK_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Reads blocks of rank 1 arrays of one element type.
+     */
+    static abstract class BlockType<A>
+    {
+        abstract A read(IHDF5Reader reader, String objectPath, int blockSize, long offset);
+
+        abstract int length(A array);
+
+        abstract A copyOfRange(A array, int from, int to);
+    }
+
+    static final BlockType<byte[]> BYTE = new BlockType<byte[]>()
+        {
+            @Override
+            byte[] read(IHDF5Reader reader, String objectPath, int blockSize, long offset)
+            {
+                return reader.int8().readArrayBlockWithOffset(objectPath, blockSize, offset);
+            }
+
+            @Override
+            int length(byte[] array)
+            {
+                return array.length;
+            }
+
+            @Override
+            byte[] copyOfRange(byte[] array, int from, int to)
+            {
+                return Arrays.copyOfRange(array, from, to);
+            }
+        };
+
+    static final BlockType<short[]> SHORT = new BlockType<short[]>()
+        {
+            @Override
+            short[] read(IHDF5Reader reader, String objectPath, int blockSize, long offset)
+            {
+                return reader.int16().readArrayBlockWithOffset(objectPath, blockSize, offset);
+            }
+
+            @Override
+            int length(short[] array)
+            {
+                return array.length;
+            }
+
+            @Override
+            short[] copyOfRange(short[] array, int from, int to)
+            {
+                return Arrays.copyOfRange(array, from, to);
+            }
+        };
+
+    static final BlockType<int[]> INT = new BlockType<int[]>()
+        {
+            @Override
+            int[] read(IHDF5Reader reader, String objectPath, int blockSize, long offset)
+            {
+                return reader.int32().readArrayBlockWithOffset(objectPath, blockSize, offset);
+            }
+
+            @Override
+            int length(int[] array)
+            {
+                return array.length;
+            }
+
+            @Override
+            int[] copyOfRange(int[] array, int from, int to)
+            {
+                return Arrays.copyOfRange(array, from, to);
+            }
+        };
+
+    static final BlockType<long[]> LONG = new BlockType<long[]>()
+        {
+            @Override
+            long[] read(IHDF5Reader reader, String objectPath, int blockSize, long offset)
+            {
+                return reader.int64().readArrayBlockWithOffset(objectPath, blockSize, offset);
+            }
+
+            @Override
+            int length(long[] array)
+            {
+                return array.length;
+            }
+
+            @Override
+            long[] copyOfRange(long[] array, int from, int to)
+            {
+                return Arrays.copyOfRange(array, from, to);
+            }
+        };
+
+    static final BlockType<float[]> FLOAT = new BlockType<float[]>()
+        {
+            @Override
+            float[] read(IHDF5Reader reader, String objectPath, int blockSize, long offset)
+            {
+                return reader.float32().readArrayBlockWithOffset(objectPath, blockSize, offset);
+            }
+
+            @Override
+            int length(float[] array)
+            {
+                return array.length;
+            }
+
+            @Override
+            float[] copyOfRange(float[] array, int from, int to)
+            {
+                return Arrays.copyOfRange(array, from, to);
+            }
+        };
+
+    static final BlockType<double[]> DOUBLE = new BlockType<double[]>()
+        {
+            @Override
+            double[] read(IHDF5Reader reader, String objectPath, int blockSize, long offset)
+            {
+                return reader.float64().readArrayBlockWithOffset(objectPath, blockSize, offset);
+            }
+
+            @Override
+            int length(double[] array)
+            {
+                return array.length;
+            }
+
+            @Override
+            double[] copyOfRange(double[] array, int from, int to)
+            {
+                return Arrays.copyOfRange(array, from, to);
+            }
+        };
+
+    /**
+     * A queued request. Requests are ordered by descending priority, then by submission.
+     */
+    static abstract class Request implements Comparable<Request>
+    {
+        final int priority;
+
+        final long sequenceNumber;
+
+        Request(int priority, long sequenceNumber)
+        {
+            this.priority = priority;
+            this.sequenceNumber = sequenceNumber;
+        }
+
+        abstract void fail(Throwable th);
+
+        @Override
+        public int compareTo(Request o)
+        {
+            if (priority != o.priority)
+            {
+                return (priority > o.priority) ? -1 : 1;
+            }
+            return Long.compare(sequenceNumber, o.sequenceNumber);
+        }
+    }
+
+    static final class CallableRequest<T> extends Request
+    {
+        final IHDF5ReaderCallable<T> callable;
+
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+
+        CallableRequest(IHDF5ReaderCallable<T> callable, int priority, long sequenceNumber)
+        {
+            super(priority, sequenceNumber);
+            this.callable = callable;
+        }
+
+        void run(IHDF5Reader reader)
+        {
+            try
+            {
+                future.complete(callable.call(reader));
+            } catch (Throwable th)
+            {
+                future.completeExceptionally(th);
+            }
+        }
+
+        @Override
+        void fail(Throwable th)
+        {
+            future.completeExceptionally(th);
+        }
+    }
+
+    static final class BlockRequest<A> extends Request
+    {
+        final BlockType<A> type;
+
+        final String objectPath;
+
+        final int blockSize;
+
+        final long offset;
+
+        final CompletableFuture<A> future = new CompletableFuture<A>();
+
+        BlockRequest(BlockType<A> type, String objectPath, int blockSize, long offset,
+                int priority, long sequenceNumber)
+        {
+            super(priority, sequenceNumber);
+            this.type = type;
+            this.objectPath = objectPath;
+            this.blockSize = blockSize;
+            this.offset = offset;
+        }
+
+        long end()
+        {
+            return offset + blockSize;
+        }
+
+        boolean isCombinableWith(BlockRequest<?> other)
+        {
+            return type == other.type && objectPath.equals(other.objectPath);
+        }
+
+        void run(IHDF5Reader reader)
+        {
+            try
+            {
+                future.complete(type.read(reader, objectPath, blockSize, offset));
+            } catch (Throwable th)
+            {
+                future.completeExceptionally(th);
+            }
+        }
+
+        @Override
+        void fail(Throwable th)
+        {
+            future.completeExceptionally(th);
+        }
+    }
+
+    private static final Comparator<BlockRequest<?>> OFFSET_COMPARATOR =
+            new Comparator<BlockRequest<?>>()
+                {
+                    @Override
+                    public int compare(BlockRequest<?> o1, BlockRequest<?> o2)
+                    {
+                        return Long.compare(o1.offset, o2.offset);
+                    }
+                };
+
+    /**
+     * The queue of requests and the I/O thread working it off. Shared by all priority views of
+     * an asynchronous reader.
+     */
+    static final class Dispatcher implements Runnable
+    {
+        private final IHDF5Reader reader;
+
+        private final PriorityBlockingQueue<Request> queue = new PriorityBlockingQueue<Request>();
+
+        private final AtomicLong sequenceNumbers = new AtomicLong();
+
+        private final Thread thread;
+
+        private volatile boolean closed;
+
+        Dispatcher(IHDF5Reader reader)
+        {
+            this.reader = reader;
+            this.thread =
+                    new Thread(this, "HDF5 Async Reader (" + reader.file().getFile().getName()
+                            + ")");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        <T> CompletableFuture<T> submit(IHDF5ReaderCallable<T> callable, int priority)
+        {
+            final CallableRequest<T> request =
+                    new CallableRequest<T>(callable, priority,
+                            sequenceNumbers.getAndIncrement());
+            enqueue(request);
+            return request.future;
+        }
+
+        <A> CompletableFuture<A> submitBlock(BlockType<A> type, String objectPath,
+                int blockSize, long offset, int priority)
+        {
+            final BlockRequest<A> request =
+                    new BlockRequest<A>(type, objectPath, blockSize, offset, priority,
+                            sequenceNumbers.getAndIncrement());
+            enqueue(request);
+            return request.future;
+        }
+
+        private void enqueue(Request request)
+        {
+            if (closed)
+            {
+                request.fail(createClosedException());
+                return;
+            }
+            queue.add(request);
+            // close() may have drained the queue before the request got added.
+            if (closed && queue.remove(request))
+            {
+                request.fail(createClosedException());
+            }
+        }
+
+        private HDF5JavaException createClosedException()
+        {
+            return new HDF5JavaException("HDF5 file '" + reader.file().getFile().getPath()
+                    + "' is closed.");
+        }
+
+        @Override
+        public void run()
+        {
+            while (closed == false)
+            {
+                final Request request;
+                try
+                {
+                    request = queue.take();
+                } catch (InterruptedException ex)
+                {
+                    continue;
+                }
+                if (request instanceof BlockRequest)
+                {
+                    runBlockRequests((BlockRequest<?>) request);
+                } else
+                {
+                    ((CallableRequest<?>) request).run(reader);
+                }
+            }
+        }
+
+        /**
+         * Runs <var>first</var> together with all queued requests for adjacent or overlapping
+         * blocks of the same data set, using one read.
+         */
+        private <A> void runBlockRequests(BlockRequest<A> first)
+        {
+            final List<BlockRequest<A>> batch = collectBatch(first);
+            if (batch.size() == 1)
+            {
+                first.run(reader);
+                return;
+            }
+            final long start = batch.get(0).offset;
+            long end = start;
+            for (BlockRequest<A> request : batch)
+            {
+                end = Math.max(end, request.end());
+            }
+            final int size = (int) (end - start);
+            A data = null;
+            try
+            {
+                data = first.type.read(reader, first.objectPath, size, start);
+            } catch (RuntimeException ex)
+            {
+                // Fall through: the requests are run one by one, so that each gets its own
+                // result or error.
+            }
+            for (BlockRequest<A> request : batch)
+            {
+                if (data != null && first.type.length(data) == size)
+                {
+                    final int from = (int) (request.offset - start);
+                    request.future.complete(first.type.copyOfRange(data, from, from
+                            + request.blockSize));
+                } else
+                {
+                    request.run(reader);
+                }
+            }
+        }
+
+        /**
+         * Removes the queued requests that can be combined with <var>first</var> from the queue
+         * and returns them, together with <var>first</var>, ordered by offset.
+         */
+        @SuppressWarnings("unchecked")
+        private <A> List<BlockRequest<A>> collectBatch(BlockRequest<A> first)
+        {
+            final List<BlockRequest<A>> candidates = new ArrayList<BlockRequest<A>>();
+            for (Request request : queue)
+            {
+                if (request instanceof BlockRequest
+                        && first.isCombinableWith((BlockRequest<?>) request))
+                {
+                    // Same block type implies same array type.
+                    candidates.add((BlockRequest<A>) request);
+                }
+            }
+            if (candidates.isEmpty())
+            {
+                return Collections.singletonList(first);
+            }
+            candidates.add(first);
+            Collections.sort(candidates, OFFSET_COMPARATOR);
+            final int index = candidates.indexOf(first);
+            long start = first.offset;
+            long end = first.end();
+            int lo = index;
+            int hi = index;
+            while (hi + 1 < candidates.size())
+            {
+                final BlockRequest<A> next = candidates.get(hi + 1);
+                final long newEnd = Math.max(end, next.end());
+                if (next.offset > end || newEnd - start > MAX_COMBINED_BLOCK_SIZE)
+                {
+                    break;
+                }
+                end = newEnd;
+                ++hi;
+            }
+            while (lo > 0)
+            {
+                final BlockRequest<A> previous = candidates.get(lo - 1);
+                if (previous.end() < start || end - previous.offset > MAX_COMBINED_BLOCK_SIZE)
+                {
+                    break;
+                }
+                start = previous.offset;
+                end = Math.max(end, previous.end());
+                --lo;
+            }
+            final List<BlockRequest<A>> batch =
+                    new ArrayList<BlockRequest<A>>(candidates.subList(lo, hi + 1));
+            for (BlockRequest<A> request : batch)
+            {
+                if (request != first && queue.remove(request) == false)
+                {
+                    // Cannot happen as long as there is only one I/O thread.
+                    throw new IllegalStateException("Request has been dequeued concurrently.");
+                }
+            }
+            return batch;
+        }
+
+        /**
+         * Stops accepting requests, fails all queued requests and waits for the I/O thread to
+         * finish the request in progress, if any. Needs to be called before the file is closed.
+         */
+        void close()
+        {
+            closed = true;
+            final List<Request> pending = new ArrayList<Request>();
+            queue.drainTo(pending);
+            for (Request request : pending)
+            {
+                request.fail(createClosedException());
+            }
+            // Wakes up the I/O thread if it waits for a request. It isn't interrupted, as that
+            // would break a request in progress which uses interruptible I/O.
+            queue.add(new CallableRequest<Void>(new IHDF5ReaderCallable<Void>()
+                {
+                    @Override
+                    public Void call(IHDF5Reader r)
+                    {
+                        return null;
+                    }
+                }, Integer.MIN_VALUE, sequenceNumbers.getAndIncrement()));
+            if (Thread.currentThread() == thread)
+            {
+                // Closed by a request, the thread ends after this request.
+                return;
+            }
+            boolean interrupted = false;
+            while (thread.isAlive())
+            {
+                try
+                {
+                    thread.join();
+                } catch (InterruptedException ex)
+                {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private final Dispatcher dispatcher;
+
+    private final int priority;
+
+    HDF5AsyncReader(IHDF5Reader reader)
+    {
+        this(new Dispatcher(reader), 0);
+    }
+
+    private HDF5AsyncReader(Dispatcher dispatcher, int priority)
+    {
+        this.dispatcher = dispatcher;
+        this.priority = priority;
+    }
+
+    void close()
+    {
+        dispatcher.close();
+    }
+
+    @Override
+    public IHDF5AsyncReader withPriority(int newPriority)
+    {
+        return (newPriority == priority) ? this : new HDF5AsyncReader(dispatcher, newPriority);
+    }
+
+    @Override
+    public int getPriority()
+    {
+        return priority;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(IHDF5ReaderCallable<T> callable)
+    {
+        return dispatcher.submit(callable, priority);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> readByteArray(final String objectPath)
+    {
+        return submit(new IHDF5ReaderCallable<byte[]>()
+            {
+                @Override
+                public byte[] call(IHDF5Reader reader)
+                {
+                    return reader.int8().readArray(objectPath);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<byte[]> readByteArrayBlockWithOffset(String objectPath,
+            int blockSize, long offset)
+    {
+        return dispatcher.submitBlock(BYTE, objectPath, blockSize, offset, priority);
+    }
+
+    @Override
+    public CompletableFuture<MDByteArray> readByteMDArray(final String objectPath)
+    {
+        return submit(new IHDF5ReaderCallable<MDByteArray>()
+            {
+                @Override
+                public MDByteArray call(IHDF5Reader reader)
+                {
+                    return reader.int8().readMDArray(objectPath);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<MDByteArray> readByteMDArrayBlockWithOffset(final String objectPath,
+            final int[] blockDimensions, final long[] offset)
+    {
+        return submit(new IHDF5ReaderCallable<MDByteArray>()
+            {
+                @Override
+                public MDByteArray call(IHDF5Reader reader)
+                {
+                    return reader.int8().readMDArrayBlockWithOffset(objectPath,
+                            blockDimensions, offset);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<short[]> readShortArray(final String objectPath)
+    {
+        return submit(new IHDF5ReaderCallable<short[]>()
+            {
+                @Override
+                public short[] call(IHDF5Reader reader)
+                {
+                    return reader.int16().readArray(objectPath);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<short[]> readShortArrayBlockWithOffset(String objectPath,
+            int blockSize, long offset)
+    {
+        return dispatcher.submitBlock(SHORT, objectPath, blockSize, offset, priority);
+    }
+
+    @Override
+    public CompletableFuture<MDShortArray> readShortMDArray(final String objectPath)
+    {
+        return submit(new IHDF5ReaderCallable<MDShortArray>()
+            {
+                @Override
+                public MDShortArray call(IHDF5Reader reader)
+                {
+                    return reader.int16().readMDArray(objectPath);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<MDShortArray> readShortMDArrayBlockWithOffset(final String objectPath,
+            final int[] blockDimensions, final long[] offset)
+    {
+        return submit(new IHDF5ReaderCallable<MDShortArray>()
+            {
+                @Override
+                public MDShortArray call(IHDF5Reader reader)
+                {
+                    return reader.int16().readMDArrayBlockWithOffset(objectPath,
+                            blockDimensions, offset);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<int[]> readIntArray(final String objectPath)
+    {
+        return submit(new IHDF5ReaderCallable<int[]>()
+            {
+                @Override
+                public int[] call(IHDF5Reader reader)
+                {
+                    return reader.int32().readArray(objectPath);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<int[]> readIntArrayBlockWithOffset(String objectPath,
+            int blockSize, long offset)
+    {
+        return dispatcher.submitBlock(INT, objectPath, blockSize, offset, priority);
+    }
+
+    @Override
+    public CompletableFuture<MDIntArray> readIntMDArray(final String objectPath)
+    {
+        return submit(new IHDF5ReaderCallable<MDIntArray>()
+            {
+                @Override
+                public MDIntArray call(IHDF5Reader reader)
+                {
+                    return reader.int32().readMDArray(objectPath);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<MDIntArray> readIntMDArrayBlockWithOffset(final String objectPath,
+            final int[] blockDimensions, final long[] offset)
+    {
+        return submit(new IHDF5ReaderCallable<MDIntArray>()
+            {
+                @Override
+                public MDIntArray call(IHDF5Reader reader)
+                {
+                    return reader.int32().readMDArrayBlockWithOffset(objectPath,
+                            blockDimensions, offset);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<long[]> readLongArray(final String objectPath)
+    {
+        return submit(new IHDF5ReaderCallable<long[]>()
+            {
+                @Override
+                public long[] call(IHDF5Reader reader)
+                {
+                    return reader.int64().readArray(objectPath);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<long[]> readLongArrayBlockWithOffset(String objectPath,
+            int blockSize, long offset)
+    {
+        return dispatcher.submitBlock(LONG, objectPath, blockSize, offset, priority);
+    }
+
+    @Override
+    public CompletableFuture<MDLongArray> readLongMDArray(final String objectPath)
+    {
+        return submit(new IHDF5ReaderCallable<MDLongArray>()
+            {
+                @Override
+                public MDLongArray call(IHDF5Reader reader)
+                {
+                    return reader.int64().readMDArray(objectPath);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<MDLongArray> readLongMDArrayBlockWithOffset(final String objectPath,
+            final int[] blockDimensions, final long[] offset)
+    {
+        return submit(new IHDF5ReaderCallable<MDLongArray>()
+            {
+                @Override
+                public MDLongArray call(IHDF5Reader reader)
+                {
+                    return reader.int64().readMDArrayBlockWithOffset(objectPath,
+                            blockDimensions, offset);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<float[]> readFloatArray(final String objectPath)
+    {
+        return submit(new IHDF5ReaderCallable<float[]>()
+            {
+                @Override
+                public float[] call(IHDF5Reader reader)
+                {
+                    return reader.float32().readArray(objectPath);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<float[]> readFloatArrayBlockWithOffset(String objectPath,
+            int blockSize, long offset)
+    {
+        return dispatcher.submitBlock(FLOAT, objectPath, blockSize, offset, priority);
+    }
+
+    @Override
+    public CompletableFuture<MDFloatArray> readFloatMDArray(final String objectPath)
+    {
+        return submit(new IHDF5ReaderCallable<MDFloatArray>()
+            {
+                @Override
+                public MDFloatArray call(IHDF5Reader reader)
+                {
+                    return reader.float32().readMDArray(objectPath);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<MDFloatArray> readFloatMDArrayBlockWithOffset(final String objectPath,
+            final int[] blockDimensions, final long[] offset)
+    {
+        return submit(new IHDF5ReaderCallable<MDFloatArray>()
+            {
+                @Override
+                public MDFloatArray call(IHDF5Reader reader)
+                {
+                    return reader.float32().readMDArrayBlockWithOffset(objectPath,
+                            blockDimensions, offset);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<double[]> readDoubleArray(final String objectPath)
+    {
+        return submit(new IHDF5ReaderCallable<double[]>()
+            {
+                @Override
+                public double[] call(IHDF5Reader reader)
+                {
+                    return reader.float64().readArray(objectPath);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<double[]> readDoubleArrayBlockWithOffset(String objectPath,
+            int blockSize, long offset)
+    {
+        return dispatcher.submitBlock(DOUBLE, objectPath, blockSize, offset, priority);
+    }
+
+    @Override
+    public CompletableFuture<MDDoubleArray> readDoubleMDArray(final String objectPath)
+    {
+        return submit(new IHDF5ReaderCallable<MDDoubleArray>()
+            {
+                @Override
+                public MDDoubleArray call(IHDF5Reader reader)
+                {
+                    return reader.float64().readMDArray(objectPath);
+                }
+            });
+    }
+
+    @Override
+    public CompletableFuture<MDDoubleArray> readDoubleMDArrayBlockWithOffset(final String objectPath,
+            final int[] blockDimensions, final long[] offset)
+    {
+        return submit(new IHDF5ReaderCallable<MDDoubleArray>()
+            {
+                @Override
+                public MDDoubleArray call(IHDF5Reader reader)
+                {
+                    return reader.float64().readMDArrayBlockWithOffset(objectPath,
+                            blockDimensions, offset);
+                }
+            });
+    }
+
+}
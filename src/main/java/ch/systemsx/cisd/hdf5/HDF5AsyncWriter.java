@@ -0,0 +1,786 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ch.systemsx.cisd.hdf5;
+
+import java.io.Flushable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import hdf.hdf5lib.exceptions.HDF5JavaException;
+import ch.systemsx.cisd.base.mdarray.MDByteArray;
+import ch.systemsx.cisd.base.mdarray.MDDoubleArray;
+import ch.systemsx.cisd.base.mdarray.MDFloatArray;
+import ch.systemsx.cisd.base.mdarray.MDIntArray;
+import ch.systemsx.cisd.base.mdarray.MDLongArray;
+import ch.systemsx.cisd.base.mdarray.MDShortArray;
+
+/**
+ * The implementation of {@link IHDF5AsyncWriter}.
+ * <p>
+ * Operations are applied while holding the lock of the file, one at a time. Flushing or closing
+ * the file takes that lock, too, and applies the operations still queued on the calling thread,
+ * so they are applied in order and before the file is flushed. Other calls of the writer don't
+ * take that lock, which is why mixing them with queued operations is not supported.
+ */
+final class HDF5AsyncWriter implements IHDF5AsyncWriter, Flushable, Runnable
+{
+    static final long DEFAULT_MAX_QUEUED_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * The maximal number of elements written by one combined block write.
+     */
+    static final int MAX_COMBINED_BLOCK_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Writes blocks of rank 1 arrays of one element type.
+     */
+    static abstract class BlockType<A>
+    {
+        final int elementSize;
+
+        BlockType(int elementSize)
+        {
+            this.elementSize = elementSize;
+        }
+
+        abstract void write(IHDF5Writer writer, String objectPath, A data, int dataSize,
+                long offset);
+
+        abstract A newArray(int size);
+    }
+
+    static final BlockType<byte[]> BYTE = new BlockType<byte[]>(Byte.BYTES)
+        {
+            @Override
+            void write(IHDF5Writer writer, String objectPath, byte[] data, int dataSize,
+                    long offset)
+            {
+                writer.int8().writeArrayBlockWithOffset(objectPath, data, dataSize, offset);
+            }
+
+            @Override
+            byte[] newArray(int size)
+            {
+                return new byte[size];
+            }
+        };
+
+    static final BlockType<short[]> SHORT = new BlockType<short[]>(Short.BYTES)
+        {
+            @Override
+            void write(IHDF5Writer writer, String objectPath, short[] data, int dataSize,
+                    long offset)
+            {
+                writer.int16().writeArrayBlockWithOffset(objectPath, data, dataSize, offset);
+            }
+
+            @Override
+            short[] newArray(int size)
+            {
+                return new short[size];
+            }
+        };
+
+    static final BlockType<int[]> INT = new BlockType<int[]>(Integer.BYTES)
+        {
+            @Override
+            void write(IHDF5Writer writer, String objectPath, int[] data, int dataSize,
+                    long offset)
+            {
+                writer.int32().writeArrayBlockWithOffset(objectPath, data, dataSize, offset);
+            }
+
+            @Override
+            int[] newArray(int size)
+            {
+                return new int[size];
+            }
+        };
+
+    static final BlockType<long[]> LONG = new BlockType<long[]>(Long.BYTES)
+        {
+            @Override
+            void write(IHDF5Writer writer, String objectPath, long[] data, int dataSize,
+                    long offset)
+            {
+                writer.int64().writeArrayBlockWithOffset(objectPath, data, dataSize, offset);
+            }
+
+            @Override
+            long[] newArray(int size)
+            {
+                return new long[size];
+            }
+        };
+
+    static final BlockType<float[]> FLOAT = new BlockType<float[]>(Float.BYTES)
+        {
+            @Override
+            void write(IHDF5Writer writer, String objectPath, float[] data, int dataSize,
+                    long offset)
+            {
+                writer.float32().writeArrayBlockWithOffset(objectPath, data, dataSize, offset);
+            }
+
+            @Override
+            float[] newArray(int size)
+            {
+                return new float[size];
+            }
+        };
+
+    static final BlockType<double[]> DOUBLE = new BlockType<double[]>(Double.BYTES)
+        {
+            @Override
+            void write(IHDF5Writer writer, String objectPath, double[] data, int dataSize,
+                    long offset)
+            {
+                writer.float64().writeArrayBlockWithOffset(objectPath, data, dataSize, offset);
+            }
+
+            @Override
+            double[] newArray(int size)
+            {
+                return new double[size];
+            }
+        };
+
+    static abstract class Operation
+    {
+        final long bytes;
+
+        Operation(long bytes)
+        {
+            this.bytes = bytes;
+        }
+
+        abstract void run(IHDF5Writer writer);
+    }
+
+    static final class RunnableOperation extends Operation
+    {
+        final IHDF5WriterRunnable runnable;
+
+        RunnableOperation(IHDF5WriterRunnable runnable, long bytes)
+        {
+            super(bytes);
+            this.runnable = runnable;
+        }
+
+        @Override
+        void run(IHDF5Writer writer)
+        {
+            runnable.run(writer);
+        }
+    }
+
+    static final class BlockWrite<A> extends Operation
+    {
+        final BlockType<A> type;
+
+        final String objectPath;
+
+        final A data;
+
+        final int dataSize;
+
+        final long offset;
+
+        BlockWrite(BlockType<A> type, String objectPath, A data, int dataSize, long offset)
+        {
+            super((long) dataSize * type.elementSize);
+            this.type = type;
+            this.objectPath = objectPath;
+            this.data = data;
+            this.dataSize = dataSize;
+            this.offset = offset;
+        }
+
+        /**
+         * Returns <code>true</code>, if <var>next</var> writes to the same data set, right after
+         * this block.
+         */
+        boolean isFollowedBy(Operation next)
+        {
+            if (next instanceof BlockWrite == false)
+            {
+                return false;
+            }
+            final BlockWrite<?> nextBlock = (BlockWrite<?>) next;
+            return type == nextBlock.type && objectPath.equals(nextBlock.objectPath)
+                    && offset + dataSize == nextBlock.offset;
+        }
+
+        @Override
+        void run(IHDF5Writer writer)
+        {
+            type.write(writer, objectPath, data, dataSize, offset);
+        }
+    }
+
+    /**
+     * Writes <var>blocks</var>, which follow each other in the same data set, with one call.
+     */
+    private static <A> void writeCombined(IHDF5Writer writer, List<BlockWrite<A>> blocks)
+    {
+        final BlockWrite<A> first = blocks.get(0);
+        int size = 0;
+        for (BlockWrite<A> block : blocks)
+        {
+            size += block.dataSize;
+        }
+        final A combined = first.type.newArray(size);
+        int pos = 0;
+        for (BlockWrite<A> block : blocks)
+        {
+            System.arraycopy(block.data, 0, combined, pos, block.dataSize);
+            pos += block.dataSize;
+        }
+        first.type.write(writer, first.objectPath, combined, size, first.offset);
+    }
+
+    private final IHDF5Writer writer;
+
+    private final Object fileLock;
+
+    private final ArrayDeque<Operation> queue = new ArrayDeque<Operation>();
+
+    private final Thread thread;
+
+    private long maxQueuedBytes = DEFAULT_MAX_QUEUED_BYTES;
+
+    private long queuedBytes;
+
+    private Throwable errorOrNull;
+
+    private boolean closed;
+
+    /**
+     * Creates the asynchronous writer for <var>writer</var>. Flushing and closing the file
+     * synchronize on <var>fileLock</var>.
+     */
+    HDF5AsyncWriter(IHDF5Writer writer, Object fileLock)
+    {
+        this.writer = writer;
+        this.fileLock = fileLock;
+        this.thread =
+                new Thread(this, "HDF5 Write-Behind (" + writer.file().getFile().getName() + ")");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public long getMaxQueuedBytes()
+    {
+        synchronized (queue)
+        {
+            return maxQueuedBytes;
+        }
+    }
+
+    @Override
+    public void setMaxQueuedBytes(long maxQueuedBytes)
+    {
+        if (maxQueuedBytes <= 0)
+        {
+            throw new IllegalArgumentException("Invalid maximal number of queued bytes "
+                    + maxQueuedBytes);
+        }
+        synchronized (queue)
+        {
+            this.maxQueuedBytes = maxQueuedBytes;
+            queue.notifyAll();
+        }
+    }
+
+    @Override
+    public long getQueuedBytes()
+    {
+        synchronized (queue)
+        {
+            return queuedBytes;
+        }
+    }
+
+    @Override
+    public void flush()
+    {
+        synchronized (fileLock)
+        {
+            while (runNext())
+            {
+                // Apply all queued operations.
+            }
+        }
+        checkError();
+    }
+
+    @Override
+    public void execute(IHDF5WriterRunnable runnable)
+    {
+        enqueue(new RunnableOperation(runnable, 0L));
+    }
+
+    private void enqueue(Operation operation)
+    {
+        checkError();
+        synchronized (queue)
+        {
+            // An operation larger than the limit gets in when the queue is empty.
+            while (closed == false && queuedBytes > 0
+                    && queuedBytes + operation.bytes > maxQueuedBytes)
+            {
+                try
+                {
+                    queue.wait();
+                } catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new HDF5JavaException("Interrupted while waiting for queued writes.");
+                }
+            }
+            if (closed)
+            {
+                throw new HDF5JavaException("HDF5 file '" + writer.file().getFile().getPath()
+                        + "' is closed.");
+            }
+            queue.addLast(operation);
+            queuedBytes += operation.bytes;
+            queue.notifyAll();
+        }
+    }
+
+    /**
+     * Throws (and clears) the error of the first operation that has failed.
+     */
+    private void checkError()
+    {
+        final Throwable error;
+        synchronized (queue)
+        {
+            error = errorOrNull;
+            errorOrNull = null;
+        }
+        if (error instanceof Error)
+        {
+            throw (Error) error;
+        } else if (error != null)
+        {
+            throw (RuntimeException) error;
+        }
+    }
+
+    /**
+     * Applies the next queued operation, combining it with the block writes that follow it. The
+     * caller needs to hold the file lock.
+     * 
+     * @return <code>false</code>, if the queue was empty.
+     */
+    @SuppressWarnings(
+        { "unchecked", "rawtypes" })
+    private boolean runNext()
+    {
+        final List<Operation> operations = new ArrayList<Operation>();
+        synchronized (queue)
+        {
+            final Operation operation = queue.pollFirst();
+            if (operation == null)
+            {
+                return false;
+            }
+            operations.add(operation);
+            if (operation instanceof BlockWrite)
+            {
+                BlockWrite<?> last = (BlockWrite<?>) operation;
+                long size = last.dataSize;
+                while (last.isFollowedBy(queue.peekFirst()))
+                {
+                    final BlockWrite<?> next = (BlockWrite<?>) queue.peekFirst();
+                    if (size + next.dataSize > MAX_COMBINED_BLOCK_SIZE)
+                    {
+                        break;
+                    }
+                    queue.pollFirst();
+                    size += next.dataSize;
+                    operations.add(next);
+                    last = next;
+                }
+            }
+        }
+        long bytes = 0;
+        try
+        {
+            if (operations.size() == 1)
+            {
+                operations.get(0).run(writer);
+            } else
+            {
+                // All are block writes of the same type.
+                writeCombined(writer, (List) operations);
+            }
+        } catch (Throwable th)
+        {
+            synchronized (queue)
+            {
+                if (errorOrNull == null)
+                {
+                    errorOrNull = th;
+                }
+            }
+        } finally
+        {
+            for (Operation operation : operations)
+            {
+                bytes += operation.bytes;
+            }
+            synchronized (queue)
+            {
+                queuedBytes -= bytes;
+                queue.notifyAll();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void run()
+    {
+        while (true)
+        {
+            synchronized (queue)
+            {
+                while (queue.isEmpty() && closed == false)
+                {
+                    try
+                    {
+                        queue.wait();
+                    } catch (InterruptedException ex)
+                    {
+                        // Check again.
+                    }
+                }
+                if (queue.isEmpty())
+                {
+                    return;
+                }
+            }
+            // One operation at a time, so that flushing the file isn't held off.
+            synchronized (fileLock)
+            {
+                runNext();
+            }
+        }
+    }
+
+    /**
+     * Stops the writing thread. To be called after the file has been flushed, i.e. when the queue
+     * is empty.
+     */
+    void close()
+    {
+        synchronized (queue)
+        {
+            closed = true;
+            queue.notifyAll();
+        }
+    }
+
+    @Override
+    public void writeByteArray(final String objectPath, final byte[] data)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.int8().writeArray(objectPath, data);
+                }
+            }, (long) data.length * Byte.BYTES));
+    }
+
+    @Override
+    public void writeByteArrayBlockWithOffset(String objectPath, byte[] data, int dataSize,
+            long offset)
+    {
+        enqueue(new BlockWrite<byte[]>(BYTE, objectPath, data, dataSize, offset));
+    }
+
+    @Override
+    public void writeByteMDArray(final String objectPath, final MDByteArray data)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.int8().writeMDArray(objectPath, data);
+                }
+            }, (long) data.size() * Byte.BYTES));
+    }
+
+    @Override
+    public void writeByteMDArrayBlockWithOffset(final String objectPath,
+            final MDByteArray data, final long[] offset)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.int8().writeMDArrayBlockWithOffset(objectPath, data, offset);
+                }
+            }, (long) data.size() * Byte.BYTES));
+    }
+
+    @Override
+    public void writeShortArray(final String objectPath, final short[] data)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.int16().writeArray(objectPath, data);
+                }
+            }, (long) data.length * Short.BYTES));
+    }
+
+    @Override
+    public void writeShortArrayBlockWithOffset(String objectPath, short[] data, int dataSize,
+            long offset)
+    {
+        enqueue(new BlockWrite<short[]>(SHORT, objectPath, data, dataSize, offset));
+    }
+
+    @Override
+    public void writeShortMDArray(final String objectPath, final MDShortArray data)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.int16().writeMDArray(objectPath, data);
+                }
+            }, (long) data.size() * Short.BYTES));
+    }
+
+    @Override
+    public void writeShortMDArrayBlockWithOffset(final String objectPath,
+            final MDShortArray data, final long[] offset)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.int16().writeMDArrayBlockWithOffset(objectPath, data, offset);
+                }
+            }, (long) data.size() * Short.BYTES));
+    }
+
+    @Override
+    public void writeIntArray(final String objectPath, final int[] data)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.int32().writeArray(objectPath, data);
+                }
+            }, (long) data.length * Integer.BYTES));
+    }
+
+    @Override
+    public void writeIntArrayBlockWithOffset(String objectPath, int[] data, int dataSize,
+            long offset)
+    {
+        enqueue(new BlockWrite<int[]>(INT, objectPath, data, dataSize, offset));
+    }
+
+    @Override
+    public void writeIntMDArray(final String objectPath, final MDIntArray data)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.int32().writeMDArray(objectPath, data);
+                }
+            }, (long) data.size() * Integer.BYTES));
+    }
+
+    @Override
+    public void writeIntMDArrayBlockWithOffset(final String objectPath,
+            final MDIntArray data, final long[] offset)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.int32().writeMDArrayBlockWithOffset(objectPath, data, offset);
+                }
+            }, (long) data.size() * Integer.BYTES));
+    }
+
+    @Override
+    public void writeLongArray(final String objectPath, final long[] data)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.int64().writeArray(objectPath, data);
+                }
+            }, (long) data.length * Long.BYTES));
+    }
+
+    @Override
+    public void writeLongArrayBlockWithOffset(String objectPath, long[] data, int dataSize,
+            long offset)
+    {
+        enqueue(new BlockWrite<long[]>(LONG, objectPath, data, dataSize, offset));
+    }
+
+    @Override
+    public void writeLongMDArray(final String objectPath, final MDLongArray data)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.int64().writeMDArray(objectPath, data);
+                }
+            }, (long) data.size() * Long.BYTES));
+    }
+
+    @Override
+    public void writeLongMDArrayBlockWithOffset(final String objectPath,
+            final MDLongArray data, final long[] offset)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.int64().writeMDArrayBlockWithOffset(objectPath, data, offset);
+                }
+            }, (long) data.size() * Long.BYTES));
+    }
+
+    @Override
+    public void writeFloatArray(final String objectPath, final float[] data)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.float32().writeArray(objectPath, data);
+                }
+            }, (long) data.length * Float.BYTES));
+    }
+
+    @Override
+    public void writeFloatArrayBlockWithOffset(String objectPath, float[] data, int dataSize,
+            long offset)
+    {
+        enqueue(new BlockWrite<float[]>(FLOAT, objectPath, data, dataSize, offset));
+    }
+
+    @Override
+    public void writeFloatMDArray(final String objectPath, final MDFloatArray data)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.float32().writeMDArray(objectPath, data);
+                }
+            }, (long) data.size() * Float.BYTES));
+    }
+
+    @Override
+    public void writeFloatMDArrayBlockWithOffset(final String objectPath,
+            final MDFloatArray data, final long[] offset)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.float32().writeMDArrayBlockWithOffset(objectPath, data, offset);
+                }
+            }, (long) data.size() * Float.BYTES));
+    }
+
+    @Override
+    public void writeDoubleArray(final String objectPath, final double[] data)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.float64().writeArray(objectPath, data);
+                }
+            }, (long) data.length * Double.BYTES));
+    }
+
+    @Override
+    public void writeDoubleArrayBlockWithOffset(String objectPath, double[] data, int dataSize,
+            long offset)
+    {
+        enqueue(new BlockWrite<double[]>(DOUBLE, objectPath, data, dataSize, offset));
+    }
+
+    @Override
+    public void writeDoubleMDArray(final String objectPath, final MDDoubleArray data)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.float64().writeMDArray(objectPath, data);
+                }
+            }, (long) data.size() * Double.BYTES));
+    }
+
+    @Override
+    public void writeDoubleMDArrayBlockWithOffset(final String objectPath,
+            final MDDoubleArray data, final long[] offset)
+    {
+        enqueue(new RunnableOperation(new IHDF5WriterRunnable()
+            {
+                @Override
+                public void run(IHDF5Writer w)
+                {
+                    w.float64().writeMDArrayBlockWithOffset(objectPath, data, offset);
+                }
+            }, (long) data.size() * Double.BYTES));
+    }
+
+}
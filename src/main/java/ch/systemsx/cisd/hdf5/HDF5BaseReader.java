@@ -33,9 +33,16 @@ import static hdf.hdf5lib.HDF5Constants.H5T_NATIVE_INT32;
 import static hdf.hdf5lib.HDF5Constants.H5T_STRING;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -106,6 +113,9 @@ class HDF5BaseReader
     
     protected boolean readOnly;
 
+    /** Whether the file is opened in single-writer / multiple-reader (SWMR) mode. */
+    protected boolean swmr;
+
     /** Map from named data types to ids. */
     private final Map<String, Long> namedDataTypeMap;
 
@@ -124,13 +134,23 @@ class HDF5BaseReader
 
     private final List<DataTypeContainer> namedDataTypeList;
 
+    /**
+     * Ids of committed data types that have been closed and reopened by
+     * {@link #runWithCommittedDataTypesClosed(Runnable)}, mapped to the ids they have been reopened
+     * as. Empty as long as this has not happened.
+     */
+    private volatile Map<Long, Long> reopenedDataTypeIds = Collections.emptyMap();
+
+    /** Hooks that stop threads using the file, run before the file is closed. */
+    private final List<Runnable> closeHooks;
+
     protected final HDF5 h5;
 
     protected final long fileId;
 
-    protected final long booleanDataTypeId;
+    protected long booleanDataTypeId;
 
-    protected final long variableLengthStringDataTypeId;
+    protected long variableLengthStringDataTypeId;
 
     protected final HDF5EnumerationType typeVariantDataType;
 
@@ -148,27 +168,29 @@ class HDF5BaseReader
 
     HDF5BaseReader(File hdf5File, boolean performNumericConversions, boolean autoDereference,
             FileFormatVersionBounds fileFormat, MDCImageGeneration mdcGenerateImage, boolean overwrite, 
-            String preferredHouseKeepingNameSuffix)
+            String preferredHouseKeepingNameSuffix, boolean swmrRead)
     {
         this(hdf5File, performNumericConversions, false, autoDereference, fileFormat, mdcGenerateImage, 
                 overwrite,
-                preferredHouseKeepingNameSuffix);
+                preferredHouseKeepingNameSuffix, swmrRead);
     }
 
     HDF5BaseReader(File hdf5File, boolean performNumericConversions, boolean useUTF8CharEncoding,
             boolean autoDereference, FileFormatVersionBounds fileFormat, MDCImageGeneration mdcGenerateImage, 
-            boolean overwrite, String preferredHouseKeepingNameSuffix)
+            boolean overwrite, String preferredHouseKeepingNameSuffix, boolean swmrRead)
     {
         assert hdf5File != null;
         assert preferredHouseKeepingNameSuffix != null;
 
         this.readOnly = true;
+        this.swmr = swmrRead;
         this.performNumericConversions = performNumericConversions;
         this.hdf5File = hdf5File.getAbsoluteFile();
         this.runner = new CleanUpCallable();
         this.fileRegistry = CleanUpRegistry.createSynchonized();
         this.namedDataTypeMap = new HashMap<String, Long>();
         this.namedDataTypeList = new ArrayList<DataTypeContainer>();
+        this.closeHooks = new ArrayList<Runnable>();
         this.encodingForNewDataSets =
                 useUTF8CharEncoding ? CharacterEncoding.UTF8 : CharacterEncoding.ASCII;
         this.h5 =
@@ -232,7 +254,7 @@ class HDF5BaseReader
         {
             throw new HDF5FileNotFoundException(hdf5File, "Path is not a valid HDF5 file.");
         }
-        return h5.openFileReadOnly(hdf5File.getPath(), fileRegistry);
+        return h5.openFileReadOnly(hdf5File.getPath(), swmr, fileRegistry);
     }
 
     void checkOpen() throws HDF5JavaException
@@ -252,6 +274,7 @@ class HDF5BaseReader
      */
     void close()
     {
+        runCloseHooks();
         synchronized (fileRegistry)
         {
             if (state == State.OPEN)
@@ -262,11 +285,47 @@ class HDF5BaseReader
         }
     }
 
+    /**
+     * Registers <var>closeHook</var> to be run when this object is closed. It runs before any id
+     * of the file is released and outside of the file lock, so it may wait for threads which use
+     * the file.
+     */
+    void addCloseHook(Runnable closeHook)
+    {
+        synchronized (closeHooks)
+        {
+            closeHooks.add(closeHook);
+        }
+    }
+
+    /**
+     * Runs the close hooks registered so far. Subclasses overriding {@link #close()} need to call
+     * this before taking the file lock.
+     */
+    void runCloseHooks()
+    {
+        final List<Runnable> hooks;
+        synchronized (closeHooks)
+        {
+            hooks = new ArrayList<Runnable>(closeHooks);
+            closeHooks.clear();
+        }
+        for (Runnable hook : hooks)
+        {
+            hook.run();
+        }
+    }
+
     boolean isClosed()
     {
         return state == State.CLOSED;
     }
 
+    boolean isSWMR()
+    {
+        return swmr;
+    }
+
     String tryGetHouseKeepingNameSuffix()
     {
         final ICallableWithCleanUp<String> readRunnable = new ICallableWithCleanUp<String>()
@@ -300,6 +359,73 @@ class HDF5BaseReader
         return readOnly ? hasMDCImage : h5.isMDCImageGenerationEnabled(fileId);
     }
 
+    /**
+     * Maps the data of the data set <var>objectPath</var> read-only into memory, bypassing the
+     * HDF5 library. The data set needs to be stored contiguously and without filters, and its
+     * elements need to be of class <var>dataClassId</var> and of size <var>elementSize</var>. The
+     * byte order of the buffer is set to the byte order of the data set.
+     */
+    ByteBuffer mapDataSet(final String objectPath, final int dataClassId, final int elementSize)
+    {
+        assert objectPath != null;
+
+        checkOpen();
+        final ICallableWithCleanUp<ByteBuffer> mapCallable =
+                new ICallableWithCleanUp<ByteBuffer>()
+                    {
+                        @Override
+                        public ByteBuffer call(ICleanUpRegistry registry)
+                        {
+                            final long dataSetId = h5.openDataSet(fileId, objectPath, registry);
+                            final long dataTypeId = h5.getDataTypeForDataSet(dataSetId, registry);
+                            if (h5.getClassType(dataTypeId) != dataClassId
+                                    || h5.getDataTypeSize(dataTypeId) != elementSize)
+                            {
+                                throw new HDF5JavaException("Data set '" + objectPath
+                                        + "' has a type that cannot be mapped by this reader.");
+                            }
+                            final long[] extentOrNull =
+                                    h5.tryGetContiguousFileExtent(dataSetId, registry);
+                            if (extentOrNull == null)
+                            {
+                                throw new HDF5JavaException("Data set '" + objectPath
+                                        + "' is not stored contiguously without filters.");
+                            }
+                            if (extentOrNull[1] > Integer.MAX_VALUE)
+                            {
+                                throw new HDF5JavaException("Data set '" + objectPath
+                                        + "' is too large to be mapped (size=" + extentOrNull[1]
+                                        + " bytes).");
+                            }
+                            if (readOnly == false)
+                            {
+                                // Make sure the data written so far are in the file.
+                                h5.flushFile(fileId);
+                            }
+                            final ByteOrder byteOrder =
+                                    h5.isLittleEndian(dataTypeId) ? ByteOrder.LITTLE_ENDIAN
+                                            : ByteOrder.BIG_ENDIAN;
+                            return mapFileRegion(extentOrNull[0], (int) extentOrNull[1]).order(
+                                    byteOrder);
+                        }
+                    };
+        return runner.call(mapCallable);
+    }
+
+    private ByteBuffer mapFileRegion(long offset, int size)
+    {
+        try (final FileChannel channel =
+                FileChannel.open(hdf5File.toPath(), StandardOpenOption.READ))
+        {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        } catch (IOException ex)
+        {
+            final String msg =
+                    (ex.getMessage() == null) ? ex.getClass().getSimpleName() : ex.getMessage();
+            throw new HDF5JavaException("Error mapping file '" + hdf5File.getPath() + "': " + msg);
+        }
+    }
+
     public HDF5DataSet openDataSet(final String objectPath)
     {
         final ICallableWithCleanUp<HDF5DataSet> openDataSetCallable =
@@ -376,6 +502,95 @@ class HDF5BaseReader
         return dataTypeId;
     }
 
+    /**
+     * Returns the id that <var>dataTypeId</var> has been reopened as by
+     * {@link #runWithCommittedDataTypesClosed(Runnable)}, or <var>dataTypeId</var> itself, if it
+     * hasn't been reopened.
+     */
+    long getCurrentDataTypeId(long dataTypeId)
+    {
+        final Long reopenedIdOrNull = reopenedDataTypeIds.get(dataTypeId);
+        return (reopenedIdOrNull != null) ? reopenedIdOrNull : dataTypeId;
+    }
+
+    /**
+     * Runs <var>action</var> with the committed data types of this file closed and reopens them
+     * afterwards. The committed data types are looked up from the named data types of this reader
+     * (which includes all data types committed by the writer) and its boolean and variable-length
+     * string type. The ids held by this reader are replaced by the reopened ones, while
+     * {@link HDF5DataType}s translate their ids by {@link #getCurrentDataTypeId(long)}.
+     * <p>
+     * Committed data types that have been opened from a data set or attribute and are held
+     * beyond the call that opened them are not covered.
+     */
+    void runWithCommittedDataTypesClosed(Runnable action)
+    {
+        final Map<Long, String> committedDataTypePaths = new LinkedHashMap<Long, String>();
+        addIfCommitted(booleanDataTypeId, committedDataTypePaths);
+        addIfCommitted(variableLengthStringDataTypeId, committedDataTypePaths);
+        for (long dataTypeId : namedDataTypeMap.values())
+        {
+            addIfCommitted(dataTypeId, committedDataTypePaths);
+        }
+        for (DataTypeContainer namedDataType : namedDataTypeList)
+        {
+            addIfCommitted(namedDataType.typeId, committedDataTypePaths);
+        }
+        for (long dataTypeId : committedDataTypePaths.keySet())
+        {
+            h5.closeCommittedDataType(dataTypeId);
+        }
+        try
+        {
+            action.run();
+        } finally
+        {
+            final Map<Long, Long> reopenedIds = new HashMap<Long, Long>();
+            for (Map.Entry<Long, String> entry : committedDataTypePaths.entrySet())
+            {
+                reopenedIds.put(entry.getKey(),
+                        h5.openDataType(fileId, entry.getValue(), fileRegistry));
+            }
+            booleanDataTypeId = getReopenedId(booleanDataTypeId, reopenedIds);
+            variableLengthStringDataTypeId =
+                    getReopenedId(variableLengthStringDataTypeId, reopenedIds);
+            for (Map.Entry<String, Long> entry : namedDataTypeMap.entrySet())
+            {
+                entry.setValue(getReopenedId(entry.getValue(), reopenedIds));
+            }
+            for (int i = 0; i < namedDataTypeList.size(); ++i)
+            {
+                final DataTypeContainer c = namedDataTypeList.get(i);
+                namedDataTypeList.set(i, new DataTypeContainer(
+                        getReopenedId(c.typeId, reopenedIds), c.typePath));
+            }
+            final Map<Long, Long> allReopenedIds = new HashMap<Long, Long>(reopenedIds);
+            for (Map.Entry<Long, Long> entry : reopenedDataTypeIds.entrySet())
+            {
+                allReopenedIds.put(entry.getKey(), getReopenedId(entry.getValue(), reopenedIds));
+            }
+            reopenedDataTypeIds = allReopenedIds;
+        }
+    }
+
+    private void addIfCommitted(long dataTypeId, Map<Long, String> committedDataTypePaths)
+    {
+        if (committedDataTypePaths.containsKey(dataTypeId) == false)
+        {
+            final String pathOrNull = h5.tryGetOpenCommittedDataTypePath(dataTypeId);
+            if (pathOrNull != null)
+            {
+                committedDataTypePaths.put(dataTypeId, pathOrNull);
+            }
+        }
+    }
+
+    private static long getReopenedId(long dataTypeId, Map<Long, Long> reopenedIds)
+    {
+        final Long reopenedIdOrNull = reopenedIds.get(dataTypeId);
+        return (reopenedIdOrNull != null) ? reopenedIdOrNull : dataTypeId;
+    }
+
     String tryGetDataTypePath(long dataTypeId)
     {
         for (DataTypeContainer namedDataType : namedDataTypeList)
@@ -499,6 +714,15 @@ class HDF5BaseReader
         // Overwrite this method in writer.
     }
 
+    /**
+     * Adds the committed data type <var>dataTypeId</var> with path <var>dataTypePath</var> to the
+     * named data types. The id needs to be closed by the file registry.
+     */
+    void addNamedDataType(final String dataTypePath, final long dataTypeId)
+    {
+        namedDataTypeMap.put(dataTypePath, dataTypeId);
+    }
+
     /**
      * Class to store the parameters of a 1d data space.
      */
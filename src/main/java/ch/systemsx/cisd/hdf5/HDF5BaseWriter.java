@@ -53,6 +53,7 @@ import ch.systemsx.cisd.base.exceptions.IErrorStrategy;
 import ch.systemsx.cisd.base.mdarray.MDArray;
 import ch.systemsx.cisd.base.namedthread.NamingThreadPoolExecutor;
 import ch.systemsx.cisd.hdf5.IHDF5CompoundInformationRetriever.IByteArrayInspector;
+import ch.systemsx.cisd.hdf5.IHDF5WriterConfigurator.FileFormatVersion;
 import ch.systemsx.cisd.hdf5.IHDF5WriterConfigurator.FileFormatVersionBounds;
 import ch.systemsx.cisd.hdf5.IHDF5WriterConfigurator.SyncMode;
 import ch.systemsx.cisd.hdf5.cleanup.ICallableWithCleanUp;
@@ -139,10 +140,10 @@ final class HDF5BaseWriter extends HDF5BaseReader
             boolean autoDereference, FileFormatVersionBounds fileFormat, MDCImageGeneration mdcGenerateImage, 
             boolean useExtentableDataTypes, boolean overwriteFile, boolean keepDataSetIfExists,
             boolean useSimpleDataSpaceForAttributes, String preferredHouseKeepingNameSuffix,
-            SyncMode syncMode)
+            SyncMode syncMode, boolean swmrWrite)
     {
         super(hdf5File, performNumericConversions, useUTF8CharEncoding, autoDereference,
-                fileFormat, mdcGenerateImage, overwriteFile, preferredHouseKeepingNameSuffix);
+                fileFormat, mdcGenerateImage, overwriteFile, preferredHouseKeepingNameSuffix, false);
         this.readOnly = false;
         try
         {
@@ -162,6 +163,67 @@ final class HDF5BaseWriter extends HDF5BaseReader
         saveNonDefaultHouseKeepingNameSuffix();
         commandQueue = new LinkedBlockingQueue<Command>();
         setupSyncThread();
+        if (swmrWrite)
+        {
+            startSWMRWrite();
+        }
+    }
+
+    /**
+     * Returns <var>fileFormat</var> with the lower bound raised to 1.10, as required for SWMR.
+     */
+    static FileFormatVersionBounds getFileFormatForSWMR(FileFormatVersionBounds fileFormat)
+    {
+        switch (fileFormat)
+        {
+            case EARLIEST_LATEST:
+            case V1_8_LATEST:
+                return FileFormatVersionBounds.V1_10_LATEST;
+            case EARLIEST_V1_10:
+            case V1_8_V1_10:
+                return FileFormatVersionBounds.V1_10_V1_10;
+            case EARLIEST_V1_8:
+            case V1_8_V1_8:
+                throw new HDF5JavaException(
+                        "Upper file version bound V1_8 is incompatible with SWMR.");
+            default:
+                return fileFormat;
+        }
+    }
+
+    /**
+     * Switches the file to SWMR mode. All objects created so far are flushed to the file.
+     */
+    void startSWMRWrite()
+    {
+        synchronized (fileRegistry)
+        {
+            if (swmr)
+            {
+                return;
+            }
+            if (fileFormat.getLowBound() != FileFormatVersion.V1_10
+                    && fileFormat.getLowBound() != FileFormatVersion.LATEST)
+            {
+                throw new HDF5JavaException("SWMR requires a lower file format bound of at "
+                        + "least V1_10, but the file has been opened with " + fileFormat + ".");
+            }
+            if (hasMDCImage)
+            {
+                throw new HDF5JavaException("SWMR is incompatible with a metadata cache image.");
+            }
+            flushExternals();
+            // H5Fstart_swmr_write() refuses to start while committed data types are open.
+            runWithCommittedDataTypesClosed(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        h5.startSWMRWrite(fileId);
+                    }
+                });
+            swmr = true;
+        }
     }
 
     private void setupSyncThread()
@@ -259,18 +321,25 @@ final class HDF5BaseWriter extends HDF5BaseReader
      */
     private void closeNow()
     {
+        runCloseHooks();
         synchronized (fileRegistry)
         {
             if (state == State.OPEN)
             {
-                flushExternals();
-                flushables.clear();
-                super.close();
-                if (SYNC_ON_CLOSE_MODES.contains(syncMode))
+                try
                 {
-                    syncNow();
+                    flushExternals();
+                } finally
+                {
+                    // Close the file even if a flushable failed, its error is re-thrown afterwards.
+                    flushables.clear();
+                    super.close();
+                    if (SYNC_ON_CLOSE_MODES.contains(syncMode))
+                    {
+                        syncNow();
+                    }
+                    closeSync();
                 }
-                closeSync();
             }
         }
     }
@@ -345,31 +414,37 @@ final class HDF5BaseWriter extends HDF5BaseReader
     @Override
     void close()
     {
+        runCloseHooks();
         synchronized (fileRegistry)
         {
             if (state == State.OPEN)
             {
-                flushExternals();
-                flushables.clear();
-                super.close();
-                if (SyncMode.SYNC == syncMode)
+                try
                 {
-                    commandQueue.add(Command.SYNC);
-                } else if (SyncMode.SYNC_BLOCK == syncMode)
+                    flushExternals();
+                } finally
                 {
-                    syncNow();
-                }
+                    // Close the file even if a flushable failed, its error is re-thrown afterwards.
+                    flushables.clear();
+                    super.close();
+                    if (SyncMode.SYNC == syncMode)
+                    {
+                        commandQueue.add(Command.SYNC);
+                    } else if (SyncMode.SYNC_BLOCK == syncMode)
+                    {
+                        syncNow();
+                    }
 
-                if (EnumSet.complementOf(NON_BLOCKING_SYNC_MODES).contains(syncMode))
-                {
-                    closeSync();
-                    commandQueue.add(Command.EXIT);
-                } else
-                {
-                    // End syncer thread and avoid a race condition for non-blocking sync modes as
-                    // the
-                    // syncer thread still may want to use the fileForSynching
-                    commandQueue.add(Command.CLOSE_SYNC);
+                    if (EnumSet.complementOf(NON_BLOCKING_SYNC_MODES).contains(syncMode))
+                    {
+                        closeSync();
+                        commandQueue.add(Command.EXIT);
+                    } else
+                    {
+                        // End syncer thread and avoid a race condition for non-blocking sync modes
+                        // as the syncer thread still may want to use the fileForSynching
+                        commandQueue.add(Command.CLOSE_SYNC);
+                    }
                 }
             }
         }
@@ -431,6 +506,9 @@ final class HDF5BaseWriter extends HDF5BaseReader
     void commitDataType(final String dataTypePath, final long dataTypeId)
     {
         h5.commitDataType(fileId, dataTypePath, dataTypeId);
+        // Committing turns dataTypeId into an open committed data type, which needs to be found
+        // when the file is switched to SWMR mode.
+        addNamedDataType(dataTypePath, dataTypeId);
     }
 
     HDF5EnumerationType openOrCreateTypeVariantDataType(final HDF5Writer writer)
@@ -1152,7 +1230,7 @@ final class HDF5BaseWriter extends HDF5BaseReader
     {
         return h5.createDataSetSimple(fileId, dataSetTemplate.getStorageDataTypeId(),
                 dataSetTemplate.getDataspaceId(), dataSetTemplate.getDataSetCreationPropertyListId(), 
-                objectPath, registry);
+                dataSetTemplate.tryGetRequestedChunkIndex(), objectPath, registry);
     }
 
     boolean keepDataIfExists(final HDF5AbstractStorageFeatures features)
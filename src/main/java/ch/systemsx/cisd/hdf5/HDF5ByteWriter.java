@@ -25,6 +25,10 @@ import static hdf.hdf5lib.HDF5Constants.H5T_NATIVE_INT8;
 import static hdf.hdf5lib.HDF5Constants.H5T_STD_I8LE;
 import static hdf.hdf5lib.HDF5Constants.H5T_STD_U8LE;
 
+import java.nio.ByteBuffer;
+
+import hdf.hdf5lib.exceptions.HDF5JavaException;
+
 import ch.systemsx.cisd.base.mdarray.MDArray;
 import ch.systemsx.cisd.base.mdarray.MDByteArray;
 import ch.systemsx.cisd.hdf5.cleanup.ICallableWithCleanUp;
@@ -428,6 +432,49 @@ class HDF5ByteWriter extends HDF5ByteReader implements IHDF5ByteWriter
         baseWriter.runner.call(writeRunnable);
     }
 
+    @Override
+    public void writeArrayBlockWithOffset(final String objectPath, final ByteBuffer data,
+            final int dataSize, final long offset)
+    {
+        assert objectPath != null;
+        assert data != null;
+
+        if (data.isDirect() == false)
+        {
+            throw new HDF5JavaException("Buffer is not direct");
+        }
+        if (dataSize > data.remaining())
+        {
+            throw new HDF5JavaException("Buffer has less than dataSize bytes remaining");
+        }
+        baseWriter.checkOpen();
+        final ICallableWithCleanUp<Void> writeRunnable = new ICallableWithCleanUp<Void>()
+            {
+                @Override
+                public Void call(ICleanUpRegistry registry)
+                {
+                    final long[] blockDimensions = new long[]
+                        { dataSize };
+                    final long[] slabStartOrNull = new long[]
+                        { offset };
+                    final long dataSetId =
+                            baseWriter.h5.openAndExtendDataSet(baseWriter.fileId, objectPath,
+                                    baseWriter.fileFormat, new long[]
+                                        { offset + dataSize }, false, registry);
+                    final long dataSpaceId =
+                            baseWriter.h5.getDataSpaceForDataSet(dataSetId, registry);
+                    baseWriter.h5.setHyperslabBlock(dataSpaceId, slabStartOrNull, blockDimensions);
+                    final long memorySpaceId =
+                            baseWriter.h5.createSimpleDataSpace(blockDimensions, registry);
+                    baseWriter.h5.writeDataSet(dataSetId, H5T_NATIVE_INT8, memorySpaceId,
+                            dataSpaceId, data);
+                    data.position(data.position() + dataSize);
+                    return null; // Nothing to return.
+                }
+            };
+        baseWriter.runner.call(writeRunnable);
+    }
+
     @Override
     public void writeArrayBlockWithOffset(final HDF5DataSet dataSet, final byte[] data,
             final int dataSize, final long offset)
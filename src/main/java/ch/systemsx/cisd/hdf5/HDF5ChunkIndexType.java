@@ -0,0 +1,89 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ch.systemsx.cisd.hdf5;
+
+import org.bytedeco.hdf5.global.hdf5;
+
+/**
+ * The index that HDF5 uses to look up the chunks of a {@link HDF5StorageLayout#CHUNKED} data set.
+ * <p>
+ * Files with a lower file format bound of 1.8 or earlier always use a {@link #BTREE}. The other
+ * indexes require the 1.10 file format and keep the cost of appending and looking up chunks flat as
+ * the data set grows.
+ */
+public enum HDF5ChunkIndexType
+{
+    /**
+     * Version 1 B-tree, the only index of the 1.8 file format.
+     */
+    BTREE(hdf5.H5D_CHUNK_IDX_BTREE),
+
+    /**
+     * A data set that consists of one chunk only, which needs no index.
+     */
+    SINGLE_CHUNK(hdf5.H5D_CHUNK_IDX_SINGLE),
+
+    /**
+     * Implicit index: the chunks of a data set of fixed dimensions without filters are allocated
+     * early and stored contiguously, their address is computed rather than looked up. A data set
+     * that fits into one chunk gets a {@link #SINGLE_CHUNK} index instead.
+     */
+    IMPLICIT(hdf5.H5D_CHUNK_IDX_NONE),
+
+    /**
+     * Fixed array, for data sets of fixed dimensions. A data set that fits into one chunk gets a
+     * {@link #SINGLE_CHUNK} index instead.
+     */
+    FIXED_ARRAY(hdf5.H5D_CHUNK_IDX_FARRAY),
+
+    /**
+     * Extensible array, for data sets with exactly one unlimited dimension, typically appended
+     * to along this dimension.
+     */
+    EXTENSIBLE_ARRAY(hdf5.H5D_CHUNK_IDX_EARRAY),
+
+    /**
+     * Version 2 B-tree, for data sets with more than one unlimited dimension. Requires a rank of
+     * 2 or more.
+     */
+    VERSION_2_BTREE(hdf5.H5D_CHUNK_IDX_BT2),
+
+    /**
+     * The data set is not chunked.
+     */
+    NOT_APPLICABLE(-1);
+
+    private int id;
+
+    private HDF5ChunkIndexType(int id)
+    {
+        this.id = id;
+    }
+
+    static HDF5ChunkIndexType fromId(int id) throws IllegalArgumentException
+    {
+        for (HDF5ChunkIndexType indexType : values())
+        {
+            if (indexType.id == id)
+            {
+                return indexType;
+            }
+        }
+        throw new IllegalArgumentException("Illegal chunk index type id " + id);
+    }
+}
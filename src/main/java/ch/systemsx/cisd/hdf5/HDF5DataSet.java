@@ -184,6 +184,18 @@ public class HDF5DataSet implements AutoCloseable
         }
     }
 
+    /**
+     * Re-reads the metadata of this data set from the file and updates the dimensions.
+     */
+    void refresh()
+    {
+        h5.refreshDataSet(dataSetId);
+        closeDataSpaceId();
+        this.dataSpaceId = h5.getDataSpaceForDataSet(dataSetId, null);
+        this.dimensions = h5.getDataSpaceDimensions(dataSpaceId);
+        this.maxDimensions = null;
+    }
+
     long getDataTypeId()
     {
         if (dataTypeId == -1)
@@ -38,6 +38,8 @@ public final class HDF5DataSetInformation
 
     private int[] chunkSizesOrNull;
 
+    private HDF5ChunkIndexType chunkIndexType = HDF5ChunkIndexType.NOT_APPLICABLE;
+
     HDF5DataSetInformation(HDF5DataTypeInformation typeInformation,
             HDF5DataTypeVariant typeVariantOrNull)
     {
@@ -144,6 +146,21 @@ public final class HDF5DataSetInformation
         this.chunkSizesOrNull = chunkSizes;
     }
 
+    /**
+     * Returns the index that is used to look up the chunks of the data set, or
+     * {@link HDF5ChunkIndexType#NOT_APPLICABLE}, if the data set is not of
+     * {@link HDF5StorageLayout#CHUNKED}.
+     */
+    public HDF5ChunkIndexType getChunkIndexType()
+    {
+        return chunkIndexType;
+    }
+
+    void setChunkIndexType(HDF5ChunkIndexType chunkIndexType)
+    {
+        this.chunkIndexType = chunkIndexType;
+    }
+
     /**
      * Returns the rank (number of axis) of this data set.
      */
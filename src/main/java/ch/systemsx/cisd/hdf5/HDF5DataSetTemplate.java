@@ -59,11 +59,14 @@ public class HDF5DataSetTemplate implements AutoCloseable
 
     private final long storageDataTypeId;
 
+    private final HDF5ChunkIndexType requestedChunkIndexOrNull;
+
     private long dataspaceId;
 
     HDF5DataSetTemplate(long dataspaceId, long dataSetCreationPropertyListId,
             boolean closeCreationPropertyListId, long storageDataTypeId, long[] dimensions, 
-            long[] maxDimensions, HDF5StorageLayout layout)
+            long[] maxDimensions, HDF5StorageLayout layout,
+            HDF5ChunkIndexType requestedChunkIndexOrNull)
     {
         this.dataspaceId = dataspaceId;
         this.dataSetCreationPropertyListId = dataSetCreationPropertyListId;
@@ -72,6 +75,7 @@ public class HDF5DataSetTemplate implements AutoCloseable
         this.dimensions = dimensions;
         this.maxDimensions = maxDimensions;
         this.layout = layout;
+        this.requestedChunkIndexOrNull = requestedChunkIndexOrNull;
     }
 
     long getDataspaceId()
@@ -104,6 +108,11 @@ public class HDF5DataSetTemplate implements AutoCloseable
         return layout;
     }
 
+    HDF5ChunkIndexType tryGetRequestedChunkIndex()
+    {
+        return requestedChunkIndexOrNull;
+    }
+
     @Override
     public void close()
     {
@@ -57,11 +57,12 @@ public abstract class HDF5DataType
     }
 
     /**
-     * Returns the storage data type id of this type.
+     * Returns the storage data type id of this type. If it is a committed data type that has been
+     * reopened when switching the file to SWMR mode, the id it has been reopened as.
      */
     long getStorageTypeId()
     {
-        return storageTypeId;
+        return baseReader.getCurrentDataTypeId(storageTypeId);
     }
 
     /**
@@ -133,7 +134,7 @@ public abstract class HDF5DataType
     public HDF5DataTypeInformation getDataTypeInformation(
             final DataTypeInfoOptions dataTypeInfoOptions)
     {
-        return baseReader.getDataTypeInformation(storageTypeId, dataTypeInfoOptions);
+        return baseReader.getDataTypeInformation(getStorageTypeId(), dataTypeInfoOptions);
     }
 
     /**
@@ -142,7 +143,7 @@ public abstract class HDF5DataType
      */
     public HDF5DataTypeInformation getDataTypeInformation()
     {
-        return baseReader.getDataTypeInformation(storageTypeId, DataTypeInfoOptions.DEFAULT);
+        return baseReader.getDataTypeInformation(getStorageTypeId(), DataTypeInfoOptions.DEFAULT);
     }
 
     //
@@ -155,7 +156,7 @@ public abstract class HDF5DataType
         final int prime = 31;
         int result = 1;
         result = prime * result + (int)fileId;
-        result = prime * result + (int)storageTypeId;
+        result = prime * result + (int)getStorageTypeId();
         return result;
     }
 
@@ -179,7 +180,7 @@ public abstract class HDF5DataType
         {
             return false;
         }
-        if (storageTypeId != other.storageTypeId)
+        if (getStorageTypeId() != other.getStorageTypeId())
         {
             return false;
         }
@@ -83,7 +83,12 @@ public enum HDF5DataTypeVariant
      */
     NONE,
     
-    BITFIELD(BitSet.class);
+    BITFIELD(BitSet.class),
+
+    /**
+     * A <code>String</code> array stored as an enumeration of its distinct values.
+     */
+    DICTIONARY_ENCODED_STRING(String[].class);
 
     private Set<Class<?>> compatibleTypes;
 
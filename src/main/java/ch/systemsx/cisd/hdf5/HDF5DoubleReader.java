@@ -22,6 +22,7 @@ import static ch.systemsx.cisd.hdf5.MatrixUtils.createFullBlockDimensionsAndOffs
 import static hdf.hdf5lib.HDF5Constants.H5T_ARRAY;
 import static hdf.hdf5lib.HDF5Constants.H5T_NATIVE_DOUBLE;
 
+import java.nio.DoubleBuffer;
 import java.util.Arrays;
 import java.util.Iterator;
 
@@ -188,6 +189,13 @@ class HDF5DoubleReader implements IHDF5DoubleReader
         return baseReader.runner.call(readCallable);
     }
 
+    @Override
+    public DoubleBuffer mapArray(String objectPath)
+    {
+        return baseReader.mapDataSet(objectPath, HDF5Constants.H5T_FLOAT, Double.BYTES)
+                .asDoubleBuffer();
+    }
+
     private double[] readDoubleArray(long dataSetId, ICleanUpRegistry registry)
     {
         try
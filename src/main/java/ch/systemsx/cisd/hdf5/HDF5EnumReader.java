@@ -597,6 +597,109 @@ class HDF5EnumReader implements IHDF5EnumReader
         return readArrayBlockWithOffset(objectPath, enumType, blockSize, blockNumber * blockSize);
     }
 
+    @Override
+    public <T extends Enum<T>> T[] readArrayAsEnum(final String objectPath,
+            final Class<T> enumClass) throws HDF5JavaException
+    {
+        assert objectPath != null;
+        assert enumClass != null;
+
+        baseReader.checkOpen();
+        final ICallableWithCleanUp<T[]> readRunnable = new ICallableWithCleanUp<T[]>()
+            {
+                @Override
+                public T[] call(ICleanUpRegistry registry)
+                {
+                    final long dataSetId =
+                            baseReader.h5.openDataSet(baseReader.fileId, objectPath, registry);
+                    final DataSpaceParameters spaceParams =
+                            baseReader.getSpaceParameters(dataSetId, registry);
+                    HDF5Utils.getOneDimensionalArraySize(spaceParams.dimensions);
+                    final boolean scaledEnum = baseReader.isScaledEnum(dataSetId, registry);
+                    final HDF5EnumerationType enumType =
+                            getEnumTypeForDataSetId(dataSetId, objectPath, scaledEnum, registry);
+                    final int[] ordinals =
+                            readOrdinals(dataSetId, enumType, scaledEnum, spaceParams);
+                    return enumType.getEnumConstants(enumClass, ordinals);
+                }
+            };
+
+        return baseReader.runner.call(readRunnable);
+    }
+
+    @Override
+    public int[] readOrdinals(final String objectPath) throws HDF5JavaException
+    {
+        assert objectPath != null;
+
+        baseReader.checkOpen();
+        final ICallableWithCleanUp<int[]> readRunnable = new ICallableWithCleanUp<int[]>()
+            {
+                @Override
+                public int[] call(ICleanUpRegistry registry)
+                {
+                    final long dataSetId =
+                            baseReader.h5.openDataSet(baseReader.fileId, objectPath, registry);
+                    final DataSpaceParameters spaceParams =
+                            baseReader.getSpaceParameters(dataSetId, registry);
+                    HDF5Utils.getOneDimensionalArraySize(spaceParams.dimensions);
+                    final boolean scaledEnum = baseReader.isScaledEnum(dataSetId, registry);
+                    final HDF5EnumerationType enumType =
+                            getEnumTypeForDataSetId(dataSetId, objectPath, scaledEnum, registry);
+                    return readOrdinals(dataSetId, enumType, scaledEnum, spaceParams);
+                }
+            };
+
+        return baseReader.runner.call(readRunnable);
+    }
+
+    @Override
+    public int[] readOrdinalsBlockWithOffset(final String objectPath, final int blockSize,
+            final long offset) throws HDF5JavaException
+    {
+        assert objectPath != null;
+
+        baseReader.checkOpen();
+        final ICallableWithCleanUp<int[]> readRunnable = new ICallableWithCleanUp<int[]>()
+            {
+                @Override
+                public int[] call(ICleanUpRegistry registry)
+                {
+                    final long dataSetId =
+                            baseReader.h5.openDataSet(baseReader.fileId, objectPath, registry);
+                    final DataSpaceParameters spaceParams =
+                            baseReader.getSpaceParameters(dataSetId, offset, blockSize, registry);
+                    final boolean scaledEnum = baseReader.isScaledEnum(dataSetId, registry);
+                    final HDF5EnumerationType enumType =
+                            getEnumTypeForDataSetId(dataSetId, objectPath, scaledEnum, registry);
+                    return readOrdinals(dataSetId, enumType, scaledEnum, spaceParams);
+                }
+            };
+
+        return baseReader.runner.call(readRunnable);
+    }
+
+    /**
+     * Reads the ordinals selected by <var>spaceParams</var> in their storage form and widens them
+     * to <code>int</code>.
+     */
+    private int[] readOrdinals(final long dataSetId, final HDF5EnumerationType enumType,
+            final boolean scaledEnum, final DataSpaceParameters spaceParams)
+    {
+        final EnumStorageForm storageForm = enumType.getStorageForm();
+        final byte[] data = new byte[spaceParams.blockSize * storageForm.getStorageSize()];
+        if (scaledEnum)
+        {
+            baseReader.h5.readDataSet(dataSetId, storageForm.getIntNativeTypeId(),
+                    spaceParams.memorySpaceId, spaceParams.dataSpaceId, data);
+        } else
+        {
+            baseReader.h5.readDataSet(dataSetId, enumType.getNativeTypeId(),
+                    spaceParams.memorySpaceId, spaceParams.dataSpaceId, data);
+        }
+        return EnumerationType.ordinalsFromStorageForm(data, storageForm);
+    }
+
     @Override
     public HDF5EnumerationValueMDArray readMDArray(final String objectPath)
             throws HDF5JavaException
@@ -743,6 +846,51 @@ class HDF5EnumReader implements IHDF5EnumReader
         return getArrayBlocks(objectPath, (HDF5EnumerationType) null);
     }
 
+    @Override
+    public Iterable<HDF5DataBlock<int[]>> getOrdinalBlocks(final String objectPath)
+            throws HDF5JavaException
+    {
+        baseReader.checkOpen();
+        final HDF5NaturalBlock1DParameters params =
+                new HDF5NaturalBlock1DParameters(baseReader.getDataSetInformation(objectPath));
+
+        return new Iterable<HDF5DataBlock<int[]>>()
+            {
+                @Override
+                public Iterator<HDF5DataBlock<int[]>> iterator()
+                {
+                    return new Iterator<HDF5DataBlock<int[]>>()
+                        {
+                            final HDF5NaturalBlock1DParameters.HDF5NaturalBlock1DIndex index =
+                                    params.getNaturalBlockIndex();
+
+                            @Override
+                            public boolean hasNext()
+                            {
+                                return index.hasNext();
+                            }
+
+                            @Override
+                            public HDF5DataBlock<int[]> next()
+                            {
+                                final long offset = index.computeOffsetAndSizeGetOffset();
+                                final int[] block =
+                                        readOrdinalsBlockWithOffset(objectPath,
+                                                index.getBlockSize(), offset);
+                                return new HDF5DataBlock<int[]>(block, index.getAndIncIndex(),
+                                        offset);
+                            }
+
+                            @Override
+                            public void remove()
+                            {
+                                throw new UnsupportedOperationException();
+                            }
+                        };
+                }
+            };
+    }
+
     @Override
     public Iterable<HDF5MDEnumBlock> getMDArrayBlocks(final String objectPath,
             final HDF5EnumerationType enumTypeOrNull) throws HDF5JavaException
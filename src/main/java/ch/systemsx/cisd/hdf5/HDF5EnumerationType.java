@@ -23,10 +23,12 @@ import static hdf.hdf5lib.HDF5Constants.H5T_STD_U16LE;
 import static hdf.hdf5lib.HDF5Constants.H5T_STD_U32LE;
 import static hdf.hdf5lib.HDF5Constants.H5T_STD_U8LE;
 
+import java.lang.reflect.Array;
 import java.util.Iterator;
 import java.util.List;
 
 import hdf.hdf5lib.HDFNativeData;
+import hdf.hdf5lib.exceptions.HDF5JavaException;
 
 /**
  * A class that represents an enumeration for a given HDF5 file and <var>values</var> array.
@@ -85,8 +87,26 @@ public final class HDF5EnumerationType extends HDF5DataType implements Iterable<
         }
     }
 
+    /**
+     * A table that maps the ordinals of this type to the constants of a Java enum class.
+     */
+    private static final class EnumConstantTable
+    {
+        final Class<?> enumClass;
+
+        final Enum<?>[] constants;
+
+        EnumConstantTable(Class<?> enumClass, Enum<?>[] constants)
+        {
+            this.enumClass = enumClass;
+            this.constants = constants;
+        }
+    }
+
     private final EnumerationType enumType;
 
+    private volatile EnumConstantTable enumConstantTableOrNull;
+
     /**
      * Returns the storage data type id of the corresponding integer type of this type.
      */
@@ -195,6 +215,81 @@ public final class HDF5EnumerationType extends HDF5DataType implements Iterable<
         throw new Error("Illegal storage form (" + getStorageForm() + ".)");
     }
 
+    /**
+     * Returns the constant of <var>enumClass</var> for the given <var>ordinal</var> of this type.
+     * 
+     * @throws HDF5JavaException If <var>enumClass</var> has no constant with the name of
+     *             <var>ordinal</var>.
+     */
+    <T extends Enum<T>> T getEnumConstant(Class<T> enumClass, int ordinal)
+            throws HDF5JavaException
+    {
+        @SuppressWarnings("unchecked")
+        final T constant = (T) getEnumConstantTable(enumClass)[ordinal];
+        if (constant == null)
+        {
+            throw new HDF5JavaException("The Java enum class " + enumClass.getCanonicalName()
+                    + " has no value '" + enumType.getValueArray()[ordinal] + "'.");
+        }
+        return constant;
+    }
+
+    /**
+     * Returns the constants of <var>enumClass</var> for the given <var>ordinals</var> of this
+     * type.
+     * 
+     * @throws HDF5JavaException If <var>enumClass</var> has no constant with the name of one of
+     *             the <var>ordinals</var>.
+     */
+    <T extends Enum<T>> T[] getEnumConstants(Class<T> enumClass, int[] ordinals)
+            throws HDF5JavaException
+    {
+        final Enum<?>[] table = getEnumConstantTable(enumClass);
+        @SuppressWarnings("unchecked")
+        final T[] result = (T[]) Array.newInstance(enumClass, ordinals.length);
+        for (int i = 0; i < ordinals.length; ++i)
+        {
+            @SuppressWarnings("unchecked")
+            final T constant = (T) table[ordinals[i]];
+            if (constant == null)
+            {
+                throw new HDF5JavaException("The Java enum class "
+                        + enumClass.getCanonicalName() + " has no value '"
+                        + enumType.getValueArray()[ordinals[i]] + "'.");
+            }
+            result[i] = constant;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the table mapping the ordinals of this type to the constants of
+     * <var>enumClass</var>. The table is computed once and kept for the most recently requested
+     * enum class. Ordinals whose name is not a constant of <var>enumClass</var> map to
+     * <code>null</code>.
+     */
+    private Enum<?>[] getEnumConstantTable(Class<?> enumClass)
+    {
+        EnumConstantTable table = enumConstantTableOrNull;
+        if (table == null || table.enumClass != enumClass)
+        {
+            final String[] values = enumType.getValueArray();
+            final Enum<?>[] constants = new Enum<?>[values.length];
+            for (Object constant : enumClass.getEnumConstants())
+            {
+                final Integer ordinalOrNull =
+                        enumType.tryGetIndexForValue(((Enum<?>) constant).name());
+                if (ordinalOrNull != null)
+                {
+                    constants[ordinalOrNull] = (Enum<?>) constant;
+                }
+            }
+            table = new EnumConstantTable(enumClass, constants);
+            enumConstantTableOrNull = table;
+        }
+        return table.constants;
+    }
+
     //
     // Iterable
     //
@@ -19,8 +19,6 @@ package ch.systemsx.cisd.hdf5;
 import java.lang.reflect.Array;
 import java.util.Iterator;
 
-import hdf.hdf5lib.exceptions.HDF5JavaException;
-
 import ch.systemsx.cisd.base.convert.NativeData;
 import ch.systemsx.cisd.base.convert.NativeData.ByteOrder;
 import ch.systemsx.cisd.hdf5.HDF5EnumerationType.EnumStorageForm;
@@ -480,7 +478,7 @@ public class HDF5EnumerationValueArray implements Iterable<String>
      */
     public <T extends Enum<T>> T getValue(Class<T> enumClass, int arrayIndex)
     {
-        return Enum.valueOf(enumClass, getValue(arrayIndex));
+        return type.getEnumConstant(enumClass, getOrdinal(arrayIndex));
     }
 
     /**
@@ -507,14 +505,7 @@ public class HDF5EnumerationValueArray implements Iterable<String>
         final T[] result = (T[]) Array.newInstance(enumClass, len);
         for (int i = 0; i < len; ++i)
         {
-            try
-            {
-                result[i] = Enum.valueOf(enumClass, getValue(i));
-            } catch (IllegalArgumentException ex)
-            {
-                throw new HDF5JavaException("The Java enum class " + enumClass.getCanonicalName()
-                        + " has no value '" + getValue(i) + "'.");
-            }
+            result[i] = type.getEnumConstant(enumClass, getOrdinal(i));
         }
         return result;
     }
@@ -582,7 +582,7 @@ public class HDF5EnumerationValueMDArray implements Iterable<MDArray<String>.Arr
      */
     public <T extends Enum<T>> T getValue(Class<T> enumClass, int... arrayIndices)
     {
-        return Enum.valueOf(enumClass, getValue(arrayIndices));
+        return type.getEnumConstant(enumClass, getOrdinal(arrayIndices));
     }
 
     /**
@@ -611,7 +611,7 @@ public class HDF5EnumerationValueMDArray implements Iterable<MDArray<String>.Arr
         final T[] flatValues = values.getAsFlatArray();
         for (int i = 0; i < len; ++i)
         {
-            flatValues[i] = Enum.valueOf(enumClass, getValue(i));
+            flatValues[i] = type.getEnumConstant(enumClass, getOrdinal(i));
         }
         return values;
     }
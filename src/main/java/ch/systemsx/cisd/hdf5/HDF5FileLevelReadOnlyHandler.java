@@ -70,6 +70,12 @@ class HDF5FileLevelReadOnlyHandler implements IHDF5FileLevelReadOnlyHandler
         return baseReader.hdf5File;
     }
     
+    @Override
+    public boolean isSWMR()
+    {
+        return baseReader.isSWMR();
+    }
+
     @Override
     public void close()
     {
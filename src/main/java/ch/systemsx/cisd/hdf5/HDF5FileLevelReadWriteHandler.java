@@ -71,6 +71,13 @@ final class HDF5FileLevelReadWriteHandler extends HDF5FileLevelReadOnlyHandler i
         baseWriter.flushSyncBlocking();
     }
 
+    @Override
+    public void startSWMRWrite()
+    {
+        baseWriter.checkOpen();
+        baseWriter.startSWMRWrite();
+    }
+
     @Override
     public boolean addFlushable(Flushable flushable)
     {
@@ -22,6 +22,7 @@ import static ch.systemsx.cisd.hdf5.MatrixUtils.createFullBlockDimensionsAndOffs
 import static hdf.hdf5lib.HDF5Constants.H5T_ARRAY;
 import static hdf.hdf5lib.HDF5Constants.H5T_NATIVE_FLOAT;
 
+import java.nio.FloatBuffer;
 import java.util.Arrays;
 import java.util.Iterator;
 
@@ -188,6 +189,13 @@ class HDF5FloatReader implements IHDF5FloatReader
         return baseReader.runner.call(readCallable);
     }
 
+    @Override
+    public FloatBuffer mapArray(String objectPath)
+    {
+        return baseReader.mapDataSet(objectPath, HDF5Constants.H5T_FLOAT, Float.BYTES)
+                .asFloatBuffer();
+    }
+
     private float[] readFloatArray(long dataSetId, ICleanUpRegistry registry)
     {
         try
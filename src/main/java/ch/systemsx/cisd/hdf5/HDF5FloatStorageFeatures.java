@@ -559,6 +559,21 @@ public final class HDF5FloatStorageFeatures extends HDF5AbstractStorageFeatures
             return this;
         }
 
+        /**
+         * Request the index used to look up the chunks of the dataset, e.g.
+         * {@link HDF5ChunkIndexType#EXTENSIBLE_ARRAY} for a dataset that is appended to along its
+         * first dimension. Implies a chunked layout and the 1.10 file format for the dataset.
+         * <code>null</code> lets the HDF5 library choose, based on the file format bounds.
+         * 
+         * @return This builder.
+         */
+        @Override
+        public HDF5FloatStorageFeatureBuilder chunkIndex(HDF5ChunkIndexType chunkIndex)
+        {
+            super.chunkIndex(chunkIndex);
+            return this;
+        }
+
         /**
          * Let a heuristic choose the right layout for the dataset.
          * 
@@ -716,8 +731,9 @@ public final class HDF5FloatStorageFeatures extends HDF5AbstractStorageFeatures
         } else
         {
             return new HDF5FloatStorageFeatures(storageFeatures.tryGetProposedLayout(),
-                    storageFeatures.getDatasetReplacementPolicy(),
-                    storageFeatures.getDeflateLevel(), NO_SCALING_FACTOR);
+                    storageFeatures.getDatasetReplacementPolicy(), false,
+                    storageFeatures.getDeflateLevel(), NO_SCALING_FACTOR,
+                    storageFeatures.tryGetChunkIndex());
         }
     }
 
@@ -845,8 +861,7 @@ public final class HDF5FloatStorageFeatures extends HDF5AbstractStorageFeatures
 
     HDF5FloatStorageFeatures(HDF5FloatStorageFeatureBuilder builder)
     {
-        super(builder.getStorageLayout(), builder.getDatasetReplacementPolicy(), builder
-                .isShuffleBeforeDeflate(), builder.getDeflateLevel(), builder.getScalingFactor());
+        super(builder);
     }
 
     HDF5FloatStorageFeatures(HDF5StorageLayout proposedLayoutOrNull,
@@ -857,6 +872,14 @@ public final class HDF5FloatStorageFeatures extends HDF5AbstractStorageFeatures
                 scalingFactor);
     }
 
+    HDF5FloatStorageFeatures(HDF5StorageLayout proposedLayoutOrNull,
+            DataSetReplacementPolicy dataSetReplacementPolicy, boolean shuffleBeforeDeflate,
+            byte deflateLevel, byte scalingFactor, HDF5ChunkIndexType chunkIndexOrNull)
+    {
+        super(proposedLayoutOrNull, dataSetReplacementPolicy, shuffleBeforeDeflate, deflateLevel,
+                scalingFactor, chunkIndexOrNull);
+    }
+
     /**
      * Returns true, if this compression setting can be applied on the given <var>dataClassId</var>.
      */
@@ -414,6 +414,21 @@ public final class HDF5GenericStorageFeatures extends HDF5AbstractStorageFeature
             return this;
         }
 
+        /**
+         * Request the index used to look up the chunks of the dataset, e.g.
+         * {@link HDF5ChunkIndexType#EXTENSIBLE_ARRAY} for a dataset that is appended to along its
+         * first dimension. Implies a chunked layout and the 1.10 file format for the dataset.
+         * <code>null</code> lets the HDF5 library choose, based on the file format bounds.
+         * 
+         * @return This builder.
+         */
+        @Override
+        public HDF5GenericStorageFeatureBuilder chunkIndex(HDF5ChunkIndexType chunkIndex)
+        {
+            super.chunkIndex(chunkIndex);
+            return this;
+        }
+
         /**
          * Let a heuristic choose the right layout for the dataset.
          * 
@@ -509,8 +524,7 @@ public final class HDF5GenericStorageFeatures extends HDF5AbstractStorageFeature
 
     HDF5GenericStorageFeatures(HDF5GenericStorageFeatureBuilder builder)
     {
-        super(builder.getStorageLayout(), builder.getDatasetReplacementPolicy(), builder
-                .isShuffleBeforeDeflate(), builder.getDeflateLevel(), builder.getScalingFactor());
+        super(builder);
     }
 
     HDF5GenericStorageFeatures(HDF5StorageLayout proposedLayoutOrNull, byte deflateLevel,
@@ -712,6 +712,21 @@ public final class HDF5IntStorageFeatures extends HDF5AbstractStorageFeatures
             return this;
         }
 
+        /**
+         * Request the index used to look up the chunks of the dataset, e.g.
+         * {@link HDF5ChunkIndexType#EXTENSIBLE_ARRAY} for a dataset that is appended to along its
+         * first dimension. Implies a chunked layout and the 1.10 file format for the dataset.
+         * <code>null</code> lets the HDF5 library choose, based on the file format bounds.
+         * 
+         * @return This builder.
+         */
+        @Override
+        public HDF5IntStorageFeatureBuilder chunkIndex(HDF5ChunkIndexType chunkIndex)
+        {
+            super.chunkIndex(chunkIndex);
+            return this;
+        }
+
         /**
          * Let a heuristic choose the right layout for the dataset.
          * 
@@ -869,8 +884,9 @@ public final class HDF5IntStorageFeatures extends HDF5AbstractStorageFeatures
         } else
         {
             return new HDF5IntStorageFeatures(storageFeatures.tryGetProposedLayout(),
-                    storageFeatures.getDatasetReplacementPolicy(),
-                    storageFeatures.getDeflateLevel(), NO_SCALING_FACTOR, true);
+                    storageFeatures.getDatasetReplacementPolicy(), false,
+                    storageFeatures.getDeflateLevel(), NO_SCALING_FACTOR, true,
+                    storageFeatures.tryGetChunkIndex());
         }
     }
 
@@ -938,8 +954,9 @@ public final class HDF5IntStorageFeatures extends HDF5AbstractStorageFeatures
         } else
         {
             return new HDF5IntStorageFeatures(storageFeatures.tryGetProposedLayout(),
-                    storageFeatures.getDatasetReplacementPolicy(),
-                    storageFeatures.getDeflateLevel(), NO_SCALING_FACTOR, true);
+                    storageFeatures.getDatasetReplacementPolicy(), false,
+                    storageFeatures.getDeflateLevel(), NO_SCALING_FACTOR, true,
+                    storageFeatures.tryGetChunkIndex());
         }
     }
 
@@ -1182,8 +1199,7 @@ public final class HDF5IntStorageFeatures extends HDF5AbstractStorageFeatures
 
     HDF5IntStorageFeatures(HDF5IntStorageFeatureBuilder builder)
     {
-        super(builder.getStorageLayout(), builder.getDatasetReplacementPolicy(), builder
-                .isShuffleBeforeDeflate(), builder.getDeflateLevel(), builder.getScalingFactor());
+        super(builder);
         this.signed = builder.isSigned();
     }
 
@@ -1211,6 +1227,16 @@ public final class HDF5IntStorageFeatures extends HDF5AbstractStorageFeatures
         this.signed = signed;
     }
 
+    HDF5IntStorageFeatures(HDF5StorageLayout proposedLayoutOrNull,
+            DataSetReplacementPolicy dataSetReplacementPolicy, boolean shuffleBeforeDeflate,
+            byte deflateLevel, byte scalingFactor, boolean signed,
+            HDF5ChunkIndexType chunkIndexOrNull)
+    {
+        super(proposedLayoutOrNull, dataSetReplacementPolicy, shuffleBeforeDeflate, deflateLevel,
+                scalingFactor, chunkIndexOrNull);
+        this.signed = signed;
+    }
+
     /**
      * Returns <code>true</code> if signed integers should be stored, <code>false</code> otherwise.
      */
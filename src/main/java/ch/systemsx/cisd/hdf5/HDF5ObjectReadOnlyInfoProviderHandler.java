@@ -114,6 +114,35 @@ class HDF5ObjectReadOnlyInfoProviderHandler implements IHDF5ObjectReadOnlyInfoPr
         return baseReader.openDataSet(objectPath);
     }
 
+    @Override
+    public void refresh(final String objectPath)
+    {
+        assert objectPath != null;
+
+        baseReader.checkOpen();
+        final ICallableWithCleanUp<Void> refreshRunnable = new ICallableWithCleanUp<Void>()
+            {
+                @Override
+                public Void call(ICleanUpRegistry registry)
+                {
+                    final long dataSetId =
+                            baseReader.h5.openDataSet(baseReader.fileId, objectPath, registry);
+                    baseReader.h5.refreshDataSet(dataSetId);
+                    return null; // Nothing to return.
+                }
+            };
+        baseReader.runner.call(refreshRunnable);
+    }
+
+    @Override
+    public void refresh(final HDF5DataSet dataSet)
+    {
+        assert dataSet != null;
+
+        baseReader.checkOpen();
+        dataSet.refresh();
+    }
+
     @Override
     public String toHouseKeepingPath(String objectPath)
     {
@@ -401,6 +430,27 @@ class HDF5ObjectReadOnlyInfoProviderHandler implements IHDF5ObjectReadOnlyInfoPr
         return baseReader.getDimensions(objectPath);
     }
 
+    @Override
+    public List<HDF5VirtualDataSetMapping> getVirtualDataSetMappings(final String objectPath)
+    {
+        assert objectPath != null;
+
+        baseReader.checkOpen();
+        final ICallableWithCleanUp<List<HDF5VirtualDataSetMapping>> readRunnable =
+                new ICallableWithCleanUp<List<HDF5VirtualDataSetMapping>>()
+                    {
+                        @Override
+                        public List<HDF5VirtualDataSetMapping> call(ICleanUpRegistry registry)
+                        {
+                            final long dataSetId =
+                                    baseReader.h5.openDataSet(baseReader.fileId, objectPath,
+                                            registry);
+                            return baseReader.h5.getVirtualDataSetMappings(dataSetId, registry);
+                        }
+                    };
+        return baseReader.runner.call(readRunnable);
+    }
+
     // /////////////////////
     // Copies
     // /////////////////////
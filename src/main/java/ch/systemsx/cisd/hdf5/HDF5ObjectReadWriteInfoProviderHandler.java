@@ -19,6 +19,10 @@ package ch.systemsx.cisd.hdf5;
 import static ch.systemsx.cisd.hdf5.HDF5Utils.createAttributeTypeVariantAttributeName;
 import static ch.systemsx.cisd.hdf5.HDF5Utils.createObjectTypeVariantAttributeName;
 
+import java.util.List;
+
+import hdf.hdf5lib.exceptions.HDF5JavaException;
+
 import ch.systemsx.cisd.hdf5.cleanup.ICallableWithCleanUp;
 import ch.systemsx.cisd.hdf5.cleanup.ICleanUpRegistry;
 
@@ -217,6 +221,55 @@ final class HDF5ObjectReadWriteInfoProviderHandler extends HDF5ObjectReadOnlyInf
         baseWriter.runner.call(writeRunnable);
     }
 
+    @Override
+    public void createVirtualDataSet(final String objectPath, final long[] dimensions,
+            final List<HDF5VirtualDataSetMapping> mappings)
+    {
+        assert objectPath != null;
+        assert dimensions != null;
+        assert mappings != null;
+
+        baseWriter.checkOpen();
+        if (mappings.isEmpty())
+        {
+            throw new HDF5JavaException("No mappings given for virtual data set '" + objectPath
+                    + "'.");
+        }
+        final ICallableWithCleanUp<Void> createRunnable = new ICallableWithCleanUp<Void>()
+            {
+                @Override
+                public Void call(ICleanUpRegistry registry)
+                {
+                    final long dataTypeId = getSourceDataType(mappings.get(0), registry);
+                    baseWriter.h5.createVirtualDataSet(baseWriter.fileId, dimensions, dataTypeId,
+                            mappings, objectPath, registry);
+                    return null; // Nothing to return.
+                }
+            };
+        baseWriter.runner.call(createRunnable);
+    }
+
+    /**
+     * Returns a (transient) copy of the data type of the source data set of <var>mapping</var>.
+     */
+    private long getSourceDataType(HDF5VirtualDataSetMapping mapping, ICleanUpRegistry registry)
+    {
+        final long sourceFileId;
+        if (HDF5VirtualDataSetMapping.SAME_FILE.equals(mapping.getSourceFileName()))
+        {
+            sourceFileId = baseWriter.fileId;
+        } else
+        {
+            sourceFileId =
+                    baseWriter.h5.openFileReadOnly(mapping.getSourceFile(baseWriter.hdf5File)
+                            .getPath(), registry);
+        }
+        final long sourceDataSetId =
+                baseWriter.h5.openDataSet(sourceFileId, mapping.getSourceDataSetPath(), registry);
+        return baseWriter.h5.copyDataType(
+                baseWriter.h5.getDataTypeForDataSet(sourceDataSetId, registry), registry);
+    }
+
     // /////////////////////
     // Types
     // /////////////////////
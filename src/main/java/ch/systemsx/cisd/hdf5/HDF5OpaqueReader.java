@@ -19,6 +19,7 @@ package ch.systemsx.cisd.hdf5;
 import static hdf.hdf5lib.HDF5Constants.H5T_STRING;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
 import hdf.hdf5lib.exceptions.HDF5JavaException;
@@ -252,6 +253,46 @@ public class HDF5OpaqueReader implements IHDF5OpaqueReader
         return baseReader.runner.call(readCallable);
     }
 
+    @Override
+    public int readArrayToBlockWithOffset(final String objectPath, final ByteBuffer buffer,
+            final int blockSize, final long offset) throws HDF5JavaException
+    {
+        if (buffer.isDirect() == false)
+        {
+            throw new HDF5JavaException("Buffer is not direct");
+        }
+        if (blockSize > buffer.remaining())
+        {
+            throw new HDF5JavaException("Buffer not large enough for blockSize");
+        }
+        baseReader.checkOpen();
+        final ICallableWithCleanUp<Integer> readCallable = new ICallableWithCleanUp<Integer>()
+            {
+                @Override
+                public Integer call(ICleanUpRegistry registry)
+                {
+                    final long dataSetId =
+                            baseReader.h5.openDataSet(baseReader.fileId, objectPath, registry);
+                    final DataSpaceParameters spaceParams =
+                            baseReader.getSpaceParameters(dataSetId, offset, blockSize, registry);
+                    final long nativeDataTypeId =
+                            baseReader.h5.getNativeDataTypeForDataSet(dataSetId, registry);
+                    checkNotAString(objectPath, nativeDataTypeId);
+                    final int elementSize = baseReader.h5.getDataTypeSize(nativeDataTypeId);
+                    final int byteCount = spaceParams.blockSize * elementSize;
+                    if (byteCount > buffer.remaining())
+                    {
+                        throw new HDF5JavaException("Buffer not large enough for blockSize");
+                    }
+                    baseReader.h5.readDataSet(dataSetId, nativeDataTypeId,
+                            spaceParams.memorySpaceId, spaceParams.dataSpaceId, buffer);
+                    buffer.position(buffer.position() + byteCount);
+                    return spaceParams.blockSize;
+                }
+            };
+        return baseReader.runner.call(readCallable);
+    }
+
     @Override
     public Iterable<HDF5DataBlock<byte[]>> getArrayNaturalBlocks(final String dataSetPath)
             throws HDF5JavaException
@@ -22,6 +22,10 @@ import static hdf.hdf5lib.H5.H5Dwrite;
 import static hdf.hdf5lib.HDF5Constants.H5P_DEFAULT;
 import static hdf.hdf5lib.HDF5Constants.H5S_ALL;
 
+import java.nio.ByteBuffer;
+
+import hdf.hdf5lib.exceptions.HDF5JavaException;
+
 import ch.systemsx.cisd.hdf5.cleanup.ICallableWithCleanUp;
 import ch.systemsx.cisd.hdf5.cleanup.ICleanUpRegistry;
 
@@ -219,6 +223,52 @@ public class HDF5OpaqueWriter extends HDF5OpaqueReader implements IHDF5OpaqueWri
         baseWriter.runner.call(writeRunnable);
     }
 
+    @Override
+    public void writeArrayBlockWithOffset(final String objectPath,
+            final HDF5OpaqueType dataType, final ByteBuffer data, final int dataSize,
+            final long offset)
+    {
+        assert objectPath != null;
+        assert dataType != null;
+        assert data != null;
+
+        if (data.isDirect() == false)
+        {
+            throw new HDF5JavaException("Buffer is not direct");
+        }
+        if (dataSize > data.remaining())
+        {
+            throw new HDF5JavaException("Buffer has less than dataSize bytes remaining");
+        }
+        baseWriter.checkOpen();
+        dataType.check(baseWriter.fileId);
+        final ICallableWithCleanUp<Void> writeRunnable = new ICallableWithCleanUp<Void>()
+            {
+                @Override
+                public Void call(ICleanUpRegistry registry)
+                {
+                    final long[] blockDimensions = new long[]
+                        { dataSize };
+                    final long[] slabStartOrNull = new long[]
+                        { offset };
+                    final long dataSetId =
+                            baseWriter.h5.openAndExtendDataSet(baseWriter.fileId, objectPath,
+                                    baseWriter.fileFormat, new long[]
+                                        { offset + dataSize }, false, registry);
+                    final long dataSpaceId =
+                            baseWriter.h5.getDataSpaceForDataSet(dataSetId, registry);
+                    baseWriter.h5.setHyperslabBlock(dataSpaceId, slabStartOrNull, blockDimensions);
+                    final long memorySpaceId =
+                            baseWriter.h5.createSimpleDataSpace(blockDimensions, registry);
+                    baseWriter.h5.writeDataSet(dataSetId, dataType.getNativeTypeId(), memorySpaceId,
+                            dataSpaceId, data);
+                    data.position(data.position() + dataSize);
+                    return null; // Nothing to return.
+                }
+            };
+        baseWriter.runner.call(writeRunnable);
+    }
+
     private long getOrCreateOpaqueTypeId(final String tag)
     {
         final String dataTypePath =
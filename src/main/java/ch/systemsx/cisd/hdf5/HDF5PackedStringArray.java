@@ -0,0 +1,256 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.systemsx.cisd.hdf5;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An array of strings that are stored packed back-to-back in one <code>byte[]</code>, together
+ * with a table of offsets. This is a compact alternative to <code>String[]</code> for callers that
+ * do not need all elements as <code>String</code> objects, e.g. because they only compare, hash or
+ * forward the bytes.
+ * <p>
+ * String <var>i</var> is stored in <code>getData()[getOffsets()[i] .. getOffsets()[i+1]-1]</code>
+ * in the character encoding returned by {@link #getEncoding()}.
+ * 
+ * @see IHDF5StringReader#readArrayPacked(String)
+ */
+public final class HDF5PackedStringArray
+{
+    private final byte[] data;
+
+    private final int[] offsets;
+
+    private final CharacterEncoding encoding;
+
+    private final boolean ascii;
+
+    HDF5PackedStringArray(byte[] data, int[] offsets, CharacterEncoding encoding)
+    {
+        this.data = data;
+        this.offsets = offsets;
+        this.encoding = encoding;
+        this.ascii = StringUtils.isASCII(data, 0, offsets[offsets.length - 1]);
+    }
+
+    /**
+     * Creates a packed string array from a block of <var>count</var> fixed-length strings of
+     * <var>strLength</var> bytes each as read from a data set. The strings are compacted in place,
+     * i.e. <var>data</var> is re-used as the storage of the packed array.
+     * 
+     * @param readRaw If <code>false</code>, '\0' is considered the end of string, otherwise the
+     *            full length of each string is kept.
+     */
+    static HDF5PackedStringArray createFromFixedLength(byte[] data, int strLength, int count,
+            CharacterEncoding encoding, boolean readRaw)
+    {
+        final int[] offsets = new int[count + 1];
+        int packedIdx = 0;
+        for (int i = 0, startIdx = 0; i < count; ++i, startIdx += strLength)
+        {
+            final int endIdx =
+                    readRaw ? startIdx + strLength : StringUtils.indexOf0Term(data, startIdx,
+                            startIdx + strLength);
+            final int length = endIdx - startIdx;
+            // packedIdx <= startIdx, so moving down in place is safe.
+            if (packedIdx != startIdx)
+            {
+                System.arraycopy(data, startIdx, data, packedIdx, length);
+            }
+            offsets[i] = packedIdx;
+            packedIdx += length;
+        }
+        offsets[count] = packedIdx;
+        return new HDF5PackedStringArray(data, offsets, encoding);
+    }
+
+    /**
+     * Creates a packed string array from <var>strings</var>.
+     */
+    static HDF5PackedStringArray createFromStrings(String[] strings, CharacterEncoding encoding)
+    {
+        final byte[][] bytes = new byte[strings.length][];
+        int totalLength = 0;
+        for (int i = 0; i < strings.length; ++i)
+        {
+            bytes[i] =
+                    (strings[i] == null) ? new byte[0] : strings[i].getBytes(encoding
+                            .getCharSet());
+            totalLength += bytes[i].length;
+        }
+        final byte[] data = new byte[totalLength];
+        final int[] offsets = new int[strings.length + 1];
+        int packedIdx = 0;
+        for (int i = 0; i < bytes.length; ++i)
+        {
+            offsets[i] = packedIdx;
+            System.arraycopy(bytes[i], 0, data, packedIdx, bytes[i].length);
+            packedIdx += bytes[i].length;
+        }
+        offsets[strings.length] = packedIdx;
+        return new HDF5PackedStringArray(data, offsets, encoding);
+    }
+
+    /**
+     * Returns the number of strings in this array.
+     */
+    public int size()
+    {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the byte array that holds the packed strings. Note that the array may be longer than
+     * <code>getOffsets()[size()]</code>.
+     */
+    public byte[] getData()
+    {
+        return data;
+    }
+
+    /**
+     * Returns the offsets of the strings in {@link #getData()}. The array has a length of
+     * <code>size() + 1</code>, with the last element being the end of the last string.
+     */
+    public int[] getOffsets()
+    {
+        return offsets;
+    }
+
+    /**
+     * Returns the character encoding of the strings in {@link #getData()}.
+     */
+    public CharacterEncoding getEncoding()
+    {
+        return encoding;
+    }
+
+    /**
+     * Returns <code>true</code> if all strings in this array consist only of 7-bit ASCII
+     * characters.
+     */
+    public boolean isASCII()
+    {
+        return ascii;
+    }
+
+    /**
+     * Returns the length of string <var>index</var> in bytes.
+     */
+    public int getByteLength(int index)
+    {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Returns string <var>index</var> as a <code>String</code> object.
+     */
+    public String get(int index)
+    {
+        final int startIdx = offsets[index];
+        return new String(data, startIdx, offsets[index + 1] - startIdx, getCharSet());
+    }
+
+    /**
+     * Returns string <var>index</var> as a <code>CharSequence</code>. If the array is pure ASCII,
+     * this is a view on {@link #getData()} that does not copy or decode any bytes, otherwise it is
+     * a <code>String</code>.
+     */
+    public CharSequence getCharSequence(int index)
+    {
+        if (ascii)
+        {
+            return new ASCIICharSequence(data, offsets[index], offsets[index + 1]);
+        } else
+        {
+            return get(index);
+        }
+    }
+
+    /**
+     * Returns all strings of this array as <code>String</code> objects.
+     */
+    public String[] toArray()
+    {
+        final String[] result = new String[size()];
+        final Charset charSet = getCharSet();
+        for (int i = 0; i < result.length; ++i)
+        {
+            final int startIdx = offsets[i];
+            result[i] = new String(data, startIdx, offsets[i + 1] - startIdx, charSet);
+        }
+        return result;
+    }
+
+    private Charset getCharSet()
+    {
+        return ascii ? StandardCharsets.ISO_8859_1 : encoding.getCharSet();
+    }
+
+    /**
+     * A view on a range of bytes that only contains 7-bit ASCII characters.
+     */
+    private static final class ASCIICharSequence implements CharSequence
+    {
+        private final byte[] data;
+
+        private final int startIdx;
+
+        private final int endIdx;
+
+        ASCIICharSequence(byte[] data, int startIdx, int endIdx)
+        {
+            this.data = data;
+            this.startIdx = startIdx;
+            this.endIdx = endIdx;
+        }
+
+        @Override
+        public int length()
+        {
+            return endIdx - startIdx;
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            if (index < 0 || index >= length())
+            {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return (char) data[startIdx + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end)
+        {
+            if (start < 0 || end > length() || start > end)
+            {
+                throw new IndexOutOfBoundsException("[" + start + ", " + end + ")");
+            }
+            return new ASCIICharSequence(data, startIdx + start, startIdx + end);
+        }
+
+        @Override
+        public String toString()
+        {
+            return new String(data, startIdx, endIdx - startIdx, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+}
@@ -85,6 +85,8 @@ class HDF5Reader implements IHDF5Reader
 
     private final IHDF5OpaqueReader opaqueReader;
 
+    private HDF5AsyncReader asyncReaderOrNull;
+
     HDF5Reader(final HDF5BaseReader baseReader)
     {
         assert baseReader != null;
@@ -196,6 +198,32 @@ class HDF5Reader implements IHDF5Reader
         return opaqueReader;
     }
 
+    //
+    // Asynchronous
+    //
+
+    @Override
+    public synchronized IHDF5AsyncReader async()
+    {
+        if (asyncReaderOrNull == null)
+        {
+            baseReader.checkOpen();
+            final HDF5AsyncReader asyncReader = new HDF5AsyncReader(this);
+            // Waits for a read in progress, so it needs to run before the file is closed and
+            // outside of the file lock.
+            baseReader.addCloseHook(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        asyncReader.close();
+                    }
+                });
+            this.asyncReaderOrNull = asyncReader;
+        }
+        return asyncReaderOrNull;
+    }
+
     @Override
     public byte[] readAsByteArray(String objectPath)
     {
@@ -37,6 +37,8 @@ class HDF5ReaderConfigurator implements IHDF5ReaderConfigurator
 
     protected boolean autoDereference = true;
 
+    protected boolean swmrRead;
+
     protected HDF5Reader readerWriterOrNull;
     
     HDF5ReaderConfigurator(File hdf5File)
@@ -70,6 +72,13 @@ class HDF5ReaderConfigurator implements IHDF5ReaderConfigurator
         return this;
     }
 
+    @Override
+    public HDF5ReaderConfigurator swmrRead()
+    {
+        this.swmrRead = true;
+        return this;
+    }
+
     @Override
     public IHDF5Reader reader()
     {
@@ -78,7 +87,7 @@ class HDF5ReaderConfigurator implements IHDF5ReaderConfigurator
             readerWriterOrNull =
                     new HDF5Reader(new HDF5BaseReader(hdf5File, performNumericConversions,
                             autoDereference, IHDF5WriterConfigurator.FileFormatVersionBounds.getDefault(), 
-                            MDCImageGeneration.NO_GENERATE_MDC_IMAGE, false, ""));
+                            MDCImageGeneration.NO_GENERATE_MDC_IMAGE, false, "", swmrRead));
         }
         return readerWriterOrNull;
     }
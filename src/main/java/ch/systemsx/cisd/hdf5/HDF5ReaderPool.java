@@ -0,0 +1,449 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ch.systemsx.cisd.hdf5;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import hdf.hdf5lib.exceptions.HDF5JavaException;
+
+/**
+ * A pool of {@link IHDF5Reader}s for reading from many HDF5 files, which keeps files open
+ * between uses.
+ * <p>
+ * A reader is obtained by {@link #lease(File)} and given back by closing the returned
+ * {@link Lease}. A file can be leased by several threads at the same time, it is opened only once.
+ * At most {@link #getMaxOpenFiles()} files are kept open: when the limit is reached, the least
+ * recently used file which is not leased is closed, and if all files are leased,
+ * {@link #lease(File)} waits until a lease is returned. Files that have not been leased for
+ * {@link #getIdleTimeoutMillis()} are closed in the background.
+ * <p>
+ * Usage:
+ * 
+ * <pre>
+ * try (HDF5ReaderPool.Lease lease = pool.lease(file))
+ * {
+ *     float[] f = lease.getReader().float32().readArray(&quot;/some/path/dataset&quot;);
+ * }
+ * </pre>
+ * <p>
+ * <i>Note:</i> The readers are owned by the pool, don't close them.
+ */
+public final class HDF5ReaderPool implements Closeable
+{
+    /**
+     * The default maximal number of open files.
+     */
+    public static final int DEFAULT_MAX_OPEN_FILES = 64;
+
+    /**
+     * The default time (in milliseconds) after which a file that hasn't been leased is closed.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60 * 1000L;
+
+    /**
+     * The default number of threads opening files on {@link #warmUp(Collection)}.
+     */
+    public static final int DEFAULT_WARM_UP_THREADS = 4;
+
+    /**
+     * A reader leased from the pool. Closing the lease gives the reader back to the pool.
+     */
+    public final class Lease implements Closeable
+    {
+        private final Entry entry;
+
+        private boolean returned;
+
+        private Lease(Entry entry)
+        {
+            this.entry = entry;
+        }
+
+        /**
+         * Returns the file of this lease.
+         */
+        public File getFile()
+        {
+            return entry.file;
+        }
+
+        /**
+         * Returns the reader of this lease.
+         */
+        public IHDF5Reader getReader()
+        {
+            synchronized (HDF5ReaderPool.this)
+            {
+                if (returned)
+                {
+                    throw new HDF5JavaException("Lease of '" + entry.file.getPath()
+                            + "' has been returned.");
+                }
+            }
+            return entry.readerOrNull;
+        }
+
+        /**
+         * Gives the reader back to the pool.
+         */
+        @Override
+        public void close()
+        {
+            synchronized (HDF5ReaderPool.this)
+            {
+                if (returned)
+                {
+                    return;
+                }
+                returned = true;
+                giveBack(entry);
+            }
+        }
+    }
+
+    private static final class Entry
+    {
+        final File file;
+
+        IHDF5Reader readerOrNull;
+
+        boolean opening = true;
+
+        int leases;
+
+        long idleSince;
+
+        Entry(File file)
+        {
+            this.file = file;
+        }
+
+        boolean isIdle()
+        {
+            return opening == false && leases == 0;
+        }
+    }
+
+    private final int maxOpenFiles;
+
+    private final long idleTimeoutMillis;
+
+    /**
+     * The open files (and the files being opened), in order of their last use.
+     */
+    private final LinkedHashMap<File, Entry> entries = new LinkedHashMap<File, Entry>(16, 0.75f,
+            true);
+
+    private final ScheduledExecutorService executor;
+
+    private boolean closed;
+
+    /**
+     * Creates a pool with {@link #DEFAULT_MAX_OPEN_FILES} and
+     * {@link #DEFAULT_IDLE_TIMEOUT_MILLIS}.
+     */
+    public HDF5ReaderPool()
+    {
+        this(DEFAULT_MAX_OPEN_FILES, DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_WARM_UP_THREADS);
+    }
+
+    /**
+     * Creates a pool.
+     * 
+     * @param maxOpenFiles The maximal number of files kept open.
+     * @param idleTimeoutMillis The time (in milliseconds) after which a file that hasn't been
+     *            leased is closed. If 0, files are only closed to stay within
+     *            <var>maxOpenFiles</var>.
+     * @param warmUpThreads The number of threads opening files on {@link #warmUp(Collection)}.
+     */
+    public HDF5ReaderPool(int maxOpenFiles, long idleTimeoutMillis, int warmUpThreads)
+    {
+        if (maxOpenFiles < 1)
+        {
+            throw new IllegalArgumentException("Invalid maximal number of open files "
+                    + maxOpenFiles);
+        }
+        if (idleTimeoutMillis < 0)
+        {
+            throw new IllegalArgumentException("Invalid idle timeout " + idleTimeoutMillis);
+        }
+        if (warmUpThreads < 1)
+        {
+            throw new IllegalArgumentException("Invalid number of warm-up threads "
+                    + warmUpThreads);
+        }
+        this.maxOpenFiles = maxOpenFiles;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.executor = Executors.newScheduledThreadPool(warmUpThreads, new ThreadFactory()
+            {
+                private int count;
+
+                @Override
+                public synchronized Thread newThread(Runnable r)
+                {
+                    final Thread thread = new Thread(r, "HDF5 Reader Pool " + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        if (idleTimeoutMillis > 0)
+        {
+            final long period = Math.max(1, idleTimeoutMillis / 2);
+            executor.scheduleWithFixedDelay(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        closeIdleFiles();
+                    }
+                }, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns the maximal number of files kept open.
+     */
+    public int getMaxOpenFiles()
+    {
+        return maxOpenFiles;
+    }
+
+    /**
+     * Returns the time (in milliseconds) after which a file that hasn't been leased is closed.
+     */
+    public long getIdleTimeoutMillis()
+    {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * Returns the number of files currently open (or being opened).
+     */
+    public synchronized int getNumberOfOpenFiles()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Leases a reader of <var>file</var>, opening the file if it is not open yet. Waits if
+     * {@link #getMaxOpenFiles()} files are open and all of them are leased.
+     */
+    public Lease lease(File file)
+    {
+        return new Lease(acquire(file.getAbsoluteFile(), true));
+    }
+
+    /**
+     * Opens <var>files</var> on the warm-up threads, without leasing them. Files that cannot be
+     * opened are skipped, the error will show when they are leased.
+     * 
+     * @return A future which completes when all files have been opened.
+     */
+    public CompletableFuture<Void> warmUp(Collection<File> files)
+    {
+        final List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+        for (final File file : files)
+        {
+            futures.add(CompletableFuture.runAsync(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            acquire(file.getAbsoluteFile(), false);
+                        } catch (RuntimeException ex)
+                        {
+                            // Reported when the file is leased.
+                        }
+                    }
+                }, executor));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+    }
+
+    /**
+     * Returns the open entry of <var>file</var>, opening the file if necessary. The file is
+     * opened outside of the lock of the pool, so that other files can be leased meanwhile.
+     */
+    private Entry acquire(File file, boolean lease)
+    {
+        final Entry entry;
+        synchronized (this)
+        {
+            while (true)
+            {
+                checkOpen();
+                final Entry existingOrNull = entries.get(file);
+                if (existingOrNull != null && existingOrNull.opening == false)
+                {
+                    if (lease)
+                    {
+                        ++existingOrNull.leases;
+                    }
+                    return existingOrNull;
+                }
+                if (existingOrNull == null
+                        && (entries.size() < maxOpenFiles || closeLeastRecentlyUsedIdleFile()))
+                {
+                    break;
+                }
+                // Wait for the file to be opened by another thread or for a slot to free up.
+                waitForChange();
+            }
+            entry = new Entry(file);
+            if (lease)
+            {
+                ++entry.leases;
+            }
+            entries.put(file, entry);
+        }
+        IHDF5Reader readerOrNull = null;
+        try
+        {
+            readerOrNull = HDF5FactoryProvider.get().openForReading(file);
+        } finally
+        {
+            synchronized (this)
+            {
+                entry.opening = false;
+                entry.readerOrNull = readerOrNull;
+                entry.idleSince = System.currentTimeMillis();
+                if (readerOrNull == null)
+                {
+                    entries.remove(file);
+                }
+                notifyAll();
+            }
+        }
+        synchronized (this)
+        {
+            if (closed && readerOrNull != null)
+            {
+                readerOrNull.close();
+                checkOpen();
+            }
+        }
+        return entry;
+    }
+
+    private void waitForChange()
+    {
+        try
+        {
+            wait();
+        } catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new HDF5JavaException("Interrupted while waiting for a file of the pool.");
+        }
+    }
+
+    private void checkOpen()
+    {
+        if (closed)
+        {
+            throw new HDF5JavaException("Reader pool is closed.");
+        }
+    }
+
+    /**
+     * Closes the least recently used file which is not leased. Caller needs to hold the lock.
+     * 
+     * @return <code>false</code>, if all open files are leased.
+     */
+    private boolean closeLeastRecentlyUsedIdleFile()
+    {
+        final Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext())
+        {
+            final Entry entry = it.next();
+            if (entry.isIdle())
+            {
+                it.remove();
+                entry.readerOrNull.close();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void giveBack(Entry entry)
+    {
+        if (--entry.leases == 0)
+        {
+            entry.idleSince = System.currentTimeMillis();
+            notifyAll();
+        }
+    }
+
+    private synchronized void closeIdleFiles()
+    {
+        final long now = System.currentTimeMillis();
+        final Iterator<Map.Entry<File, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext())
+        {
+            final Entry entry = it.next().getValue();
+            if (entry.isIdle() && now - entry.idleSince >= idleTimeoutMillis)
+            {
+                it.remove();
+                entry.readerOrNull.close();
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Closes all files of the pool, including the leased ones, and stops its threads.
+     */
+    @Override
+    public void close()
+    {
+        synchronized (this)
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            for (Entry entry : entries.values())
+            {
+                if (entry.readerOrNull != null)
+                {
+                    entry.readerOrNull.close();
+                }
+            }
+            entries.clear();
+            notifyAll();
+        }
+        executor.shutdownNow();
+    }
+
+}
@@ -10,7 +10,9 @@ import hdf.hdf5lib.HDF5Constants;
 public enum HDF5StorageLayout
 {
     COMPACT(HDF5Constants.H5D_COMPACT), CONTIGUOUS(HDF5Constants.H5D_CONTIGUOUS), CHUNKED(
-            HDF5Constants.H5D_CHUNKED), NOT_APPLICABLE(-1);
+            HDF5Constants.H5D_CHUNKED), NOT_APPLICABLE(-1),
+    // Appended, so that the ordinals of the earlier constants stay the same.
+    VIRTUAL(HDF5Constants.H5D_VIRTUAL);
 
     private int id;
 
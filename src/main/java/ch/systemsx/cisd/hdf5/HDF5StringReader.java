@@ -17,14 +17,18 @@
 package ch.systemsx.cisd.hdf5;
 
 import static ch.systemsx.cisd.hdf5.HDF5Utils.getOneDimensionalArraySize;
+import static hdf.hdf5lib.HDF5Constants.H5S_ALL;
+import static hdf.hdf5lib.HDF5Constants.H5T_ENUM;
 import static hdf.hdf5lib.HDF5Constants.H5T_STRING;
 
 import java.util.Iterator;
 
+import hdf.hdf5lib.HDFNativeData;
 import hdf.hdf5lib.exceptions.HDF5JavaException;
 
 import ch.systemsx.cisd.base.mdarray.MDArray;
 import ch.systemsx.cisd.hdf5.HDF5BaseReader.DataSpaceParameters;
+import ch.systemsx.cisd.hdf5.HDF5EnumerationType.EnumStorageForm;
 import ch.systemsx.cisd.hdf5.cleanup.ICallableWithCleanUp;
 import ch.systemsx.cisd.hdf5.cleanup.ICleanUpRegistry;
 
@@ -238,39 +242,18 @@ public class HDF5StringReader implements IHDF5StringReader
                     if (baseReader.h5.isVariableLengthString(dataTypeId))
                     {
                         baseReader.h5.readDataSetVL(dataSetId, dataTypeId, data);
+                    } else if (isDictionaryEncoded(dataSetId, dataTypeId, registry))
+                    {
+                        readDictionaryEncoded(dataSetId, objectPath, H5S_ALL, H5S_ALL, data,
+                                registry);
                     } else
                     {
-                        final boolean isString =
-                                (baseReader.h5.getClassType(dataTypeId) == H5T_STRING);
-                        if (isString == false)
-                        {
-                            throw new HDF5JavaException(objectPath + " needs to be a String.");
-                        }
-                        final int strLength;
-                        final byte[] bdata;
-                        if (readRaw)
-                        {
-                            strLength = baseReader.h5.getDataTypeSize(dataTypeId);
-                            bdata = new byte[oneDimSize * strLength];
-                            baseReader.h5.readDataSetNonNumeric(dataSetId, dataTypeId, bdata);
-                        } else
-                        {
-                            strLength = -1;
-                            bdata = null;
-                            baseReader.h5.readDataSetString(dataSetId, dataTypeId, data);
-                        }
-                        if (bdata != null && readRaw)
-                        {
-                            final CharacterEncoding encoding =
-                                    baseReader.h5.getCharacterEncoding(dataTypeId);
-                            for (int i = 0, startIdx = 0; i < oneDimSize; ++i, startIdx +=
-                                    strLength)
-                            {
-                                data[i] =
-                                        StringUtils.fromBytes(bdata, startIdx,
-                                                startIdx + strLength, encoding);
-                            }
-                        }
+                        checkString(objectPath, dataTypeId);
+                        final int strLength = baseReader.h5.getDataTypeSize(dataTypeId);
+                        final byte[] bdata = new byte[oneDimSize * strLength];
+                        baseReader.h5.readDataSetNonNumeric(dataSetId, dataTypeId, bdata);
+                        decodeStrings(bdata, strLength,
+                                baseReader.h5.getCharacterEncoding(dataTypeId), readRaw, data);
                     }
                     return data;
                 }
@@ -313,59 +296,264 @@ public class HDF5StringReader implements IHDF5StringReader
                     {
                         baseReader.h5.readDataSetVL(dataSetId, dataTypeId,
                                 spaceParams.memorySpaceId, spaceParams.dataSpaceId, data);
+                    } else if (isDictionaryEncoded(dataSetId, dataTypeId, registry))
+                    {
+                        readDictionaryEncoded(dataSetId, objectPath, spaceParams.memorySpaceId,
+                                spaceParams.dataSpaceId, data, registry);
                     } else
                     {
-                        final boolean isString =
-                                (baseReader.h5.getClassType(dataTypeId) == H5T_STRING);
-                        if (isString == false)
+                        checkString(objectPath, dataTypeId);
+                        final int strLength = baseReader.h5.getDataTypeSize(dataTypeId);
+                        final byte[] bdata = new byte[spaceParams.blockSize * strLength];
+                        baseReader.h5.readDataSetNonNumeric(dataSetId, dataTypeId,
+                                spaceParams.memorySpaceId, spaceParams.dataSpaceId, bdata);
+                        decodeStrings(bdata, strLength,
+                                baseReader.h5.getCharacterEncoding(dataTypeId), readRaw, data);
+                    }
+                    return data;
+                }
+            };
+        return baseReader.runner.call(readCallable);
+    }
+
+    @Override
+    public String[] readArrayBlockWithOffset(String objectPath, int blockSize, long offset)
+    {
+        return readArrayBlockWithOffset(objectPath, blockSize, offset, false);
+    }
+
+    @Override
+    public String[] readArrayBlockWithOffsetRaw(String objectPath, int blockSize, long offset)
+    {
+        return readArrayBlockWithOffset(objectPath, blockSize, offset, true);
+    }
+
+    @Override
+    public HDF5PackedStringArray readArrayPacked(final String objectPath)
+            throws HDF5JavaException
+    {
+        assert objectPath != null;
+
+        baseReader.checkOpen();
+        final ICallableWithCleanUp<HDF5PackedStringArray> readCallable =
+                new ICallableWithCleanUp<HDF5PackedStringArray>()
+                    {
+                        @Override
+                        public HDF5PackedStringArray call(ICleanUpRegistry registry)
                         {
-                            throw new HDF5JavaException(objectPath + " needs to be a String.");
+                            final long dataSetId =
+                                    baseReader.h5.openDataSet(baseReader.fileId, objectPath,
+                                            registry);
+                            final long[] dimensions =
+                                    baseReader.h5.getDataDimensions(dataSetId, registry);
+                            final int oneDimSize = getOneDimensionalArraySize(dimensions);
+                            final long dataTypeId =
+                                    baseReader.h5.getNativeDataTypeForDataSet(dataSetId, registry);
+                            if (isDictionaryEncoded(dataSetId, dataTypeId, registry))
+                            {
+                                final String[] data = new String[oneDimSize];
+                                readDictionaryEncoded(dataSetId, objectPath, H5S_ALL, H5S_ALL,
+                                        data, registry);
+                                return HDF5PackedStringArray.createFromStrings(data,
+                                        CharacterEncoding.UTF8);
+                            }
+                            checkString(objectPath, dataTypeId);
+                            final CharacterEncoding encoding =
+                                    baseReader.h5.getCharacterEncoding(dataTypeId);
+                            if (baseReader.h5.isVariableLengthString(dataTypeId))
+                            {
+                                final String[] data = new String[oneDimSize];
+                                baseReader.h5.readDataSetVL(dataSetId, dataTypeId, data);
+                                return HDF5PackedStringArray.createFromStrings(data, encoding);
+                            }
+                            final int strLength = baseReader.h5.getDataTypeSize(dataTypeId);
+                            final byte[] bdata = new byte[oneDimSize * strLength];
+                            baseReader.h5.readDataSetNonNumeric(dataSetId, dataTypeId, bdata);
+                            return HDF5PackedStringArray.createFromFixedLength(bdata, strLength,
+                                    oneDimSize, encoding, false);
                         }
+                    };
+        return baseReader.runner.call(readCallable);
+    }
 
-                        final int strLength;
-                        final byte[] bdata;
-                        if (readRaw)
+    @Override
+    public HDF5PackedStringArray readArrayBlockWithOffsetPacked(final String objectPath,
+            final int blockSize, final long offset) throws HDF5JavaException
+    {
+        assert objectPath != null;
+
+        baseReader.checkOpen();
+        final ICallableWithCleanUp<HDF5PackedStringArray> readCallable =
+                new ICallableWithCleanUp<HDF5PackedStringArray>()
+                    {
+                        @Override
+                        public HDF5PackedStringArray call(ICleanUpRegistry registry)
                         {
-                            strLength = baseReader.h5.getDataTypeSize(dataTypeId);
-                            bdata = new byte[spaceParams.blockSize * strLength];
+                            final long dataSetId =
+                                    baseReader.h5.openDataSet(baseReader.fileId, objectPath,
+                                            registry);
+                            final DataSpaceParameters spaceParams =
+                                    baseReader.getSpaceParameters(dataSetId, offset, blockSize,
+                                            registry);
+                            final long dataTypeId =
+                                    baseReader.h5.getNativeDataTypeForDataSet(dataSetId, registry);
+                            if (isDictionaryEncoded(dataSetId, dataTypeId, registry))
+                            {
+                                final String[] data = new String[spaceParams.blockSize];
+                                readDictionaryEncoded(dataSetId, objectPath,
+                                        spaceParams.memorySpaceId, spaceParams.dataSpaceId, data,
+                                        registry);
+                                return HDF5PackedStringArray.createFromStrings(data,
+                                        CharacterEncoding.UTF8);
+                            }
+                            checkString(objectPath, dataTypeId);
+                            final CharacterEncoding encoding =
+                                    baseReader.h5.getCharacterEncoding(dataTypeId);
+                            if (baseReader.h5.isVariableLengthString(dataTypeId))
+                            {
+                                final String[] data = new String[spaceParams.blockSize];
+                                baseReader.h5.readDataSetVL(dataSetId, dataTypeId,
+                                        spaceParams.memorySpaceId, spaceParams.dataSpaceId, data);
+                                return HDF5PackedStringArray.createFromStrings(data, encoding);
+                            }
+                            final int strLength = baseReader.h5.getDataTypeSize(dataTypeId);
+                            final byte[] bdata = new byte[spaceParams.blockSize * strLength];
                             baseReader.h5.readDataSetNonNumeric(dataSetId, dataTypeId,
                                     spaceParams.memorySpaceId, spaceParams.dataSpaceId, bdata);
-                        } else
-                        {
-                            strLength = -1;
-                            bdata = null;
-                            baseReader.h5.readDataSetString(dataSetId, dataTypeId,
-                                    spaceParams.memorySpaceId, spaceParams.dataSpaceId, data);
+                            return HDF5PackedStringArray.createFromFixedLength(bdata, strLength,
+                                    spaceParams.blockSize, encoding, false);
                         }
-                        if (bdata != null && readRaw)
+                    };
+        return baseReader.runner.call(readCallable);
+    }
+
+    @Override
+    public Iterable<HDF5DataBlock<HDF5PackedStringArray>> getArrayNaturalBlocksPacked(
+            final String dataSetPath) throws HDF5JavaException
+    {
+        baseReader.checkOpen();
+        final HDF5NaturalBlock1DParameters params =
+                new HDF5NaturalBlock1DParameters(baseReader.getDataSetInformation(dataSetPath));
+
+        return new Iterable<HDF5DataBlock<HDF5PackedStringArray>>()
+            {
+                @Override
+                public Iterator<HDF5DataBlock<HDF5PackedStringArray>> iterator()
+                {
+                    return new Iterator<HDF5DataBlock<HDF5PackedStringArray>>()
                         {
-                            final CharacterEncoding encoding =
-                                    baseReader.h5.getCharacterEncoding(dataTypeId);
-                            for (int i = 0, startIdx = 0; i < spaceParams.blockSize; ++i, startIdx +=
-                                    strLength)
+                            final HDF5NaturalBlock1DParameters.HDF5NaturalBlock1DIndex index =
+                                    params.getNaturalBlockIndex();
+
+                            @Override
+                            public boolean hasNext()
                             {
-                                data[i] =
-                                        StringUtils.fromBytes(bdata, startIdx,
-                                                startIdx + strLength, encoding);
+                                return index.hasNext();
                             }
-                        }
-                    }
-                    return data;
+
+                            @Override
+                            public HDF5DataBlock<HDF5PackedStringArray> next()
+                            {
+                                final long offset = index.computeOffsetAndSizeGetOffset();
+                                final HDF5PackedStringArray block =
+                                        readArrayBlockWithOffsetPacked(dataSetPath,
+                                                index.getBlockSize(), offset);
+                                return new HDF5DataBlock<HDF5PackedStringArray>(block,
+                                        index.getAndIncIndex(), offset);
+                            }
+
+                            @Override
+                            public void remove()
+                            {
+                                throw new UnsupportedOperationException();
+                            }
+                        };
                 }
             };
-        return baseReader.runner.call(readCallable);
     }
 
-    @Override
-    public String[] readArrayBlockWithOffset(String objectPath, int blockSize, long offset)
+    /**
+     * Returns <code>true</code>, if the data set <var>dataSetId</var> is a dictionary-encoded
+     * string array.
+     */
+    private boolean isDictionaryEncoded(final long dataSetId, final long dataTypeId,
+            final ICleanUpRegistry registry)
+    {
+        return baseReader.h5.getClassType(dataTypeId) == H5T_ENUM
+                && baseReader.tryGetTypeVariant(dataSetId,
+                        registry) == HDF5DataTypeVariant.DICTIONARY_ENCODED_STRING;
+    }
+
+    /**
+     * Reads a dictionary-encoded string array, that is one which is stored as an enumeration with
+     * the distinct strings as its values, into <var>data</var>. All elements of the same value
+     * refer to the same <code>String</code> instance.
+     * 
+     * @see IHDF5StringWriter#writeArrayDictionaryEncoded(String, String[])
+     */
+    private void readDictionaryEncoded(final long dataSetId, final String objectPath,
+            final long memorySpaceId, final long fileSpaceId, final String[] data,
+            final ICleanUpRegistry registry)
+    {
+        final long storageDataTypeId = baseReader.h5.getDataTypeForDataSet(dataSetId, registry);
+        final HDF5EnumerationType enumType =
+                baseReader.getEnumTypeForEnumDataType(null, storageDataTypeId, false, registry);
+        final EnumStorageForm storageForm = enumType.getStorageForm();
+        final byte[] ordinals = new byte[data.length * storageForm.getStorageSize()];
+        baseReader.h5.readDataSet(dataSetId, enumType.getNativeTypeId(), memorySpaceId,
+                fileSpaceId, ordinals);
+        final String[] dictionary = enumType.getEnumType().getValueArray();
+        switch (storageForm)
+        {
+            case BYTE:
+                for (int i = 0; i < data.length; ++i)
+                {
+                    data[i] = dictionary[ordinals[i]];
+                }
+                break;
+            case SHORT:
+            {
+                final short[] shortOrdinals = HDFNativeData.byteToShort(ordinals);
+                for (int i = 0; i < data.length; ++i)
+                {
+                    data[i] = dictionary[shortOrdinals[i]];
+                }
+                break;
+            }
+            case INT:
+            {
+                final int[] intOrdinals = HDFNativeData.byteToInt(ordinals);
+                for (int i = 0; i < data.length; ++i)
+                {
+                    data[i] = dictionary[intOrdinals[i]];
+                }
+                break;
+            }
+        }
+    }
+
+    private void checkString(final String objectPath, final long dataTypeId)
+            throws HDF5JavaException
     {
-        return readArrayBlockWithOffset(objectPath, blockSize, offset, false);
+        if (baseReader.h5.getClassType(dataTypeId) != H5T_STRING)
+        {
+            throw new HDF5JavaException(objectPath + " needs to be a String.");
+        }
     }
 
-    @Override
-    public String[] readArrayBlockWithOffsetRaw(String objectPath, int blockSize, long offset)
+    /**
+     * Decodes a block of fixed-length strings as read from a data set into <var>data</var>.
+     */
+    private static void decodeStrings(byte[] bdata, int strLength, CharacterEncoding encoding,
+            boolean readRaw, String[] data)
     {
-        return readArrayBlockWithOffset(objectPath, blockSize, offset, true);
+        if (readRaw)
+        {
+            StringUtils.fromBytes(bdata, strLength, encoding, data);
+        } else
+        {
+            StringUtils.fromBytes0Term(bdata, strLength, encoding, data);
+        }
     }
 
     @Override
@@ -403,42 +591,20 @@ public class HDF5StringReader implements IHDF5StringReader
                             {
                                 baseReader.h5.readDataSetVL(dataSetId, dataTypeId,
                                         spaceParams.memorySpaceId, spaceParams.dataSpaceId, data);
+                            } else if (isDictionaryEncoded(dataSetId, dataTypeId, registry))
+                            {
+                                readDictionaryEncoded(dataSetId, objectPath, H5S_ALL, H5S_ALL, data,
+                                        registry);
                             } else
                             {
-                                final boolean isString =
-                                        (baseReader.h5.getClassType(dataTypeId) == H5T_STRING);
-                                if (isString == false)
-                                {
-                                    throw new HDF5JavaException(objectPath
-                                            + " needs to be a String.");
-                                }
-
-                                final int strLength;
-                                final byte[] bdata;
-                                if (readRaw)
-                                {
-                                    strLength = baseReader.h5.getDataTypeSize(dataTypeId);
-                                    bdata = new byte[spaceParams.blockSize * strLength];
-                                    baseReader.h5.readDataSetNonNumeric(dataSetId, dataTypeId,
-                                            bdata);
-                                } else
-                                {
-                                    strLength = -1;
-                                    bdata = null;
-                                    baseReader.h5.readDataSetString(dataSetId, dataTypeId, data);
-                                }
-                                if (bdata != null && readRaw)
-                                {
-                                    final CharacterEncoding encoding =
-                                            baseReader.h5.getCharacterEncoding(dataTypeId);
-                                    for (int i = 0, startIdx = 0; i < spaceParams.blockSize; ++i, startIdx +=
-                                            strLength)
-                                    {
-                                        data[i] =
-                                                StringUtils.fromBytes(bdata, startIdx, startIdx
-                                                        + strLength, encoding);
-                                    }
-                                }
+                                checkString(objectPath, dataTypeId);
+                                final int strLength = baseReader.h5.getDataTypeSize(dataTypeId);
+                                final byte[] bdata =
+                                        new byte[spaceParams.blockSize * strLength];
+                                baseReader.h5.readDataSetNonNumeric(dataSetId, dataTypeId, bdata);
+                                decodeStrings(bdata, strLength,
+                                        baseReader.h5.getCharacterEncoding(dataTypeId), readRaw,
+                                        data);
                             }
                             return new MDArray<String>(data, spaceParams.dimensions);
                         }
@@ -472,44 +638,22 @@ public class HDF5StringReader implements IHDF5StringReader
                                 baseReader.h5.readDataSetVL(dataSetId, dataTypeId,
                                         spaceParams.memorySpaceId, spaceParams.dataSpaceId,
                                         dataBlock);
+                            } else if (isDictionaryEncoded(dataSetId, dataTypeId, registry))
+                            {
+                                readDictionaryEncoded(dataSetId, objectPath,
+                                        spaceParams.memorySpaceId, spaceParams.dataSpaceId,
+                                        dataBlock, registry);
                             } else
                             {
-                                final boolean isString =
-                                        (baseReader.h5.getClassType(dataTypeId) == H5T_STRING);
-                                if (isString == false)
-                                {
-                                    throw new HDF5JavaException(objectPath
-                                            + " needs to be a String.");
-                                }
-
-                                final int strLength;
-                                byte[] bdata = null;
-                                if (readRaw)
-                                {
-                                    strLength = baseReader.h5.getDataTypeSize(dataTypeId);
-                                    bdata = new byte[spaceParams.blockSize * strLength];
-                                    baseReader.h5.readDataSetNonNumeric(dataSetId, dataTypeId,
-                                            spaceParams.memorySpaceId, spaceParams.dataSpaceId,
-                                            bdata);
-                                } else
-                                {
-                                    strLength = -1;
-                                    baseReader.h5.readDataSetString(dataSetId, dataTypeId,
-                                            spaceParams.memorySpaceId, spaceParams.dataSpaceId,
-                                            dataBlock);
-                                }
-                                if (bdata != null && readRaw)
-                                {
-                                    final CharacterEncoding encoding =
-                                            baseReader.h5.getCharacterEncoding(dataTypeId);
-                                    for (int i = 0, startIdx = 0; i < spaceParams.blockSize; ++i, startIdx +=
-                                            strLength)
-                                    {
-                                        dataBlock[i] =
-                                                StringUtils.fromBytes(bdata, startIdx, startIdx
-                                                        + strLength, encoding);
-                                    }
-                                }
+                                checkString(objectPath, dataTypeId);
+                                final int strLength = baseReader.h5.getDataTypeSize(dataTypeId);
+                                final byte[] bdata =
+                                        new byte[spaceParams.blockSize * strLength];
+                                baseReader.h5.readDataSetNonNumeric(dataSetId, dataTypeId,
+                                        spaceParams.memorySpaceId, spaceParams.dataSpaceId, bdata);
+                                decodeStrings(bdata, strLength,
+                                        baseReader.h5.getCharacterEncoding(dataTypeId), readRaw,
+                                        dataBlock);
                             }
                             return new MDArray<String>(dataBlock, blockDimensions);
                         }
@@ -21,6 +21,10 @@ import static hdf.hdf5lib.H5.H5Dwrite;
 import static hdf.hdf5lib.HDF5Constants.H5P_DEFAULT;
 import static hdf.hdf5lib.HDF5Constants.H5S_ALL;
 import static hdf.hdf5lib.HDF5Constants.H5S_SCALAR;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import hdf.hdf5lib.exceptions.HDF5Exception;
 import hdf.hdf5lib.exceptions.HDF5JavaException;
 import hdf.hdf5lib.exceptions.HDF5LibraryException;
@@ -41,15 +45,28 @@ public class HDF5StringWriter extends HDF5StringReader implements IHDF5StringWri
 
     private static final int MAX_COMPACT_SIZE = 64 * 1024 - 12;
 
+    /**
+     * The maximal size of the dictionary of a dictionary-encoded string array. The dictionary is
+     * stored as enumeration data type in the object header of the data set, which must not exceed
+     * 64k.
+     */
+    private static final int MAX_DICTIONARY_SIZE_IN_BYTES = 60 * 1024;
+
+    private static final int MAX_ENUM_VALUE_SIZE_IN_BYTES = 4;
+
     private final HDF5BaseWriter baseWriter;
 
-    HDF5StringWriter(HDF5BaseWriter baseWriter)
+    private final IHDF5EnumWriter enumWriter;
+
+    HDF5StringWriter(HDF5BaseWriter baseWriter, IHDF5EnumWriter enumWriter)
     {
         super(baseWriter);
 
         assert baseWriter != null;
+        assert enumWriter != null;
 
         this.baseWriter = baseWriter;
+        this.enumWriter = enumWriter;
     }
 
     // /////////////////////
@@ -348,6 +365,81 @@ public class HDF5StringWriter extends HDF5StringReader implements IHDF5StringWri
         writeStringArray(objectPath, data, maxLength, false, features, false);
     }
 
+    @Override
+    public void writeArrayDictionaryEncoded(final String objectPath, final String[] data)
+    {
+        writeArrayDictionaryEncoded(objectPath, data,
+                HDF5GenericStorageFeatures.GENERIC_NO_COMPRESSION);
+    }
+
+    @Override
+    public void writeArrayDictionaryEncoded(final String objectPath, final String[] data,
+            final HDF5GenericStorageFeatures features)
+    {
+        assert objectPath != null;
+        assert data != null;
+
+        final Map<String, Integer> dictionary = new LinkedHashMap<String, Integer>();
+        final int[] ordinals = new int[data.length];
+        int dictionarySizeInBytes = 0;
+        for (int i = 0; i < data.length; ++i)
+        {
+            if (data[i] == null || data[i].length() == 0)
+            {
+                writeArray(objectPath, replaceNullsWithEmptyStrings(data), features);
+                return;
+            }
+            Integer ordinal = dictionary.get(data[i]);
+            if (ordinal == null)
+            {
+                dictionarySizeInBytes +=
+                        StringUtils.toBytes(data[i], CharacterEncoding.UTF8).length + 1
+                                + MAX_ENUM_VALUE_SIZE_IN_BYTES;
+                if (dictionarySizeInBytes > MAX_DICTIONARY_SIZE_IN_BYTES)
+                {
+                    writeArray(objectPath, replaceNullsWithEmptyStrings(data), features);
+                    return;
+                }
+                ordinal = dictionary.size();
+                dictionary.put(data[i], ordinal);
+            }
+            ordinals[i] = ordinal;
+        }
+        if (dictionary.isEmpty())
+        {
+            writeArray(objectPath, data, features);
+            return;
+        }
+        final HDF5EnumerationType type =
+                enumWriter.getAnonType(dictionary.keySet().toArray(
+                        new String[dictionary.size()]));
+        enumWriter.writeArray(objectPath, new HDF5EnumerationValueArray(type, ordinals),
+                HDF5IntStorageFeatures.createFromGeneric(features));
+        final ICallableWithCleanUp<Object> tagRunnable = new ICallableWithCleanUp<Object>()
+            {
+                @Override
+                public Object call(ICleanUpRegistry registry)
+                {
+                    final long dataSetId =
+                            baseWriter.h5.openDataSet(baseWriter.fileId, objectPath, registry);
+                    baseWriter.setTypeVariant(dataSetId,
+                            HDF5DataTypeVariant.DICTIONARY_ENCODED_STRING, registry);
+                    return null; // Nothing to return.
+                }
+            };
+        baseWriter.runner.call(tagRunnable);
+    }
+
+    private static String[] replaceNullsWithEmptyStrings(String[] data)
+    {
+        final String[] result = new String[data.length];
+        for (int i = 0; i < data.length; ++i)
+        {
+            result[i] = (data[i] == null) ? "" : data[i];
+        }
+        return result;
+    }
+
     private void writeStringArray(final String objectPath, final String[] data,
             final int maxLength, final boolean lengthFitsValue,
             final HDF5GenericStorageFeatures features, final boolean variableLength)
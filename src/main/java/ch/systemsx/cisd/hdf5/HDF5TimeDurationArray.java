@@ -125,11 +125,8 @@ public class HDF5TimeDurationArray
         {
             return timeDurations;
         }
-        final long[] targetDurations = new long[timeDurations.length];
-        for (int i = 0; i < targetDurations.length; ++i)
-        {
-            targetDurations[i] = targetUnit.convert(timeDurations[i], timeUnit);
-        }
+        final long[] targetDurations = timeDurations.clone();
+        targetUnit.convertInPlace(targetDurations, timeUnit);
         return targetDurations;
     }
 
@@ -226,10 +226,67 @@ class HDF5TimeDurationReader implements IHDF5TimeDurationReader
         return baseReader.runner.call(readCallable);
     }
 
+    @Override
+    public HDF5TimeDurationArray readArray(final String objectPath, final HDF5TimeUnit targetUnit)
+            throws HDF5JavaException
+    {
+        return new HDF5TimeDurationArray(readConverted(objectPath, -1, 0L, targetUnit, null),
+                targetUnit);
+    }
+
+    @Override
+    public HDF5TimeDurationArray readArrayBlockWithOffset(final String objectPath,
+            final int blockSize, final long offset, final HDF5TimeUnit targetUnit)
+            throws HDF5JavaException
+    {
+        return new HDF5TimeDurationArray(readConverted(objectPath, blockSize, offset, targetUnit,
+                null), targetUnit);
+    }
+
+    /**
+     * Reads the time durations of <var>objectPath</var> with a single read and converts them in
+     * place to <var>targetUnit</var>.
+     * 
+     * @param blockSize The size of the block to read, or -1, if the whole data set should be read.
+     * @param bufferOrNull If not <code>null</code> and of the right size, the durations are read
+     *            into this array.
+     */
+    private long[] readConverted(final String objectPath, final int blockSize, final long offset,
+            final HDF5TimeUnit targetUnit, final long[] bufferOrNull)
+    {
+        assert objectPath != null;
+        assert targetUnit != null;
+
+        baseReader.checkOpen();
+        final ICallableWithCleanUp<long[]> readCallable = new ICallableWithCleanUp<long[]>()
+            {
+                @Override
+                public long[] call(ICleanUpRegistry registry)
+                {
+                    final long dataSetId =
+                            baseReader.h5.openDataSet(baseReader.fileId, objectPath, registry);
+                    final HDF5TimeUnit storedUnit =
+                            baseReader.checkIsTimeDuration(objectPath, dataSetId, registry);
+                    final DataSpaceParameters spaceParams =
+                            (blockSize < 0) ? baseReader.getSpaceParameters(dataSetId, registry)
+                                    : baseReader.getSpaceParameters(dataSetId, offset,
+                                            blockSize, registry);
+                    final long[] data =
+                            (bufferOrNull != null && bufferOrNull.length == spaceParams.blockSize)
+                                    ? bufferOrNull : new long[spaceParams.blockSize];
+                    baseReader.h5.readDataSet(dataSetId, H5T_NATIVE_INT64,
+                            spaceParams.memorySpaceId, spaceParams.dataSpaceId, data);
+                    targetUnit.convertInPlace(data, storedUnit);
+                    return data;
+                }
+            };
+        return baseReader.runner.call(readCallable);
+    }
+
     public long[] readTimeDurationArray(final String objectPath, final HDF5TimeUnit timeUnit)
             throws HDF5JavaException
     {
-        return timeUnit.convert(readArray(objectPath));
+        return readArray(objectPath, timeUnit).getValues();
     }
 
     public HDF5TimeDuration[] readTimeDurationAndUnitArray(final String objectPath)
@@ -242,7 +299,8 @@ class HDF5TimeDurationReader implements IHDF5TimeDurationReader
     public long[] readTimeDurationArrayBlock(final String objectPath, final int blockSize,
             final long blockNumber, final HDF5TimeUnit timeUnit)
     {
-        return timeUnit.convert(readArrayBlock(objectPath, blockSize, blockNumber));
+        return readArrayBlockWithOffset(objectPath, blockSize, blockNumber * blockSize, timeUnit)
+                .getValues();
     }
 
     @Override
@@ -285,7 +343,7 @@ class HDF5TimeDurationReader implements IHDF5TimeDurationReader
     public long[] readTimeDurationArrayBlockWithOffset(final String objectPath,
             final int blockSize, final long offset, final HDF5TimeUnit timeUnit)
     {
-        return timeUnit.convert(readArrayBlockWithOffset(objectPath, blockSize, offset));
+        return readArrayBlockWithOffset(objectPath, blockSize, offset, timeUnit).getValues();
     }
 
     public HDF5TimeDuration[] readTimeDurationAndUnitArrayBlock(final String objectPath,
@@ -549,6 +607,57 @@ class HDF5TimeDurationReader implements IHDF5TimeDurationReader
             };
     }
 
+    @Override
+    public Iterable<HDF5DataBlock<long[]>> getArrayNaturalBlocks(final String objectPath,
+            final HDF5TimeUnit targetUnit) throws HDF5JavaException
+    {
+        baseReader.checkOpen();
+        final HDF5NaturalBlock1DParameters params =
+                new HDF5NaturalBlock1DParameters(baseReader.getDataSetInformation(objectPath));
+
+        return new Iterable<HDF5DataBlock<long[]>>()
+            {
+                @Override
+                public Iterator<HDF5DataBlock<long[]>> iterator()
+                {
+                    return new Iterator<HDF5DataBlock<long[]>>()
+                        {
+                            final HDF5NaturalBlock1DParameters.HDF5NaturalBlock1DIndex index =
+                                    params.getNaturalBlockIndex();
+
+                            long[] buffer;
+
+                            @Override
+                            public boolean hasNext()
+                            {
+                                return index.hasNext();
+                            }
+
+                            @Override
+                            public HDF5DataBlock<long[]> next()
+                            {
+                                final long offset = index.computeOffsetAndSizeGetOffset();
+                                final long[] block =
+                                        readConverted(objectPath, index.getBlockSize(), offset,
+                                                targetUnit, buffer);
+                                if (buffer == null)
+                                {
+                                    buffer = block;
+                                }
+                                return new HDF5DataBlock<long[]>(block, index.getAndIncIndex(),
+                                        offset);
+                            }
+
+                            @Override
+                            public void remove()
+                            {
+                                throw new UnsupportedOperationException();
+                            }
+                        };
+                }
+            };
+    }
+
     public Iterable<HDF5DataBlock<long[]>> getTimeDurationArrayNaturalBlocks(
             final String objectPath, final HDF5TimeUnit timeUnit) throws HDF5JavaException
     {
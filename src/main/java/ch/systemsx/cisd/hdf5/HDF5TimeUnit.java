@@ -120,6 +120,39 @@ public enum HDF5TimeUnit
         return duration * multipliers[ordinal][delta];
     }
 
+    private static void doConvert(int ordinal, int delta, long[] durations, int start, int end)
+    {
+        if (delta == 0)
+        {
+            return;
+        }
+        if (delta < 0)
+        {
+            final double divisor = divisors[ordinal][-delta];
+            for (int i = start; i < end; ++i)
+            {
+                durations[i] = Math.round(durations[i] / divisor);
+            }
+            return;
+        }
+        final long overflow = overflows[ordinal][delta];
+        final long multiplier = multipliers[ordinal][delta];
+        for (int i = start; i < end; ++i)
+        {
+            final long duration = durations[i];
+            if (duration > overflow)
+            {
+                durations[i] = Long.MAX_VALUE;
+            } else if (duration < -overflow)
+            {
+                durations[i] = Long.MIN_VALUE;
+            } else
+            {
+                durations[i] = duration * multiplier;
+            }
+        }
+    }
+
     /**
      * Returns the type variant corresponding to this unit.
      */
@@ -162,11 +195,8 @@ public enum HDF5TimeUnit
     {
         if (this != durations.timeUnit)
         {
-            final long[] convertedData = new long[durations.timeDurations.length];
-            for (int i = 0; i < durations.timeDurations.length; ++i)
-            {
-                convertedData[i] = this.convert(durations.timeDurations[i], durations.timeUnit);
-            }
+            final long[] convertedData = durations.timeDurations.clone();
+            convertInPlace(convertedData, durations.timeUnit);
             return convertedData;
         } else
         {
@@ -190,12 +220,8 @@ public enum HDF5TimeUnit
     {
         if (this != durations.timeUnit)
         {
-            final long[] originalData = durations.getAsFlatArray();
-            final long[] convertedData = new long[originalData.length];
-            for (int i = 0; i < originalData.length; ++i)
-            {
-                convertedData[i] = this.convert(originalData[i], durations.timeUnit);
-            }
+            final long[] convertedData = durations.getAsFlatArray().clone();
+            convertInPlace(convertedData, durations.timeUnit);
             return new HDF5TimeDurationMDArray(convertedData, durations.dimensions(), this);
         } else
         {
@@ -220,11 +246,8 @@ public enum HDF5TimeUnit
     {
         if (this != unit)
         {
-            final long[] convertedData = new long[durations.length];
-            for (int i = 0; i < durations.length; ++i)
-            {
-                convertedData[i] = this.convert(durations[i], unit);
-            }
+            final long[] convertedData = durations.clone();
+            convertInPlace(convertedData, unit);
             return convertedData;
         } else
         {
@@ -232,6 +255,40 @@ public enum HDF5TimeUnit
         }
     }
 
+    /**
+     * Convert the given time <var>durations</var> in the given time <var>unit</var> to this unit,
+     * overwriting the values of <var>durations</var>. Conversions from smaller to larger units
+     * perform rounding, so they lose precision. Conversions from larger to smaller units with
+     * arguments that would numerically overflow saturate to <code>Long.MIN_VALUE</code> if
+     * negative or <code>Long.MAX_VALUE</code> if positive.
+     * 
+     * @param durations The time durations in the given <code>unit</code>. Will contain the
+     *            durations in this unit on return.
+     * @param unit The unit of the <code>durations</code> argument.
+     */
+    public void convertInPlace(final long[] durations, final HDF5TimeUnit unit)
+    {
+        convertInPlace(durations, 0, durations.length, unit);
+    }
+
+    /**
+     * Convert the time durations in the range [<var>start</var>, <var>start + length</var>) of
+     * <var>durations</var> from the given time <var>unit</var> to this unit, overwriting the
+     * values in this range. See {@link #convertInPlace(long[], HDF5TimeUnit)} for details.
+     * 
+     * @param durations The time durations in the given <code>unit</code>.
+     * @param start The index of the first duration to convert.
+     * @param length The number of durations to convert.
+     * @param unit The unit of the <code>durations</code> argument.
+     */
+    public void convertInPlace(final long[] durations, final int start, final int length,
+            final HDF5TimeUnit unit)
+    {
+        final int currentUnitOrdinal = unit.ordinal();
+        doConvert(currentUnitOrdinal, currentUnitOrdinal - ordinal(), durations, start, start
+                + length);
+    }
+
     /**
      * Convert the given time duration in the given unit to this unit. Conversions from smaller to
      * larger units perform rounding, so they lose precision. Conversions from larger to smaller
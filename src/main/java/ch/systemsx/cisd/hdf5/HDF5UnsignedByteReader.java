@@ -22,6 +22,7 @@ import static ch.systemsx.cisd.hdf5.MatrixUtils.createFullBlockDimensionsAndOffs
 import static hdf.hdf5lib.HDF5Constants.H5T_ARRAY;
 import static hdf.hdf5lib.HDF5Constants.H5T_NATIVE_UINT8;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Iterator;
 
@@ -188,6 +189,12 @@ class HDF5UnsignedByteReader implements IHDF5ByteReader
         return baseReader.runner.call(readCallable);
     }
 
+    @Override
+    public ByteBuffer mapArray(String objectPath)
+    {
+        return baseReader.mapDataSet(objectPath, HDF5Constants.H5T_INTEGER, Byte.BYTES);
+    }
+
     private byte[] readByteArray(long dataSetId, ICleanUpRegistry registry)
     {
         try
@@ -24,6 +24,10 @@ import static hdf.hdf5lib.HDF5Constants.H5S_ALL;
 import static hdf.hdf5lib.HDF5Constants.H5T_NATIVE_UINT8;
 import static hdf.hdf5lib.HDF5Constants.H5T_STD_U8LE;
 
+import java.nio.ByteBuffer;
+
+import hdf.hdf5lib.exceptions.HDF5JavaException;
+
 import ch.systemsx.cisd.base.mdarray.MDArray;
 import ch.systemsx.cisd.base.mdarray.MDByteArray;
 import ch.systemsx.cisd.hdf5.cleanup.ICallableWithCleanUp;
@@ -427,6 +431,49 @@ class HDF5UnsignedByteWriter extends HDF5UnsignedByteReader implements IHDF5Byte
         baseWriter.runner.call(writeRunnable);
     }
 
+    @Override
+    public void writeArrayBlockWithOffset(final String objectPath, final ByteBuffer data,
+            final int dataSize, final long offset)
+    {
+        assert objectPath != null;
+        assert data != null;
+
+        if (data.isDirect() == false)
+        {
+            throw new HDF5JavaException("Buffer is not direct");
+        }
+        if (dataSize > data.remaining())
+        {
+            throw new HDF5JavaException("Buffer has less than dataSize bytes remaining");
+        }
+        baseWriter.checkOpen();
+        final ICallableWithCleanUp<Void> writeRunnable = new ICallableWithCleanUp<Void>()
+            {
+                @Override
+                public Void call(ICleanUpRegistry registry)
+                {
+                    final long[] blockDimensions = new long[]
+                        { dataSize };
+                    final long[] slabStartOrNull = new long[]
+                        { offset };
+                    final long dataSetId =
+                            baseWriter.h5.openAndExtendDataSet(baseWriter.fileId, objectPath,
+                                    baseWriter.fileFormat, new long[]
+                                        { offset + dataSize }, false, registry);
+                    final long dataSpaceId =
+                            baseWriter.h5.getDataSpaceForDataSet(dataSetId, registry);
+                    baseWriter.h5.setHyperslabBlock(dataSpaceId, slabStartOrNull, blockDimensions);
+                    final long memorySpaceId =
+                            baseWriter.h5.createSimpleDataSpace(blockDimensions, registry);
+                    baseWriter.h5.writeDataSet(dataSetId, H5T_NATIVE_UINT8, memorySpaceId,
+                            dataSpaceId, data);
+                    data.position(data.position() + dataSize);
+                    return null; // Nothing to return.
+                }
+            };
+        baseWriter.runner.call(writeRunnable);
+    }
+
     @Override
     public void writeArrayBlockWithOffset(final HDF5DataSet dataSet, final byte[] data,
             final int dataSize, final long offset)
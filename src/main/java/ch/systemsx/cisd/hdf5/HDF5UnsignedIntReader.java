@@ -22,6 +22,7 @@ import static ch.systemsx.cisd.hdf5.MatrixUtils.createFullBlockDimensionsAndOffs
 import static hdf.hdf5lib.HDF5Constants.H5T_ARRAY;
 import static hdf.hdf5lib.HDF5Constants.H5T_NATIVE_UINT32;
 
+import java.nio.IntBuffer;
 import java.util.Arrays;
 import java.util.Iterator;
 
@@ -188,6 +189,13 @@ class HDF5UnsignedIntReader implements IHDF5IntReader
         return baseReader.runner.call(readCallable);
     }
 
+    @Override
+    public IntBuffer mapArray(String objectPath)
+    {
+        return baseReader.mapDataSet(objectPath, HDF5Constants.H5T_INTEGER, Integer.BYTES)
+                .asIntBuffer();
+    }
+
     private int[] readIntArray(long dataSetId, ICleanUpRegistry registry)
     {
         try
@@ -22,6 +22,7 @@ import static ch.systemsx.cisd.hdf5.MatrixUtils.createFullBlockDimensionsAndOffs
 import static hdf.hdf5lib.HDF5Constants.H5T_ARRAY;
 import static hdf.hdf5lib.HDF5Constants.H5T_NATIVE_UINT64;
 
+import java.nio.LongBuffer;
 import java.util.Arrays;
 import java.util.Iterator;
 
@@ -188,6 +189,13 @@ class HDF5UnsignedLongReader implements IHDF5LongReader
         return baseReader.runner.call(readCallable);
     }
 
+    @Override
+    public LongBuffer mapArray(String objectPath)
+    {
+        return baseReader.mapDataSet(objectPath, HDF5Constants.H5T_INTEGER, Long.BYTES)
+                .asLongBuffer();
+    }
+
     private long[] readLongArray(long dataSetId, ICleanUpRegistry registry)
     {
         try
@@ -22,6 +22,7 @@ import static ch.systemsx.cisd.hdf5.MatrixUtils.createFullBlockDimensionsAndOffs
 import static hdf.hdf5lib.HDF5Constants.H5T_ARRAY;
 import static hdf.hdf5lib.HDF5Constants.H5T_NATIVE_UINT16;
 
+import java.nio.ShortBuffer;
 import java.util.Arrays;
 import java.util.Iterator;
 
@@ -188,6 +189,13 @@ class HDF5UnsignedShortReader implements IHDF5ShortReader
         return baseReader.runner.call(readCallable);
     }
 
+    @Override
+    public ShortBuffer mapArray(String objectPath)
+    {
+        return baseReader.mapDataSet(objectPath, HDF5Constants.H5T_INTEGER, Short.BYTES)
+                .asShortBuffer();
+    }
+
     private short[] readShortArray(long dataSetId, ICleanUpRegistry registry)
     {
         try
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ch.systemsx.cisd.hdf5;
+
+import java.io.File;
+import java.util.Arrays;
+
+import ch.systemsx.cisd.hdf5.exceptions.HDF5SpaceRankMismatch;
+
+/**
+ * A mapping of a virtual data set: a block of the virtual data set which is stored as a block of
+ * equal dimensions in a source data set.
+ * <p>
+ * Clients can read the source data sets directly (e.g. in parallel, one reader per source file)
+ * rather than reading through the virtual data set.
+ */
+public final class HDF5VirtualDataSetMapping
+{
+    /**
+     * The source file name that denotes the file of the virtual data set itself.
+     */
+    public static final String SAME_FILE = ".";
+
+    private final long[] virtualOffset;
+
+    private final String sourceFileName;
+
+    private final String sourceDataSetPath;
+
+    private final long[] sourceOffset;
+
+    private final long[] blockDimensions;
+
+    /**
+     * Creates a mapping.
+     * 
+     * @param virtualOffset The offset of the block in the virtual data set.
+     * @param sourceFileName The name of the source file, either absolute or relative to the
+     *            directory of the file of the virtual data set, or {@link #SAME_FILE}.
+     * @param sourceDataSetPath The path of the source data set in the source file.
+     * @param sourceOffset The offset of the block in the source data set.
+     * @param blockDimensions The dimensions of the block.
+     */
+    public HDF5VirtualDataSetMapping(long[] virtualOffset, String sourceFileName,
+            String sourceDataSetPath, long[] sourceOffset, long[] blockDimensions)
+    {
+        assert virtualOffset != null;
+        assert sourceFileName != null;
+        assert sourceDataSetPath != null;
+        assert sourceOffset != null;
+        assert blockDimensions != null;
+
+        if (virtualOffset.length != blockDimensions.length)
+        {
+            throw new HDF5SpaceRankMismatch(blockDimensions.length, virtualOffset.length);
+        }
+        if (sourceOffset.length != blockDimensions.length)
+        {
+            throw new HDF5SpaceRankMismatch(blockDimensions.length, sourceOffset.length);
+        }
+        this.virtualOffset = virtualOffset;
+        this.sourceFileName = sourceFileName;
+        this.sourceDataSetPath = sourceDataSetPath;
+        this.sourceOffset = sourceOffset;
+        this.blockDimensions = blockDimensions;
+    }
+
+    /**
+     * Creates a mapping of a complete source data set.
+     * 
+     * @param virtualOffset The offset of the block in the virtual data set.
+     * @param sourceFileName The name of the source file, either absolute or relative to the
+     *            directory of the file of the virtual data set, or {@link #SAME_FILE}.
+     * @param sourceDataSetPath The path of the source data set in the source file.
+     * @param sourceDimensions The dimensions of the source data set.
+     */
+    public HDF5VirtualDataSetMapping(long[] virtualOffset, String sourceFileName,
+            String sourceDataSetPath, long[] sourceDimensions)
+    {
+        this(virtualOffset, sourceFileName, sourceDataSetPath, new long[sourceDimensions.length],
+                sourceDimensions);
+    }
+
+    /**
+     * Returns the offset of the block in the virtual data set.
+     */
+    public long[] getVirtualOffset()
+    {
+        return virtualOffset;
+    }
+
+    /**
+     * Returns the name of the source file as stored in the virtual data set.
+     */
+    public String getSourceFileName()
+    {
+        return sourceFileName;
+    }
+
+    /**
+     * Returns the source file, given the <var>virtualDataSetFile</var> that holds the virtual data
+     * set.
+     */
+    public File getSourceFile(File virtualDataSetFile)
+    {
+        if (SAME_FILE.equals(sourceFileName))
+        {
+            return virtualDataSetFile;
+        }
+        final File sourceFile = new File(sourceFileName);
+        if (sourceFile.isAbsolute())
+        {
+            return sourceFile;
+        }
+        return new File(virtualDataSetFile.getAbsoluteFile().getParentFile(), sourceFileName);
+    }
+
+    /**
+     * Returns the path of the source data set in the source file.
+     */
+    public String getSourceDataSetPath()
+    {
+        return sourceDataSetPath;
+    }
+
+    /**
+     * Returns the offset of the block in the source data set.
+     */
+    public long[] getSourceOffset()
+    {
+        return sourceOffset;
+    }
+
+    /**
+     * Returns the dimensions of the block.
+     */
+    public long[] getBlockDimensions()
+    {
+        return blockDimensions;
+    }
+
+    //
+    // Object
+    //
+
+    @Override
+    public int hashCode()
+    {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + Arrays.hashCode(virtualOffset);
+        result = prime * result + sourceFileName.hashCode();
+        result = prime * result + sourceDataSetPath.hashCode();
+        result = prime * result + Arrays.hashCode(sourceOffset);
+        result = prime * result + Arrays.hashCode(blockDimensions);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final HDF5VirtualDataSetMapping other = (HDF5VirtualDataSetMapping) obj;
+        return Arrays.equals(virtualOffset, other.virtualOffset)
+                && sourceFileName.equals(other.sourceFileName)
+                && sourceDataSetPath.equals(other.sourceDataSetPath)
+                && Arrays.equals(sourceOffset, other.sourceOffset)
+                && Arrays.equals(blockDimensions, other.blockDimensions);
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(virtualOffset) + " -> " + sourceFileName + "::"
+                + sourceDataSetPath + Arrays.toString(sourceOffset) + ", block "
+                + Arrays.toString(blockDimensions);
+    }
+
+}
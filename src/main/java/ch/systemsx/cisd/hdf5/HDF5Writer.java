@@ -85,6 +85,8 @@ final class HDF5Writer extends HDF5Reader implements IHDF5Writer
 
     private final IHDF5OpaqueWriter opaqueWriter;
 
+    private HDF5AsyncWriter asyncWriterOrNull;
+
     HDF5Writer(HDF5BaseWriter baseWriter)
     {
         super(baseWriter);
@@ -105,8 +107,8 @@ final class HDF5Writer extends HDF5Reader implements IHDF5Writer
         this.floatWriter = new HDF5FloatWriter(baseWriter);
         this.doubleWriter = new HDF5DoubleWriter(baseWriter);
         this.booleanWriter = new HDF5BooleanWriter(baseWriter);
-        this.stringWriter = new HDF5StringWriter(baseWriter);
         this.enumWriter = new HDF5EnumWriter(baseWriter);
+        this.stringWriter = new HDF5StringWriter(baseWriter, enumWriter);
         this.compoundWriter = new HDF5CompoundWriter(baseWriter, enumWriter);
         this.dateTimeWriter = new HDF5DateTimeWriter(baseWriter, (HDF5LongReader) longReader);
         this.timeDurationWriter =
@@ -260,6 +262,32 @@ final class HDF5Writer extends HDF5Reader implements IHDF5Writer
         return referenceWriter;
     }
 
+    //
+    // Write-behind
+    //
+
+    @Override
+    public synchronized IHDF5AsyncWriter writeBehind()
+    {
+        if (asyncWriterOrNull == null)
+        {
+            baseWriter.checkOpen();
+            final HDF5AsyncWriter asyncWriter = new HDF5AsyncWriter(this, baseWriter.fileRegistry);
+            // Flushing and closing the file applies the queued operations first.
+            baseWriter.addFlushable(asyncWriter);
+            baseWriter.fileRegistry.registerCleanUp(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        asyncWriter.close();
+                    }
+                });
+            this.asyncWriterOrNull = asyncWriter;
+        }
+        return asyncWriterOrNull;
+    }
+
     //
     // String
     //
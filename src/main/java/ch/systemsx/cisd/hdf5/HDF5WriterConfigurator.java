@@ -45,6 +45,8 @@ final class HDF5WriterConfigurator extends HDF5ReaderConfigurator implements
     
     private String houseKeepingNameSuffix = "";
 
+    private boolean swmrWrite = false;
+
     // For Windows, use a blocking sync mode by default as otherwise the mandatory locks are up for
     // some surprises after the file has been closed.
     private SyncMode syncMode = OSUtilities.isWindows() ? SyncMode.SYNC_ON_FLUSH_BLOCK
@@ -105,6 +107,13 @@ final class HDF5WriterConfigurator extends HDF5ReaderConfigurator implements
         return this;
     }
 
+    @Override
+    public HDF5WriterConfigurator swmrWrite()
+    {
+        this.swmrWrite = true;
+        return this;
+    }
+
     @Override
     public HDF5WriterConfigurator performNumericConversions()
     {
@@ -152,10 +161,13 @@ final class HDF5WriterConfigurator extends HDF5ReaderConfigurator implements
         {
             readerWriterOrNull =
                     new HDF5Writer(new HDF5BaseWriter(hdf5File, performNumericConversions,
-                            useUTF8CharEncoding, autoDereference, fileFormatVersionBounds,
-                            mdcImageGeneration, useExtentableDataTypes, overwriteFile, 
+                            useUTF8CharEncoding, autoDereference,
+                            swmrWrite ? HDF5BaseWriter.getFileFormatForSWMR(fileFormatVersionBounds)
+                                    : fileFormatVersionBounds,
+                            swmrWrite ? MDCImageGeneration.NO_GENERATE_MDC_IMAGE
+                                    : mdcImageGeneration, useExtentableDataTypes, overwriteFile, 
                             keepDataSetIfExists, useSimpleDataSpaceForAttributes, houseKeepingNameSuffix, 
-                            syncMode));
+                            syncMode, swmrWrite));
         }
         return (HDF5Writer) readerWriterOrNull;
     }
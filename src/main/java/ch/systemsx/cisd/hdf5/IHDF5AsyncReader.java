@@ -0,0 +1,290 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ch.systemsx.cisd.hdf5;
+
+import java.util.concurrent.CompletableFuture;
+
+import ch.systemsx.cisd.base.mdarray.MDByteArray;
+import ch.systemsx.cisd.base.mdarray.MDDoubleArray;
+import ch.systemsx.cisd.base.mdarray.MDFloatArray;
+import ch.systemsx.cisd.base.mdarray.MDIntArray;
+import ch.systemsx.cisd.base.mdarray.MDLongArray;
+import ch.systemsx.cisd.base.mdarray.MDShortArray;
+
+/**
+ * An asynchronous facade of an {@link IHDF5Reader}. The read operations are queued and performed
+ * one after the other on a dedicated I/O thread, so the calling thread never blocks on HDF5 I/O.
+ * Requests with a higher priority (see {@link #withPriority(int)}) are performed first, requests
+ * of the same priority in the order of their submission.
+ * <p>
+ * Obtain an object implementing this interface by calling {@link IHDF5Reader#async()}. Requests
+ * which are still queued when the reader is closed fail. Closing the reader waits for the request
+ * in progress to finish.
+ * <p>
+ * <i>Note:</i> Dependent stages attached to the returned futures with the non-async methods of
+ * {@link CompletableFuture} may run on the I/O thread. Use the <code>...Async()</code> variants
+ * for long-running continuations.
+ */
+public interface IHDF5AsyncReader
+{
+    /**
+     * Returns a view of this reader that submits its requests with <var>priority</var>. Requests
+     * with a higher priority are performed before requests with a lower priority. The default
+     * priority is 0.
+     */
+    public IHDF5AsyncReader withPriority(int priority);
+
+    /**
+     * Returns the priority of the requests submitted by this reader.
+     */
+    public int getPriority();
+
+    /**
+     * Submits <var>callable</var> to be called with the reader on the I/O thread.
+     */
+    public <T> CompletableFuture<T> submit(IHDF5ReaderCallable<T> callable);
+
+    // /////////////////////
+    // Byte
+    // /////////////////////
+
+    /**
+     * Reads a <code>byte</code> array (of rank 1) from the data set <var>objectPath</var>.
+     * 
+     * @see IHDF5ByteReader#readArray(String)
+     */
+    public CompletableFuture<byte[]> readByteArray(String objectPath);
+
+    /**
+     * Reads a block of a <code>byte</code> array (of rank 1) from the data set
+     * <var>objectPath</var>. Queued requests for adjacent or overlapping blocks of the same data
+     * set are combined into one read.
+     * 
+     * @see IHDF5ByteReader#readArrayBlockWithOffset(String, int, long)
+     */
+    public CompletableFuture<byte[]> readByteArrayBlockWithOffset(String objectPath,
+            int blockSize, long offset);
+
+    /**
+     * Reads a multi-dimensional <code>byte</code> array from the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5ByteReader#readMDArray(String)
+     */
+    public CompletableFuture<MDByteArray> readByteMDArray(String objectPath);
+
+    /**
+     * Reads a block of a multi-dimensional <code>byte</code> array from the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5ByteReader#readMDArrayBlockWithOffset(String, int[], long[])
+     */
+    public CompletableFuture<MDByteArray> readByteMDArrayBlockWithOffset(String objectPath,
+            int[] blockDimensions, long[] offset);
+
+    // /////////////////////
+    // Short
+    // /////////////////////
+
+    /**
+     * Reads a <code>short</code> array (of rank 1) from the data set <var>objectPath</var>.
+     * 
+     * @see IHDF5ShortReader#readArray(String)
+     */
+    public CompletableFuture<short[]> readShortArray(String objectPath);
+
+    /**
+     * Reads a block of a <code>short</code> array (of rank 1) from the data set
+     * <var>objectPath</var>. Queued requests for adjacent or overlapping blocks of the same data
+     * set are combined into one read.
+     * 
+     * @see IHDF5ShortReader#readArrayBlockWithOffset(String, int, long)
+     */
+    public CompletableFuture<short[]> readShortArrayBlockWithOffset(String objectPath,
+            int blockSize, long offset);
+
+    /**
+     * Reads a multi-dimensional <code>short</code> array from the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5ShortReader#readMDArray(String)
+     */
+    public CompletableFuture<MDShortArray> readShortMDArray(String objectPath);
+
+    /**
+     * Reads a block of a multi-dimensional <code>short</code> array from the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5ShortReader#readMDArrayBlockWithOffset(String, int[], long[])
+     */
+    public CompletableFuture<MDShortArray> readShortMDArrayBlockWithOffset(String objectPath,
+            int[] blockDimensions, long[] offset);
+
+    // /////////////////////
+    // Int
+    // /////////////////////
+
+    /**
+     * Reads a <code>int</code> array (of rank 1) from the data set <var>objectPath</var>.
+     * 
+     * @see IHDF5IntReader#readArray(String)
+     */
+    public CompletableFuture<int[]> readIntArray(String objectPath);
+
+    /**
+     * Reads a block of a <code>int</code> array (of rank 1) from the data set
+     * <var>objectPath</var>. Queued requests for adjacent or overlapping blocks of the same data
+     * set are combined into one read.
+     * 
+     * @see IHDF5IntReader#readArrayBlockWithOffset(String, int, long)
+     */
+    public CompletableFuture<int[]> readIntArrayBlockWithOffset(String objectPath,
+            int blockSize, long offset);
+
+    /**
+     * Reads a multi-dimensional <code>int</code> array from the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5IntReader#readMDArray(String)
+     */
+    public CompletableFuture<MDIntArray> readIntMDArray(String objectPath);
+
+    /**
+     * Reads a block of a multi-dimensional <code>int</code> array from the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5IntReader#readMDArrayBlockWithOffset(String, int[], long[])
+     */
+    public CompletableFuture<MDIntArray> readIntMDArrayBlockWithOffset(String objectPath,
+            int[] blockDimensions, long[] offset);
+
+    // /////////////////////
+    // Long
+    // /////////////////////
+
+    /**
+     * Reads a <code>long</code> array (of rank 1) from the data set <var>objectPath</var>.
+     * 
+     * @see IHDF5LongReader#readArray(String)
+     */
+    public CompletableFuture<long[]> readLongArray(String objectPath);
+
+    /**
+     * Reads a block of a <code>long</code> array (of rank 1) from the data set
+     * <var>objectPath</var>. Queued requests for adjacent or overlapping blocks of the same data
+     * set are combined into one read.
+     * 
+     * @see IHDF5LongReader#readArrayBlockWithOffset(String, int, long)
+     */
+    public CompletableFuture<long[]> readLongArrayBlockWithOffset(String objectPath,
+            int blockSize, long offset);
+
+    /**
+     * Reads a multi-dimensional <code>long</code> array from the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5LongReader#readMDArray(String)
+     */
+    public CompletableFuture<MDLongArray> readLongMDArray(String objectPath);
+
+    /**
+     * Reads a block of a multi-dimensional <code>long</code> array from the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5LongReader#readMDArrayBlockWithOffset(String, int[], long[])
+     */
+    public CompletableFuture<MDLongArray> readLongMDArrayBlockWithOffset(String objectPath,
+            int[] blockDimensions, long[] offset);
+
+    // /////////////////////
+    // Float
+    // /////////////////////
+
+    /**
+     * Reads a <code>float</code> array (of rank 1) from the data set <var>objectPath</var>.
+     * 
+     * @see IHDF5FloatReader#readArray(String)
+     */
+    public CompletableFuture<float[]> readFloatArray(String objectPath);
+
+    /**
+     * Reads a block of a <code>float</code> array (of rank 1) from the data set
+     * <var>objectPath</var>. Queued requests for adjacent or overlapping blocks of the same data
+     * set are combined into one read.
+     * 
+     * @see IHDF5FloatReader#readArrayBlockWithOffset(String, int, long)
+     */
+    public CompletableFuture<float[]> readFloatArrayBlockWithOffset(String objectPath,
+            int blockSize, long offset);
+
+    /**
+     * Reads a multi-dimensional <code>float</code> array from the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5FloatReader#readMDArray(String)
+     */
+    public CompletableFuture<MDFloatArray> readFloatMDArray(String objectPath);
+
+    /**
+     * Reads a block of a multi-dimensional <code>float</code> array from the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5FloatReader#readMDArrayBlockWithOffset(String, int[], long[])
+     */
+    public CompletableFuture<MDFloatArray> readFloatMDArrayBlockWithOffset(String objectPath,
+            int[] blockDimensions, long[] offset);
+
+    // /////////////////////
+    // Double
+    // /////////////////////
+
+    /**
+     * Reads a <code>double</code> array (of rank 1) from the data set <var>objectPath</var>.
+     * 
+     * @see IHDF5DoubleReader#readArray(String)
+     */
+    public CompletableFuture<double[]> readDoubleArray(String objectPath);
+
+    /**
+     * Reads a block of a <code>double</code> array (of rank 1) from the data set
+     * <var>objectPath</var>. Queued requests for adjacent or overlapping blocks of the same data
+     * set are combined into one read.
+     * 
+     * @see IHDF5DoubleReader#readArrayBlockWithOffset(String, int, long)
+     */
+    public CompletableFuture<double[]> readDoubleArrayBlockWithOffset(String objectPath,
+            int blockSize, long offset);
+
+    /**
+     * Reads a multi-dimensional <code>double</code> array from the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5DoubleReader#readMDArray(String)
+     */
+    public CompletableFuture<MDDoubleArray> readDoubleMDArray(String objectPath);
+
+    /**
+     * Reads a block of a multi-dimensional <code>double</code> array from the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5DoubleReader#readMDArrayBlockWithOffset(String, int[], long[])
+     */
+    public CompletableFuture<MDDoubleArray> readDoubleMDArrayBlockWithOffset(String objectPath,
+            int[] blockDimensions, long[] offset);
+
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ch.systemsx.cisd.hdf5;
+
+import ch.systemsx.cisd.base.mdarray.MDByteArray;
+import ch.systemsx.cisd.base.mdarray.MDDoubleArray;
+import ch.systemsx.cisd.base.mdarray.MDFloatArray;
+import ch.systemsx.cisd.base.mdarray.MDIntArray;
+import ch.systemsx.cisd.base.mdarray.MDLongArray;
+import ch.systemsx.cisd.base.mdarray.MDShortArray;
+
+/**
+ * A write-behind facade of an {@link IHDF5Writer}. Write operations are queued and applied in
+ * order by a single writing thread, so the calling thread doesn't wait for the HDF5 library,
+ * compression filters or syncing the file.
+ * <p>
+ * <b>The arrays passed to the methods of this interface are owned by the writer until the
+ * operation has been applied. They must not be modified by the caller afterwards.</b>
+ * <p>
+ * The number of bytes held by queued operations is limited (see {@link #setMaxQueuedBytes(long)}),
+ * a caller queuing an operation waits when the limit is reached. An error of an operation is
+ * thrown by the next call of a method of this writer, by {@link #flush()}, or when the file is
+ * flushed or closed. Operations queued after a failed one are still applied.
+ * <p>
+ * <b>Mixing queued operations with direct calls of the {@link IHDF5Writer} (or of readers of the
+ * same file) is not supported while operations are queued.</b> Direct calls are neither ordered
+ * with respect to the queued operations nor do they see data which is still queued, and they may
+ * run concurrently with the writing thread. Call {@link #flush()} before making direct calls on
+ * the writer.
+ * <p>
+ * Obtain an object implementing this interface by calling {@link IHDF5Writer#writeBehind()}.
+ * Flushing or closing the file applies all queued operations first.
+ */
+public interface IHDF5AsyncWriter
+{
+    /**
+     * Returns the maximal number of bytes held by queued operations.
+     */
+    public long getMaxQueuedBytes();
+
+    /**
+     * Sets the maximal number of bytes held by queued operations. An operation larger than this
+     * limit is queued when the queue is empty. Default: 64MB.
+     */
+    public void setMaxQueuedBytes(long maxQueuedBytes);
+
+    /**
+     * Returns the number of bytes held by queued operations which haven't been applied yet.
+     */
+    public long getQueuedBytes();
+
+    /**
+     * Waits until all queued operations have been applied and throws the error of the first
+     * operation that has failed, if any. This method doesn't flush the file, use
+     * {@link IHDF5FileLevelReadWriteHandler#flush()} for that.
+     */
+    public void flush();
+
+    /**
+     * Queues <var>runnable</var> to be called with the writer on the writing thread.
+     */
+    public void execute(IHDF5WriterRunnable runnable);
+
+    // /////////////////////
+    // Byte
+    // /////////////////////
+
+    /**
+     * Queues writing the <code>byte</code> array <var>data</var> to the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5ByteWriter#writeArray(String, byte[])
+     */
+    public void writeByteArray(String objectPath, byte[] data);
+
+    /**
+     * Queues writing the first <var>dataSize</var> values of <var>data</var> to the data set
+     * <var>objectPath</var>, starting at <var>offset</var>. Queued blocks which follow each other
+     * in the same data set are combined into one write.
+     * 
+     * @see IHDF5ByteWriter#writeArrayBlockWithOffset(String, byte[], int, long)
+     */
+    public void writeByteArrayBlockWithOffset(String objectPath, byte[] data, int dataSize,
+            long offset);
+
+    /**
+     * Queues writing the multi-dimensional <code>byte</code> array <var>data</var> to the data
+     * set <var>objectPath</var>.
+     * 
+     * @see IHDF5ByteWriter#writeMDArray(String, MDByteArray)
+     */
+    public void writeByteMDArray(String objectPath, MDByteArray data);
+
+    /**
+     * Queues writing the block <var>data</var> of a multi-dimensional <code>byte</code> array
+     * to the data set <var>objectPath</var>, starting at <var>offset</var>.
+     * 
+     * @see IHDF5ByteWriter#writeMDArrayBlockWithOffset(String, MDByteArray, long[])
+     */
+    public void writeByteMDArrayBlockWithOffset(String objectPath, MDByteArray data,
+            long[] offset);
+
+    // /////////////////////
+    // Short
+    // /////////////////////
+
+    /**
+     * Queues writing the <code>short</code> array <var>data</var> to the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5ShortWriter#writeArray(String, short[])
+     */
+    public void writeShortArray(String objectPath, short[] data);
+
+    /**
+     * Queues writing the first <var>dataSize</var> values of <var>data</var> to the data set
+     * <var>objectPath</var>, starting at <var>offset</var>. Queued blocks which follow each other
+     * in the same data set are combined into one write.
+     * 
+     * @see IHDF5ShortWriter#writeArrayBlockWithOffset(String, short[], int, long)
+     */
+    public void writeShortArrayBlockWithOffset(String objectPath, short[] data, int dataSize,
+            long offset);
+
+    /**
+     * Queues writing the multi-dimensional <code>short</code> array <var>data</var> to the data
+     * set <var>objectPath</var>.
+     * 
+     * @see IHDF5ShortWriter#writeMDArray(String, MDShortArray)
+     */
+    public void writeShortMDArray(String objectPath, MDShortArray data);
+
+    /**
+     * Queues writing the block <var>data</var> of a multi-dimensional <code>short</code> array
+     * to the data set <var>objectPath</var>, starting at <var>offset</var>.
+     * 
+     * @see IHDF5ShortWriter#writeMDArrayBlockWithOffset(String, MDShortArray, long[])
+     */
+    public void writeShortMDArrayBlockWithOffset(String objectPath, MDShortArray data,
+            long[] offset);
+
+    // /////////////////////
+    // Int
+    // /////////////////////
+
+    /**
+     * Queues writing the <code>int</code> array <var>data</var> to the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5IntWriter#writeArray(String, int[])
+     */
+    public void writeIntArray(String objectPath, int[] data);
+
+    /**
+     * Queues writing the first <var>dataSize</var> values of <var>data</var> to the data set
+     * <var>objectPath</var>, starting at <var>offset</var>. Queued blocks which follow each other
+     * in the same data set are combined into one write.
+     * 
+     * @see IHDF5IntWriter#writeArrayBlockWithOffset(String, int[], int, long)
+     */
+    public void writeIntArrayBlockWithOffset(String objectPath, int[] data, int dataSize,
+            long offset);
+
+    /**
+     * Queues writing the multi-dimensional <code>int</code> array <var>data</var> to the data
+     * set <var>objectPath</var>.
+     * 
+     * @see IHDF5IntWriter#writeMDArray(String, MDIntArray)
+     */
+    public void writeIntMDArray(String objectPath, MDIntArray data);
+
+    /**
+     * Queues writing the block <var>data</var> of a multi-dimensional <code>int</code> array
+     * to the data set <var>objectPath</var>, starting at <var>offset</var>.
+     * 
+     * @see IHDF5IntWriter#writeMDArrayBlockWithOffset(String, MDIntArray, long[])
+     */
+    public void writeIntMDArrayBlockWithOffset(String objectPath, MDIntArray data,
+            long[] offset);
+
+    // /////////////////////
+    // Long
+    // /////////////////////
+
+    /**
+     * Queues writing the <code>long</code> array <var>data</var> to the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5LongWriter#writeArray(String, long[])
+     */
+    public void writeLongArray(String objectPath, long[] data);
+
+    /**
+     * Queues writing the first <var>dataSize</var> values of <var>data</var> to the data set
+     * <var>objectPath</var>, starting at <var>offset</var>. Queued blocks which follow each other
+     * in the same data set are combined into one write.
+     * 
+     * @see IHDF5LongWriter#writeArrayBlockWithOffset(String, long[], int, long)
+     */
+    public void writeLongArrayBlockWithOffset(String objectPath, long[] data, int dataSize,
+            long offset);
+
+    /**
+     * Queues writing the multi-dimensional <code>long</code> array <var>data</var> to the data
+     * set <var>objectPath</var>.
+     * 
+     * @see IHDF5LongWriter#writeMDArray(String, MDLongArray)
+     */
+    public void writeLongMDArray(String objectPath, MDLongArray data);
+
+    /**
+     * Queues writing the block <var>data</var> of a multi-dimensional <code>long</code> array
+     * to the data set <var>objectPath</var>, starting at <var>offset</var>.
+     * 
+     * @see IHDF5LongWriter#writeMDArrayBlockWithOffset(String, MDLongArray, long[])
+     */
+    public void writeLongMDArrayBlockWithOffset(String objectPath, MDLongArray data,
+            long[] offset);
+
+    // /////////////////////
+    // Float
+    // /////////////////////
+
+    /**
+     * Queues writing the <code>float</code> array <var>data</var> to the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5FloatWriter#writeArray(String, float[])
+     */
+    public void writeFloatArray(String objectPath, float[] data);
+
+    /**
+     * Queues writing the first <var>dataSize</var> values of <var>data</var> to the data set
+     * <var>objectPath</var>, starting at <var>offset</var>. Queued blocks which follow each other
+     * in the same data set are combined into one write.
+     * 
+     * @see IHDF5FloatWriter#writeArrayBlockWithOffset(String, float[], int, long)
+     */
+    public void writeFloatArrayBlockWithOffset(String objectPath, float[] data, int dataSize,
+            long offset);
+
+    /**
+     * Queues writing the multi-dimensional <code>float</code> array <var>data</var> to the data
+     * set <var>objectPath</var>.
+     * 
+     * @see IHDF5FloatWriter#writeMDArray(String, MDFloatArray)
+     */
+    public void writeFloatMDArray(String objectPath, MDFloatArray data);
+
+    /**
+     * Queues writing the block <var>data</var> of a multi-dimensional <code>float</code> array
+     * to the data set <var>objectPath</var>, starting at <var>offset</var>.
+     * 
+     * @see IHDF5FloatWriter#writeMDArrayBlockWithOffset(String, MDFloatArray, long[])
+     */
+    public void writeFloatMDArrayBlockWithOffset(String objectPath, MDFloatArray data,
+            long[] offset);
+
+    // /////////////////////
+    // Double
+    // /////////////////////
+
+    /**
+     * Queues writing the <code>double</code> array <var>data</var> to the data set
+     * <var>objectPath</var>.
+     * 
+     * @see IHDF5DoubleWriter#writeArray(String, double[])
+     */
+    public void writeDoubleArray(String objectPath, double[] data);
+
+    /**
+     * Queues writing the first <var>dataSize</var> values of <var>data</var> to the data set
+     * <var>objectPath</var>, starting at <var>offset</var>. Queued blocks which follow each other
+     * in the same data set are combined into one write.
+     * 
+     * @see IHDF5DoubleWriter#writeArrayBlockWithOffset(String, double[], int, long)
+     */
+    public void writeDoubleArrayBlockWithOffset(String objectPath, double[] data, int dataSize,
+            long offset);
+
+    /**
+     * Queues writing the multi-dimensional <code>double</code> array <var>data</var> to the data
+     * set <var>objectPath</var>.
+     * 
+     * @see IHDF5DoubleWriter#writeMDArray(String, MDDoubleArray)
+     */
+    public void writeDoubleMDArray(String objectPath, MDDoubleArray data);
+
+    /**
+     * Queues writing the block <var>data</var> of a multi-dimensional <code>double</code> array
+     * to the data set <var>objectPath</var>, starting at <var>offset</var>.
+     * 
+     * @see IHDF5DoubleWriter#writeMDArrayBlockWithOffset(String, MDDoubleArray, long[])
+     */
+    public void writeDoubleMDArrayBlockWithOffset(String objectPath, MDDoubleArray data,
+            long[] offset);
+
+}
@@ -16,6 +16,8 @@
 
 package ch.systemsx.cisd.hdf5;
 
+import java.nio.ByteBuffer;
+
 import ch.systemsx.cisd.base.mdarray.MDByteArray;
 
 /**
@@ -345,6 +347,22 @@ public interface IHDF5ByteWriter extends IHDF5ByteReader
     public void writeArrayBlockWithOffset(String objectPath, byte[] data,
             int dataSize, long offset);
 
+    /**
+     * Writes out a block of a <code>byte</code> array (of rank 1) from the direct <var>data</var>
+     * buffer, starting at its position. The data are transferred by the native library without an
+     * intermediate <code>byte[]</code>. On return, the position of <var>data</var> is advanced by
+     * <var>dataSize</var>. Apart from that, this method behaves like
+     * {@link #writeArrayBlockWithOffset(String, byte[], int, long)}.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @param data The direct buffer to write from. Needs to have at least <var>dataSize</var>
+     *            bytes remaining.
+     * @param dataSize The number of bytes to write.
+     * @param offset The offset in the data set to start writing to.
+     */
+    public void writeArrayBlockWithOffset(String objectPath, ByteBuffer data,
+            int dataSize, long offset);
+
     /**
      * Writes out a block of a <code>byte</code> array (of rank 1). The data set needs to have
      * been created by {@link #createArray(String, long, int, HDF5IntStorageFeatures)}
@@ -224,6 +224,51 @@ public interface IHDF5EnumReader extends IHDF5EnumTypeRetriever
     public HDF5EnumerationValueArray readArrayBlockWithOffset(final String objectPath,
             final HDF5EnumerationType enumType, final int blockSize, final long offset);
 
+    /**
+     * Reads an <code>Enum</code> array (of rank 1) from the data set <var>objectPath</var> as
+     * constants of the Java enum <var>enumClass</var>.
+     * <p>
+     * The mapping from ordinals to constants of <var>enumClass</var> is computed once per
+     * enumeration type, so the conversion of the array is a table lookup per element.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @param enumClass The Java enum class to return the values as.
+     * @return The data read from the data set.
+     * @throws HDF5JavaException If the <var>objectPath</var> is not an enum data set or if
+     *             <var>enumClass</var> misses one of the values found in the data set.
+     */
+    public <T extends Enum<T>> T[] readArrayAsEnum(final String objectPath, Class<T> enumClass)
+            throws HDF5JavaException;
+
+    /**
+     * Reads the ordinals of an <code>Enum</code> array (of rank 1) from the data set
+     * <var>objectPath</var>.
+     * <p>
+     * This method doesn't wrap the ordinals into a {@link HDF5EnumerationValueArray}. Use
+     * {@link IHDF5EnumTypeRetriever#getDataSetType(String)} to map the ordinals to their names.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @return The ordinals read from the data set.
+     * @throws HDF5JavaException If the <var>objectPath</var> is not an enum data set.
+     */
+    public int[] readOrdinals(final String objectPath) throws HDF5JavaException;
+
+    /**
+     * Reads a block of the ordinals of an <code>Enum</code> array (of rank 1) from the data set
+     * <var>objectPath</var>.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @param blockSize The block size (this will be the length of the <code>int[]</code> returned
+     *            if the data set is long enough).
+     * @param offset The offset of the block in the data set to start reading from (starting with
+     *            0).
+     * @return The ordinals read from the data set. The length will be min(size - offset,
+     *         blockSize).
+     * @throws HDF5JavaException If the <var>objectPath</var> is not an enum data set.
+     */
+    public int[] readOrdinalsBlockWithOffset(final String objectPath, final int blockSize,
+            final long offset) throws HDF5JavaException;
+
     /**
      * Reads an <code>Enum</code> array (of rank N) from the data set <var>objectPath</var>.
      * 
@@ -325,6 +370,16 @@ public interface IHDF5EnumReader extends IHDF5EnumTypeRetriever
     public Iterable<HDF5DataBlock<HDF5EnumerationValueArray>> getArrayBlocks(
             final String objectPath, final HDF5EnumerationType enumType) throws HDF5JavaException;
 
+    /**
+     * Provides the ordinals of all natural blocks of this one-dimensional data set to iterate over.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @see HDF5DataBlock
+     * @throws HDF5JavaException If the data set is not an enum data set or not of rank 1.
+     */
+    public Iterable<HDF5DataBlock<int[]>> getOrdinalBlocks(final String objectPath)
+            throws HDF5JavaException;
+
     /**
      * Provides all natural blocks of this multi-dimensional data set to iterate over.
      * 
@@ -61,6 +61,12 @@ public interface IHDF5FileLevelReadOnlyHandler
      */
     public File getFile();
 
+    /**
+     * Returns <code>true</code>, if the file is opened in single-writer / multiple-reader (SWMR)
+     * mode.
+     */
+    public boolean isSWMR();
+
     // /////////////////////
     // Status
     // /////////////////////
@@ -65,6 +65,20 @@ public interface IHDF5FileLevelReadWriteHandler extends IHDF5FileLevelReadOnlyHa
      */
     public void flushSyncBlocking();
 
+    /**
+     * Switches the file to single-writer / multiple-reader (SWMR) mode, after flushing all objects
+     * created so far. From now on, readers configured with
+     * {@link IHDF5ReaderConfigurator#swmrRead()} can read the file while it is being written and
+     * see the data written before each {@link #flush()}. No new objects can be created in SWMR
+     * mode. Calling this method for a second time is a no-op.
+     * 
+     * @throws hdf.hdf5lib.exceptions.HDF5JavaException If the writer has not been configured with
+     *             a lower file format bound of at least 1.10 (see
+     *             {@link IHDF5WriterConfigurator#fileFormat(FileFormatVersionBounds)}) or the file
+     *             has a metadata cache image.
+     */
+    public void startSWMRWrite();
+
     /**
      * Adds a {@link Flushable} to the set of flushables. This set is flushed when {@link #flush()}
      * or {@link #flushSyncBlocking()} are called and before the writer is closed.
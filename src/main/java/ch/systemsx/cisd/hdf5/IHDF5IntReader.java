@@ -16,6 +16,8 @@
 
 package ch.systemsx.cisd.hdf5;
 
+import java.nio.IntBuffer;
+
 import hdf.hdf5lib.exceptions.HDF5JavaException;
 
 import ch.systemsx.cisd.base.mdarray.MDIntArray;
@@ -105,6 +107,21 @@ public interface IHDF5IntReader
      */
     public int[] readArray(String objectPath);
 
+    /**
+     * Maps the <code>int</code> data set <var>objectPath</var> read-only into memory. The values
+     * are accessed directly in the file, bypassing the HDF5 library, so that the pages can be
+     * shared with other processes which map the same file. Multi-dimensional data sets are mapped
+     * in row-major order. Values are returned
+     * as stored, i.e. unsigned values are not converted.
+     * <p>
+     * The data set needs to have a contiguous layout without filters and can be at most 2GB large.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @return The read-only buffer of the values of the data set.
+     * @throws HDF5JavaException If the data set cannot be mapped.
+     */
+    public IntBuffer mapArray(String objectPath) throws HDF5JavaException;
+
     /**
      * Reads a multi-dimensional <code>int</code> array data set <var>objectPath</var>
      * into a given <var>array</var> in memory.
@@ -85,6 +85,24 @@ public interface IHDF5ObjectReadOnlyInfoProviderHandler
      */
     public HDF5DataSet openDataSet(final String objectPath);
 
+    /**
+     * Re-reads the metadata of the data set <var>objectPath</var> from the file. Use this in a
+     * reader configured with {@link IHDF5ReaderConfigurator#swmrRead()} to pick up the dimensions
+     * of a data set that the writer has extended.
+     * 
+     * @param objectPath The name (with path) of the data set to refresh.
+     */
+    public void refresh(final String objectPath);
+
+    /**
+     * Re-reads the metadata of the open <var>dataSet</var> from the file and updates its
+     * dimensions.
+     * 
+     * @param dataSet The data set to refresh.
+     * @see #refresh(String)
+     */
+    public void refresh(final HDF5DataSet dataSet);
+
     /**
      * Creates and returns an internal (house-keeping) version of <var>objectPath</var>.
      */
@@ -327,6 +345,17 @@ public interface IHDF5ObjectReadOnlyInfoProviderHandler
      */
     public long[] getDimensions(final String objectPath);
 
+    /**
+     * Returns the mappings of the virtual data set <var>objectPath</var> to its source data sets,
+     * or an empty list, if <var>objectPath</var> is not a virtual data set. Reading the source data
+     * sets directly allows reading the blocks of different source files in parallel. It is a
+     * failure condition if the <var>objectPath</var> does not exist or does not identify a data
+     * set.
+     * 
+     * @throws HDF5JavaException If a mapping is not a single block.
+     */
+    public List<HDF5VirtualDataSetMapping> getVirtualDataSetMappings(final String objectPath);
+
     // /////////////////////
     // Copies
     // /////////////////////
@@ -16,6 +16,8 @@
 
 package ch.systemsx.cisd.hdf5;
 
+import java.util.List;
+
 import hdf.hdf5lib.exceptions.HDF5JavaException;
 import hdf.hdf5lib.exceptions.HDF5SymbolTableException;
 
@@ -176,6 +178,24 @@ public interface IHDF5ObjectReadWriteInfoProviderHandler extends IHDF5ObjectRead
      */
     public void setDataSetDimensions(final String objectPath, final long[] newDimensions);
 
+    /**
+     * Creates a virtual data set <var>objectPath</var> of <var>dimensions</var> that presents
+     * blocks of (possibly many) source data sets in (possibly many) files as one data set. The data
+     * type is taken from the source data set of the first mapping, which needs to exist. The other
+     * source data sets and files don't need to exist; elements not covered by an existing source
+     * data set are read as the fill value.
+     * <p>
+     * <i>Note:</i> Fails if the file format version bounds are limited to 1.8, e.g.
+     * {@link IHDF5WriterConfigurator.FileFormatVersionBounds#EARLIEST_V1_8}.
+     * 
+     * @param objectPath The name (including path information) of the data set to create.
+     * @param dimensions The dimensions of the virtual data set.
+     * @param mappings The mappings of blocks of the virtual data set to blocks of source data sets.
+     * @throws HDF5JavaException If <var>mappings</var> is empty.
+     */
+    public void createVirtualDataSet(final String objectPath, final long[] dimensions,
+            final List<HDF5VirtualDataSetMapping> mappings);
+
     // /////////////////////
     // Types
     // /////////////////////
@@ -16,6 +16,8 @@
 
 package ch.systemsx.cisd.hdf5;
 
+import java.nio.ByteBuffer;
+
 import hdf.hdf5lib.exceptions.HDF5JavaException;
 
 /**
@@ -125,6 +127,25 @@ public interface IHDF5OpaqueReader
             final int blockSize, final long offset, final int memoryOffset)
             throws HDF5JavaException;
 
+    /**
+     * Reads a block from data set <var>objectPath</var> into the direct <var>buffer</var>, starting
+     * at its position. The data are transferred by the native library without an intermediate
+     * <code>byte[]</code>. On return, the position of <var>buffer</var> is advanced by the number
+     * of bytes read. The bytes read will be in the native byte-order of the machine, but will
+     * otherwise be unchanged.
+     * <em>Must not be called for data sets of rank other than 1 and must not be called on Strings!</em>
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @param buffer The direct buffer to read the values in.
+     * @param blockSize The block size in numbers of elements.
+     * @param offset The offset of the block in the data set as number of elements (zero-based).
+     * @return The effective block size.
+     * @throws HDF5JavaException If the data set is not of rank 1, if <var>buffer</var> is not
+     *             direct or if it has not enough space remaining for the block.
+     */
+    public int readArrayToBlockWithOffset(final String objectPath, final ByteBuffer buffer,
+            final int blockSize, final long offset) throws HDF5JavaException;
+
     /**
      * Provides all natural blocks of this one-dimensional data set to iterate over. The bytes read
      * will be in the native byte-order of the machine, but will otherwise be unchanged.
@@ -16,6 +16,8 @@
 
 package ch.systemsx.cisd.hdf5;
 
+import java.nio.ByteBuffer;
+
 /**
  * An interface that provides methods for writing opaque values to HDF5 files. Opaque values are
  * represented as byte arrays, however, contrary to the methods in {@link IHDF5ByteWriter} there is
@@ -171,4 +173,21 @@ public interface IHDF5OpaqueWriter extends IHDF5OpaqueReader
     public void writeArrayBlockWithOffset(final String objectPath,
             final HDF5OpaqueType dataType, final byte[] data, final int dataSize, final long offset);
 
+    /**
+     * Writes out a block of an opaque data type from the direct <var>data</var> buffer, starting
+     * at its position. The data are transferred by the native library without an intermediate
+     * <code>byte[]</code>. On return, the position of <var>data</var> is advanced by
+     * <var>dataSize</var>. Apart from that, this method behaves like
+     * {@link #writeArrayBlockWithOffset(String, HDF5OpaqueType, byte[], int, long)}.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @param data The direct buffer to write from. Needs to have at least <var>dataSize</var>
+     *            bytes remaining.
+     * @param dataSize The number of bytes to write.
+     * @param offset The offset in the data set to start writing to.
+     */
+    public void writeArrayBlockWithOffset(final String objectPath,
+            final HDF5OpaqueType dataType, final ByteBuffer data, final int dataSize,
+            final long offset);
+
 }
\ No newline at end of file
@@ -238,4 +238,14 @@ public interface IHDF5Reader extends IHDF5SimpleReader
      */
     public IHDF5ReferenceReader reference();
 
+    // /////////////////////
+    // Asynchronous reading
+    // /////////////////////
+
+    /**
+     * Returns the asynchronous reader for this file. The I/O thread of the asynchronous reader is
+     * started on the first call and stopped when this reader is closed.
+     */
+    public IHDF5AsyncReader async();
+
 }
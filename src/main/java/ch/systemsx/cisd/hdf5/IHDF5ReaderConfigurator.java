@@ -52,6 +52,15 @@ public interface IHDF5ReaderConfigurator
      * <i>Note: automatic dereferencing is switched on by default.</i>
      */
     public IHDF5ReaderConfigurator noAutoDereference();
+
+    /**
+     * Opens the file as a reader in single-writer / multiple-reader (SWMR) mode, i.e. while a
+     * writer configured with {@link IHDF5WriterConfigurator#swmrWrite()} keeps appending to it.
+     * Data that the writer has flushed become visible to the reader without re-opening the file;
+     * call {@link IHDF5ObjectReadOnlyInfoProviderHandler#refresh(String)} to pick up the new
+     * dimensions of a data set.
+     */
+    public IHDF5ReaderConfigurator swmrRead();
     
     /**
      * Returns an {@link IHDF5Reader} based on this configuration.
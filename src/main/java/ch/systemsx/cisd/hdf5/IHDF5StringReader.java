@@ -197,6 +197,37 @@ public interface IHDF5StringReader
     public String[] readArrayBlockWithOffsetRaw(final String objectPath, final int blockSize,
             final long offset);
 
+    /**
+     * Reads a string array (of rank 1) from the data set <var>objectPath</var> as a packed byte
+     * array plus offsets, without creating a <code>String</code> object per element. The elements
+     * of this data set need to be a string type. Considers '\0' as end of string.
+     * <p>
+     * For fixed-length strings, the bytes read from the data set are compacted in place and
+     * returned without decoding. For variable-length strings, the strings are read as
+     * <code>String</code>s first and then packed, so there is no performance gain.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @return The data read from the data set.
+     * @throws HDF5JavaException If the <var>objectPath</var> is not a string type.
+     */
+    public HDF5PackedStringArray readArrayPacked(final String objectPath)
+            throws HDF5JavaException;
+
+    /**
+     * Reads a block of a string array (of rank 1) from the data set <var>objectPath</var> as a
+     * packed byte array plus offsets, without creating a <code>String</code> object per element.
+     * The elements of this data set need to be a string type. Considers '\0' as end of string.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @param blockSize The size of the block to read from the data set.
+     * @param offset The offset of the block in the data set.
+     * @return The data read from the data set.
+     * @throws HDF5JavaException If the <var>objectPath</var> is not a string type.
+     * @see #readArrayPacked(String)
+     */
+    public HDF5PackedStringArray readArrayBlockWithOffsetPacked(final String objectPath,
+            final int blockSize, final long offset) throws HDF5JavaException;
+
     /**
      * Reads a string array (of rank N) from the data set <var>objectPath</var>. The elements of
      * this data set need to be a string type. Considers '\0' as end of string.
@@ -301,6 +332,18 @@ public interface IHDF5StringReader
     public Iterable<HDF5DataBlock<String[]>> getArrayNaturalBlocksRaw(final String objectPath)
             throws HDF5JavaException;
 
+    /**
+     * Provides all natural blocks of this one-dimensional string data set to iterate over, each
+     * as a packed byte array plus offsets. Considers '\0' as end of string.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @see HDF5DataBlock
+     * @see #readArrayPacked(String)
+     * @throws HDF5JavaException If the data set is not of rank 1.
+     */
+    public Iterable<HDF5DataBlock<HDF5PackedStringArray>> getArrayNaturalBlocksPacked(
+            final String objectPath) throws HDF5JavaException;
+
     /**
      * Provides all natural blocks of this multi-dimensional string data set to iterate over.
      * Considers '\0' as end of string.
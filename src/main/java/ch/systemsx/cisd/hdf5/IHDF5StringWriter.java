@@ -209,6 +209,43 @@ public interface IHDF5StringWriter extends IHDF5StringReader
     public void writeArray(final String objectPath, final String[] data, final int maxLength,
             final HDF5GenericStorageFeatures features);
 
+    /**
+     * Writes out a <code>String</code> array (of rank 1) with few distinct values in
+     * dictionary-encoded form, that is as an enumeration data set with the distinct strings as
+     * the values of the enumeration type and one integer code per element. This needs much less
+     * space than {@link #writeArray(String, String[])} for low-cardinality data like sample ids or
+     * channel names and is much faster to read.
+     * <p>
+     * The data set can be read transparently with {@link #readArray(String)} and its siblings,
+     * which return one shared <code>String</code> instance per distinct value. The integer codes
+     * can be read with {@link IHDF5EnumReader#readArray(String)}.
+     * <p>
+     * The data set is tagged with the type variant
+     * {@link HDF5DataTypeVariant#DICTIONARY_ENCODED_STRING}, so that plain enumeration data sets
+     * are not mistaken for string arrays.
+     * <p>
+     * If <var>data</var> is empty, contains the empty string (which is not a valid enumeration
+     * value) or has too many distinct values to be stored in the data type, it is written as a
+     * plain string array instead. <code>null</code> elements are treated like the empty string
+     * and thus written as empty strings.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @param data The data to write. Must not be <code>null</code>.
+     */
+    public void writeArrayDictionaryEncoded(final String objectPath, final String[] data);
+
+    /**
+     * Writes out a <code>String</code> array (of rank 1) with few distinct values in
+     * dictionary-encoded form. See {@link #writeArrayDictionaryEncoded(String, String[])} for
+     * details.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @param data The data to write. Must not be <code>null</code>.
+     * @param features The storage features of the data set.
+     */
+    public void writeArrayDictionaryEncoded(final String objectPath, final String[] data,
+            final HDF5GenericStorageFeatures features);
+
     /**
      * Writes out a <code>String</code> array (of rank N). Each element of the array will have a
      * fixed maximal length which is defined by the longest string in <var>data</var>.
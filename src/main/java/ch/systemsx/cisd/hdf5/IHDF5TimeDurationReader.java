@@ -16,6 +16,8 @@
 
 package ch.systemsx.cisd.hdf5;
 
+import java.util.Iterator;
+
 import hdf.hdf5lib.exceptions.HDF5JavaException;
 
 /**
@@ -134,6 +136,23 @@ public interface IHDF5TimeDurationReader
      */
     public HDF5TimeDurationArray readArray(String objectPath) throws HDF5JavaException;
 
+    /**
+     * Reads a time duration array from the data set <var>objectPath</var> and returns it in the
+     * given <var>targetUnit</var>. The data set needs to be tagged as one of the type variants
+     * that indicate a time duration, for example {@link HDF5DataTypeVariant#TIME_DURATION_SECONDS}.
+     * <p>
+     * The durations are read in one go and then converted in place, or not at all if the stored
+     * unit is <var>targetUnit</var>.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @param targetUnit The time unit to return the durations in.
+     * @return The time durations in <var>targetUnit</var>.
+     * @throws HDF5JavaException If the <var>objectPath</var> is not tagged as a type variant that
+     *             corresponds to a time duration.
+     */
+    public HDF5TimeDurationArray readArray(String objectPath, HDF5TimeUnit targetUnit)
+            throws HDF5JavaException;
+
     /**
      * Reads a block of a time duration array (of rank 1) from the data set <var>objectPath</var>.
      * It needs to be tagged as one of the type variants that indicate a time duration, for example
@@ -188,6 +207,25 @@ public interface IHDF5TimeDurationReader
     public HDF5TimeDurationArray readArrayBlockWithOffset(String objectPath, int blockSize,
             long offset) throws HDF5JavaException;
 
+    /**
+     * Reads a block of a time duration array (of rank 1) from the data set <var>objectPath</var>
+     * and returns it in the given <var>targetUnit</var>. The data set needs to be tagged as one of
+     * the type variants that indicate a time duration, for example
+     * {@link HDF5DataTypeVariant#TIME_DURATION_SECONDS}.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @param blockSize The block size (this will be the length of the <code>long[]</code>
+     *            returned).
+     * @param offset The offset of the block in the data set to start reading from (starting with
+     *            0).
+     * @param targetUnit The time unit to return the durations in.
+     * @return The data block read from the data set.
+     * @throws HDF5JavaException If the <var>objectPath</var> is not tagged as a type variant that
+     *             corresponds to a time duration.
+     */
+    public HDF5TimeDurationArray readArrayBlockWithOffset(String objectPath, int blockSize,
+            long offset, HDF5TimeUnit targetUnit) throws HDF5JavaException;
+
     /**
      * Provides all natural blocks of this one-dimensional data set of time durations to iterate
      * over.
@@ -200,6 +238,24 @@ public interface IHDF5TimeDurationReader
     public Iterable<HDF5DataBlock<HDF5TimeDurationArray>> getArrayNaturalBlocks(String objectPath)
             throws HDF5JavaException;
 
+    /**
+     * Provides all natural blocks of this one-dimensional data set of time durations to iterate
+     * over, with the durations converted to <var>targetUnit</var>.
+     * <p>
+     * <i>Note:</i> In order to avoid allocating a new array for each block, all blocks (except a
+     * shorter last block) share the same <code>long[]</code> buffer which is overwritten on each
+     * call to {@link Iterator#next()}. Copy the data if you need to keep it beyond the current
+     * iteration.
+     * 
+     * @param objectPath The name (including path information) of the data set object in the file.
+     * @param targetUnit The time unit to return the durations in.
+     * @see HDF5DataBlock
+     * @throws HDF5JavaException If the data set is not of a time duration data type or not of rank
+     *             1.
+     */
+    public Iterable<HDF5DataBlock<long[]>> getArrayNaturalBlocks(String objectPath,
+            HDF5TimeUnit targetUnit) throws HDF5JavaException;
+
     /**
      * Reads a multi-dimensional array of time durations from the data set <var>objectPath</var>.
      * 
@@ -264,4 +264,17 @@ public interface IHDF5Writer extends IHDF5Reader, IHDF5SimpleWriter
     @Override
     public IHDF5ReferenceWriter reference();
 
+    // /////////////////////
+    // Write-behind
+    // /////////////////////
+
+    /**
+     * Returns the write-behind writer for this file. Its writing thread is started on the first
+     * call and stopped when this writer is closed.
+     * <p>
+     * Call {@link IHDF5AsyncWriter#flush()} before calling methods of this writer directly, as
+     * direct calls are not ordered with respect to queued operations.
+     */
+    public IHDF5AsyncWriter writeBehind();
+
 }
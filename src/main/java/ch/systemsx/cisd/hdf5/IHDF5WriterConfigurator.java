@@ -320,6 +320,22 @@ public interface IHDF5WriterConfigurator extends IHDF5ReaderConfigurator
      */
     public IHDF5WriterConfigurator houseKeepingNameSuffix(String houseKeepingNameSuffix);
 
+    /**
+     * Switches the file to single-writer / multiple-reader (SWMR) mode right after opening it, so
+     * that readers configured with {@link IHDF5ReaderConfigurator#swmrRead()} can read it while it
+     * is being written. Readers see the data once the writer has called
+     * {@link IHDF5FileLevelReadWriteHandler#flush()}.
+     * <p>
+     * In SWMR mode, data sets can be written and extended, but no new objects (data sets, groups,
+     * data types or attributes) can be created. Either create them in an earlier session or don't
+     * use this option and call {@link IHDF5FileLevelReadWriteHandler#startSWMRWrite()} once they
+     * have been created.
+     * <p>
+     * <i>Note:</i> SWMR requires a lower file format bound of at least 1.10, which is set
+     * automatically, and no metadata cache image. Fails, if the upper file format bound is 1.8.
+     */
+    public IHDF5WriterConfigurator swmrWrite();
+
     /**
      * Returns an {@link IHDF5Writer} based on this configuration.
      */
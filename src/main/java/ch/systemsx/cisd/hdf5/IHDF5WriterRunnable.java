@@ -0,0 +1,30 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ch.systemsx.cisd.hdf5;
+
+/**
+ * A write operation to be performed by an {@link IHDF5AsyncWriter}.
+ */
+public interface IHDF5WriterRunnable
+{
+    /**
+     * Performs the write operation on <var>writer</var>. Called on the writing thread of the
+     * asynchronous writer.
+     */
+    public void run(IHDF5Writer writer);
+}
@@ -17,6 +17,8 @@
 package ch.systemsx.cisd.hdf5;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Some auxiliary methods for String to Byte conversion.
@@ -145,17 +147,8 @@ public final class StringUtils
     static String fromBytes0Term(byte[] data, int startIdx, int maxEndIdx,
             CharacterEncoding encoding)
     {
-        int termIdx;
-        for (termIdx = startIdx; termIdx < maxEndIdx && data[termIdx] != 0; ++termIdx)
-        {
-        }
-        try
-        {
-            return new String(data, startIdx, termIdx - startIdx, encoding.getCharSetName());
-        } catch (UnsupportedEncodingException ex)
-        {
-            return new String(data, startIdx, termIdx - startIdx);
-        }
+        final int termIdx = indexOf0Term(data, startIdx, maxEndIdx);
+        return new String(data, startIdx, termIdx - startIdx, encoding.getCharSet());
     }
 
     /**
@@ -182,13 +175,89 @@ public final class StringUtils
      */
     static String fromBytes(byte[] data, int startIdx, int endIdx, CharacterEncoding encoding)
     {
-        try
+        return new String(data, startIdx, endIdx - startIdx, encoding.getCharSet());
+    }
+
+    /**
+     * Converts a block of fixed-length strings of <var>strLength</var> bytes each, stored
+     * back-to-back in <var>data</var>, to <var>out</var>. Considers '\0' as end of string.
+     * <p>
+     * If the block is pure 7-bit ASCII (the common case for identifiers), the strings are created
+     * with the Latin-1 charset which the JVM can copy into compact strings without decoding.
+     */
+    static void fromBytes0Term(byte[] data, int strLength, CharacterEncoding encoding,
+            String[] out)
+    {
+        final Charset charSet = getBlockCharSet(data, out.length * strLength, encoding);
+        for (int i = 0, startIdx = 0; i < out.length; ++i, startIdx += strLength)
         {
-            return new String(data, startIdx, endIdx - startIdx, encoding.getCharSetName());
-        } catch (UnsupportedEncodingException ex)
+            final int termIdx = indexOf0Term(data, startIdx, startIdx + strLength);
+            out[i] = new String(data, startIdx, termIdx - startIdx, charSet);
+        }
+    }
+
+    /**
+     * Converts a block of fixed-length strings of <var>strLength</var> bytes each, stored
+     * back-to-back in <var>data</var>, to <var>out</var>. Does not consider '\0' as end of string
+     * but converts the full length.
+     */
+    static void fromBytes(byte[] data, int strLength, CharacterEncoding encoding, String[] out)
+    {
+        final Charset charSet = getBlockCharSet(data, out.length * strLength, encoding);
+        for (int i = 0, startIdx = 0; i < out.length; ++i, startIdx += strLength)
+        {
+            out[i] = new String(data, startIdx, strLength, charSet);
+        }
+    }
+
+    /**
+     * Returns the charset to decode the first <var>length</var> bytes of <var>data</var> with:
+     * Latin-1 if all bytes are 7-bit ASCII, as this is the fastest way to decode and gives the
+     * same result as both ASCII and UTF-8, otherwise the charset of <var>encoding</var>.
+     */
+    private static Charset getBlockCharSet(byte[] data, int length, CharacterEncoding encoding)
+    {
+        return isASCII(data, 0, length) ? StandardCharsets.ISO_8859_1 : encoding.getCharSet();
+    }
+
+    private static final int ASCII_CHECK_STRIDE = 4096;
+
+    /**
+     * Returns <code>true</code> if all bytes of <var>data</var> in the range
+     * <code>[startIdx, endIdx)</code> are 7-bit ASCII.
+     */
+    static boolean isASCII(byte[] data, int startIdx, int endIdx)
+    {
+        // The inner loop is a branch-free OR reduction that the JIT can vectorize, the outer loop
+        // allows an early exit on non-ASCII data.
+        for (int strideStartIdx = startIdx; strideStartIdx < endIdx; strideStartIdx +=
+                ASCII_CHECK_STRIDE)
+        {
+            final int strideEndIdx = Math.min(endIdx, strideStartIdx + ASCII_CHECK_STRIDE);
+            int acc = 0;
+            for (int i = strideStartIdx; i < strideEndIdx; ++i)
+            {
+                acc |= data[i];
+            }
+            if (acc < 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the first '\0' in <var>data</var> in the range
+     * <code>[startIdx, maxEndIdx)</code>, or <var>maxEndIdx</var>, if there is none.
+     */
+    static int indexOf0Term(byte[] data, int startIdx, int maxEndIdx)
+    {
+        int termIdx;
+        for (termIdx = startIdx; termIdx < maxEndIdx && data[termIdx] != 0; ++termIdx)
         {
-            return new String(data, startIdx, endIdx - startIdx);
         }
+        return termIdx;
     }
 
     private static String cut(String s, int maxLength)
@@ -19,6 +19,7 @@ package ch.systemsx.cisd.hdf5.h5ar;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.Callable;
 import java.util.zip.CRC32;
 
 import org.apache.commons.io.FileUtils;
@@ -53,8 +54,11 @@ class ArchiveEntryExtractProcessor implements IArchiveEntryProcessor
 
     private final GroupCache groupCache;
 
+    private final OrderedTaskPipeline pipelineOrNull;
+
     ArchiveEntryExtractProcessor(IArchiveEntryVisitor visitorOrNull, ArchivingStrategy strategy,
-            File rootDirectory, String rootPathToStrip, byte[] buffer)
+            File rootDirectory, String rootPathToStrip, byte[] buffer,
+            OrderedTaskPipeline pipelineOrNull)
     {
         this.visitorOrNull = visitorOrNull;
         this.strategy = strategy;
@@ -64,6 +68,7 @@ class ArchiveEntryExtractProcessor implements IArchiveEntryProcessor
                 "/".equals(normalizedRootPathToStrip) ? "" : normalizedRootPathToStrip;
         this.buffer = buffer;
         this.groupCache = new GroupCache();
+        this.pipelineOrNull = pipelineOrNull;
     }
 
     @Override
@@ -93,6 +98,11 @@ class ArchiveEntryExtractProcessor implements IArchiveEntryProcessor
             }
         } else if (link.tryGetLinkTarget() != null && Unix.isOperational())
         {
+            if (pipelineOrNull != null)
+            {
+                submitExtractSymLink(dir, path, link, file, idCache, errorStrategy);
+                return true;
+            }
             try
             {
                 file.delete();
@@ -124,24 +134,20 @@ class ArchiveEntryExtractProcessor implements IArchiveEntryProcessor
             {
                 try
                 {
-                    // Here we don't rely on link.getSize() to protect against wrong index entries.
-                    final long size = reader.object().getSize(path);
-                    final int crc32 = copyFromHDF5(reader, path, size, file);
-                    restoreAttributes(file, link);
-                    final FileSizeType sizeType = getFileSizeType(file);
-                    link.setVerifiedType(sizeType.type);
-                    link.setFileVerification(sizeType.size, crc32, file.lastModified()
-                            / Utils.MILLIS_PER_SECOND);
-                    final ArchiveEntry entry = new ArchiveEntry(dir, path, link, idCache);
-                    if (visitorOrNull != null)
-                    {
-                        visitorOrNull.visit(entry);
-                    }
-                    if (entry.isOK() == false)
+                    // Here we don't rely on link.getSize() to protect against wrong index entries,
+                    // except for packed files, which have no data set of their own.
+                    final long size =
+                            link.isPacked() ? link.getSize() : reader.object().getSize(path);
+                    if (pipelineOrNull != null && size <= buffer.length)
                     {
-                        errorStrategy.dealWithError(new UnarchivingException(path, entry
-                                .getStatus(true)));
+                        submitWriteFile(dir, path, link, file,
+                                readFromHDF5(reader, path, link, size), idCache, errorStrategy);
+                        return true;
                     }
+                    final int crc32 = copyFromHDF5(reader, path, link, size, file);
+                    restoreAttributes(file, link);
+                    final FileSizeType sizeType = getFileSizeType(file);
+                    completeFile(dir, path, link, file, crc32, sizeType, idCache, errorStrategy);
                 } catch (IOException ex)
                 {
                     errorStrategy.dealWithError(new UnarchivingException(file, ex));
@@ -154,10 +160,144 @@ class ArchiveEntryExtractProcessor implements IArchiveEntryProcessor
         return true;
     }
 
+    private void completeFile(String dir, String path, LinkRecord link, File file, int crc32,
+            FileSizeType sizeType, IdCache idCache, IErrorStrategy errorStrategy)
+    {
+        link.setVerifiedType(sizeType.type);
+        link.setFileVerification(sizeType.size, crc32, file.lastModified()
+                / Utils.MILLIS_PER_SECOND);
+        final ArchiveEntry entry = new ArchiveEntry(dir, path, link, idCache);
+        if (visitorOrNull != null)
+        {
+            visitorOrNull.visit(entry);
+        }
+        if (entry.isOK() == false)
+        {
+            errorStrategy.dealWithError(new UnarchivingException(path, entry.getStatus(true)));
+        }
+    }
+
+    /**
+     * Writes <var>data</var> to <var>file</var> and restores its attributes on a worker thread.
+     */
+    private void submitWriteFile(final String dir, final String path, final LinkRecord link,
+            final File file, final byte[] data, final IdCache idCache,
+            final IErrorStrategy errorStrategy)
+    {
+        pipelineOrNull.submit(data.length, new Callable<Runnable>()
+            {
+                @Override
+                public Runnable call()
+                {
+                    try
+                    {
+                        try (final OutputStream output = FileUtils.openOutputStream(file))
+                        {
+                            output.write(data);
+                            output.close(); // Make sure we don't silence exceptions on closing.
+                        }
+                        final CRC32 crc32 = new CRC32();
+                        crc32.update(data);
+                        restoreAttributes(file, link);
+                        final FileSizeType sizeType = getFileSizeType(file);
+                        return new Runnable()
+                            {
+                                @Override
+                                public void run()
+                                {
+                                    completeFile(dir, path, link, file, (int) crc32.getValue(),
+                                            sizeType, idCache, errorStrategy);
+                                }
+                            };
+                    } catch (final IOException ex)
+                    {
+                        return new Runnable()
+                            {
+                                @Override
+                                public void run()
+                                {
+                                    errorStrategy.dealWithError(new UnarchivingException(file,
+                                            ex));
+                                }
+                            };
+                    } catch (final RuntimeException ex)
+                    {
+                        return new Runnable()
+                            {
+                                @Override
+                                public void run()
+                                {
+                                    errorStrategy.dealWithError(new UnarchivingException(path,
+                                            ex));
+                                }
+                            };
+                    }
+                }
+            });
+    }
+
+    /**
+     * Creates the symbolic link <var>file</var> and restores its attributes on a worker thread.
+     */
+    private void submitExtractSymLink(final String dir, final String path,
+            final LinkRecord link, final File file, final IdCache idCache,
+            final IErrorStrategy errorStrategy)
+    {
+        pipelineOrNull.submit(0L, new Callable<Runnable>()
+            {
+                @Override
+                public Runnable call()
+                {
+                    try
+                    {
+                        file.delete();
+                        Unix.createSymbolicLink(link.tryGetLinkTarget(), file.getAbsolutePath());
+                        restoreAttributes(file, link);
+                        return (visitorOrNull == null) ? null : new Runnable()
+                            {
+                                @Override
+                                public void run()
+                                {
+                                    visitorOrNull.visit(new ArchiveEntry(dir, path, link,
+                                            idCache));
+                                }
+                            };
+                    } catch (final IOExceptionUnchecked ex)
+                    {
+                        return new Runnable()
+                            {
+                                @Override
+                                public void run()
+                                {
+                                    errorStrategy.dealWithError(new UnarchivingException(file,
+                                            ex));
+                                }
+                            };
+                    } catch (final RuntimeException ex)
+                    {
+                        return new Runnable()
+                            {
+                                @Override
+                                public void run()
+                                {
+                                    errorStrategy.dealWithError(new UnarchivingException(path,
+                                            ex));
+                                }
+                            };
+                    }
+                }
+            });
+    }
+
     @Override
     public void postProcessDirectory(String dir, String path, LinkRecord link, IHDF5Reader reader,
             IdCache idCache, IErrorStrategy errorStrategy) throws IOException, HDF5Exception
     {
+        if (pipelineOrNull != null)
+        {
+            // Writing the entries of the directory changes its last modification time.
+            pipelineOrNull.drain();
+        }
         final File file = createFile(path);
         restoreAttributes(file, link);
     }
@@ -204,8 +344,8 @@ class ArchiveEntryExtractProcessor implements IArchiveEntryProcessor
 
     }
 
-    private int copyFromHDF5(final IHDF5Reader reader, final String objectPath, final long size,
-            File destination) throws IOException
+    private int copyFromHDF5(final IHDF5Reader reader, final String objectPath,
+            final LinkRecord link, final long size, File destination) throws IOException
     {
         try (final OutputStream output = FileUtils.openOutputStream(destination))
         {
@@ -214,7 +354,7 @@ class ArchiveEntryExtractProcessor implements IArchiveEntryProcessor
             while (offset < size)
             {
                 final int n =
-                        reader.opaque().readArrayToBlockWithOffset(objectPath, buffer, buffer.length,
+                        PackStore.readBlock(reader, objectPath, link, buffer, buffer.length,
                                 offset, 0);
                 offset += n;
                 output.write(buffer, 0, n);
@@ -225,6 +365,20 @@ class ArchiveEntryExtractProcessor implements IArchiveEntryProcessor
         }
     }
 
+    private byte[] readFromHDF5(final IHDF5Reader reader, final String objectPath,
+            final LinkRecord link, final long size)
+    {
+        final byte[] data = new byte[(int) size];
+        int offset = 0;
+        while (offset < size)
+        {
+            offset +=
+                    PackStore.readBlock(reader, objectPath, link, data, data.length - offset,
+                            offset, offset);
+        }
+        return data;
+    }
+
     private void restoreAttributes(File file, LinkRecord linkInfoOrNull)
     {
         assert file != null;
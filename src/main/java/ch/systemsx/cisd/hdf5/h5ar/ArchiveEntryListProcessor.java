@@ -42,11 +42,15 @@ class ArchiveEntryListProcessor implements IArchiveEntryProcessor
 
     private final boolean checkArchive;
 
-    ArchiveEntryListProcessor(IArchiveEntryVisitor visitor, byte[] buffer, boolean checkArchive)
+    private final boolean numeric;
+
+    ArchiveEntryListProcessor(IArchiveEntryVisitor visitor, byte[] buffer, boolean checkArchive,
+            boolean numeric)
     {
         this.visitor = visitor;
         this.buffer = buffer;
         this.checkArchive = checkArchive;
+        this.numeric = numeric;
     }
 
     @Override
@@ -56,16 +60,26 @@ class ArchiveEntryListProcessor implements IArchiveEntryProcessor
         String errorMessage = null;
         if (checkArchive)
         {
-            final HDF5LinkInformation info = reader.object().getLinkInformation(path);
-            final FileLinkType verifiedType = Utils.translateType(info.getType());
+            final FileLinkType verifiedType;
+            if (link.isPacked())
+            {
+                verifiedType =
+                        PackStore.packExists(reader, link) ? FileLinkType.REGULAR_FILE
+                                : FileLinkType.OTHER;
+            } else
+            {
+                final HDF5LinkInformation info = reader.object().getLinkInformation(path);
+                verifiedType = Utils.translateType(info.getType());
+            }
             link.setVerifiedType(verifiedType);
             if (verifiedType == FileLinkType.REGULAR_FILE)
             {
-                final long verifiedSize = reader.object().getSize(path);
+                final long verifiedSize =
+                        link.isPacked() ? link.getSize() : reader.object().getSize(path);
                 int verifiedCrc32 = 0;
                 try
                 {
-                    verifiedCrc32 = calcCRC32Archive(path, verifiedSize, reader);
+                    verifiedCrc32 = calcCRC32Archive(path, link, verifiedSize, reader);
                 } catch (HDF5Exception ex)
                 {
                     errorMessage = ex.getClass().getSimpleName() + ": " + ex.getMessage();
@@ -73,7 +87,9 @@ class ArchiveEntryListProcessor implements IArchiveEntryProcessor
                 link.setFileVerification(verifiedSize, verifiedCrc32, Utils.UNKNOWN);
             }
         }
-        visitor.visit(new ArchiveEntry(dir, path, link, idCache, errorMessage));
+        // With numeric ids only, the entries don't need to look up any names.
+        visitor.visit(new ArchiveEntry(dir, path, link, numeric ? IdCache.NUMERIC_ONLY : idCache,
+                errorMessage));
         return true;
     }
 
@@ -83,14 +99,15 @@ class ArchiveEntryListProcessor implements IArchiveEntryProcessor
     {
     }
 
-    private int calcCRC32Archive(String objectPath, long size, IHDF5Reader hdf5Reader)
+    private int calcCRC32Archive(String objectPath, LinkRecord link, long size,
+            IHDF5Reader hdf5Reader)
     {
         final CRC32 crc32Digest = new CRC32();
         long offset = 0;
         while (offset < size)
         {
             final int n =
-                    hdf5Reader.opaque().readArrayToBlockWithOffset(objectPath, buffer, buffer.length,
+                    PackStore.readBlock(hdf5Reader, objectPath, link, buffer, buffer.length,
                             offset, 0);
             offset += n;
             crc32Digest.update(buffer, 0, n);
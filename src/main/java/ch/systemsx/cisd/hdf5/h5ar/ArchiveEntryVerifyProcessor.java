@@ -20,6 +20,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.zip.CRC32;
 
 import hdf.hdf5lib.exceptions.HDF5Exception;
@@ -55,15 +56,19 @@ class ArchiveEntryVerifyProcessor implements IArchiveEntryProcessor
 
     private final boolean numeric;
 
+    private final OrderedTaskPipeline pipelineOrNull;
+
     ArchiveEntryVerifyProcessor(IArchiveEntryVisitor visitor, File rootDirectoryOnFS,
-            Set<File> filesOnFSOrNull, byte[] buffer, boolean checkAttributes, boolean numeric)
+            Set<File> filesOnFSOrNull, byte[] buffer, boolean checkAttributes, boolean numeric,
+            OrderedTaskPipeline pipelineOrNull)
     {
-        this(visitor, rootDirectoryOnFS, filesOnFSOrNull, "", buffer, checkAttributes, numeric);
+        this(visitor, rootDirectoryOnFS, filesOnFSOrNull, "", buffer, checkAttributes, numeric,
+                pipelineOrNull);
     }
 
     ArchiveEntryVerifyProcessor(IArchiveEntryVisitor visitor, File rootDirectoryOnFS,
             Set<File> filesOnFSOrNull, String rootDirectoryInArchive, byte[] buffer,
-            boolean checkAttributes, boolean numeric)
+            boolean checkAttributes, boolean numeric, OrderedTaskPipeline pipelineOrNull)
     {
         this.visitor = visitor;
         this.rootDirectoryOnFS = rootDirectoryOnFS;
@@ -72,19 +77,81 @@ class ArchiveEntryVerifyProcessor implements IArchiveEntryProcessor
         this.buffer = buffer;
         this.checkAttributes = checkAttributes;
         this.numeric = numeric;
+        this.pipelineOrNull = pipelineOrNull;
     }
 
     @Override
     public boolean process(String dir, String path, LinkRecord link, IHDF5Reader reader,
             IdCache idCache, IErrorStrategy errorStrategy) throws IOException
     {
-        final String errorMessage = checkLink(link, path, idCache);
+        if (pipelineOrNull != null)
+        {
+            submitCheckLink(dir, path, link, idCache, errorStrategy);
+            return true;
+        }
+        final String errorMessage = checkLink(link, path, idCache, buffer);
+        visitLink(dir, path, link, idCache, errorMessage);
+        return true;
+    }
+
+    private void visitLink(String dir, String path, LinkRecord link, IdCache idCache,
+            String errorMessage)
+    {
         visitor.visit(new ArchiveEntry(dir, path, link, idCache, errorMessage));
         if (filesOnFSOrNull != null)
         {
             filesOnFSOrNull.remove(new File(rootDirectoryOnFS, path));
         }
-        return true;
+    }
+
+    /**
+     * Checks the <var>link</var> against the file system on a worker thread and visits it when
+     * the check is completed.
+     */
+    private void submitCheckLink(final String dir, final String path, final LinkRecord link,
+            final IdCache idCache, final IErrorStrategy errorStrategy)
+    {
+        pipelineOrNull.submit(0L, new Callable<Runnable>()
+            {
+                @Override
+                public Runnable call()
+                {
+                    try
+                    {
+                        final String errorMessage =
+                                checkLink(link, path, idCache, pipelineOrNull.getWorkerBuffer());
+                        return new Runnable()
+                            {
+                                @Override
+                                public void run()
+                                {
+                                    visitLink(dir, path, link, idCache, errorMessage);
+                                }
+                            };
+                    } catch (final IOException ex)
+                    {
+                        return new Runnable()
+                            {
+                                @Override
+                                public void run()
+                                {
+                                    errorStrategy.dealWithError(createException(new File(path),
+                                            ex));
+                                }
+                            };
+                    } catch (final RuntimeException ex)
+                    {
+                        return new Runnable()
+                            {
+                                @Override
+                                public void run()
+                                {
+                                    errorStrategy.dealWithError(createException(path, ex));
+                                }
+                            };
+                    }
+                }
+            });
     }
 
     @Override
@@ -93,7 +160,8 @@ class ArchiveEntryVerifyProcessor implements IArchiveEntryProcessor
     {
     }
 
-    private String checkLink(LinkRecord link, String path, IdCache idCache) throws IOException
+    private String checkLink(LinkRecord link, String path, IdCache idCache, byte[] crcBuffer)
+            throws IOException
     {
         if (rootDirectoryInArchive.length() > 0 && path.startsWith(rootDirectoryInArchive) == false)
         {
@@ -162,7 +230,7 @@ class ArchiveEntryVerifyProcessor implements IArchiveEntryProcessor
 
             }
             final long size = f.length();
-            final int crc32 = calcCRC32Filesystem(f, buffer);
+            final int crc32 = calcCRC32Filesystem(f, crcBuffer);
             link.setFileVerification(size, crc32, f.lastModified() / Utils.MILLIS_PER_SECOND);
             if (link.getSize() != size)
             {
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.systemsx.cisd.hdf5.h5ar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+import ch.systemsx.cisd.base.exceptions.IOExceptionUnchecked;
+import ch.systemsx.cisd.hdf5.io.HDF5DataSetRandomAccessFile;
+
+/**
+ * A read-only {@link SeekableByteChannel} on the content of an archived file.
+ * <p>
+ * Reads go through a {@link HDF5DataSetRandomAccessFile}, so only the chunks of the data set that
+ * are touched by a read are read and decompressed. The content of a packed file is a window of
+ * the data set of its pack.
+ */
+final class ArchiveFileChannel implements SeekableByteChannel
+{
+    private static final int MAX_TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    private final HDF5DataSetRandomAccessFile file;
+
+    private final long start;
+
+    private final long size;
+
+    private long position;
+
+    private byte[] transferBufferOrNull;
+
+    private boolean open = true;
+
+    ArchiveFileChannel(HDF5DataSetRandomAccessFile file)
+    {
+        this(file, 0L, file.length());
+    }
+
+    /**
+     * Creates a channel on the <var>size</var> bytes of <var>file</var> starting at
+     * <var>start</var>.
+     */
+    ArchiveFileChannel(HDF5DataSetRandomAccessFile file, long start, long size)
+    {
+        this.file = file;
+        this.start = start;
+        this.size = size;
+    }
+
+    /**
+     * Reads up to <var>dst.remaining()</var> bytes starting at <var>offset</var> into
+     * <var>dst</var>. Does not change the position of the channel.
+     * 
+     * @return The number of bytes read, or -1, if <var>offset</var> is at or beyond the end of the
+     *         file.
+     */
+    int read(long offset, ByteBuffer dst) throws IOExceptionUnchecked
+    {
+        if (offset >= size)
+        {
+            return -1;
+        }
+        if (dst.hasRemaining() == false)
+        {
+            return 0;
+        }
+        final long offsetInFile = start + offset;
+        if (file.getFilePointer() != offsetInFile)
+        {
+            file.seek(offsetInFile);
+        }
+        final int length = (int) Math.min(dst.remaining(), size - offset);
+        if (dst.hasArray())
+        {
+            final int n = file.read(dst.array(), dst.arrayOffset() + dst.position(), length);
+            dst.position(dst.position() + n);
+            return n;
+        }
+        if (transferBufferOrNull == null)
+        {
+            transferBufferOrNull = createTransferBuffer(size);
+        }
+        int count = 0;
+        while (count < length)
+        {
+            final int n =
+                    file.read(transferBufferOrNull, 0,
+                            Math.min(length - count, transferBufferOrNull.length));
+            if (n < 0)
+            {
+                break;
+            }
+            dst.put(transferBufferOrNull, 0, n);
+            count += n;
+        }
+        return count;
+    }
+
+    /**
+     * Returns a buffer to transfer data to byte buffers without an accessible array.
+     */
+    static byte[] createTransferBuffer(long size)
+    {
+        return new byte[(int) Math.max(1, Math.min(size, MAX_TRANSFER_BUFFER_SIZE))];
+    }
+
+    /**
+     * Closes the channel and its random access file.
+     */
+    void closeFile() throws IOExceptionUnchecked
+    {
+        if (open)
+        {
+            open = false;
+            file.close();
+        }
+    }
+
+    private void checkOpen() throws ClosedChannelException
+    {
+        if (open == false)
+        {
+            throw new ClosedChannelException();
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException
+    {
+        checkOpen();
+        try
+        {
+            final int n = read(position, dst);
+            if (n > 0)
+            {
+                position += n;
+            }
+            return n;
+        } catch (IOExceptionUnchecked ex)
+        {
+            throw ex.getCause();
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException
+    {
+        checkOpen();
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException
+    {
+        checkOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException
+    {
+        checkOpen();
+        if (newPosition < 0)
+        {
+            throw new IllegalArgumentException("New position may not be negative.");
+        }
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException
+    {
+        checkOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long newSize) throws IOException
+    {
+        checkOpen();
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            closeFile();
+        } catch (IOExceptionUnchecked ex)
+        {
+            throw ex.getCause();
+        }
+    }
+}
@@ -33,7 +33,12 @@ public class ArchivingStrategy
 
     public enum CompressionStrategy
     {
-        COMPRESS_NOTHING, COMPRESS_ALL, USE_BLACK_WHITE_LISTS
+        COMPRESS_NOTHING, COMPRESS_ALL, USE_BLACK_WHITE_LISTS,
+        /**
+         * Compress the files selected by the black and white lists if a sample of their first
+         * chunk compresses well.
+         */
+        ADAPTIVE
     }
 
     private List<Pattern> fileWhiteListOrNull;
@@ -50,8 +55,40 @@ public class ArchivingStrategy
 
     private CompressionStrategy compressionStrategy;
 
+    private double maxCompressionRatio = DEFAULT_MAX_COMPRESSION_RATIO;
+
+    private final CompressionStatistics compressionStatistics = new CompressionStatistics();
+
+    private int parallelism = 1;
+
+    private boolean deduplicate;
+
+    private boolean incremental;
+
+    private boolean compareChecksums;
+
+    private boolean pruneDeleted;
+
+    private int maxPackedFileSize;
+
     private boolean sealed;
 
+    /**
+     * The default for the maximal ratio of compressed to original size of the sample at which
+     * {@link CompressionStrategy#ADAPTIVE} still stores a file compressed.
+     */
+    public static final double DEFAULT_MAX_COMPRESSION_RATIO = 0.9;
+
+    /**
+     * The default for the maximal size of a file that {@link #packSmallFiles()} stores in a pack.
+     */
+    public static final int DEFAULT_MAX_PACKED_FILE_SIZE = 4096;
+
+    /**
+     * The upper limit for the maximal size of a file that is stored in a pack.
+     */
+    public static final int MAX_PACKED_FILE_SIZE_LIMIT = 1024 * 1024;
+
     /**
      * The default strategy: include everything, compress all files except those
      * known to be already compressed.
@@ -84,6 +121,13 @@ public class ArchivingStrategy
         this.compressionStrategy = template.compressionStrategy;
         this.compressionWhiteListOrNull = template.compressionWhiteListOrNull;
         this.compressionBlackListOrNull = template.compressionBlackListOrNull;
+        this.maxCompressionRatio = template.maxCompressionRatio;
+        this.parallelism = template.parallelism;
+        this.deduplicate = template.deduplicate;
+        this.incremental = template.incremental;
+        this.compareChecksums = template.compareChecksums;
+        this.pruneDeleted = template.pruneDeleted;
+        this.maxPackedFileSize = template.maxPackedFileSize;
     }
     
     private List<Pattern> getOrCreateFileWhiteList()
@@ -235,7 +279,7 @@ public class ArchivingStrategy
     {
         checkSealed();
         getOrCreateCompressionWhiteList().add(pattern);
-        compressionStrategy = CompressionStrategy.USE_BLACK_WHITE_LISTS;
+        useBlackWhiteLists();
         return this;
     }
 
@@ -246,7 +290,7 @@ public class ArchivingStrategy
     {
         checkSealed();
         getOrCreateCompressionWhiteList().add(Pattern.compile(pattern));
-        compressionStrategy = CompressionStrategy.USE_BLACK_WHITE_LISTS;
+        useBlackWhiteLists();
         return this;
     }
 
@@ -257,7 +301,7 @@ public class ArchivingStrategy
     {
         checkSealed();
         getOrCreateCompressionBlackList().add(pattern);
-        compressionStrategy = CompressionStrategy.USE_BLACK_WHITE_LISTS;
+        useBlackWhiteLists();
         return this;
     }
 
@@ -268,7 +312,7 @@ public class ArchivingStrategy
     {
         checkSealed();
         getOrCreateCompressionBlackList().add(Pattern.compile(pattern));
-        compressionStrategy = CompressionStrategy.USE_BLACK_WHITE_LISTS;
+        useBlackWhiteLists();
         return this;
     }
 
@@ -314,6 +358,207 @@ public class ArchivingStrategy
         return this;
     }
 
+    /**
+     * Store files compressed in archive if a sample of their first chunk compresses to at most
+     * {@link #DEFAULT_MAX_COMPRESSION_RATIO} of its size. Files excluded from compression by the
+     * black and white lists are stored uncompressed without sampling.
+     * 
+     * @see #getCompressionStatistics()
+     */
+    public ArchivingStrategy compressAdaptively()
+    {
+        return compressAdaptively(DEFAULT_MAX_COMPRESSION_RATIO);
+    }
+
+    /**
+     * Store files compressed in archive if a sample of their first chunk compresses to at most
+     * <var>maxCompressionRatio</var> of its size. Files excluded from compression by the black and
+     * white lists are stored uncompressed without sampling.
+     * 
+     * @see #getCompressionStatistics()
+     */
+    public ArchivingStrategy compressAdaptively(double maxCompressionRatio)
+    {
+        checkSealed();
+        if (maxCompressionRatio <= 0.0 || maxCompressionRatio > 1.0)
+        {
+            throw new IllegalArgumentException("Maximal compression ratio needs to be in (0, 1], "
+                    + "but is " + maxCompressionRatio + ".");
+        }
+        this.compressionStrategy = CompressionStrategy.ADAPTIVE;
+        this.maxCompressionRatio = maxCompressionRatio;
+        return this;
+    }
+
+    /**
+     * Returns the maximal ratio of compressed to original size of the sample at which
+     * {@link CompressionStrategy#ADAPTIVE} still stores a file compressed.
+     */
+    public double getMaxCompressionRatio()
+    {
+        return maxCompressionRatio;
+    }
+
+    /**
+     * Returns the statistics of the compression decisions of {@link CompressionStrategy#ADAPTIVE},
+     * accumulated over all archiving operations that used this strategy.
+     */
+    public CompressionStatistics getCompressionStatistics()
+    {
+        return compressionStatistics;
+    }
+
+    /**
+     * Sets the number of threads that read files from the file system while archiving. With more
+     * than one thread, files are read and checksummed ahead of the thread that writes them to the
+     * archive. The content of the archive does not depend on this setting. Default: 1.
+     */
+    public ArchivingStrategy parallelism(int numberOfThreads)
+    {
+        checkSealed();
+        if (numberOfThreads < 1)
+        {
+            throw new IllegalArgumentException("Number of threads needs to be at least 1, but is "
+                    + numberOfThreads + ".");
+        }
+        this.parallelism = numberOfThreads;
+        return this;
+    }
+
+    /**
+     * Returns the number of threads used to read files from the file system while archiving.
+     */
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+    /**
+     * Sets whether files with identical content are stored only once in the archive. If
+     * <code>true</code>, a file whose size, CRC32 checksum and SHA-256 digest are equal to those
+     * of a file archived before by the same archiver is stored as an HDF5 hard link to the data
+     * set of the first file. Listing, extracting and verifying the archive is not affected by this
+     * setting. Default: <code>false</code>.
+     */
+    public ArchivingStrategy deduplicate(boolean deduplicate)
+    {
+        checkSealed();
+        this.deduplicate = deduplicate;
+        return this;
+    }
+
+    /**
+     * Returns <code>true</code> if files with identical content are stored only once in the
+     * archive.
+     */
+    public boolean isDeduplicate()
+    {
+        return deduplicate;
+    }
+
+    /**
+     * Sets whether regular files which are unchanged compared to the archive are skipped. If
+     * <code>true</code>, a file is considered unchanged if the archive has a regular file at the
+     * same path with the same size and the same last modification time. Default:
+     * <code>false</code>.
+     * 
+     * @see #compareChecksums(boolean)
+     */
+    public ArchivingStrategy incremental(boolean incremental)
+    {
+        checkSealed();
+        this.incremental = incremental;
+        return this;
+    }
+
+    /**
+     * Returns <code>true</code> if regular files which are unchanged compared to the archive are
+     * skipped.
+     */
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    /**
+     * Sets whether in {@link #incremental(boolean) incremental} mode, the CRC32 checksum of a file
+     * needs to be equal to the one in the archive, too, for the file to be considered unchanged.
+     * This requires reading the file, but not writing it. Default: <code>false</code>.
+     */
+    public ArchivingStrategy compareChecksums(boolean compareChecksums)
+    {
+        checkSealed();
+        this.compareChecksums = compareChecksums;
+        return this;
+    }
+
+    /**
+     * Returns <code>true</code> if in incremental mode, checksums are compared to decide whether a
+     * file is unchanged.
+     */
+    public boolean isCompareChecksums()
+    {
+        return compareChecksums;
+    }
+
+    /**
+     * Sets whether entries of an archived directory which no longer exist in the directory on the
+     * file system are deleted from the archive. Default: <code>false</code>.
+     */
+    public ArchivingStrategy pruneDeleted(boolean pruneDeleted)
+    {
+        checkSealed();
+        this.pruneDeleted = pruneDeleted;
+        return this;
+    }
+
+    /**
+     * Returns <code>true</code> if entries which no longer exist on the file system are deleted
+     * from the archive.
+     */
+    public boolean isPruneDeleted()
+    {
+        return pruneDeleted;
+    }
+
+    /**
+     * Store regular files of at most {@link #DEFAULT_MAX_PACKED_FILE_SIZE} bytes in shared pack
+     * data sets rather than in a data set of their own each.
+     * 
+     * @see #packSmallFiles(int)
+     */
+    public ArchivingStrategy packSmallFiles()
+    {
+        return packSmallFiles(DEFAULT_MAX_PACKED_FILE_SIZE);
+    }
+
+    /**
+     * Store regular files of at most <var>maxPackedFileSize</var> bytes in shared pack data sets
+     * rather than in a data set of their own each. This saves the object header and index of one
+     * data set per file, which dominates the size of archives of many small files. Packed files
+     * are listed, extracted and verified like any other file. Files are packed when archiving the
+     * content of directories from the file system. A value of 0 switches packing off. Default: 0.
+     */
+    public ArchivingStrategy packSmallFiles(int maxPackedFileSize)
+    {
+        checkSealed();
+        if (maxPackedFileSize < 0 || maxPackedFileSize > MAX_PACKED_FILE_SIZE_LIMIT)
+        {
+            throw new IllegalArgumentException("Maximal packed file size needs to be in [0, "
+                    + MAX_PACKED_FILE_SIZE_LIMIT + "], but is " + maxPackedFileSize + ".");
+        }
+        this.maxPackedFileSize = maxPackedFileSize;
+        return this;
+    }
+
+    /**
+     * Returns the maximal size of a file that is stored in a pack, 0 if files are not packed.
+     */
+    public int getMaxPackedFileSize()
+    {
+        return maxPackedFileSize;
+    }
+
     boolean doExclude(String path, boolean isDirectory)
     {
         if (isDirectory)
@@ -331,6 +576,11 @@ public class ArchivingStrategy
                 : HDF5GenericStorageFeatures.GENERIC_NO_COMPRESSION;
     }
 
+    /**
+     * Returns <code>true</code> if the file at <var>path</var> should be stored compressed. With
+     * {@link CompressionStrategy#ADAPTIVE}, this is only a candidate for compression, the decision
+     * is taken when archiving the file.
+     */
     public boolean doCompress(String path)
     {
         switch (compressionStrategy)
@@ -344,6 +594,19 @@ public class ArchivingStrategy
         }
     }
 
+    boolean isCompressAdaptively()
+    {
+        return compressionStrategy == CompressionStrategy.ADAPTIVE;
+    }
+
+    private void useBlackWhiteLists()
+    {
+        if (compressionStrategy != CompressionStrategy.ADAPTIVE)
+        {
+            compressionStrategy = CompressionStrategy.USE_BLACK_WHITE_LISTS;
+        }
+    }
+
     public CompressionStrategy getCompressionStrategy()
     {
         return compressionStrategy;
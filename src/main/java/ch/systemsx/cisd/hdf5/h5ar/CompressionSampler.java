@@ -0,0 +1,84 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.systemsx.cisd.hdf5.h5ar;
+
+import java.util.zip.Deflater;
+
+import ch.systemsx.cisd.hdf5.HDF5GenericStorageFeatures;
+
+/**
+ * Decides whether a file is worth compressing by deflating a sample of its first chunk.
+ * <p>
+ * The sample consists of a few slices spread evenly over the chunk, so that a file with a
+ * compressible header but incompressible content (like an image with an uncompressed header) is
+ * not mistaken for being compressible. Not thread-safe.
+ */
+final class CompressionSampler
+{
+    private static final int NUMBER_OF_SLICES = 4;
+
+    private static final int SLICE_LENGTH = 16 * 1024;
+
+    private final byte[] output = new byte[SLICE_LENGTH];
+
+    /**
+     * Returns <code>true</code> if the sample of the first <var>length</var> bytes of
+     * <var>data</var> compresses to at most <var>maxCompressionRatio</var> of its size, and
+     * records the decision in <var>statistics</var>.
+     */
+    boolean isCompressible(byte[] data, int length, double maxCompressionRatio,
+            CompressionStatistics statistics)
+    {
+        final int sliceLength = Math.min(SLICE_LENGTH, length / NUMBER_OF_SLICES);
+        if (sliceLength == 0)
+        {
+            return true;
+        }
+        final int stride = length / NUMBER_OF_SLICES;
+        int sampleLength = 0;
+        int compressedLength = 0;
+        // Ended right away, so that its native memory doesn't wait for finalization.
+        final Deflater deflater = new Deflater(HDF5GenericStorageFeatures.DEFAULT_DEFLATION_LEVEL);
+        try
+        {
+            for (int i = 0; i < NUMBER_OF_SLICES; ++i)
+            {
+                compressedLength += deflate(deflater, data, i * stride, sliceLength);
+                sampleLength += sliceLength;
+            }
+        } finally
+        {
+            deflater.end();
+        }
+        final boolean compress = compressedLength <= maxCompressionRatio * sampleLength;
+        statistics.record(compress, sampleLength, compressedLength);
+        return compress;
+    }
+
+    private int deflate(Deflater deflater, byte[] data, int offset, int length)
+    {
+        deflater.reset();
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+        int compressedLength = 0;
+        while (deflater.finished() == false)
+        {
+            compressedLength += deflater.deflate(output);
+        }
+        return compressedLength;
+    }
+}
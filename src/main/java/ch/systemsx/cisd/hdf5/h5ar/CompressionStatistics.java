@@ -0,0 +1,106 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.systemsx.cisd.hdf5.h5ar;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the compression decisions taken when archiving with
+ * {@link ArchivingStrategy.CompressionStrategy#ADAPTIVE}.
+ */
+public final class CompressionStatistics
+{
+    private final AtomicLong filesCompressed = new AtomicLong();
+
+    private final AtomicLong filesStoredUncompressed = new AtomicLong();
+
+    private final AtomicLong bytesSampled = new AtomicLong();
+
+    private final AtomicLong bytesSampledCompressed = new AtomicLong();
+
+    void record(boolean compress, int sampleLength, int compressedSampleLength)
+    {
+        if (compress)
+        {
+            filesCompressed.incrementAndGet();
+        } else
+        {
+            filesStoredUncompressed.incrementAndGet();
+        }
+        bytesSampled.addAndGet(sampleLength);
+        bytesSampledCompressed.addAndGet(compressedSampleLength);
+    }
+
+    /**
+     * Returns the number of files that have been sampled.
+     */
+    public long getFilesSampled()
+    {
+        return filesCompressed.get() + filesStoredUncompressed.get();
+    }
+
+    /**
+     * Returns the number of sampled files that have been stored compressed.
+     */
+    public long getFilesCompressed()
+    {
+        return filesCompressed.get();
+    }
+
+    /**
+     * Returns the number of sampled files that have been stored uncompressed as their sample
+     * didn't compress well enough.
+     */
+    public long getFilesStoredUncompressed()
+    {
+        return filesStoredUncompressed.get();
+    }
+
+    /**
+     * Returns the total number of bytes in all samples.
+     */
+    public long getBytesSampled()
+    {
+        return bytesSampled.get();
+    }
+
+    /**
+     * Returns the total number of bytes of all samples after compression.
+     */
+    public long getBytesSampledCompressed()
+    {
+        return bytesSampledCompressed.get();
+    }
+
+    /**
+     * Returns the ratio of compressed to original size over all samples, or 1, if nothing has
+     * been sampled.
+     */
+    public double getSampleCompressionRatio()
+    {
+        final long sampled = getBytesSampled();
+        return (sampled == 0) ? 1.0 : getBytesSampledCompressed() / (double) sampled;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%d files sampled, %d compressed, %d stored uncompressed, "
+                + "sample compression ratio %.3f", getFilesSampled(), getFilesCompressed(),
+                getFilesStoredUncompressed(), getSampleCompressionRatio());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.systemsx.cisd.hdf5.h5ar;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import ch.systemsx.cisd.base.exceptions.CheckedExceptionTunnel;
+
+/**
+ * The key under which the content of an archived file is looked up for deduplication: its size,
+ * its CRC32 checksum and its SHA-256 digest.
+ * <p>
+ * The CRC32 checksum is computed anyway when archiving, the digest confirms that two files with
+ * equal size and checksum really have the same content.
+ */
+final class ContentKey
+{
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final long size;
+
+    private final int crc32;
+
+    private final byte[] digest;
+
+    ContentKey(long size, int crc32, byte[] digest)
+    {
+        this.size = size;
+        this.crc32 = crc32;
+        this.digest = digest;
+    }
+
+    long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Creates a new message digest of the algorithm used to confirm equal content.
+     */
+    static MessageDigest createDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException ex)
+        {
+            throw CheckedExceptionTunnel.wrapIfNecessary(ex);
+        }
+    }
+
+    /**
+     * Returns the digest of the first <var>length</var> bytes of <var>data</var>.
+     */
+    static byte[] computeDigest(byte[] data, int length)
+    {
+        final MessageDigest digest = createDigest();
+        digest.update(data, 0, length);
+        return digest.digest();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return crc32 * 31 + (int) (size ^ (size >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final ContentKey other = (ContentKey) obj;
+        return size == other.size && crc32 == other.crc32
+                && Arrays.equals(digest, other.digest);
+    }
+}
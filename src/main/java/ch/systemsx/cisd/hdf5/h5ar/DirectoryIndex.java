@@ -20,6 +20,7 @@ import static ch.systemsx.cisd.hdf5.HDF5CompoundMemberMapping.mapping;
 
 import java.io.File;
 import java.io.Flushable;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
@@ -39,6 +40,7 @@ import ch.systemsx.cisd.hdf5.HDF5CompoundMemberMapping;
 import ch.systemsx.cisd.hdf5.HDF5CompoundType;
 import ch.systemsx.cisd.hdf5.HDF5EnumerationType;
 import ch.systemsx.cisd.hdf5.HDF5GenericStorageFeatures;
+import ch.systemsx.cisd.hdf5.HDF5IntStorageFeatures;
 import ch.systemsx.cisd.hdf5.HDF5LinkInformation;
 import ch.systemsx.cisd.hdf5.IHDF5CompoundInformationRetriever;
 import ch.systemsx.cisd.hdf5.IHDF5Reader;
@@ -58,6 +60,12 @@ class DirectoryIndex implements IDirectoryIndex
 {
     private static final String CRC32_ATTRIBUTE_NAME = "CRC32";
 
+    /**
+     * The attribute of the pack locations data set which holds the CRC32 checksums of the links
+     * and the names of the index the pack locations belong to.
+     */
+    private static final String INDEX_CRC32_ATTRIBUTE_NAME = "INDEX_CRC32";
+
     private final IHDF5Reader hdf5Reader;
 
     private final IHDF5Writer hdf5WriterOrNull;
@@ -106,7 +114,7 @@ class DirectoryIndex implements IDirectoryIndex
         return reader.enumeration().getType("linkType", getFileLinkTypeValues());
     }
 
-    private static HDF5CompoundType<LinkRecord> getHDF5LinkCompoundType(IHDF5Reader reader)
+    static HDF5CompoundType<LinkRecord> getHDF5LinkCompoundType(IHDF5Reader reader)
     {
         return getHDF5LinkCompoundType(reader, getHDF5LinkTypeEnumeration(reader));
     }
@@ -159,6 +167,35 @@ class DirectoryIndex implements IDirectoryIndex
         readIndex(readLinkTargets);
     }
 
+    /**
+     * Creates a new directory (group) index from <var>sortedLinks</var>, which have been read from
+     * the {@link GlobalDirectoryIndex}.
+     */
+    DirectoryIndex(IHDF5Reader hdf5Reader, String groupPath, IErrorStrategy errorStrategy,
+            LinkRecord[] sortedLinks, boolean readLinkTargets)
+    {
+        assert hdf5Reader != null;
+        assert groupPath != null;
+        assert sortedLinks != null;
+
+        this.hdf5Reader = hdf5Reader;
+        this.hdf5WriterOrNull =
+                (hdf5Reader instanceof IHDF5Writer) ? (IHDF5Writer) hdf5Reader : null;
+        if (hdf5WriterOrNull != null)
+        {
+            hdf5WriterOrNull.file().addFlushable(this);
+        }
+        this.groupPath = (groupPath.length() == 0) ? "/" : groupPath;
+        this.errorStrategy = errorStrategy;
+        this.flushables = new LinkedHashSet<Flushable>();
+        this.links = new LinkStore(sortedLinks);
+        if (readLinkTargets)
+        {
+            links.amendLinkTargets(hdf5Reader, this.groupPath);
+        }
+        this.readLinkTargets = readLinkTargets;
+    }
+
     @Override
     public boolean addFlushable(Flushable flushable)
     {
@@ -203,12 +240,65 @@ class DirectoryIndex implements IDirectoryIndex
 
     private String getIndexDataSetName()
     {
-        return groupPath + "/" + hdf5Reader.object().toHouseKeepingPath("INDEX");
+        return getIndexDataSetName(hdf5Reader, groupPath);
+    }
+
+    private static String getIndexDataSetName(IHDF5Reader reader, String groupPath)
+    {
+        return groupPath + "/" + reader.object().toHouseKeepingPath("INDEX");
     }
 
     private String getIndexNamesDataSetName()
     {
-        return groupPath + "/" + hdf5Reader.object().toHouseKeepingPath("INDEXNAMES");
+        return getIndexNamesDataSetName(hdf5Reader, groupPath);
+    }
+
+    private static String getIndexNamesDataSetName(IHDF5Reader reader, String groupPath)
+    {
+        return groupPath + "/" + reader.object().toHouseKeepingPath("INDEXNAMES");
+    }
+
+    /**
+     * Returns the CRC32 checksums of the links and the names of the index of the directory
+     * <var>groupPath</var> as stored in the archive, or <code>null</code>, if the directory has no
+     * index. The checksums change with the content of the index, whatever version of the library
+     * writes it, so they identify the version of the index.
+     */
+    static int[] tryGetIndexCrc32s(IHDF5Reader reader, String groupPath)
+    {
+        final String indexDataSetName = getIndexDataSetName(reader, groupPath);
+        final String indexNamesDataSetName = getIndexNamesDataSetName(reader, groupPath);
+        if (reader.exists(indexDataSetName) == false
+                || reader.exists(indexNamesDataSetName) == false)
+        {
+            return null;
+        }
+        return new int[]
+            { reader.int32().getAttr(indexDataSetName, CRC32_ATTRIBUTE_NAME),
+                    reader.int32().getAttr(indexNamesDataSetName, CRC32_ATTRIBUTE_NAME) };
+    }
+
+    /**
+     * The name of the data set which holds the pack locations of the links. Only exists if at
+     * least one file of the directory is packed.
+     * <p>
+     * The pack locations are kept in this data set rather than in the link compound type of the
+     * index, so that archives stay readable by earlier versions. The data set is tied to the
+     * index by the index checksums in its {@link #INDEX_CRC32_ATTRIBUTE_NAME} attribute.
+     */
+    private String getIndexPacksDataSetName()
+    {
+        return groupPath + "/" + hdf5Reader.object().toHouseKeepingPath("INDEXPACKS");
+    }
+
+    /**
+     * The name of the data set which holds the hard link targets of the links. Only exists if at
+     * least one file of the directory has been deduplicated. Tied to the index like the data set
+     * of the pack locations.
+     */
+    private String getIndexHardLinksDataSetName()
+    {
+        return groupPath + "/" + hdf5Reader.object().toHouseKeepingPath("INDEXHARDLINKS");
     }
 
     /**
@@ -239,6 +329,7 @@ class DirectoryIndex implements IDirectoryIndex
                 int crc32 = (int) crc32Digester.getValue();
                 int crc32Stored =
                         hdf5Reader.int32().getAttr(indexDataSetName, CRC32_ATTRIBUTE_NAME);
+                final int linksCrc32 = crc32Stored;
                 if (crc32 != crc32Stored)
                 {
                     if (calcLegacy_14_12_0_Checksum(indexDataSetName, linkCompoundType) != crc32Stored)
@@ -262,6 +353,10 @@ class DirectoryIndex implements IDirectoryIndex
                                     + Utils.crc32ToString(crc32));
                 }
                 initLinks(work, concatenatedNames, withLinkTargets);
+                final int[] indexCrc32s = new int[]
+                    { linksCrc32, crc32Stored };
+                readPackLocations(hdf5Reader, getIndexPacksDataSetName(), work, indexCrc32s);
+                readHardLinkTargets(hdf5Reader, getIndexHardLinksDataSetName(), work, indexCrc32s);
                 links = new LinkStore(work);
                 readingH5ArIndexWorked = true;
             }
@@ -391,6 +486,7 @@ class DirectoryIndex implements IDirectoryIndex
         ensureWriteMode();
         try
         {
+            GlobalDirectoryIndex.invalidate(hdf5WriterOrNull);
             final StringBuilder concatenatedNames = new StringBuilder();
             for (LinkRecord link : links)
             {
@@ -400,8 +496,9 @@ class DirectoryIndex implements IDirectoryIndex
             final String concatenatedNamesStr = concatenatedNames.toString();
             hdf5WriterOrNull.string().write(indexNamesDataSetName, concatenatedNamesStr,
                     HDF5GenericStorageFeatures.GENERIC_DEFLATE);
+            final int namesCrc32 = calcCrc32(concatenatedNamesStr);
             hdf5WriterOrNull.int32().setAttr(indexNamesDataSetName, CRC32_ATTRIBUTE_NAME,
-                    calcCrc32(concatenatedNamesStr));
+                    namesCrc32);
             final String indexDataSetName = getIndexDataSetName();
             final CRC32 crc32Digester = new CRC32();
             final HDF5CompoundType<LinkRecord> linkCompoundType =
@@ -416,8 +513,14 @@ class DirectoryIndex implements IDirectoryIndex
                                 updateCRC32(byteArray, linkCompoundType, crc32Digester);
                             }
                         });
-            hdf5WriterOrNull.int32().setAttr(indexDataSetName, CRC32_ATTRIBUTE_NAME,
-                    (int) crc32Digester.getValue());
+            final int linksCrc32 = (int) crc32Digester.getValue();
+            hdf5WriterOrNull.int32().setAttr(indexDataSetName, CRC32_ATTRIBUTE_NAME, linksCrc32);
+            final int[] indexCrc32s = new int[]
+                { linksCrc32, namesCrc32 };
+            writePackLocations(hdf5WriterOrNull, getIndexPacksDataSetName(), links.getLinkArray(),
+                    indexCrc32s);
+            writeHardLinkTargets(hdf5WriterOrNull, getIndexHardLinksDataSetName(),
+                    links.getLinkArray(), indexCrc32s);
         } catch (HDF5Exception ex)
         {
             errorStrategy.dealWithError(new ListArchiveException(groupPath, ex));
@@ -482,14 +585,179 @@ class DirectoryIndex implements IDirectoryIndex
         }
     }
 
-    private int calcCrc32(String names)
+    /**
+     * Writes the pack locations of <var>links</var> to <var>dataSetName</var> as pairs of pack id
+     * and offset, or deletes <var>dataSetName</var> if none of the <var>links</var> is packed.
+     * 
+     * @param indexCrc32s The CRC32 checksums of the index the <var>links</var> have been written
+     *            to, which tie the pack locations to this version of the index.
+     */
+    static void writePackLocations(IHDF5Writer writer, String dataSetName, LinkRecord[] links,
+            int[] indexCrc32s)
+    {
+        boolean hasPackedLinks = false;
+        final long[] locations = new long[2 * links.length];
+        for (int i = 0; i < links.length; ++i)
+        {
+            locations[2 * i] = links[i].getPackId();
+            locations[2 * i + 1] = links[i].getPackOffset();
+            hasPackedLinks |= links[i].isPacked();
+        }
+        if (hasPackedLinks == false)
+        {
+            if (writer.exists(dataSetName))
+            {
+                writer.delete(dataSetName);
+            }
+            return;
+        }
+        writer.int64().writeArray(dataSetName, locations, HDF5IntStorageFeatures.INT_DEFLATE);
+        writer.int32().setAttr(dataSetName, CRC32_ATTRIBUTE_NAME, calcCrc32(locations));
+        writer.int32().setArrayAttr(dataSetName, INDEX_CRC32_ATTRIBUTE_NAME, indexCrc32s);
+    }
+
+    /**
+     * Reads the pack locations of <var>links</var> from <var>dataSetName</var>, if it exists and
+     * belongs to the index with the CRC32 checksums <var>indexCrc32s</var>.
+     */
+    static void readPackLocations(IHDF5Reader reader, String dataSetName, LinkRecord[] links,
+            int[] indexCrc32s)
+    {
+        if (belongsToIndex(reader, dataSetName, indexCrc32s) == false)
+        {
+            return;
+        }
+        final long[] locations = reader.int64().readArray(dataSetName);
+        final int crc32 = calcCrc32(locations);
+        final int crc32Stored = reader.int32().getAttr(dataSetName, CRC32_ATTRIBUTE_NAME);
+        if (crc32 != crc32Stored)
+        {
+            throw new ListArchiveException(dataSetName,
+                    "CRC checksum mismatch on index (packs). Expected: "
+                            + Utils.crc32ToString(crc32Stored) + ", found: "
+                            + Utils.crc32ToString(crc32));
+        }
+        if (locations.length != 2 * links.length)
+        {
+            throw new ListArchiveException(dataSetName, "Index (packs) has " + locations.length
+                    / 2 + " entries, but index (links) has " + links.length + ".");
+        }
+        for (int i = 0; i < links.length; ++i)
+        {
+            links[i].setPackLocation((int) locations[2 * i], locations[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Writes the hard link targets of <var>links</var> to <var>dataSetName</var>, or deletes
+     * <var>dataSetName</var> if none of the <var>links</var> has one. Links without a hard link
+     * target are stored as empty strings.
+     * 
+     * @param indexCrc32s The CRC32 checksums of the index the <var>links</var> have been written
+     *            to, which tie the hard link targets to this version of the index.
+     */
+    static void writeHardLinkTargets(IHDF5Writer writer, String dataSetName, LinkRecord[] links,
+            int[] indexCrc32s)
+    {
+        boolean hasHardLinks = false;
+        final String[] targets = new String[links.length];
+        for (int i = 0; i < links.length; ++i)
+        {
+            final String targetOrNull = links[i].tryGetHardLinkTarget();
+            targets[i] = (targetOrNull == null) ? "" : targetOrNull;
+            hasHardLinks |= (targetOrNull != null);
+        }
+        if (hasHardLinks == false)
+        {
+            if (writer.exists(dataSetName))
+            {
+                writer.delete(dataSetName);
+            }
+            return;
+        }
+        writer.string().writeArrayVL(dataSetName, targets);
+        writer.int32().setAttr(dataSetName, CRC32_ATTRIBUTE_NAME, calcCrc32(targets));
+        writer.int32().setArrayAttr(dataSetName, INDEX_CRC32_ATTRIBUTE_NAME, indexCrc32s);
+    }
+
+    /**
+     * Reads the hard link targets of <var>links</var> from <var>dataSetName</var>, if it exists
+     * and belongs to the index with the CRC32 checksums <var>indexCrc32s</var>.
+     */
+    static void readHardLinkTargets(IHDF5Reader reader, String dataSetName, LinkRecord[] links,
+            int[] indexCrc32s)
+    {
+        if (belongsToIndex(reader, dataSetName, indexCrc32s) == false)
+        {
+            return;
+        }
+        final String[] targets = reader.string().readArray(dataSetName);
+        final int crc32 = calcCrc32(targets);
+        final int crc32Stored = reader.int32().getAttr(dataSetName, CRC32_ATTRIBUTE_NAME);
+        if (crc32 != crc32Stored)
+        {
+            throw new ListArchiveException(dataSetName,
+                    "CRC checksum mismatch on index (hard links). Expected: "
+                            + Utils.crc32ToString(crc32Stored) + ", found: "
+                            + Utils.crc32ToString(crc32));
+        }
+        if (targets.length != links.length)
+        {
+            throw new ListArchiveException(dataSetName, "Index (hard links) has "
+                    + targets.length + " entries, but index (links) has " + links.length + ".");
+        }
+        for (int i = 0; i < links.length; ++i)
+        {
+            links[i].setHardLinkTarget(targets[i].isEmpty() ? null : targets[i]);
+        }
+    }
+
+    /**
+     * Returns <code>true</code>, if the side data set <var>dataSetName</var> exists and has been
+     * written for the index with the CRC32 checksums <var>indexCrc32s</var>. A side data set
+     * which belongs to another version of the index (as the index has been rewritten by a
+     * version of the library that doesn't know about it) is ignored.
+     */
+    private static boolean belongsToIndex(IHDF5Reader reader, String dataSetName,
+            int[] indexCrc32s)
+    {
+        if (reader.exists(dataSetName) == false
+                || reader.object().hasAttribute(dataSetName, INDEX_CRC32_ATTRIBUTE_NAME) == false)
+        {
+            return false;
+        }
+        final int[] indexCrc32sStored =
+                reader.int32().getArrayAttr(dataSetName, INDEX_CRC32_ATTRIBUTE_NAME);
+        return Arrays.equals(indexCrc32s, indexCrc32sStored);
+    }
+
+    static int calcCrc32(String[] values)
+    {
+        final CRC32 crc32 = new CRC32();
+        for (String value : values)
+        {
+            crc32.update(StringUtils.toBytes0Term(value, value.length(), CharacterEncoding.UTF8));
+        }
+        return (int) crc32.getValue();
+    }
+
+    static int calcCrc32(long[] values)
+    {
+        final ByteBuffer bytes = ByteBuffer.allocate(values.length * 8);
+        bytes.asLongBuffer().put(values);
+        final CRC32 crc32 = new CRC32();
+        crc32.update(bytes.array());
+        return (int) crc32.getValue();
+    }
+
+    static int calcCrc32(String names)
     {
         final CRC32 crc32 = new CRC32();
         crc32.update(StringUtils.toBytes0Term(names, names.length(), CharacterEncoding.UTF8));
         return (int) crc32.getValue();
     }
 
-    private void updateCRC32(byte[] byteArray, final HDF5CompoundType<LinkRecord> linkCompoundType,
+    static void updateCRC32(byte[] byteArray, final HDF5CompoundType<LinkRecord> linkCompoundType,
             final CRC32 crc32Digester)
     {
         final int numberOfRecords = byteArray.length / linkCompoundType.getRecordSizeInMemory();
@@ -22,6 +22,7 @@ import java.util.Map;
 import ch.systemsx.cisd.base.exceptions.IErrorStrategy;
 import ch.systemsx.cisd.base.exceptions.IOExceptionUnchecked;
 import ch.systemsx.cisd.hdf5.IHDF5Reader;
+import ch.systemsx.cisd.hdf5.IHDF5Writer;
 
 /**
  * A provider for {@link DirectoryIndex} objects.
@@ -36,6 +37,10 @@ class DirectoryIndexProvider implements IDirectoryIndexProvider
 
     private final IErrorStrategy errorStrategy;
 
+    private GlobalDirectoryIndex globalIndexOrNull;
+
+    private boolean globalIndexRead;
+
     DirectoryIndexProvider(IHDF5Reader reader, IErrorStrategy errorStrategy)
     {
         this.reader = reader;
@@ -50,7 +55,21 @@ class DirectoryIndexProvider implements IDirectoryIndexProvider
         DirectoryIndex index = cacheMap.get(nonEmptyGroupPath);
         if (index == null)
         {
-            index = new DirectoryIndex(reader, nonEmptyGroupPath, errorStrategy, withLinkTargets);
+            final GlobalDirectoryIndex globalIndexOrNull = tryGetGlobalIndex();
+            final LinkRecord[] linksOrNull =
+                    (globalIndexOrNull != null) ? globalIndexOrNull.tryGetLinks(nonEmptyGroupPath)
+                            : null;
+            if (linksOrNull != null)
+            {
+                index =
+                        new DirectoryIndex(reader, nonEmptyGroupPath, errorStrategy, linksOrNull,
+                                withLinkTargets);
+            } else
+            {
+                index =
+                        new DirectoryIndex(reader, nonEmptyGroupPath, errorStrategy,
+                                withLinkTargets);
+            }
             cacheMap.put(nonEmptyGroupPath, index);
         } else if (withLinkTargets)
         {
@@ -59,6 +78,28 @@ class DirectoryIndexProvider implements IDirectoryIndexProvider
         return index;
     }
 
+    /**
+     * Returns the global index of the archive, or <code>null</code>, if the archive doesn't have
+     * one or is opened for writing.
+     * <p>
+     * Archives opened for writing never use the global index: the first flush of a changed
+     * directory deletes it, and directories that are deleted and created again by the writer
+     * would be served from the stale links of the global index. Thus only read-only access
+     * benefits from it, which is why {@link IHDF5Archiver#writeGlobalIndex()} should be called
+     * after the last update of an archive.
+     */
+    private GlobalDirectoryIndex tryGetGlobalIndex()
+    {
+        if (globalIndexRead == false)
+        {
+            globalIndexOrNull =
+                    (reader instanceof IHDF5Writer) ? null : GlobalDirectoryIndex.tryRead(reader,
+                            errorStrategy);
+            globalIndexRead = true;
+        }
+        return globalIndexOrNull;
+    }
+
     @Override
     public IErrorStrategy getErrorStrategy()
     {
@@ -38,7 +38,13 @@ final class DirectoryIndexUpdater
         this.errorStrategy = indexProvider.getErrorStrategy();
     }
 
-    void updateIndicesOnThePath(String rootDir, File path, int crc32, boolean immediateGroupOnly)
+    /**
+     * Updates the directory indices on the path to <var>path</var>. The entry of <var>path</var>
+     * gets the checksum and the location of the content from <var>dataSetInfoOrNull</var>, if it
+     * is a regular file.
+     */
+    void updateIndicesOnThePath(String rootDir, File path,
+            HDF5ArchiveUpdater.DataSetInfo dataSetInfoOrNull, boolean immediateGroupOnly)
             throws IOExceptionUnchecked
     {
         String groupPath =
@@ -49,7 +55,10 @@ final class DirectoryIndexUpdater
         {
             throw new IOExceptionUnchecked("Cannot get link information for path '" + path + "'.");
         }
-        linkOrNull.setCrc32(crc32);
+        if (dataSetInfoOrNull != null)
+        {
+            dataSetInfoOrNull.applyTo(linkOrNull);
+        }
         index.updateIndex(linkOrNull);
 
         if (immediateGroupOnly == false)
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ch.systemsx.cisd.hdf5.h5ar;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Reads regular files and computes their CRC32 checksums on a pool of worker threads, ahead of
+ * the single thread that writes them to the archive.
+ * <p>
+ * Only files that are smaller than one chunk are prefetched, larger files are streamed by the
+ * writing thread. The number of bytes held by files which have been read but not yet written is
+ * capped by a budget, so memory consumption stays bounded.
+ * <p>
+ * The budget is shared by all open windows. The window of a subdirectory is opened while the
+ * window of its parent directory is still open, but only the innermost window is consumed by the
+ * writing thread. Thus when a window is opened, the outer windows yield their requests beyond
+ * half of the budget (furthest ahead first), to be submitted again once the writing thread
+ * returns to them.
+ * <p>
+ * All methods of this class (except the reading itself) are expected to be called from the
+ * writing thread.
+ */
+final class FilePrefetcher implements Closeable
+{
+    /**
+     * The number of bytes a file is accounted for on top of its content, to limit the number of
+     * small files in flight.
+     */
+    private static final int PER_FILE_OVERHEAD = 1024;
+
+    /**
+     * The content, the CRC32 checksum and (if requested) the content digest of a prefetched file.
+     */
+    static final class PrefetchedFile
+    {
+        final byte[] data;
+
+        final int length;
+
+        final int crc32;
+
+        final byte[] digestOrNull;
+
+        PrefetchedFile(byte[] data, int length, int crc32, byte[] digestOrNull)
+        {
+            this.data = data;
+            this.length = length;
+            this.crc32 = crc32;
+            this.digestOrNull = digestOrNull;
+        }
+    }
+
+    private static final class Request
+    {
+        final int index;
+
+        final long charge;
+
+        final Future<PrefetchedFile> future;
+
+        Request(int index, long charge, Future<PrefetchedFile> future)
+        {
+            this.index = index;
+            this.charge = charge;
+            this.future = future;
+        }
+    }
+
+    /**
+     * The files of one directory to prefetch, in the order in which the writing thread asks for
+     * them.
+     */
+    final class Window implements Closeable
+    {
+        private final List<File> files;
+
+        private final Map<File, Integer> indexMap;
+
+        private final int maxLength;
+
+        private final Deque<Request> pending = new ArrayDeque<Request>();
+
+        private int nextToSubmit;
+
+        private Window(List<File> files, int maxLength)
+        {
+            this.files = files;
+            this.indexMap = new HashMap<File, Integer>(files.size());
+            for (int i = 0; i < files.size(); ++i)
+            {
+                indexMap.put(files.get(i), i);
+            }
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * Submits read requests for the next files of this window, as far as the budget allows.
+         */
+        void fill()
+        {
+            while (nextToSubmit < files.size())
+            {
+                final File file = files.get(nextToSubmit);
+                final long size = file.length();
+                if (size >= maxLength)
+                {
+                    // Will be streamed by the writing thread.
+                    ++nextToSubmit;
+                    continue;
+                }
+                final long charge = size + PER_FILE_OVERHEAD;
+                if (pending.isEmpty() == false && bytesInFlight + charge > budget)
+                {
+                    break;
+                }
+                bytesInFlight += charge;
+                pending.add(new Request(nextToSubmit, charge, executor.submit(createReadCallable(
+                        file, (int) size + 1, computeDigest))));
+                ++nextToSubmit;
+            }
+        }
+
+        /**
+         * Returns the prefetched content of <var>file</var>, or <code>null</code>, if
+         * <var>file</var> has not been prefetched and needs to be streamed by the caller.
+         */
+        PrefetchedFile tryTake(File file) throws IOException
+        {
+            final Integer indexOrNull = indexMap.get(file);
+            if (indexOrNull == null)
+            {
+                return null;
+            }
+            fill();
+            Request request = pending.peek();
+            while (request != null && request.index < indexOrNull)
+            {
+                // Skipped by the writing thread.
+                discard(pending.poll());
+                request = pending.peek();
+            }
+            if (request == null || request.index != indexOrNull)
+            {
+                return null;
+            }
+            pending.poll();
+            bytesInFlight -= request.charge;
+            try
+            {
+                return request.future.get();
+            } catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading " + file);
+            } catch (ExecutionException ex)
+            {
+                final Throwable cause = ex.getCause();
+                if (cause instanceof IOException)
+                {
+                    throw (IOException) cause;
+                } else if (cause instanceof RuntimeException)
+                {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error)
+                {
+                    throw (Error) cause;
+                }
+                throw new IOException(cause);
+            } finally
+            {
+                fill();
+            }
+        }
+
+        private void discard(Request request)
+        {
+            request.future.cancel(true);
+            bytesInFlight -= request.charge;
+        }
+
+        /**
+         * Cancels the requests of this window furthest ahead until at most <var>limit</var> bytes
+         * are in flight. The cancelled files are submitted again by the next {@link #fill()}.
+         */
+        private void yieldBudget(long limit)
+        {
+            while (bytesInFlight > limit && pending.isEmpty() == false)
+            {
+                final Request request = pending.pollLast();
+                discard(request);
+                nextToSubmit = request.index;
+            }
+        }
+
+        /**
+         * Cancels all requests of this window which have not been taken.
+         */
+        @Override
+        public void close()
+        {
+            while (pending.isEmpty() == false)
+            {
+                discard(pending.poll());
+            }
+            nextToSubmit = files.size();
+            openWindows.remove(this);
+        }
+    }
+
+    private final ExecutorService executor;
+
+    private final long budget;
+
+    private final boolean computeDigest;
+
+    /**
+     * The open windows, from the outermost to the innermost.
+     */
+    private final Deque<Window> openWindows = new ArrayDeque<Window>();
+
+    private long bytesInFlight;
+
+    /**
+     * Creates a prefetcher with <var>numberOfThreads</var> reading threads which keep at most
+     * (roughly) <var>budget</var> bytes in flight. If <var>computeDigest</var> is
+     * <code>true</code>, the readers compute the content digest used for deduplication as well.
+     */
+    FilePrefetcher(int numberOfThreads, long budget, boolean computeDigest)
+    {
+        this.executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory()
+            {
+                private int count;
+
+                @Override
+                public Thread newThread(Runnable r)
+                {
+                    final Thread thread = new Thread(r, "H5AR Reader " + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        this.budget = budget;
+        this.computeDigest = computeDigest;
+    }
+
+    /**
+     * Creates a window for prefetching <var>files</var>. Only files smaller than
+     * <var>maxLength</var> bytes are prefetched. The outer windows which are still open yield
+     * half of the budget to the new window.
+     */
+    Window createWindow(List<File> files, int maxLength)
+    {
+        for (Window outerWindow : openWindows)
+        {
+            outerWindow.yieldBudget(budget / 2);
+        }
+        final Window window = new Window(files, maxLength);
+        openWindows.add(window);
+        window.fill();
+        return window;
+    }
+
+    private static Callable<PrefetchedFile> createReadCallable(final File file,
+            final int capacity, final boolean computeDigest)
+    {
+        return new Callable<PrefetchedFile>()
+            {
+                @Override
+                public PrefetchedFile call() throws IOException
+                {
+                    final byte[] data = new byte[capacity];
+                    int length = 0;
+                    try (final InputStream input = FileUtils.openInputStream(file))
+                    {
+                        int n;
+                        while (length < capacity
+                                && -1 != (n = input.read(data, length, capacity - length)))
+                        {
+                            length += n;
+                        }
+                    }
+                    if (length == capacity)
+                    {
+                        // The file has grown since it has been listed, let the writing thread
+                        // stream it.
+                        return null;
+                    }
+                    final CRC32 crc32 = new CRC32();
+                    crc32.update(data, 0, length);
+                    return new PrefetchedFile(data, length, (int) crc32.getValue(),
+                            computeDigest ? ContentKey.computeDigest(data, length) : null);
+                }
+            };
+    }
+
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+    }
+}
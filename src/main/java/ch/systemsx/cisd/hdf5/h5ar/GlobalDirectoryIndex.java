@@ -0,0 +1,364 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.systemsx.cisd.hdf5.h5ar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import ch.systemsx.cisd.base.exceptions.IErrorStrategy;
+import ch.systemsx.cisd.hdf5.HDF5CompoundType;
+import ch.systemsx.cisd.hdf5.HDF5GenericStorageFeatures;
+import ch.systemsx.cisd.hdf5.HDF5IntStorageFeatures;
+import ch.systemsx.cisd.hdf5.IHDF5CompoundInformationRetriever;
+import ch.systemsx.cisd.hdf5.IHDF5Reader;
+import ch.systemsx.cisd.hdf5.IHDF5Writer;
+
+/**
+ * An index of the links of all directories of an archive, stored in the root group of the
+ * archive.
+ * <p>
+ * The links are stored in one compressed compound data set, with the links of each directory in
+ * the same order as in its {@link DirectoryIndex}, so the whole index is read with one sequential
+ * read instead of one read per directory. The global index is a snapshot: it is written on request
+ * by {@link #write(IHDF5Writer, IDirectoryIndexProvider)} and deleted as soon as any directory
+ * index of the archive is written afterwards.
+ * <p>
+ * Earlier versions of the library don't know about the global index and don't delete it when
+ * they change a directory. Thus the global index stores the CRC32 checksums of the
+ * {@link DirectoryIndex} of the root directory at the time of writing and is only used as long as
+ * the root directory index still has these checksums, which costs one read when the global index
+ * is read, not one per directory. This check is best effort: earlier versions update the indices
+ * of all directories on the path of an archived entry up to the root, but a change that leaves
+ * the root directory index unchanged (like deleting an entry below the root) goes unnoticed.
+ * Directories without a directory index are not covered by the global index.
+ */
+final class GlobalDirectoryIndex
+{
+    private static final String CRC32_ATTRIBUTE_NAME = "CRC32";
+
+    /**
+     * The number of entries per directory in the directories data set: the length of its path,
+     * its number of links (or <code>-1</code>, if it is not covered), and the CRC32 checksums of
+     * the links and the names of its directory index. Only the checksums of the root directory
+     * are checked when reading.
+     */
+    private static final int ENTRIES_PER_DIRECTORY = 4;
+
+    private final Map<String, LinkRecord[]> linksByGroup;
+
+    private GlobalDirectoryIndex(Map<String, LinkRecord[]> linksByGroup)
+    {
+        this.linksByGroup = linksByGroup;
+    }
+
+    /**
+     * Returns the sorted links of the directory <var>groupPath</var>, or <code>null</code>, if
+     * <var>groupPath</var> is not a directory in this index.
+     */
+    LinkRecord[] tryGetLinks(String groupPath)
+    {
+        return linksByGroup.get(groupPath);
+    }
+
+    private static String getLinksDataSetName(IHDF5Reader reader)
+    {
+        return "/" + reader.object().toHouseKeepingPath("GLOBALINDEX");
+    }
+
+    private static String getLinkNamesDataSetName(IHDF5Reader reader)
+    {
+        return "/" + reader.object().toHouseKeepingPath("GLOBALINDEXNAMES");
+    }
+
+    private static String getDirectoryNamesDataSetName(IHDF5Reader reader)
+    {
+        return "/" + reader.object().toHouseKeepingPath("GLOBALINDEXDIRNAMES");
+    }
+
+    private static String getPacksDataSetName(IHDF5Reader reader)
+    {
+        return "/" + reader.object().toHouseKeepingPath("GLOBALINDEXPACKS");
+    }
+
+    private static String getHardLinksDataSetName(IHDF5Reader reader)
+    {
+        return "/" + reader.object().toHouseKeepingPath("GLOBALINDEXHARDLINKS");
+    }
+
+    /**
+     * The name of the data set which holds {@link #ENTRIES_PER_DIRECTORY} entries for each
+     * directory. Written last, so its existence marks a complete global index.
+     */
+    private static String getDirectoriesDataSetName(IHDF5Reader reader)
+    {
+        return "/" + reader.object().toHouseKeepingPath("GLOBALINDEXDIRS");
+    }
+
+    /**
+     * Returns <code>true</code> if the archive represented by <var>reader</var> has a global
+     * index.
+     */
+    static boolean exists(IHDF5Reader reader)
+    {
+        return reader.exists(getDirectoriesDataSetName(reader));
+    }
+
+    /**
+     * Reads the global index from the archive represented by <var>reader</var>.
+     * 
+     * @return The global index, or <code>null</code>, if the archive has no global index, it
+     *         cannot be read or the root directory index has changed since it has been written.
+     */
+    static GlobalDirectoryIndex tryRead(IHDF5Reader reader, IErrorStrategy errorStrategy)
+    {
+        try
+        {
+            if (exists(reader) == false)
+            {
+                return null;
+            }
+            final HDF5CompoundType<LinkRecord> linkCompoundType =
+                    DirectoryIndex.getHDF5LinkCompoundType(reader);
+            final CRC32 crc32Digester = new CRC32();
+            final String linksDataSetName = getLinksDataSetName(reader);
+            final LinkRecord[] links =
+                    reader.compound().readArray(linksDataSetName, linkCompoundType,
+                            new IHDF5CompoundInformationRetriever.IByteArrayInspector()
+                                {
+                                    @Override
+                                    public void inspect(byte[] byteArray)
+                                    {
+                                        DirectoryIndex.updateCRC32(byteArray, linkCompoundType,
+                                                crc32Digester);
+                                    }
+                                });
+            final int linksCrc32 = (int) crc32Digester.getValue();
+            checkCrc32(reader, linksDataSetName, linksCrc32);
+            final String linkNamesDataSetName = getLinkNamesDataSetName(reader);
+            final String linkNames = reader.readString(linkNamesDataSetName);
+            final int linkNamesCrc32 = DirectoryIndex.calcCrc32(linkNames);
+            checkCrc32(reader, linkNamesDataSetName, linkNamesCrc32);
+            final int[] indexCrc32s = new int[]
+                { linksCrc32, linkNamesCrc32 };
+            DirectoryIndex.readPackLocations(reader, getPacksDataSetName(reader), links,
+                    indexCrc32s);
+            DirectoryIndex.readHardLinkTargets(reader, getHardLinksDataSetName(reader), links,
+                    indexCrc32s);
+            final String directoryNamesDataSetName = getDirectoryNamesDataSetName(reader);
+            final String directoryNames = reader.readString(directoryNamesDataSetName);
+            checkCrc32(reader, directoryNamesDataSetName, DirectoryIndex.calcCrc32(directoryNames));
+            final int[] directories = reader.int32().readArray(getDirectoriesDataSetName(reader));
+
+            final Map<String, LinkRecord[]> linksByGroup = new HashMap<String, LinkRecord[]>();
+            int[] rootIndexCrc32sOrNull = null;
+            int directoryNamePos = 0;
+            int linkPos = 0;
+            int linkNamePos = 0;
+            final int lastEntry = directories.length - ENTRIES_PER_DIRECTORY;
+            for (int i = 0; i <= lastEntry; i += ENTRIES_PER_DIRECTORY)
+            {
+                final int directoryNameLength = directories[i];
+                final int numberOfLinks = directories[i + 1];
+                if (directoryNamePos + directoryNameLength > directoryNames.length()
+                        || linkPos + numberOfLinks > links.length)
+                {
+                    throw new ListArchiveException("/", "Global index is inconsistent.");
+                }
+                final String groupPath =
+                        directoryNames.substring(directoryNamePos, directoryNamePos
+                                + directoryNameLength);
+                directoryNamePos += directoryNameLength;
+                if (numberOfLinks < 0)
+                {
+                    continue;
+                }
+                final LinkRecord[] groupLinks =
+                        Arrays.copyOfRange(links, linkPos, linkPos + numberOfLinks);
+                linkPos += numberOfLinks;
+                for (LinkRecord link : groupLinks)
+                {
+                    linkNamePos =
+                            link.initAfterReading(linkNames, linkNamePos, reader, groupPath, false);
+                }
+                linksByGroup.put(groupPath, groupLinks);
+                if ("/".equals(groupPath))
+                {
+                    rootIndexCrc32sOrNull = new int[]
+                        { directories[i + 2], directories[i + 3] };
+                }
+            }
+            if (rootIndexCrc32sOrNull == null
+                    || Arrays.equals(rootIndexCrc32sOrNull,
+                            DirectoryIndex.tryGetIndexCrc32s(reader, "/")) == false)
+            {
+                // Changed by a version that doesn't know about the global index.
+                return null;
+            }
+            return new GlobalDirectoryIndex(linksByGroup);
+        } catch (ListArchiveException ex)
+        {
+            errorStrategy.dealWithError(ex);
+        } catch (RuntimeException ex)
+        {
+            errorStrategy.dealWithError(new ListArchiveException("/", ex));
+        }
+        return null;
+    }
+
+    private static void checkCrc32(IHDF5Reader reader, String dataSetName, int crc32)
+    {
+        final int crc32Stored = reader.int32().getAttr(dataSetName, CRC32_ATTRIBUTE_NAME);
+        if (crc32 != crc32Stored)
+        {
+            throw new ListArchiveException(dataSetName, "CRC checksum mismatch on global index. "
+                    + "Expected: " + Utils.crc32ToString(crc32Stored) + ", found: "
+                    + Utils.crc32ToString(crc32));
+        }
+    }
+
+    /**
+     * Writes the global index of the archive represented by <var>writer</var>, taking the
+     * directory indices from <var>indexProvider</var>. The directory indices need to be flushed
+     * before, otherwise flushing them deletes the global index again.
+     */
+    static void write(IHDF5Writer writer, IDirectoryIndexProvider indexProvider)
+    {
+        invalidate(writer);
+        final List<LinkRecord> links = new ArrayList<LinkRecord>();
+        final StringBuilder linkNames = new StringBuilder();
+        final StringBuilder directoryNames = new StringBuilder();
+        final List<Integer> directories = new ArrayList<Integer>();
+        addDirectory(writer, indexProvider, "/", links, linkNames, directoryNames, directories);
+        if (links.isEmpty())
+        {
+            return;
+        }
+
+        final String linkNamesStr = linkNames.toString();
+        final String linkNamesDataSetName = getLinkNamesDataSetName(writer);
+        writer.string().write(linkNamesDataSetName, linkNamesStr,
+                HDF5GenericStorageFeatures.GENERIC_DEFLATE);
+        final int linkNamesCrc32 = DirectoryIndex.calcCrc32(linkNamesStr);
+        writer.int32().setAttr(linkNamesDataSetName, CRC32_ATTRIBUTE_NAME, linkNamesCrc32);
+        final String directoryNamesStr = directoryNames.toString();
+        final String directoryNamesDataSetName = getDirectoryNamesDataSetName(writer);
+        writer.string().write(directoryNamesDataSetName, directoryNamesStr,
+                HDF5GenericStorageFeatures.GENERIC_DEFLATE);
+        writer.int32().setAttr(directoryNamesDataSetName, CRC32_ATTRIBUTE_NAME,
+                DirectoryIndex.calcCrc32(directoryNamesStr));
+        final String linksDataSetName = getLinksDataSetName(writer);
+        final CRC32 crc32Digester = new CRC32();
+        final HDF5CompoundType<LinkRecord> linkCompoundType =
+                DirectoryIndex.getHDF5LinkCompoundType(writer);
+        final LinkRecord[] linksArray = links.toArray(new LinkRecord[links.size()]);
+        writer.compound().writeArray(linksDataSetName, linkCompoundType, linksArray,
+                HDF5GenericStorageFeatures.GENERIC_DEFLATE,
+                new IHDF5CompoundInformationRetriever.IByteArrayInspector()
+                    {
+                        @Override
+                        public void inspect(byte[] byteArray)
+                        {
+                            DirectoryIndex.updateCRC32(byteArray, linkCompoundType,
+                                    crc32Digester);
+                        }
+                    });
+        final int linksCrc32 = (int) crc32Digester.getValue();
+        writer.int32().setAttr(linksDataSetName, CRC32_ATTRIBUTE_NAME, linksCrc32);
+        final int[] indexCrc32s = new int[]
+            { linksCrc32, linkNamesCrc32 };
+        DirectoryIndex.writePackLocations(writer, getPacksDataSetName(writer), linksArray,
+                indexCrc32s);
+        DirectoryIndex.writeHardLinkTargets(writer, getHardLinksDataSetName(writer), linksArray,
+                indexCrc32s);
+        final int[] directoriesArray = new int[directories.size()];
+        for (int i = 0; i < directoriesArray.length; ++i)
+        {
+            directoriesArray[i] = directories.get(i);
+        }
+        writer.int32().writeArray(getDirectoriesDataSetName(writer), directoriesArray,
+                HDF5IntStorageFeatures.INT_DEFLATE);
+    }
+
+    private static void addDirectory(IHDF5Writer writer, IDirectoryIndexProvider indexProvider,
+            String groupPath, List<LinkRecord> links, StringBuilder linkNames,
+            StringBuilder directoryNames, List<Integer> directories)
+    {
+        final IDirectoryIndex index = indexProvider.get(groupPath, false);
+        final int[] indexCrc32sOrNull = DirectoryIndex.tryGetIndexCrc32s(writer, groupPath);
+        final List<String> subDirectories = new ArrayList<String>();
+        int numberOfLinks = 0;
+        for (LinkRecord link : index)
+        {
+            if (indexCrc32sOrNull != null)
+            {
+                link.prepareForWriting(linkNames);
+                links.add(link);
+                ++numberOfLinks;
+            }
+            if (link.isDirectory())
+            {
+                subDirectories.add(Utils.concatLink(groupPath, link.getLinkName()));
+            }
+        }
+        directoryNames.append(groupPath);
+        directories.add(groupPath.length());
+        if (indexCrc32sOrNull != null)
+        {
+            directories.add(numberOfLinks);
+            directories.add(indexCrc32sOrNull[0]);
+            directories.add(indexCrc32sOrNull[1]);
+        } else
+        {
+            directories.add(-1);
+            directories.add(0);
+            directories.add(0);
+        }
+        for (String subDirectory : subDirectories)
+        {
+            addDirectory(writer, indexProvider, subDirectory, links, linkNames, directoryNames,
+                    directories);
+        }
+    }
+
+    /**
+     * Deletes the global index from the archive represented by <var>writer</var>, if it has one.
+     */
+    static void invalidate(IHDF5Writer writer)
+    {
+        final String directoriesDataSetName = getDirectoriesDataSetName(writer);
+        if (writer.exists(directoriesDataSetName) == false)
+        {
+            return;
+        }
+        // Delete the marker first, so that an interrupted deletion leaves no valid index.
+        writer.delete(directoriesDataSetName);
+        for (String dataSetName : new String[]
+            { getLinksDataSetName(writer), getLinkNamesDataSetName(writer),
+                    getDirectoryNamesDataSetName(writer), getPacksDataSetName(writer),
+                    getHardLinksDataSetName(writer) })
+        {
+            if (writer.exists(dataSetName))
+            {
+                writer.delete(dataSetName);
+            }
+        }
+    }
+}
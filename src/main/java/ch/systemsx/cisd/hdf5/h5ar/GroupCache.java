@@ -16,8 +16,8 @@
 
 package ch.systemsx.cisd.hdf5.h5ar;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.ArrayUtils;
 
@@ -27,6 +27,9 @@ import ch.systemsx.cisd.base.unix.Unix.Password;
 
 /**
  * Cache for group affiliations of the current user.
+ * <p>
+ * On the first lookup, the affiliations to all groups of the local group database are loaded in
+ * one go. Groups not found there are looked up one by one.
  * 
  * @author Bernd RInn
  */
@@ -35,7 +38,9 @@ class GroupCache
     private final Password userOrNull;
 
     /** Gid -> Is user member? */
-    private final Map<Integer, Boolean> gidMap = new HashMap<Integer, Boolean>();
+    private final Map<Integer, Boolean> gidMap = new ConcurrentHashMap<Integer, Boolean>();
+
+    private volatile boolean preloaded;
 
     GroupCache()
     {
@@ -48,7 +53,12 @@ class GroupCache
         {
             return false;
         }
-        final Boolean cached = gidMap.get(gid);
+        Boolean cached = gidMap.get(gid);
+        if (cached == null && preloaded == false)
+        {
+            preload();
+            cached = gidMap.get(gid);
+        }
         if (cached != null)
         {
             return cached;
@@ -68,4 +78,22 @@ class GroupCache
             return false;
         }
     }
+
+    private synchronized void preload()
+    {
+        if (preloaded)
+        {
+            return;
+        }
+        final String userName = userOrNull.getUserName();
+        for (Map.Entry<Integer, String[]> entry : UnixIdDatabase.read(UnixIdDatabase.GROUP_FILE)
+                .entrySet())
+        {
+            final boolean found =
+                    ArrayUtils.contains(UnixIdDatabase.getGroupMembers(entry.getValue()),
+                            userName);
+            gidMap.putIfAbsent(entry.getKey(), found ? Boolean.TRUE : Boolean.FALSE);
+        }
+        preloaded = true;
+    }
 }
\ No newline at end of file
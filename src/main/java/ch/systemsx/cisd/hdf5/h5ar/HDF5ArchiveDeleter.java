@@ -16,7 +16,12 @@
 
 package ch.systemsx.cisd.hdf5.h5ar;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import hdf.hdf5lib.exceptions.HDF5Exception;
 
@@ -59,7 +64,13 @@ class HDF5ArchiveDeleter
                 }
                 if (link != null)
                 {
-                    hdf5Writer.delete(normalizedPath);
+                    detachHardLinks(normalizedPath, link);
+                    // A packed file has no data set of its own, its content stays in the pack.
+                    if (link.isPacked() == false
+                            || hdf5Writer.object().exists(normalizedPath, false))
+                    {
+                        hdf5Writer.delete(normalizedPath);
+                    }
                     index.remove(name);
                     if (entryVisitorOrNull != null)
                     {
@@ -76,4 +87,81 @@ class HDF5ArchiveDeleter
         return this;
     }
 
+    /**
+     * Re-points the hard link targets of the files which share the content of a regular file at
+     * or below <var>normalizedPath</var> (described by <var>link</var>), as
+     * <var>normalizedPath</var> is about to be deleted or overwritten. For each content, the first of the remaining files
+     * keeps it and the others become hard links to this file.
+     * <p>
+     * Only the file a content has first been archived at is a hard link target. As the files are
+     * not indexed by their content, finding the files that are hard links to it needs a walk over
+     * all directory indices, which is only done if one of the data sets has further hard links.
+     */
+    void detachHardLinks(String normalizedPath, LinkRecord link)
+    {
+        final Set<String> targets = new HashSet<String>();
+        collectHardLinkTargets(normalizedPath, link, targets);
+        if (targets.isEmpty() == false)
+        {
+            repointHardLinks("/", normalizedPath, targets, new HashMap<String, String>());
+        }
+    }
+
+    private void collectHardLinkTargets(String path, LinkRecord link, Set<String> targets)
+    {
+        if (link.isDirectory())
+        {
+            for (LinkRecord childLink : indexProvider.get(path, false))
+            {
+                collectHardLinkTargets(Utils.concatLink(path, childLink.getLinkName()),
+                        childLink, targets);
+            }
+        } else if (link.isRegularFile() && link.isPacked() == false
+                && link.tryGetHardLinkTarget() == null && hdf5Writer.object().isDataSet(path)
+                && hdf5Writer.object().getObjectInformation(path).getReferenceCount() > 1)
+        {
+            targets.add(path);
+        }
+    }
+
+    private void repointHardLinks(String groupPath, String excludedPath, Set<String> targets,
+            Map<String, String> newTargets)
+    {
+        final IDirectoryIndex index = indexProvider.get(groupPath, false);
+        final List<LinkRecord> changedLinks = new ArrayList<LinkRecord>();
+        final List<String> subDirectories = new ArrayList<String>();
+        for (LinkRecord link : index)
+        {
+            final String path = Utils.concatLink(groupPath, link.getLinkName());
+            if (path.equals(excludedPath))
+            {
+                continue;
+            }
+            if (link.isDirectory())
+            {
+                subDirectories.add(path);
+                continue;
+            }
+            final String targetOrNull = link.tryGetHardLinkTarget();
+            if (targetOrNull != null && targets.contains(targetOrNull))
+            {
+                final String newTargetOrNull = newTargets.get(targetOrNull);
+                if (newTargetOrNull == null)
+                {
+                    newTargets.put(targetOrNull, path);
+                }
+                link.setHardLinkTarget(newTargetOrNull);
+                changedLinks.add(link);
+            }
+        }
+        if (changedLinks.isEmpty() == false)
+        {
+            index.updateIndex(changedLinks);
+        }
+        for (String subDirectory : subDirectories)
+        {
+            repointHardLinks(subDirectory, excludedPath, targets, newTargets);
+        }
+    }
+
 }
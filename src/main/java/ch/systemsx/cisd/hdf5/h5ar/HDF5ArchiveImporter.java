@@ -0,0 +1,254 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.systemsx.cisd.hdf5.h5ar;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import ch.systemsx.cisd.base.exceptions.IErrorStrategy;
+import ch.systemsx.cisd.hdf5.IHDF5Writer;
+import ch.systemsx.cisd.hdf5.io.HDF5IOAdapterFactory;
+import hdf.hdf5lib.exceptions.HDF5Exception;
+
+/**
+ * A class to import the entries of tar and zip streams into <code>h5ar</code> archives, without
+ * unpacking them to the file system first.
+ */
+class HDF5ArchiveImporter
+{
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final IHDF5Writer hdf5Writer;
+
+    private final HDF5ArchiveUpdater updater;
+
+    private final IdCache idCache;
+
+    private final IErrorStrategy errorStrategy;
+
+    HDF5ArchiveImporter(IHDF5Writer hdf5Writer, HDF5ArchiveUpdater updater, IdCache idCache,
+            IErrorStrategy errorStrategy)
+    {
+        this.hdf5Writer = hdf5Writer;
+        this.updater = updater;
+        this.idCache = idCache;
+        this.errorStrategy = errorStrategy;
+    }
+
+    /**
+     * Imports the entries of the tar stream <var>input</var> below <var>rootInArchive</var>. A
+     * gzip compressed tar stream is recognized and decompressed on the fly. Permissions, uid, gid
+     * and modification time of the entries are preserved. <var>input</var> is not closed.
+     */
+    public HDF5ArchiveImporter importTar(String rootInArchive, InputStream input,
+            ArchivingStrategy strategy, IArchiveEntryVisitor entryVisitorOrNull)
+    {
+        final String normalizedRoot = Utils.normalizePath(rootInArchive);
+        try
+        {
+            final TarInputReader reader = new TarInputReader(decompressIfGzipped(input));
+            TarInputReader.Entry entry;
+            while ((entry = reader.tryGetNextEntry()) != null)
+            {
+                final String pathOrNull = tryGetPathInArchive(normalizedRoot, entry.name);
+                if (pathOrNull == null)
+                {
+                    continue;
+                }
+                final String parentPath = Utils.getParentPath(pathOrNull);
+                final String name = Utils.getName(pathOrNull);
+                switch (entry.type)
+                {
+                    case TarInputReader.TYPE_DIRECTORY:
+                        if (strategy.doExclude(pathOrNull, true) == false)
+                        {
+                            archive(NewArchiveEntry.directory(parentPath, name)
+                                    .lastModified(entry.lastModified).uid(entry.uid)
+                                    .gid(entry.gid).permissions(entry.permissions), null, false,
+                                    entryVisitorOrNull);
+                        }
+                        break;
+                    case TarInputReader.TYPE_SYMLINK:
+                        if (strategy.doExclude(pathOrNull, false) == false)
+                        {
+                            archive(NewArchiveEntry.symlink(parentPath, name, entry.linkName)
+                                    .lastModified(entry.lastModified).uid(entry.uid)
+                                    .gid(entry.gid).permissions(entry.permissions), null, false,
+                                    entryVisitorOrNull);
+                        }
+                        break;
+                    case TarInputReader.TYPE_HARD_LINK:
+                        if (strategy.doExclude(pathOrNull, false) == false)
+                        {
+                            importHardLink(
+                                    NewArchiveEntry.file(parentPath, name)
+                                            .lastModified(entry.lastModified).uid(entry.uid)
+                                            .gid(entry.gid).permissions(entry.permissions),
+                                    tryGetPathInArchive(normalizedRoot, entry.linkName),
+                                    strategy, entryVisitorOrNull);
+                        }
+                        break;
+                    default:
+                        if (entry.isRegularFile() == false)
+                        {
+                            errorStrategy.dealWithError(new ArchivingException(pathOrNull,
+                                    "Unsupported tar entry type '" + entry.type + "'"));
+                        } else if (strategy.doExclude(pathOrNull, false) == false)
+                        {
+                            archive(NewArchiveEntry.file(parentPath, name)
+                                    .lastModified(entry.lastModified).uid(entry.uid)
+                                    .gid(entry.gid).permissions(entry.permissions),
+                                    reader.getEntryInputStream(), strategy.doCompress(pathOrNull),
+                                    entryVisitorOrNull);
+                        }
+                        break;
+                }
+            }
+        } catch (IOException ex)
+        {
+            errorStrategy.dealWithError(new ArchivingException("<tar stream>", ex));
+        }
+        return this;
+    }
+
+    /**
+     * Imports the entries of the zip stream <var>input</var> below <var>rootInArchive</var>. Zip
+     * streams carry no owner and permission information, so the defaults of
+     * {@link NewArchiveEntry} apply. <var>input</var> is not closed.
+     */
+    public HDF5ArchiveImporter importZip(String rootInArchive, InputStream input,
+            ArchivingStrategy strategy, IArchiveEntryVisitor entryVisitorOrNull)
+    {
+        final String normalizedRoot = Utils.normalizePath(rootInArchive);
+        try
+        {
+            final ZipInputStream zipInput = new ZipInputStream(input);
+            ZipEntry entry;
+            while ((entry = zipInput.getNextEntry()) != null)
+            {
+                final String pathOrNull = tryGetPathInArchive(normalizedRoot, entry.getName());
+                if (pathOrNull == null
+                        || strategy.doExclude(pathOrNull, entry.isDirectory()))
+                {
+                    continue;
+                }
+                final String parentPath = Utils.getParentPath(pathOrNull);
+                final String name = Utils.getName(pathOrNull);
+                if (entry.isDirectory())
+                {
+                    final NewArchiveEntry dirEntry = NewArchiveEntry.directory(parentPath, name);
+                    if (entry.getTime() >= 0)
+                    {
+                        dirEntry.lastModified(entry.getTime() / Utils.MILLIS_PER_SECOND);
+                    }
+                    archive(dirEntry, null, false, entryVisitorOrNull);
+                } else
+                {
+                    final NewArchiveEntry fileEntry = NewArchiveEntry.file(parentPath, name);
+                    if (entry.getTime() >= 0)
+                    {
+                        fileEntry.lastModified(entry.getTime() / Utils.MILLIS_PER_SECOND);
+                    }
+                    archive(fileEntry, zipInput, strategy.doCompress(pathOrNull),
+                            entryVisitorOrNull);
+                }
+            }
+        } catch (IOException ex)
+        {
+            errorStrategy.dealWithError(new ArchivingException("<zip stream>", ex));
+        }
+        return this;
+    }
+
+    /**
+     * Archives a hard link of a tar stream as a copy of the file it links to, which needs to have
+     * been imported before.
+     */
+    private void importHardLink(NewArchiveEntry entry, String targetPathOrNull,
+            ArchivingStrategy strategy, IArchiveEntryVisitor entryVisitorOrNull)
+    {
+        final String path = Utils.concatLink(entry.getParentPath(), entry.getName());
+        if (targetPathOrNull == null || hdf5Writer.object().isDataSet(targetPathOrNull) == false)
+        {
+            errorStrategy.dealWithError(new ArchivingException(path, "Hard link target '"
+                    + targetPathOrNull + "' not found in archive"));
+            return;
+        }
+        try (final InputStream targetInput =
+                HDF5IOAdapterFactory.asInputStream(hdf5Writer, targetPathOrNull))
+        {
+            archive(entry, targetInput, strategy.doCompress(path), entryVisitorOrNull);
+        } catch (IOException ex)
+        {
+            errorStrategy.dealWithError(new ArchivingException(path, ex));
+        } catch (HDF5Exception ex)
+        {
+            errorStrategy.dealWithError(new ArchivingException(path, ex));
+        }
+    }
+
+    private void archive(NewArchiveEntry entry, InputStream inputOrNull, boolean compress,
+            IArchiveEntryVisitor entryVisitorOrNull)
+    {
+        final LinkRecord link = new LinkRecord(entry);
+        updater.archive(entry.getParentPath(), link, inputOrNull, compress,
+                HDF5Archiver.CHUNK_SIZE_AUTO);
+        if (entryVisitorOrNull != null)
+        {
+            final String path = Utils.concatLink(entry.getParentPath(), entry.getName());
+            entryVisitorOrNull.visit(new ArchiveEntry(entry.getParentPath(), path, link, idCache));
+        }
+    }
+
+    /**
+     * Returns the path in the archive of the entry <var>name</var> of a tar or zip stream, or
+     * <code>null</code>, if the entry is the root itself or its path leaves the root.
+     */
+    private String tryGetPathInArchive(String normalizedRoot, String name)
+    {
+        if (name == null)
+        {
+            return null;
+        }
+        for (String segment : name.split("/"))
+        {
+            if ("..".equals(segment))
+            {
+                errorStrategy.dealWithError(new ArchivingException(name,
+                        "Path leaves the root directory"));
+                return null;
+            }
+        }
+        final String path = Utils.normalizePath(Utils.concatLink(normalizedRoot, name));
+        return path.equals(normalizedRoot) ? null : path;
+    }
+
+    private static InputStream decompressIfGzipped(InputStream input) throws IOException
+    {
+        final BufferedInputStream bufferedInput = new BufferedInputStream(input);
+        bufferedInput.mark(2);
+        final int b1 = bufferedInput.read();
+        final int b2 = bufferedInput.read();
+        bufferedInput.reset();
+        return (b1 == 0x1f && b2 == 0x8b) ? new GZIPInputStream(bufferedInput, GZIP_BUFFER_SIZE)
+                : bufferedInput;
+    }
+}
@@ -20,8 +20,14 @@ import java.io.File;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.zip.CRC32;
 
 import org.apache.commons.io.FileUtils;
@@ -53,6 +59,8 @@ class HDF5ArchiveUpdater
 
     private static final int SMALL_DATASET_LIMIT = 4096;
 
+    private static final long PREFETCH_BUDGET_PER_THREAD = 16L * 1024 * 1024;
+
     private final IHDF5Writer hdf5Writer;
 
     private final IDirectoryIndexProvider indexProvider;
@@ -61,20 +69,83 @@ class HDF5ArchiveUpdater
 
     private final DirectoryIndexUpdater indexUpdater;
 
+    private final HDF5ArchiveDeleter deleter;
+
     private final IdCache idCache;
 
     private final byte[] buffer;
 
+    private final CompressionSampler compressionSampler = new CompressionSampler();
+
+    /**
+     * Maps the content of the files archived with deduplication to the path of the data set
+     * holding it.
+     */
+    private final Map<ContentKey, String> contentIndex = new HashMap<ContentKey, String>();
+
+    /**
+     * The reverse of {@link #contentIndex}.
+     */
+    private final Map<String, ContentKey> contentPaths = new HashMap<String, ContentKey>();
+
+    /**
+     * The sizes of the content in {@link #contentIndex}. A file of another size cannot be a
+     * duplicate, so its content key needn't be known before it is written. Sizes are never
+     * removed, as a stale size only costs an additional read.
+     */
+    private final Set<Long> contentSizes = new HashSet<Long>();
+
+    private final PackStore packStore;
+
+    /**
+     * The locations of the content packed in this session, for deduplicating packed files.
+     */
+    private final Map<ContentKey, DataSetInfo> packedContentIndex =
+            new HashMap<ContentKey, DataSetInfo>();
+
     static class DataSetInfo
     {
         final long size;
 
         final int crc32;
 
+        final String hardLinkTargetOrNull;
+
+        final int packId;
+
+        final long packOffset;
+
         DataSetInfo(long size, int crc32)
+        {
+            this(size, crc32, null);
+        }
+
+        DataSetInfo(long size, int crc32, String hardLinkTargetOrNull)
         {
             this.size = size;
             this.crc32 = crc32;
+            this.hardLinkTargetOrNull = hardLinkTargetOrNull;
+            this.packId = LinkRecord.NOT_PACKED;
+            this.packOffset = 0L;
+        }
+
+        DataSetInfo(long size, int crc32, int packId, long packOffset)
+        {
+            this.size = size;
+            this.crc32 = crc32;
+            this.hardLinkTargetOrNull = null;
+            this.packId = packId;
+            this.packOffset = packOffset;
+        }
+
+        /**
+         * Sets the checksum and the location of the content in the archive on <var>link</var>.
+         */
+        void applyTo(LinkRecord link)
+        {
+            link.setCrc32(crc32);
+            link.setHardLinkTarget(hardLinkTargetOrNull);
+            link.setPackLocation(packId, packOffset);
         }
     }
 
@@ -98,6 +169,7 @@ class HDF5ArchiveUpdater
             this.directory = normalizedDirectory;
             this.path = Utils.concatLink(this.directory, link.getLinkName());
             this.link = link;
+            prepareOverwrite(path);
             final HDF5GenericStorageFeatures creationStorageFeature =
                     compress ? HDF5GenericStorageFeatures.GENERIC_DEFLATE
                             : HDF5GenericStorageFeatures.GENERIC_NO_COMPRESSION;
@@ -165,6 +237,8 @@ class HDF5ArchiveUpdater
         this.idCache = idCache;
         this.errorStrategy = indexProvider.getErrorStrategy();
         this.indexUpdater = new DirectoryIndexUpdater(indexProvider);
+        this.deleter = new HDF5ArchiveDeleter(hdf5Writer, indexProvider, idCache);
+        this.packStore = new PackStore(hdf5Writer);
         this.buffer = buffer;
     }
 
@@ -223,8 +297,10 @@ class HDF5ArchiveUpdater
                                 : HDF5GenericStorageFeatures.GENERIC_NO_COMPRESSION;
                 try
                 {
+                    prepareOverwrite(hdf5ObjectPath);
                     final DataSetInfo info =
-                            copyToHDF5(inputOrNull, hdf5ObjectPath, compression, chunkSize);
+                            copyToHDF5(inputOrNull, hdf5ObjectPath, compression, null,
+                                    chunkSize);
                     link.setCrc32(info.crc32);
                     link.setSize(info.size);
                 } catch (IOException ex)
@@ -264,7 +340,7 @@ class HDF5ArchiveUpdater
         final String hdf5GroupPath = Utils.getParentPath(hdf5ObjectPath);
         final boolean groupExists = hdf5Writer.isGroup(hdf5GroupPath);
         final boolean ok;
-        int crc32 = 0;
+        DataSetInfo dataSetInfoOrNull = null;
         final LinkRecord linkOrNull = LinkRecord.tryCreate(absolutePath, errorStrategy);
         if (linkOrNull == null)
         {
@@ -280,15 +356,10 @@ class HDF5ArchiveUpdater
             ok = archiveDirectory(absolutePath, entry, strategy, chunkSize, entryVisitorOrNull);
         } else if (absolutePath.isFile())
         {
-            final DataSetInfo dataSetInfoOrNull =
-                    tryArchiveFile(absolutePath, entry,
-                            strategy.getStorageFeatureForPath(hdf5ObjectPath), chunkSize,
+            dataSetInfoOrNull =
+                    tryArchiveFile(absolutePath, entry, linkOrNull, strategy, chunkSize,
                             entryVisitorOrNull);
             ok = (dataSetInfoOrNull != null);
-            if (dataSetInfoOrNull != null)
-            {
-                crc32 = dataSetInfoOrNull.crc32;
-            }
         } else
         {
             ok = false;
@@ -297,8 +368,8 @@ class HDF5ArchiveUpdater
         }
         if (ok)
         {
-            indexUpdater.updateIndicesOnThePath(normalizedRootDirInArchive, absolutePath, crc32,
-                    groupExists);
+            indexUpdater.updateIndicesOnThePath(normalizedRootDirInArchive, absolutePath,
+                    dataSetInfoOrNull, groupExists);
         }
         return this;
     }
@@ -336,7 +407,7 @@ class HDF5ArchiveUpdater
         final boolean groupExists =
                 (hdf5GroupPath.length() == 0) ? true : hdf5Writer.isGroup(hdf5GroupPath);
         final boolean ok;
-        int crc32 = 0;
+        DataSetInfo dataSetInfoOrNull = null;
         final LinkRecord linkOrNull = LinkRecord.tryCreate(absolutePath, errorStrategy);
         final ArchiveEntry entry =
                 new ArchiveEntry(hdf5GroupPath, hdf5ObjectPath, linkOrNull, idCache);
@@ -348,15 +419,10 @@ class HDF5ArchiveUpdater
             ok = archiveDirectory(absolutePath, entry, strategy, chunkSize, entryVisitorOrNull);
         } else if (absolutePath.isFile())
         {
-            final DataSetInfo dataSetInfoOrNull =
-                    tryArchiveFile(absolutePath, entry,
-                            strategy.getStorageFeatureForPath(hdf5ObjectPath), chunkSize,
+            dataSetInfoOrNull =
+                    tryArchiveFile(absolutePath, entry, linkOrNull, strategy, chunkSize,
                             entryVisitorOrNull);
             ok = (dataSetInfoOrNull != null);
-            if (dataSetInfoOrNull != null)
-            {
-                crc32 = dataSetInfoOrNull.crc32;
-            }
         } else
         {
             ok = false;
@@ -365,17 +431,23 @@ class HDF5ArchiveUpdater
         }
         if (ok)
         {
-            updateIndicesOnThePath(absoluteParentDirToStrip, absolutePath, crc32, groupExists);
+            updateIndicesOnThePath(absoluteParentDirToStrip, absolutePath, dataSetInfoOrNull,
+                    groupExists);
         }
         return this;
     }
 
-    private void updateIndicesOnThePath(File parentDirToStrip, File path, int crc32,
-            boolean immediateGroupOnly)
+    /**
+     * Updates the directory indices on the path to <var>path</var>. The entry of <var>path</var>
+     * gets the checksum and the location of the content from <var>dataSetInfoOrNull</var>, if it
+     * is a regular file.
+     */
+    private void updateIndicesOnThePath(File parentDirToStrip, File path,
+            DataSetInfo dataSetInfoOrNull, boolean immediateGroupOnly)
     {
         final String rootAbsolute = parentDirToStrip.getAbsolutePath();
         File pathProcessing = path;
-        int crc32Processing = crc32;
+        DataSetInfo dataSetInfoProcessingOrNull = dataSetInfoOrNull;
         while (true)
         {
             File dirProcessingOrNull = pathProcessing.getParentFile();
@@ -390,8 +462,11 @@ class HDF5ArchiveUpdater
             final LinkRecord linkOrNull = LinkRecord.tryCreate(pathProcessing, errorStrategy);
             if (linkOrNull != null)
             {
-                linkOrNull.setCrc32(crc32Processing);
-                crc32Processing = 0; // Directories don't have a checksum
+                if (dataSetInfoProcessingOrNull != null)
+                {
+                    dataSetInfoProcessingOrNull.applyTo(linkOrNull);
+                    dataSetInfoProcessingOrNull = null; // Directories don't have a checksum
+                }
                 index.updateIndex(linkOrNull);
             }
             pathProcessing = dirProcessingOrNull;
@@ -454,6 +529,23 @@ class HDF5ArchiveUpdater
 
     private boolean archiveDirectory(File dir, ArchiveEntry dirEntry, ArchivingStrategy strategy,
             int chunkSize, IArchiveEntryVisitor entryVisitorOrNull)
+    {
+        if (strategy.getParallelism() <= 1)
+        {
+            return archiveDirectory(dir, dirEntry, strategy, chunkSize, entryVisitorOrNull, null);
+        }
+        try (final FilePrefetcher prefetcher =
+                new FilePrefetcher(strategy.getParallelism(), strategy.getParallelism()
+                        * PREFETCH_BUDGET_PER_THREAD, strategy.isDeduplicate()))
+        {
+            return archiveDirectory(dir, dirEntry, strategy, chunkSize, entryVisitorOrNull,
+                    prefetcher);
+        }
+    }
+
+    private boolean archiveDirectory(File dir, ArchiveEntry dirEntry, ArchivingStrategy strategy,
+            int chunkSize, IArchiveEntryVisitor entryVisitorOrNull,
+            FilePrefetcher prefetcherOrNull)
     {
         final File[] fileEntries = dir.listFiles();
         if (fileEntries == null)
@@ -487,6 +579,31 @@ class HDF5ArchiveUpdater
         {
             entryVisitorOrNull.visit(dirEntry);
         }
+        try (final FilePrefetcher.Window windowOrNull =
+                (prefetcherOrNull != null) ? prefetcherOrNull.createWindow(
+                        getRegularFilesToArchive(fileEntries, linkEntries, hdf5GroupPath,
+                                strategy),
+                        getEffectiveChunkSize(chunkSize)) : null)
+        {
+            archiveDirectoryEntries(fileEntries, linkEntries, hdf5GroupPath, strategy,
+                    chunkSize, entryVisitorOrNull, prefetcherOrNull, windowOrNull);
+        }
+        if (strategy.isPruneDeleted())
+        {
+            pruneDeleted(fileEntries, hdf5GroupPath);
+        }
+
+        final boolean verbose = (entryVisitorOrNull != null);
+        final IDirectoryIndex index = indexProvider.get(hdf5GroupPath, verbose);
+        index.updateIndex(linkEntries);
+        return true;
+    }
+
+    private void archiveDirectoryEntries(File[] fileEntries, List<LinkRecord> linkEntries,
+            String hdf5GroupPath, ArchivingStrategy strategy, int chunkSize,
+            IArchiveEntryVisitor entryVisitorOrNull, FilePrefetcher prefetcherOrNull,
+            FilePrefetcher.Window windowOrNull)
+    {
         final Iterator<LinkRecord> linkIt = linkEntries.iterator();
         for (int i = 0; i < fileEntries.length; ++i)
         {
@@ -509,7 +626,8 @@ class HDF5ArchiveUpdater
                     continue;
                 }
                 final boolean ok =
-                        archiveDirectory(file, entry, strategy, chunkSize, entryVisitorOrNull);
+                        archiveDirectory(file, entry, strategy, chunkSize, entryVisitorOrNull,
+                                prefetcherOrNull);
                 if (ok == false)
                 {
                     linkIt.remove();
@@ -531,16 +649,15 @@ class HDF5ArchiveUpdater
                 } else if (entry.isRegularFile())
                 {
                     final DataSetInfo dataSetInfoOrNull =
-                            tryArchiveFile(file, entry,
-                                    strategy.getStorageFeatureForPath(entry.getPath()), chunkSize,
-                                    entryVisitorOrNull);
+                            tryArchiveFile(file, entry, link, strategy, chunkSize,
+                                    entryVisitorOrNull, windowOrNull, true);
                     if (dataSetInfoOrNull == null)
                     {
                         linkIt.remove();
                     } else
                     {
                         link.setSize(dataSetInfoOrNull.size);
-                        link.setCrc32(dataSetInfoOrNull.crc32);
+                        dataSetInfoOrNull.applyTo(link);
                     }
                 } else
                 {
@@ -549,11 +666,92 @@ class HDF5ArchiveUpdater
                 }
             }
         }
+    }
+
+    /**
+     * Returns the regular files of <var>fileEntries</var> that will be archived, in the order in
+     * which they will be archived.
+     */
+    private List<File> getRegularFilesToArchive(File[] fileEntries,
+            List<LinkRecord> linkEntries, String hdf5GroupPath, ArchivingStrategy strategy)
+    {
+        final List<File> files = new ArrayList<File>();
+        final Iterator<LinkRecord> linkIt = linkEntries.iterator();
+        for (File file : fileEntries)
+        {
+            final LinkRecord link = linkIt.next();
+            if (link != null && link.getLinkType() == FileLinkType.REGULAR_FILE
+                    && strategy.doExclude(file.getAbsolutePath(), false) == false
+                    && isSkippedWithoutReading(strategy,
+                            Utils.concatLink(hdf5GroupPath, link.getLinkName()), link) == false)
+            {
+                files.add(file);
+            }
+        }
+        return files;
+    }
 
-        final boolean verbose = (entryVisitorOrNull != null);
-        final IDirectoryIndex index = indexProvider.get(hdf5GroupPath, verbose);
-        index.updateIndex(linkEntries);
-        return true;
+    private boolean isSkippedWithoutReading(ArchivingStrategy strategy, String objectPath,
+            LinkRecord link)
+    {
+        return strategy.isCompareChecksums() == false
+                && tryGetUnchangedLink(strategy, objectPath, link) != null;
+    }
+
+    /**
+     * Returns the link of the regular file archived at <var>objectPath</var>, if the strategy is
+     * incremental and this file has the same size and last modification time as
+     * <var>linkOrNull</var>, or <code>null</code> otherwise.
+     */
+    private LinkRecord tryGetUnchangedLink(ArchivingStrategy strategy, String objectPath,
+            LinkRecord linkOrNull)
+    {
+        if (strategy.isIncremental() == false || linkOrNull == null)
+        {
+            return null;
+        }
+        final IDirectoryIndex index = indexProvider.get(Utils.getParentPath(objectPath), false);
+        final LinkRecord archivedOrNull = index.tryGetLink(linkOrNull.getLinkName());
+        if (archivedOrNull == null || archivedOrNull.isRegularFile() == false
+                || archivedOrNull.hasCRC32Checksum() == false
+                || archivedOrNull.getSize() != linkOrNull.getSize()
+                || archivedOrNull.getLastModified() != linkOrNull.getLastModified())
+        {
+            return null;
+        }
+        final boolean contentExists =
+                archivedOrNull.isPacked() ? PackStore.packExists(hdf5Writer, archivedOrNull)
+                        : hdf5Writer.object().isDataSet(objectPath);
+        return contentExists ? archivedOrNull : null;
+    }
+
+    private static DataSetInfo getDataSetInfo(LinkRecord archived)
+    {
+        return archived.isPacked() ? new DataSetInfo(archived.getSize(), archived.getCrc32(),
+                archived.getPackId(), archived.getPackOffset()) : new DataSetInfo(
+                archived.getSize(), archived.getCrc32(), archived.tryGetHardLinkTarget());
+    }
+
+    /**
+     * Deletes the entries of the directory index of <var>hdf5GroupPath</var> which are not in
+     * <var>fileEntries</var>.
+     */
+    private void pruneDeleted(File[] fileEntries, String hdf5GroupPath)
+    {
+        final Set<String> names = new HashSet<String>(fileEntries.length);
+        for (File file : fileEntries)
+        {
+            names.add(file.getName());
+        }
+        final List<String> deletedPaths = new ArrayList<String>();
+        for (LinkRecord link : indexProvider.get(hdf5GroupPath, false))
+        {
+            if (names.contains(link.getLinkName()) == false)
+            {
+                deletedPaths.add(Utils.concatLink(hdf5GroupPath, link.getLinkName()));
+            }
+        }
+        deleter.delete(deletedPaths, null);
     }
 
     private boolean archiveSymLink(ArchiveEntry entry)
@@ -607,14 +805,77 @@ class HDF5ArchiveUpdater
         return totalLength;
     }
 
-    private DataSetInfo tryArchiveFile(File file, ArchiveEntry entry,
-            HDF5GenericStorageFeatures features, int chunkSize,
-            IArchiveEntryVisitor entryVisitorOrNull) throws ArchivingException
+    private DataSetInfo tryArchiveFile(File file, ArchiveEntry entry, LinkRecord linkOrNull,
+            ArchivingStrategy strategy, int chunkSize, IArchiveEntryVisitor entryVisitorOrNull)
+            throws ArchivingException
+    {
+        return tryArchiveFile(file, entry, linkOrNull, strategy, chunkSize, entryVisitorOrNull,
+                null, false);
+    }
+
+    /**
+     * Archives the regular <var>file</var>. If <var>mayPack</var> is <code>true</code>, the file
+     * will be stored in a pack if the strategy says so. This requires that the caller puts the
+     * pack location from the returned {@link DataSetInfo} into the directory index.
+     */
+    private DataSetInfo tryArchiveFile(File file, ArchiveEntry entry, LinkRecord linkOrNull,
+            ArchivingStrategy strategy, int chunkSize, IArchiveEntryVisitor entryVisitorOrNull,
+            FilePrefetcher.Window windowOrNull, boolean mayPack) throws ArchivingException
     {
         DataSetInfo info = null;
         try
         {
-            info = copyToHDF5(file, entry.getPath(), features, chunkSize);
+            final String objectPath = entry.getPath();
+            final LinkRecord archivedOrNull =
+                    tryGetUnchangedLink(strategy, objectPath, linkOrNull);
+            if (archivedOrNull != null && strategy.isCompareChecksums() == false)
+            {
+                return getDataSetInfo(archivedOrNull);
+            }
+            final FilePrefetcher.PrefetchedFile prefetchedOrNull =
+                    (windowOrNull != null) ? windowOrNull.tryTake(file) : null;
+            if (archivedOrNull != null
+                    && archivedOrNull.getCrc32() == ((prefetchedOrNull != null)
+                            ? prefetchedOrNull.crc32 : computeCrc32(file)))
+            {
+                return getDataSetInfo(archivedOrNull);
+            }
+            final HDF5GenericStorageFeatures features =
+                    strategy.getStorageFeatureForPath(objectPath);
+            final boolean deduplicate = strategy.isDeduplicate();
+            prepareOverwrite(objectPath);
+            final long size =
+                    (prefetchedOrNull != null) ? prefetchedOrNull.length
+                            : ((linkOrNull != null) ? linkOrNull.getSize() : file.length());
+            if (mayPack && strategy.getMaxPackedFileSize() > 0
+                    && size <= strategy.getMaxPackedFileSize())
+            {
+                info =
+                        packFile(file, objectPath, features, strategy, chunkSize,
+                                prefetchedOrNull);
+            } else if (prefetchedOrNull != null)
+            {
+                final ContentKey keyOrNull =
+                        deduplicate ? new ContentKey(prefetchedOrNull.length,
+                                prefetchedOrNull.crc32, prefetchedOrNull.digestOrNull) : null;
+                info =
+                        tryLinkToContent(keyOrNull, objectPath, prefetchedOrNull.length,
+                                prefetchedOrNull.crc32);
+                if (info == null)
+                {
+                    writeSmallDataSet(objectPath, adaptCompression(features, strategy,
+                            prefetchedOrNull.data, prefetchedOrNull.length),
+                            prefetchedOrNull.data, prefetchedOrNull.length);
+                    info = new DataSetInfo(prefetchedOrNull.length, prefetchedOrNull.crc32);
+                    rememberContent(keyOrNull, objectPath);
+                }
+            } else if (deduplicate)
+            {
+                info = copyToHDF5Deduplicated(file, objectPath, features, strategy, chunkSize);
+            } else
+            {
+                info = copyToHDF5(file, objectPath, features, strategy, chunkSize);
+            }
             entry.setDataSetInfo(info);
             if (entryVisitorOrNull != null)
             {
@@ -650,12 +911,252 @@ class HDF5ArchiveUpdater
     }
 
     private DataSetInfo copyToHDF5(final File source, final String objectPath,
-            final HDF5GenericStorageFeatures compression, int chunkSize) throws IOException
+            final HDF5GenericStorageFeatures compression, final ArchivingStrategy strategyOrNull,
+            int chunkSize) throws IOException
+    {
+        try (final InputStream input = FileUtils.openInputStream(source))
+        {
+            return copyToHDF5(input, objectPath, compression, strategyOrNull, chunkSize);
+        }
+    }
+
+    /**
+     * Copies <var>source</var> to <var>objectPath</var>, unless a file with the same content has
+     * already been archived, in which case <var>objectPath</var> is created as a hard link to the
+     * data set of that file.
+     * <p>
+     * The content key is always known before anything is written, so a duplicate is never
+     * written. A small file is completely in the buffer. A large file of a size that no archived
+     * content has cannot be a duplicate and is read once, computing its content key while
+     * copying. A large file of a size that archived content has is read once to compute its
+     * content key and, if it is not a duplicate, a second time to copy it.
+     */
+    private DataSetInfo copyToHDF5Deduplicated(final File source, final String objectPath,
+            final HDF5GenericStorageFeatures compression, final ArchivingStrategy strategy,
+            int chunkSize) throws IOException
+    {
+        final int effectiveBufferLength = getEffectiveChunkSize(chunkSize);
+        final MessageDigest digest = ContentKey.createDigest();
+        try (final InputStream input = FileUtils.openInputStream(source))
+        {
+            final int n = fillBuffer(input, effectiveBufferLength);
+            if (n < effectiveBufferLength)
+            {
+                // A small data source is completely in the buffer.
+                final CRC32 crc32 = new CRC32();
+                crc32.update(buffer, 0, n);
+                digest.update(buffer, 0, n);
+                final int checksum = (int) crc32.getValue();
+                final ContentKey key = new ContentKey(n, checksum, digest.digest());
+                final DataSetInfo linkedInfoOrNull = tryLinkToContent(key, objectPath, n, checksum);
+                if (linkedInfoOrNull != null)
+                {
+                    return linkedInfoOrNull;
+                }
+                writeSmallDataSet(objectPath, adaptCompression(compression, strategy, buffer, n),
+                        buffer, n);
+                rememberContent(key, objectPath);
+                return new DataSetInfo(n, checksum);
+            }
+            if (contentSizes.contains(source.length()) == false)
+            {
+                final DataSetInfo info =
+                        copyToHDF5(input, n, effectiveBufferLength, objectPath, compression,
+                                strategy, digest);
+                rememberContent(new ContentKey(info.size, info.crc32, digest.digest()),
+                        objectPath);
+                return info;
+            }
+            // Content of this size has been archived before: find out whether this file is a
+            // duplicate before writing anything.
+            final DataSetInfo scanned = scanContent(input, n, effectiveBufferLength, digest);
+            final ContentKey key = new ContentKey(scanned.size, scanned.crc32, digest.digest());
+            final DataSetInfo linkedInfoOrNull =
+                    tryLinkToContent(key, objectPath, scanned.size, scanned.crc32);
+            if (linkedInfoOrNull != null)
+            {
+                return linkedInfoOrNull;
+            }
+            final DataSetInfo info =
+                    copyToHDF5(source, objectPath, compression, strategy, chunkSize);
+            // The file may have changed between the two reads.
+            if (info.size == scanned.size && info.crc32 == scanned.crc32)
+            {
+                rememberContent(key, objectPath);
+            }
+            return info;
+        }
+    }
+
+    /**
+     * Computes the size and the CRC32 checksum of <var>input</var>, where the first <var>n</var>
+     * bytes of <var>input</var> have already been read into the buffer, without writing it.
+     * Updates <var>digest</var> with all bytes read.
+     */
+    private DataSetInfo scanContent(final InputStream input, int n,
+            final int effectiveBufferLength, final MessageDigest digest) throws IOException
+    {
+        final CRC32 crc32 = new CRC32();
+        long count = 0;
+        while (n > 0)
+        {
+            crc32.update(buffer, 0, n);
+            digest.update(buffer, 0, n);
+            count += n;
+            n = fillBuffer(input, effectiveBufferLength);
+        }
+        return new DataSetInfo(count, (int) crc32.getValue());
+    }
+
+    /**
+     * Stores the content of the small file <var>source</var> in a pack, or only refers to the
+     * packed content of a file with the same content, if the strategy deduplicates. Falls back to
+     * storing the file in a data set of its own if it has grown beyond the maximal packed file
+     * size since its size was determined.
+     */
+    private DataSetInfo packFile(final File source, final String objectPath,
+            final HDF5GenericStorageFeatures compression, final ArchivingStrategy strategy,
+            int chunkSize, final FilePrefetcher.PrefetchedFile prefetchedOrNull)
+            throws IOException
+    {
+        final byte[] data;
+        final int length;
+        final int checksum;
+        byte[] digestOrNull = null;
+        if (prefetchedOrNull != null)
+        {
+            data = prefetchedOrNull.data;
+            length = prefetchedOrNull.length;
+            checksum = prefetchedOrNull.crc32;
+            digestOrNull = prefetchedOrNull.digestOrNull;
+        } else
+        {
+            final int maxPackedFileSize = strategy.getMaxPackedFileSize();
+            try (final InputStream input = FileUtils.openInputStream(source))
+            {
+                length = fillBuffer(input, maxPackedFileSize + 1);
+            }
+            if (length > maxPackedFileSize)
+            {
+                return strategy.isDeduplicate() ? copyToHDF5Deduplicated(source, objectPath,
+                        compression, strategy, chunkSize) : copyToHDF5(source, objectPath,
+                        compression, strategy, chunkSize);
+            }
+            data = buffer;
+            final CRC32 crc32 = new CRC32();
+            crc32.update(data, 0, length);
+            checksum = (int) crc32.getValue();
+        }
+        ContentKey keyOrNull = null;
+        if (strategy.isDeduplicate())
+        {
+            keyOrNull =
+                    new ContentKey(length, checksum, (digestOrNull != null) ? digestOrNull
+                            : ContentKey.computeDigest(data, length));
+        }
+        DataSetInfo info = (keyOrNull != null) ? packedContentIndex.get(keyOrNull) : null;
+        if (info == null)
+        {
+            info =
+                    packStore.append(data, length, checksum,
+                            adaptCompression(compression, strategy, data, length).isDeflating());
+            if (keyOrNull != null)
+            {
+                packedContentIndex.put(keyOrNull, info);
+            }
+        }
+        // Remove the data set of an earlier version of this file that was not packed.
+        if (hdf5Writer.object().exists(objectPath, false))
+        {
+            hdf5Writer.object().delete(objectPath);
+        }
+        return info;
+    }
+
+    /**
+     * Creates <var>objectPath</var> as a hard link to the data set that holds the content
+     * described by <var>keyOrNull</var>, if there is one.
+     * 
+     * @return The information on the linked data set, or <code>null</code>, if no data set with
+     *         this content is known.
+     */
+    private DataSetInfo tryLinkToContent(ContentKey keyOrNull, String objectPath, long size,
+            int crc32)
+    {
+        if (keyOrNull == null)
+        {
+            return null;
+        }
+        final String firstPathOrNull = contentIndex.get(keyOrNull);
+        if (firstPathOrNull == null)
+        {
+            return null;
+        }
+        if (hdf5Writer.object().isDataSet(firstPathOrNull) == false)
+        {
+            // Removed from the archive in the meantime.
+            contentIndex.remove(keyOrNull);
+            contentPaths.remove(firstPathOrNull);
+            return null;
+        }
+        if (hdf5Writer.object().exists(objectPath, false))
+        {
+            hdf5Writer.object().delete(objectPath);
+        }
+        hdf5Writer.object().createHardLink(firstPathOrNull, objectPath);
+        return new DataSetInfo(size, crc32, firstPathOrNull);
+    }
+
+    private void rememberContent(ContentKey keyOrNull, String objectPath)
     {
+        if (keyOrNull != null)
+        {
+            contentIndex.put(keyOrNull, objectPath);
+            contentPaths.put(objectPath, keyOrNull);
+            contentSizes.add(keyOrNull.getSize());
+        }
+    }
+
+    /**
+     * Prepares overwriting the file archived at <var>objectPath</var>: forgets its content and
+     * re-points the files which are hard links to it.
+     */
+    private void prepareOverwrite(String objectPath)
+    {
+        forgetContent(objectPath);
+        final LinkRecord archivedOrNull =
+                indexProvider.get(Utils.getParentPath(objectPath), false).tryGetLink(
+                        Utils.getName(objectPath));
+        if (archivedOrNull != null)
+        {
+            deleter.detachHardLinks(objectPath, archivedOrNull);
+        }
+    }
+
+    /**
+     * Forgets the content stored at <var>objectPath</var>, as it is about to be overwritten.
+     */
+    private void forgetContent(String objectPath)
+    {
+        final ContentKey keyOrNull = contentPaths.remove(objectPath);
+        if (keyOrNull != null)
+        {
+            contentIndex.remove(keyOrNull);
+        }
+    }
+
+    private int computeCrc32(final File source) throws IOException
+    {
+        final CRC32 crc32 = new CRC32();
         try (final InputStream input = FileUtils.openInputStream(source))
         {
-            return copyToHDF5(input, objectPath, compression, chunkSize);
+            int n;
+            while ((n = fillBuffer(input, buffer.length)) > 0)
+            {
+                crc32.update(buffer, 0, n);
+            }
         }
+        return (int) crc32.getValue();
     }
 
     private int getEffectiveChunkSize(int chunkSize)
@@ -664,25 +1165,37 @@ class HDF5ArchiveUpdater
     }
 
     private DataSetInfo copyToHDF5(final InputStream input, final String objectPath,
-            final HDF5GenericStorageFeatures compression, int chunkSize) throws IOException
+            final HDF5GenericStorageFeatures requestedCompression,
+            final ArchivingStrategy strategyOrNull, int chunkSize) throws IOException
     {
         final int effectiveBufferLength = getEffectiveChunkSize(chunkSize);
+        return copyToHDF5(input, fillBuffer(input, effectiveBufferLength), effectiveBufferLength,
+                objectPath, requestedCompression, strategyOrNull, null);
+    }
+
+    /**
+     * Copies <var>input</var> to <var>objectPath</var>, where the first <var>n</var> bytes of
+     * <var>input</var> have already been read into the buffer. Updates <var>digestOrNull</var>
+     * with all bytes copied.
+     */
+    private DataSetInfo copyToHDF5(final InputStream input, int n,
+            final int effectiveBufferLength, final String objectPath,
+            final HDF5GenericStorageFeatures requestedCompression,
+            final ArchivingStrategy strategyOrNull, final MessageDigest digestOrNull)
+            throws IOException
+    {
         final CRC32 crc32 = new CRC32();
-        HDF5GenericStorageFeatures features = compression;
-        int n = fillBuffer(input, effectiveBufferLength);
+        final HDF5GenericStorageFeatures compression =
+                adaptCompression(requestedCompression, strategyOrNull, buffer, n);
         // Deal with small data sources separately to keep the file size smaller
         if (n < effectiveBufferLength)
         {
-            // For data sets roughly up to 4096 bytes the overhead of a chunked data set outweighs
-            // the saving of the compression.
-            if (n <= SMALL_DATASET_LIMIT || features.isDeflating() == false)
+            writeSmallDataSet(objectPath, compression, buffer, n);
+            crc32.update(buffer, 0, n);
+            if (digestOrNull != null)
             {
-                features = HDF5GenericStorageFeatures.GENERIC_CONTIGUOUS;
+                digestOrNull.update(buffer, 0, n);
             }
-            final HDF5OpaqueType type =
-                    hdf5Writer.opaque().createArray(objectPath, OPAQUE_TAG_FILE, n, features);
-            hdf5Writer.opaque().writeArrayBlockWithOffset(objectPath, type, buffer, n, 0);
-            crc32.update(buffer, 0, n);
             return new DataSetInfo(n, (int) crc32.getValue());
         }
 
@@ -695,11 +1208,53 @@ class HDF5ArchiveUpdater
             hdf5Writer.opaque().writeArrayBlockWithOffset(objectPath, type, buffer, n, count);
             count += n;
             crc32.update(buffer, 0, n);
+            if (digestOrNull != null)
+            {
+                digestOrNull.update(buffer, 0, n);
+            }
             n = fillBuffer(input, effectiveBufferLength);
         }
         return new DataSetInfo(count, (int) crc32.getValue());
     }
 
+    /**
+     * Returns <var>compression</var>, unless <var>strategyOrNull</var> compresses adaptively and
+     * the first <var>length</var> bytes of <var>data</var> (the first chunk of the file) don't
+     * compress well, in which case no compression is returned.
+     */
+    private HDF5GenericStorageFeatures adaptCompression(HDF5GenericStorageFeatures compression,
+            ArchivingStrategy strategyOrNull, byte[] data, int length)
+    {
+        // Small data sets are stored uncompressed anyway.
+        if (strategyOrNull == null || strategyOrNull.isCompressAdaptively() == false
+                || compression.isDeflating() == false || length <= SMALL_DATASET_LIMIT)
+        {
+            return compression;
+        }
+        return compressionSampler.isCompressible(data, length,
+                strategyOrNull.getMaxCompressionRatio(),
+                strategyOrNull.getCompressionStatistics()) ? compression
+                : HDF5GenericStorageFeatures.GENERIC_NO_COMPRESSION;
+    }
+
+    /**
+     * Writes a data source that fits into one chunk (and thus is smaller than the buffer).
+     */
+    private void writeSmallDataSet(final String objectPath,
+            final HDF5GenericStorageFeatures compression, final byte[] data, final int n)
+    {
+        HDF5GenericStorageFeatures features = compression;
+        // For data sets roughly up to 4096 bytes the overhead of a chunked data set outweighs
+        // the saving of the compression.
+        if (n <= SMALL_DATASET_LIMIT || features.isDeflating() == false)
+        {
+            features = HDF5GenericStorageFeatures.GENERIC_CONTIGUOUS;
+        }
+        final HDF5OpaqueType type =
+                hdf5Writer.opaque().createArray(objectPath, OPAQUE_TAG_FILE, n, features);
+        hdf5Writer.opaque().writeArrayBlockWithOffset(objectPath, type, data, n, 0);
+    }
+
     private int fillBuffer(InputStream input, int bufferLength) throws IOException
     {
         int ofs = 0;
@@ -24,6 +24,9 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -35,6 +38,7 @@ import ch.systemsx.cisd.base.exceptions.IErrorStrategy;
 import ch.systemsx.cisd.base.exceptions.IOExceptionUnchecked;
 import ch.systemsx.cisd.base.io.AdapterIInputStreamToInputStream;
 import ch.systemsx.cisd.base.io.AdapterIOutputStreamToOutputStream;
+import ch.systemsx.cisd.base.io.AdapterInputStreamToIInputStream;
 import ch.systemsx.cisd.base.io.IInputStream;
 import ch.systemsx.cisd.base.io.IOutputStream;
 import ch.systemsx.cisd.hdf5.HDF5DataBlock;
@@ -81,6 +85,8 @@ final class HDF5Archiver implements Closeable, Flushable, IHDF5Archiver, IHDF5Ar
 
     private final HDF5ArchiveDeleter deleterOrNull;
 
+    private final HDF5ArchiveImporter importerOrNull;
+
     private final HDF5ArchiveTraverser processor;
 
     private final IdCache idCache;
@@ -142,11 +148,14 @@ final class HDF5Archiver implements Closeable, Flushable, IHDF5Archiver, IHDF5Ar
         {
             this.updaterOrNull = null;
             this.deleterOrNull = null;
+            this.importerOrNull = null;
         } else
         {
             this.updaterOrNull =
                     new HDF5ArchiveUpdater(hdf5WriterOrNull, indexProvider, idCache, buffer);
             this.deleterOrNull = new HDF5ArchiveDeleter(hdf5WriterOrNull, indexProvider, idCache);
+            this.importerOrNull =
+                    new HDF5ArchiveImporter(hdf5WriterOrNull, updaterOrNull, idCache, errorStrategy);
         }
     }
 
@@ -179,11 +188,14 @@ final class HDF5Archiver implements Closeable, Flushable, IHDF5Archiver, IHDF5Ar
         {
             this.updaterOrNull = null;
             this.deleterOrNull = null;
+            this.importerOrNull = null;
         } else
         {
             this.updaterOrNull =
                     new HDF5ArchiveUpdater(hdf5WriterOrNull, indexProvider, idCache, buffer);
             this.deleterOrNull = new HDF5ArchiveDeleter(hdf5WriterOrNull, indexProvider, idCache);
+            this.importerOrNull =
+                    new HDF5ArchiveImporter(hdf5WriterOrNull, updaterOrNull, idCache, errorStrategy);
         }
     }
 
@@ -455,7 +467,8 @@ final class HDF5Archiver implements Closeable, Flushable, IHDF5Archiver, IHDF5Ar
                 }
             };
         final ArchiveEntryListProcessor listProcessor =
-                new ArchiveEntryListProcessor(decoratedVisitor, buffer, params.isTestArchive());
+                new ArchiveEntryListProcessor(decoratedVisitor, buffer, params.isTestArchive(),
+                        params.isNumeric());
         processor.process(normalizedPath, params.isRecursive(), params.isReadLinkTargets(),
                 params.isFollowSymbolicLinks(), listProcessor);
         return this;
@@ -513,10 +526,19 @@ final class HDF5Archiver implements Closeable, Flushable, IHDF5Archiver, IHDF5Ar
                 (missingArchiveEntryVisitorOrNull != null)
                     ? getFiles(Paths.get(rootDirectoryOnFS.toString(), fileOrDir).toFile(), params.isRecursive())
                     : null;
-        final ArchiveEntryVerifyProcessor verifyProcessor =
-                new ArchiveEntryVerifyProcessor(visitor, rootDirectoryOnFS, filesOnFSOrNull,
-                        buffer, params.isVerifyAttributes(), params.isNumeric());
-        processor.process(fileOrDir, params.isRecursive(), true, false, verifyProcessor);
+        try (final OrderedTaskPipeline pipelineOrNull =
+                OrderedTaskPipeline.tryCreate(params.getParallelism()))
+        {
+            final ArchiveEntryVerifyProcessor verifyProcessor =
+                    new ArchiveEntryVerifyProcessor(visitor, rootDirectoryOnFS, filesOnFSOrNull,
+                            buffer, params.isVerifyAttributes(), params.isNumeric(),
+                            pipelineOrNull);
+            processor.process(fileOrDir, params.isRecursive(), true, false, verifyProcessor);
+            if (pipelineOrNull != null)
+            {
+                pipelineOrNull.drain();
+            }
+        }
         if (filesOnFSOrNull != null && filesOnFSOrNull.isEmpty() == false)
         {
             for (File f : filesOnFSOrNull)
@@ -546,11 +568,19 @@ final class HDF5Archiver implements Closeable, Flushable, IHDF5Archiver, IHDF5Ar
                 (missingArchiveEntryVisitorOrNull != null)
                     ? getFiles(Paths.get(rootDirectoryOnFS.toString(), fileOrDir).toFile(), params.isRecursive())
                     : null;
-        final ArchiveEntryVerifyProcessor verifyProcessor =
-                new ArchiveEntryVerifyProcessor(visitor, rootDirectoryOnFS, filesOnFSOrNull,
-                        rootDirectoryInArchive, buffer, params.isVerifyAttributes(),
-                        params.isNumeric());
-        processor.process(fileOrDir, params.isRecursive(), true, false, verifyProcessor);
+        try (final OrderedTaskPipeline pipelineOrNull =
+                OrderedTaskPipeline.tryCreate(params.getParallelism()))
+        {
+            final ArchiveEntryVerifyProcessor verifyProcessor =
+                    new ArchiveEntryVerifyProcessor(visitor, rootDirectoryOnFS, filesOnFSOrNull,
+                            rootDirectoryInArchive, buffer, params.isVerifyAttributes(),
+                            params.isNumeric(), pipelineOrNull);
+            processor.process(fileOrDir, params.isRecursive(), true, false, verifyProcessor);
+            if (pipelineOrNull != null)
+            {
+                pipelineOrNull.drain();
+            }
+        }
         if (filesOnFSOrNull != null && filesOnFSOrNull.isEmpty() == false)
         {
             for (File f : filesOnFSOrNull)
@@ -633,8 +663,8 @@ final class HDF5Archiver implements Closeable, Flushable, IHDF5Archiver, IHDF5Ar
     {
         if (hdf5Reader.object().isDataSet(path) == false)
         {
-            errorStrategy.dealWithError(new UnarchivingException(path, "not found in archive"));
-            return this;
+            // A packed file, stream it through its window of the pack.
+            return extractFileRange(path, 0L, Long.MAX_VALUE, out);
         }
         try
         {
@@ -649,6 +679,119 @@ final class HDF5Archiver implements Closeable, Flushable, IHDF5Archiver, IHDF5Ar
         return this;
     }
 
+    @Override
+    public IHDF5Archiver extractFileRange(String path, long offset, long length, OutputStream out)
+            throws IOExceptionUnchecked
+    {
+        checkOffset(offset);
+        final ArchiveFileChannel channelOrNull = tryOpenChannel(path);
+        if (channelOrNull == null)
+        {
+            return this;
+        }
+        try
+        {
+            final long realLength = Math.min(length, channelOrNull.size() - offset);
+            if (realLength > 0)
+            {
+                final ByteBuffer rangeBuffer =
+                        ByteBuffer.wrap(ArchiveFileChannel.createTransferBuffer(realLength));
+                long remaining = realLength;
+                while (remaining > 0)
+                {
+                    rangeBuffer.clear();
+                    rangeBuffer.limit((int) Math.min(remaining, rangeBuffer.capacity()));
+                    final int n = channelOrNull.read(offset + realLength - remaining, rangeBuffer);
+                    if (n < 0)
+                    {
+                        break;
+                    }
+                    out.write(rangeBuffer.array(), 0, n);
+                    remaining -= n;
+                }
+            }
+        } catch (IOException ex)
+        {
+            errorStrategy.dealWithError(new UnarchivingException(new File("stdout"), ex));
+        } catch (IOExceptionUnchecked ex)
+        {
+            errorStrategy.dealWithError(new UnarchivingException(path, ex));
+        } finally
+        {
+            channelOrNull.closeFile();
+        }
+        return this;
+    }
+
+    @Override
+    public int extractFileRange(String path, long offset, ByteBuffer buffer)
+    {
+        checkOffset(offset);
+        final ArchiveFileChannel channelOrNull = tryOpenChannel(path);
+        if (channelOrNull == null)
+        {
+            return -1;
+        }
+        try
+        {
+            return channelOrNull.read(offset, buffer);
+        } catch (IOExceptionUnchecked ex)
+        {
+            errorStrategy.dealWithError(new UnarchivingException(path, ex));
+            return -1;
+        } finally
+        {
+            channelOrNull.closeFile();
+        }
+    }
+
+    private static void checkOffset(long offset)
+    {
+        if (offset < 0)
+        {
+            throw new IllegalArgumentException("Offset may not be negative.");
+        }
+    }
+
+    @Override
+    public SeekableByteChannel extractFileAsChannel(String path)
+    {
+        return tryOpenChannel(path);
+    }
+
+    private ArchiveFileChannel tryOpenChannel(String path)
+    {
+        if (hdf5Reader.object().isDataSet(path) == false)
+        {
+            final LinkRecord packedLinkOrNull = tryGetPackedLink(path);
+            if (packedLinkOrNull == null)
+            {
+                errorStrategy.dealWithError(new UnarchivingException(path, "not found in archive"));
+                return null;
+            }
+            return new ArchiveFileChannel(HDF5IOAdapterFactory.asRandomAccessFile(hdf5Reader,
+                    PackStore.getPackPath(hdf5Reader, packedLinkOrNull.getPackId())),
+                    packedLinkOrNull.getPackOffset(), packedLinkOrNull.getSize());
+        }
+        return new ArchiveFileChannel(HDF5IOAdapterFactory.asRandomAccessFile(hdf5Reader, path));
+    }
+
+    /**
+     * Returns the link of <var>path</var> if it is a packed file, or <code>null</code> otherwise.
+     */
+    private LinkRecord tryGetPackedLink(String path)
+    {
+        final String normalizedPath = Utils.normalizePath(path);
+        final String parentPath = Utils.getParentPath(normalizedPath);
+        if (parentPath.length() == 0)
+        {
+            return null;
+        }
+        final LinkRecord linkOrNull =
+                indexProvider.get(parentPath, false).tryGetLink(Utils.getName(normalizedPath));
+        return (linkOrNull != null && linkOrNull.isPacked()) ? linkOrNull : null;
+    }
+
     @Override
     public byte[] extractFileAsByteArray(String path) throws IOExceptionUnchecked
     {
@@ -662,8 +805,10 @@ final class HDF5Archiver implements Closeable, Flushable, IHDF5Archiver, IHDF5Ar
     {
         if (hdf5Reader.object().isDataSet(path) == false)
         {
-            errorStrategy.dealWithError(new UnarchivingException(path, "not found in archive"));
-            return null;
+            // A packed file, stream it through its window of the pack.
+            final ArchiveFileChannel channelOrNull = tryOpenChannel(path);
+            return (channelOrNull != null) ? new AdapterInputStreamToIInputStream(
+                    Channels.newInputStream(channelOrNull)) : null;
         }
         return HDF5IOAdapterFactory.asIInputStream(hdf5Reader, path);
     }
@@ -735,10 +880,19 @@ final class HDF5Archiver implements Closeable, Flushable, IHDF5Archiver, IHDF5Ar
             String rootPathInArchive, String path, ArchivingStrategy strategy,
             IArchiveEntryVisitor visitorOrNull) throws IllegalStateException
     {
-        final IArchiveEntryProcessor extractor =
-                new ArchiveEntryExtractProcessor(visitorOrNull, strategy, rootDirectory,
-                        rootPathInArchive, buffer);
-        processor.process(Utils.concatLink(rootPathInArchive, path), true, true, false, extractor);
+        try (final OrderedTaskPipeline pipelineOrNull =
+                OrderedTaskPipeline.tryCreate(strategy.getParallelism()))
+        {
+            final IArchiveEntryProcessor extractor =
+                    new ArchiveEntryExtractProcessor(visitorOrNull, strategy, rootDirectory,
+                            rootPathInArchive, buffer, pipelineOrNull);
+            processor.process(Utils.concatLink(rootPathInArchive, path), true, true, false,
+                    extractor);
+            if (pipelineOrNull != null)
+            {
+                pipelineOrNull.drain();
+            }
+        }
         return this;
     }
 
@@ -857,6 +1011,36 @@ final class HDF5Archiver implements Closeable, Flushable, IHDF5Archiver, IHDF5Ar
         return this;
     }
 
+    @Override
+    public IHDF5Archiver archiveFromTar(String rootInArchive, InputStream input)
+    {
+        return archiveFromTar(rootInArchive, input, ArchivingStrategy.DEFAULT, null);
+    }
+
+    @Override
+    public IHDF5Archiver archiveFromTar(String rootInArchive, InputStream input,
+            ArchivingStrategy strategy, IArchiveEntryVisitor entryVisitorOrNull)
+    {
+        checkReadWrite();
+        importerOrNull.importTar(rootInArchive, input, strategy, entryVisitorOrNull);
+        return this;
+    }
+
+    @Override
+    public IHDF5Archiver archiveFromZip(String rootInArchive, InputStream input)
+    {
+        return archiveFromZip(rootInArchive, input, ArchivingStrategy.DEFAULT, null);
+    }
+
+    @Override
+    public IHDF5Archiver archiveFromZip(String rootInArchive, InputStream input,
+            ArchivingStrategy strategy, IArchiveEntryVisitor entryVisitorOrNull)
+    {
+        checkReadWrite();
+        importerOrNull.importZip(rootInArchive, input, strategy, entryVisitorOrNull);
+        return this;
+    }
+
     @Override
     public IHDF5Archiver archiveFile(String path, byte[] data) throws IllegalStateException
     {
@@ -955,6 +1139,16 @@ final class HDF5Archiver implements Closeable, Flushable, IHDF5Archiver, IHDF5Ar
         return this;
     }
 
+    @Override
+    public IHDF5Archiver writeGlobalIndex()
+    {
+        checkReadWrite();
+        // Flush the directory indices first, as writing them deletes the global index.
+        flush();
+        GlobalDirectoryIndex.write(hdf5WriterOrNull, indexProvider);
+        return this;
+    }
+
     private void checkReadWrite()
     {
         if (updaterOrNull == null)
@@ -18,13 +18,17 @@ package ch.systemsx.cisd.hdf5.h5ar;
 
 import java.io.File;
 import java.io.FileDescriptor;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
@@ -52,7 +56,8 @@ public class HDF5ArchiverMain
     private enum Command
     {
         ARCHIVE(new String[]
-            { "A", "AR", "ARCHIVE" }, false), CAT(new String[]
+            { "A", "AR", "ARCHIVE" }, false), IMPORT(new String[]
+            { "I", "IM", "IMPORT" }, false), CAT(new String[]
             { "C", "CT", "CAT" }, true), EXTRACT(new String[]
             { "E", "EX", "EXTRACT" }, true), DELETE(new String[]
             { "D", "RM", "DELETE", "REMOVE" }, false), LIST(new String[]
@@ -173,6 +178,30 @@ public class HDF5ArchiverMain
     @Option(name = "-N", aliases = "--no-sync", hidden = true, usage = "Do not sync to disk before program exits (write mode only)")
     private boolean noSync = false;
 
+    @Option(name = "-j", aliases = "--threads", metaVar = "N", usage = "Number of threads for file system operations in ARCHIVE, EXTRACT and VERIFY")
+    private int numberOfThreads = 1;
+
+    @Option(name = "-d", aliases = "--deduplicate", usage = "Store files with identical content only once for ARCHIVE")
+    private boolean deduplicate = false;
+
+    @Option(name = "-u", aliases = "--incremental", usage = "Skip files with unchanged size and modification time for ARCHIVE")
+    private boolean incremental = false;
+
+    @Option(name = "-cc", aliases = "--compare-checksums", usage = "Also compare CRC32 checksums to find unchanged files with -u")
+    private boolean compareChecksums = false;
+
+    @Option(name = "-P", aliases = "--prune", usage = "Delete entries of archived directories that no longer exist on the file system for ARCHIVE")
+    private boolean pruneDeleted = false;
+
+    @Option(name = "-g", aliases = "--global-index", usage = "Write a global index for fast LIST after ARCHIVE, IMPORT and DELETE")
+    private boolean writeGlobalIndex = false;
+
+    @Option(name = "-ac", aliases = "--adaptive-compression", metaVar = "RATIO", usage = "Compress files for ARCHIVE only if a sample of their first chunk compresses to at most RATIO of its size (e.g. 0.9)")
+    private double adaptiveCompressionRatio = 0.0;
+
+    @Option(name = "-k", aliases = "--pack", metaVar = "SIZE", usage = "Store files of at most SIZE bytes in shared pack data sets rather than one data set per file for ARCHIVE (e.g. 4096)")
+    private int maxPackedFileSize = 0;
+
     private HDF5Archiver archiver;
 
     /**
@@ -269,6 +298,7 @@ public class HDF5ArchiverMain
         
         System.err.println("h5ar " +
                   "[ARCHIVE [option [...]] <archive_file> <item-to-archive> [...]\n"
+                + "     | IMPORT [option [...]] <archive_file> <tar-or-zip-file> [<root-in-archive>]\n"
                 + "     | CAT [option [...]] <archive_file> <item-to-cat> [...]\n"
                 + "     | EXTRACT [option [...]] <archive_file> [<item-to-unarchive> [...]]\n"
                 + "     | DELETE [option [...]] <archive_file> <item-to-delete> [...]\n"
@@ -278,6 +308,7 @@ public class HDF5ArchiverMain
         parser.printUsage(new OutputStreamWriter(System.err), null, OptionHandlerFilter.ALL);
         System.err.println("\nModes (command capitalization ignored):");
         System.err.println(" ARCHIVE (AR, A): add files on the file system to an archive (always recursive)");
+        System.err.println(" IMPORT (IM, I): add the content of a tar (optionally gzip compressed) or zip file to an archive ('-' reads a tar stream from stdin)");
         System.err.println(" CAT (C): extract file(s) from an archive to stdout");
         System.err.println(" EXTRACT (EX, E): extract files from an archive to the file system (always recursive)");
         System.err.println(" DELETE (REMOVE, RM, D): delete files from an archive");
@@ -367,6 +398,15 @@ public class HDF5ArchiverMain
         {
             strategy.addToCompressionBlackList(pattern);
         }
+        strategy.parallelism(Math.max(1, numberOfThreads));
+        strategy.deduplicate(deduplicate);
+        if (adaptiveCompressionRatio > 0.0)
+        {
+            strategy.compressAdaptively(adaptiveCompressionRatio);
+        }
+        strategy.incremental(incremental).compareChecksums(compareChecksums);
+        strategy.pruneDeleted(pruneDeleted);
+        strategy.packSmallFiles(maxPackedFileSize);
         return strategy;
     }
 
@@ -496,6 +536,66 @@ public class HDF5ArchiverMain
                                     true, verbose ? IArchiveEntryVisitor.NONVERBOSE_VISITOR : null);
                         }
                     }
+                    if (writeGlobalIndex)
+                    {
+                        archiver.writeGlobalIndex();
+                    }
+                    if (verbose && strategy.isCompressAdaptively())
+                    {
+                        System.out.println("Adaptive compression: "
+                                + strategy.getCompressionStatistics());
+                    }
+                    break;
+                }
+                case IMPORT:
+                {
+                    if (arguments.size() == 2 || arguments.size() > 4)
+                    {
+                        System.err.println("Need exactly one tar or zip file to import.");
+                        break;
+                    }
+                    if (createArchiver() == false)
+                    {
+                        break;
+                    }
+                    final ArchivingStrategy strategy = createArchivingStrategy();
+                    final String source = arguments.get(2);
+                    final String rootInArchive = (arguments.size() == 4) ? arguments.get(3) : "/";
+                    if (verbose)
+                    {
+                        System.out.printf("Importing '%s' to file '%s', root in archive: '%s'\n",
+                                source, archiveFile, rootInArchive);
+                    }
+                    final IArchiveEntryVisitor visitorOrNull =
+                            verbose ? IArchiveEntryVisitor.NONVERBOSE_VISITOR : null;
+                    try
+                    {
+                        final InputStream input =
+                                "-".equals(source) ? System.in : new FileInputStream(source);
+                        try
+                        {
+                            if (source.toLowerCase().endsWith(".zip"))
+                            {
+                                archiver.archiveFromZip(rootInArchive, input, strategy,
+                                        visitorOrNull);
+                            } else
+                            {
+                                archiver.archiveFromTar(rootInArchive, input, strategy,
+                                        visitorOrNull);
+                            }
+                        } finally
+                        {
+                            IOUtils.closeQuietly(input);
+                        }
+                    } catch (IOException ex)
+                    {
+                        System.err.printf("Cannot read '%s': %s\n", source, ex.getMessage());
+                        return false;
+                    }
+                    if (writeGlobalIndex)
+                    {
+                        archiver.writeGlobalIndex();
+                    }
                     break;
                 }
                 case CAT:
@@ -577,6 +677,10 @@ public class HDF5ArchiverMain
                     }
                     archiver.delete(arguments.subList(2, arguments.size()),
                             verbose ? IArchiveEntryVisitor.NONVERBOSE_VISITOR : null);
+                    if (writeGlobalIndex)
+                    {
+                        archiver.writeGlobalIndex();
+                    }
                     break;
                 }
                 case VERIFY:
@@ -641,7 +745,8 @@ public class HDF5ArchiverMain
             System.out.printf("Listing entry '%s' of file '%s'\n", fileOrDir, archiveFile);
         }
         archiver.list(fileOrDir, visitor, ListParameters.build().recursive(recursive)
-                .readLinkTargets(verbose).testArchive(testAgainstChecksums).get());
+                .readLinkTargets(verbose).testArchive(testAgainstChecksums).numeric(numeric)
+                .get());
     }
 
     private int doVerify(final String fileOrDir, final ListingVisitor visitor)
@@ -675,7 +780,8 @@ public class HDF5ArchiverMain
                     } : null;
         archiver.verifyAgainstFilesystem(fileOrDir, getFSRoot(), visitor,
                 missingFileVisitorOrNull, VerifyParameters.build().recursive(recursive)
-                        .numeric(numeric).verifyAttributes(verifyAttributes).get());
+                        .numeric(numeric).verifyAttributes(verifyAttributes)
+                        .parallelism(Math.max(1, numberOfThreads)).get());
         return missingFileCount.get();
     }
 
@@ -19,6 +19,8 @@ package ch.systemsx.cisd.hdf5.h5ar;
 import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.util.List;
 
 import ch.systemsx.cisd.base.io.IInputStream;
@@ -230,6 +232,47 @@ public interface IHDF5ArchiveReader extends IHDF5ArchiveInfoProvider
      */
     public IHDF5ArchiveReader extractFile(String path, OutputStream out);
 
+    /**
+     * Extract a range of the content of a file in the archive to an {@link OutputStream}. Only the
+     * chunks of the file which overlap with the range are read from the archive.
+     * 
+     * @param path The path of the file to extract the content of.
+     * @param offset The offset in the file where the range starts. Must not be negative.
+     * @param length The length of the range. If the file ends before the range, only the part of
+     *            the range up to the end of the file is extracted.
+     * @param out The output stream to extract the range to.
+     * @return This archive reader.
+     */
+    public IHDF5ArchiveReader extractFileRange(String path, long offset, long length,
+            OutputStream out);
+
+    /**
+     * Extract a range of the content of a file in the archive to a {@link ByteBuffer}. Reads up to
+     * <code>buffer.remaining()</code> bytes, starting at the current position of the
+     * <var>buffer</var>. Only the chunks of the file which overlap with the range are read from the
+     * archive.
+     * 
+     * @param path The path of the file to extract the content of.
+     * @param offset The offset in the file where the range starts. Must not be negative.
+     * @param buffer The buffer to extract the range to.
+     * @return The number of bytes extracted, or -1, if <var>offset</var> is at or beyond the end of
+     *         the file. If an error occurs and the
+     *         {@link ch.systemsx.cisd.base.exceptions.IErrorStrategy} of the archive reader does
+     *         not re-throw the exception, the return value will be -1 on errors.
+     */
+    public int extractFileRange(String path, long offset, ByteBuffer buffer);
+
+    /**
+     * Returns a read-only {@link SeekableByteChannel} on the content of a file in the archive. Only
+     * the chunks of the file which are touched by reads are read from the archive.
+     * 
+     * @param path The path of the file to get the channel for.
+     * @return The channel. If an error occurs and the
+     *         {@link ch.systemsx.cisd.base.exceptions.IErrorStrategy} of the archive reader does
+     *         not re-throw the exception, the return value will be <code>null</code> on errors.
+     */
+    public SeekableByteChannel extractFileAsChannel(String path);
+
     /**
      * Extract the content of a file in the archive to a byte array.
      * 
@@ -236,6 +236,56 @@ public interface IHDF5Archiver extends IHDF5ArchiveReader
     public IHDF5Archiver archiveFromFilesystemBelowDirectory(String rootInArchive, File directory,
             ArchivingStrategy strategy, IArchiveEntryVisitor visitor);
 
+    /**
+     * Archive the entries of a tar stream without unpacking it to the filesystem first. A gzip
+     * compressed tar stream is recognized and decompressed on the fly.
+     * 
+     * @param rootInArchive The directory in the archive to put the entries of the tar stream
+     *            below.
+     * @param input The tar stream to read the entries from. It will not be closed.
+     */
+    public IHDF5Archiver archiveFromTar(String rootInArchive, InputStream input);
+
+    /**
+     * Archive the entries of a tar stream without unpacking it to the filesystem first. A gzip
+     * compressed tar stream is recognized and decompressed on the fly. Permissions, owner and
+     * modification time of the tar entries are kept, hard links are stored as copies of their
+     * target.
+     * 
+     * @param rootInArchive The directory in the archive to put the entries of the tar stream
+     *            below.
+     * @param input The tar stream to read the entries from. It will not be closed.
+     * @param strategy The archiving strategy to use. This strategy object determines which files to
+     *            include and to exclude and which files to compress.
+     * @param visitor The {@link IArchiveEntryVisitor} to use. Can be <code>null</code>.
+     */
+    public IHDF5Archiver archiveFromTar(String rootInArchive, InputStream input,
+            ArchivingStrategy strategy, IArchiveEntryVisitor visitor);
+
+    /**
+     * Archive the entries of a zip stream without unpacking it to the filesystem first.
+     * 
+     * @param rootInArchive The directory in the archive to put the entries of the zip stream
+     *            below.
+     * @param input The zip stream to read the entries from. It will not be closed.
+     */
+    public IHDF5Archiver archiveFromZip(String rootInArchive, InputStream input);
+
+    /**
+     * Archive the entries of a zip stream without unpacking it to the filesystem first. As zip
+     * streams carry no owner and permission information, the defaults of {@link NewArchiveEntry}
+     * are used for them.
+     * 
+     * @param rootInArchive The directory in the archive to put the entries of the zip stream
+     *            below.
+     * @param input The zip stream to read the entries from. It will not be closed.
+     * @param strategy The archiving strategy to use. This strategy object determines which files to
+     *            include and to exclude and which files to compress.
+     * @param visitor The {@link IArchiveEntryVisitor} to use. Can be <code>null</code>.
+     */
+    public IHDF5Archiver archiveFromZip(String rootInArchive, InputStream input,
+            ArchivingStrategy strategy, IArchiveEntryVisitor visitor);
+
     /**
      * Archive the <var>data</var> as file in the archive.
      * 
@@ -339,6 +389,14 @@ public interface IHDF5Archiver extends IHDF5ArchiveReader
      */
     public IHDF5Archiver delete(List<String> paths, IArchiveEntryVisitor entryVisitorOrNull);
 
+    /**
+     * Writes a global index of all entries of the archive, which allows listing the archive and
+     * looking up paths with one read instead of one read per directory. The global index is used
+     * when the archive is opened read-only. It is deleted again by the next change to the archive,
+     * so call this method after the archive has been updated.
+     */
+    public IHDF5Archiver writeGlobalIndex();
+
     // Method overridden from IHDF5ArchiveReader, see there for javadoc.
 
     @Override
@@ -384,6 +442,10 @@ public interface IHDF5Archiver extends IHDF5ArchiveReader
     @Override
     public IHDF5Archiver extractFile(String path, OutputStream out) throws IOExceptionUnchecked;
 
+    @Override
+    public IHDF5Archiver extractFileRange(String path, long offset, long length, OutputStream out)
+            throws IOExceptionUnchecked;
+
     @Override
     public IHDF5Archiver extractToFilesystem(File rootDirectory);
 
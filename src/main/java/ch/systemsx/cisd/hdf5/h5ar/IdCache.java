@@ -16,27 +16,49 @@
 
 package ch.systemsx.cisd.hdf5.h5ar;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import ch.systemsx.cisd.base.unix.Unix;
 import ch.systemsx.cisd.base.unix.Unix.Stat;
 
 /**
  * Cache for ID -> Name mapping.
+ * <p>
+ * On the first name lookup, the names of all users and groups of the local user and group
+ * databases are loaded in one go. Ids not found there are resolved one by one. Reads of cached
+ * names don't lock.
  * 
  * @author Bernd Rinn
  */
 final class IdCache
 {
+    /**
+     * A cache which never resolves ids to names, for listings that only show numeric ids.
+     */
+    static final IdCache NUMERIC_ONLY = new IdCache(true);
+
     /** Gid -> Group Name */
-    private final Map<Integer, String> gidMap = Collections
-            .synchronizedMap(new HashMap<Integer, String>());
+    private final Map<Integer, String> gidMap = new ConcurrentHashMap<Integer, String>();
 
     /** Uid -> User Name */
-    private final Map<Integer, String> uidMap = Collections
-            .synchronizedMap(new HashMap<Integer, String>());
+    private final Map<Integer, String> uidMap = new ConcurrentHashMap<Integer, String>();
+
+    private final boolean numericOnly;
+
+    private volatile boolean usersPreloaded;
+
+    private volatile boolean groupsPreloaded;
+
+    IdCache()
+    {
+        this(false);
+    }
+
+    private IdCache(boolean numericOnly)
+    {
+        this.numericOnly = numericOnly;
+    }
 
     /**
      * Returns the name for the given <var>uid</var>.
@@ -56,21 +78,45 @@ final class IdCache
 
     String getUser(int uid, boolean numeric)
     {
+        if (numeric || numericOnly || Unix.isOperational() == false)
+        {
+            return Integer.toString(uid);
+        }
         String userNameOrNull = uidMap.get(uid);
         if (userNameOrNull == null)
         {
-            userNameOrNull =
-                    (numeric == false && Unix.isOperational()) ? Unix.tryGetUserNameForUid(uid)
-                            : null;
+            if (usersPreloaded == false)
+            {
+                preloadUsers();
+                userNameOrNull = uidMap.get(uid);
+            }
             if (userNameOrNull == null)
             {
-                userNameOrNull = Integer.toString(uid);
+                userNameOrNull = Unix.tryGetUserNameForUid(uid);
+                if (userNameOrNull == null)
+                {
+                    userNameOrNull = Integer.toString(uid);
+                }
+                uidMap.put(uid, userNameOrNull);
             }
-            uidMap.put(uid, userNameOrNull);
         }
         return userNameOrNull;
     }
 
+    private synchronized void preloadUsers()
+    {
+        if (usersPreloaded)
+        {
+            return;
+        }
+        for (Map.Entry<Integer, String[]> entry : UnixIdDatabase.read(UnixIdDatabase.PASSWD_FILE)
+                .entrySet())
+        {
+            uidMap.putIfAbsent(entry.getKey(), entry.getValue()[0]);
+        }
+        usersPreloaded = true;
+    }
+
     /**
      * Returns the name for the given <var>gid</var>.
      */
@@ -92,18 +138,42 @@ final class IdCache
      */
     String getGroup(int gid, boolean numeric)
     {
+        if (numeric || numericOnly || Unix.isOperational() == false)
+        {
+            return Integer.toString(gid);
+        }
         String groupNameOrNull = gidMap.get(gid);
         if (groupNameOrNull == null)
         {
-            groupNameOrNull =
-                    (numeric == false && Unix.isOperational()) ? Unix.tryGetGroupNameForGid(gid)
-                            : null;
+            if (groupsPreloaded == false)
+            {
+                preloadGroups();
+                groupNameOrNull = gidMap.get(gid);
+            }
             if (groupNameOrNull == null)
             {
-                groupNameOrNull = Integer.toString(gid);
+                groupNameOrNull = Unix.tryGetGroupNameForGid(gid);
+                if (groupNameOrNull == null)
+                {
+                    groupNameOrNull = Integer.toString(gid);
+                }
+                gidMap.put(gid, groupNameOrNull);
             }
-            gidMap.put(gid, groupNameOrNull);
         }
         return groupNameOrNull;
     }
+
+    private synchronized void preloadGroups()
+    {
+        if (groupsPreloaded)
+        {
+            return;
+        }
+        for (Map.Entry<Integer, String[]> entry : UnixIdDatabase.read(UnixIdDatabase.GROUP_FILE)
+                .entrySet())
+        {
+            gidMap.putIfAbsent(entry.getKey(), entry.getValue()[0]);
+        }
+        groupsPreloaded = true;
+    }
 }
\ No newline at end of file
@@ -37,6 +37,11 @@ import ch.systemsx.cisd.hdf5.IHDF5Reader;
 @CompoundType(name = "Link", mapAllFields = false)
 final class LinkRecord implements Comparable<LinkRecord>
 {
+    /**
+     * The pack id of a file that is not stored in a pack.
+     */
+    static final int NOT_PACKED = -1;
+
     @CompoundElement(memberName = "linkNameLength")
     private int linkNameLength;
 
@@ -67,6 +72,12 @@ final class LinkRecord implements Comparable<LinkRecord>
 
     private String linkTargetOrNull;
 
+    private String hardLinkTargetOrNull;
+
+    private int packId = NOT_PACKED;
+
+    private long packOffset;
+
     private FileLinkType verifiedType;
 
     private long verifiedSize = Utils.UNKNOWN;
@@ -311,6 +322,55 @@ final class LinkRecord implements Comparable<LinkRecord>
         return linkTargetOrNull;
     }
 
+    /**
+     * Returns the path of the data set in the archive that the data set of this regular file is
+     * a hard link to, or <code>null</code>, if this file has been stored with its own content.
+     * <p>
+     * Set when the file has been archived with deduplication. The path is the one the content
+     * was first archived at, which may have been deleted or overwritten since. The content itself
+     * stays shared as long as this link exists.
+     */
+    public String tryGetHardLinkTarget()
+    {
+        return hardLinkTargetOrNull;
+    }
+
+    void setHardLinkTarget(String hardLinkTargetOrNull)
+    {
+        this.hardLinkTargetOrNull = hardLinkTargetOrNull;
+    }
+
+    /**
+     * Returns <code>true</code>, if the content of this regular file is stored in a pack of the
+     * {@link PackStore} rather than in a data set of its own.
+     */
+    public boolean isPacked()
+    {
+        return packId != NOT_PACKED;
+    }
+
+    /**
+     * Returns the id of the pack that holds the content of this file, or {@link #NOT_PACKED}.
+     */
+    public int getPackId()
+    {
+        return packId;
+    }
+
+    /**
+     * Returns the offset of the content of this file in its pack.
+     */
+    public long getPackOffset()
+    {
+        return packOffset;
+    }
+
+    void setPackLocation(int packId, long packOffset)
+    {
+        this.packId = packId;
+        this.packOffset = packOffset;
+    }
+
     public boolean isDirectory()
     {
         return linkType == FileLinkType.DIRECTORY;
@@ -488,6 +548,6 @@ final class LinkRecord implements Comparable<LinkRecord>
         return "LinkRecord [linkName=" + linkName + ", linkType=" + linkType + ", size=" + size
                 + ", lastModified=" + lastModified + ", uid=" + uid + ", gid=" + gid
                 + ", permissions=" + permissions + ", crc32=" + crc32 + ", linkTargetOrNull="
-                + linkTargetOrNull + "]";
+                + linkTargetOrNull + ", packId=" + packId + ", packOffset=" + packOffset + "]";
     }
 }
@@ -37,6 +37,8 @@ public final class ListParameters
 
     private final boolean followSymbolicLinks;
 
+    private final boolean numeric;
+
     /**
      * The default list parameters:
      * <ul>
@@ -47,10 +49,11 @@ public final class ListParameters
      * <li>reads symbolic link targets</li>
      * <li>does not resolve symbolic links</li>
      * <li>does not follow symbolic links</li>
+     * <li>resolves user and group ids to names</li>
      * </ul>
      */
     public static final ListParameters DEFAULT = new ListParameters(true, true, false, false,
-            false, false, false);
+            false, false, false, false);
 
     /**
      * The list parameters for testing the archive integrity:
@@ -62,10 +65,11 @@ public final class ListParameters
      * <li>reads symbolic link targets</li>
      * <li>does not resolve symbolic links</li>
      * <li>does not follow symbolic links</li>
+     * <li>resolves user and group ids to names</li>
      * </ul>
      */
     public static final ListParameters TEST = new ListParameters(true, true, true, false, true,
-            false, false);
+            false, false, false);
 
     /**
      * A class for constructing a new list parameters object.
@@ -86,6 +90,8 @@ public final class ListParameters
 
         private boolean followSymbolicLinks = false;
 
+        private boolean numeric = false;
+
         private ListParametersBuilder()
         {
         }
@@ -255,6 +261,32 @@ public final class ListParameters
             return this;
         }
 
+        /**
+         * Represent user and group ids of the entries numerically only.
+         * <p>
+         * This saves looking up user and group names, {@link ArchiveEntry#getUser(boolean)} and
+         * {@link ArchiveEntry#getGroup(boolean)} of the entries return the numeric ids even if
+         * called with <code>numeric=false</code>.
+         */
+        public ListParametersBuilder numeric()
+        {
+            this.numeric = true;
+            return this;
+        }
+
+        /**
+         * If <var>numeric</var> is <code>true</code>, represent user and group ids of the entries
+         * numerically only, if it is <code>false</code>, resolve them to names on request.
+         * 
+         * @see #numeric()
+         */
+        public ListParametersBuilder numeric(@SuppressWarnings("hiding")
+        boolean numeric)
+        {
+            this.numeric = numeric;
+            return this;
+        }
+
         /**
          * Returns the {@link ListParameters} object constructed.
          */
@@ -262,7 +294,7 @@ public final class ListParameters
         {
             return new ListParameters(recursive, readLinkTargets, testArchive,
                     suppressDirectoryEntries, includeTopLevelDirectoryEntry, resolveSymbolicLinks,
-                    followSymbolicLinks);
+                    followSymbolicLinks, numeric);
         }
     }
 
@@ -278,7 +310,7 @@ public final class ListParameters
 
     private ListParameters(boolean recursive, boolean readLinkTargets, boolean testArchive,
             boolean suppressDirectoryEntries, boolean includeTopLevelDirectoryEntry,
-            boolean resolveSymbolicLinks, boolean followSymbolicLinks)
+            boolean resolveSymbolicLinks, boolean followSymbolicLinks, boolean numeric)
     {
         this.recursive = recursive;
         this.readLinkTargets = readLinkTargets || resolveSymbolicLinks;
@@ -287,6 +319,7 @@ public final class ListParameters
         this.includeTopLevelDirectoryEntry = includeTopLevelDirectoryEntry;
         this.resolveSymbolicLinks = resolveSymbolicLinks;
         this.followSymbolicLinks = followSymbolicLinks;
+        this.numeric = numeric;
     }
 
     /**
@@ -359,4 +392,14 @@ public final class ListParameters
     {
         return followSymbolicLinks;
     }
+
+    /**
+     * Returns if user and group ids are represented numerically only.
+     * 
+     * @see ListParametersBuilder#numeric(boolean)
+     */
+    public boolean isNumeric()
+    {
+        return numeric;
+    }
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.systemsx.cisd.hdf5.h5ar;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import ch.systemsx.cisd.base.exceptions.CheckedExceptionTunnel;
+
+/**
+ * A pipeline that runs file system work of archive entry processors on a pool of worker threads,
+ * while the thread that traverses the archive keeps all HDF5 access to itself.
+ * <p>
+ * Each task returns a completion which is run by the traversing thread, in the order in which
+ * the tasks have been submitted. Completions are where visitors are called and errors are
+ * reported, so these happen in the same order as in sequential processing. The number of bytes
+ * held by tasks which have been submitted but not yet completed is capped by a budget.
+ */
+final class OrderedTaskPipeline implements Closeable
+{
+    private static final long BUDGET_PER_THREAD = 16L * 1024 * 1024;
+
+    /**
+     * The number of bytes a task is accounted for on top of its charge, to limit the number of
+     * tasks in flight.
+     */
+    private static final int PER_TASK_OVERHEAD = 1024;
+
+    private static final int WORKER_BUFFER_SIZE = 1024 * 1024;
+
+    private static final class Request
+    {
+        final long charge;
+
+        final Future<Runnable> future;
+
+        Request(long charge, Future<Runnable> future)
+        {
+            this.charge = charge;
+            this.future = future;
+        }
+    }
+
+    private final ExecutorService executor;
+
+    private final long budget;
+
+    private final Deque<Request> pending = new ArrayDeque<Request>();
+
+    private final ThreadLocal<byte[]> workerBuffer = new ThreadLocal<byte[]>()
+        {
+            @Override
+            protected byte[] initialValue()
+            {
+                return new byte[WORKER_BUFFER_SIZE];
+            }
+        };
+
+    private long bytesInFlight;
+
+    /**
+     * Returns a new pipeline with <var>numberOfThreads</var> worker threads, or <code>null</code>,
+     * if <var>numberOfThreads</var> does not exceed 1 and processing should be sequential.
+     */
+    static OrderedTaskPipeline tryCreate(int numberOfThreads)
+    {
+        return (numberOfThreads > 1) ? new OrderedTaskPipeline(numberOfThreads) : null;
+    }
+
+    private OrderedTaskPipeline(int numberOfThreads)
+    {
+        this.executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory()
+            {
+                private int count;
+
+                @Override
+                public Thread newThread(Runnable r)
+                {
+                    final Thread thread = new Thread(r, "H5AR Worker " + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        this.budget = numberOfThreads * BUDGET_PER_THREAD;
+    }
+
+    /**
+     * Returns a buffer for the exclusive use of the calling worker thread.
+     */
+    byte[] getWorkerBuffer()
+    {
+        return workerBuffer.get();
+    }
+
+    /**
+     * Submits <var>task</var> to the worker pool. If the budget is exhausted, the completions of
+     * earlier tasks are run first.
+     * 
+     * @param charge The number of bytes held by <var>task</var> until it is completed.
+     * @param task The task to run on a worker thread. Returns the completion to run on the
+     *            calling thread, or <code>null</code>, if there is nothing to complete. Errors
+     *            of the task need to be reported by its completion. An exception thrown by the
+     *            task is rethrown by a later call of this pipeline, which cannot tell the entry
+     *            it belongs to.
+     */
+    void submit(long charge, Callable<Runnable> task)
+    {
+        final long effectiveCharge = charge + PER_TASK_OVERHEAD;
+        while (pending.isEmpty() == false && bytesInFlight + effectiveCharge > budget)
+        {
+            completeOne();
+        }
+        bytesInFlight += effectiveCharge;
+        pending.add(new Request(effectiveCharge, executor.submit(task)));
+    }
+
+    /**
+     * Waits for all submitted tasks and runs their completions.
+     */
+    void drain()
+    {
+        while (pending.isEmpty() == false)
+        {
+            completeOne();
+        }
+    }
+
+    private void completeOne()
+    {
+        final Request request = pending.poll();
+        bytesInFlight -= request.charge;
+        final Runnable completionOrNull;
+        try
+        {
+            completionOrNull = request.future.get();
+        } catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw CheckedExceptionTunnel.wrapIfNecessary(ex);
+        } catch (ExecutionException ex)
+        {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw CheckedExceptionTunnel.wrapIfNecessary((Exception) cause);
+        }
+        if (completionOrNull != null)
+        {
+            completionOrNull.run();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+        pending.clear();
+        bytesInFlight = 0;
+    }
+}
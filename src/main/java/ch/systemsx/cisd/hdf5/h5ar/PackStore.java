@@ -0,0 +1,178 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ch.systemsx.cisd.hdf5.h5ar;
+
+import ch.systemsx.cisd.hdf5.HDF5GenericStorageFeatures;
+import ch.systemsx.cisd.hdf5.HDF5OpaqueType;
+import ch.systemsx.cisd.hdf5.IHDF5Reader;
+import ch.systemsx.cisd.hdf5.IHDF5Writer;
+import ch.systemsx.cisd.hdf5.h5ar.HDF5ArchiveUpdater.DataSetInfo;
+import hdf.hdf5lib.exceptions.HDF5JavaException;
+
+/**
+ * The packs of an archive: chunked data sets in the root group of the archive which hold the
+ * concatenated content of small files, so that these files don't need a data set of their own.
+ * <p>
+ * The location of a packed file is kept in its {@link LinkRecord}: the id of the pack, the offset
+ * of the file content in the pack and the size of the file. Content is only ever appended to a
+ * pack, the content of packed files that are deleted or overwritten stays in the pack. Each
+ * archiving session starts new packs, one for compressed and one for uncompressed content.
+ */
+final class PackStore
+{
+    private static final String OPAQUE_TAG_PACK = "PACK";
+
+    /**
+     * The chunk size of a pack, that is the unit in which packed files are read and decompressed.
+     */
+    private static final int PACK_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * The size at which no more content is appended to a pack.
+     */
+    private static final long MAX_PACK_SIZE = 256L * 1024 * 1024;
+
+    private static final class Pack
+    {
+        final int id;
+
+        final String path;
+
+        final HDF5OpaqueType type;
+
+        long size;
+
+        Pack(int id, String path, HDF5OpaqueType type)
+        {
+            this.id = id;
+            this.path = path;
+            this.type = type;
+        }
+    }
+
+    private final IHDF5Writer hdf5Writer;
+
+    private Pack compressedPackOrNull;
+
+    private Pack uncompressedPackOrNull;
+
+    private int nextPackId = LinkRecord.NOT_PACKED;
+
+    PackStore(IHDF5Writer hdf5Writer)
+    {
+        this.hdf5Writer = hdf5Writer;
+    }
+
+    /**
+     * Returns the path of the data set of pack <var>packId</var>.
+     */
+    static String getPackPath(IHDF5Reader reader, int packId)
+    {
+        return "/" + reader.object().toHouseKeepingPath("PACK" + packId);
+    }
+
+    /**
+     * Returns <code>true</code> if the pack holding the content of <var>link</var> exists.
+     */
+    static boolean packExists(IHDF5Reader reader, LinkRecord link)
+    {
+        return reader.object().isDataSet(getPackPath(reader, link.getPackId()));
+    }
+
+    /**
+     * Reads a block of the content of the file <var>link</var> at <var>objectPath</var>, wherever
+     * it is stored. Works like
+     * {@link ch.systemsx.cisd.hdf5.IHDF5OpaqueReader#readArrayToBlockWithOffset(String, byte[], int, long, int)}
+     * on the data set of a file that is not packed.
+     * 
+     * @return The number of bytes read, which is smaller than <var>blockSize</var> only at the end
+     *         of the file.
+     * @throws HDF5JavaException If the pack of a packed file is too short.
+     */
+    static int readBlock(IHDF5Reader reader, String objectPath, LinkRecord link, byte[] buffer,
+            int blockSize, long offset, int memoryOffset)
+    {
+        if (link.isPacked() == false)
+        {
+            return reader.opaque().readArrayToBlockWithOffset(objectPath, buffer, blockSize,
+                    offset, memoryOffset);
+        }
+        final int n = (int) Math.min(blockSize, link.getSize() - offset);
+        if (n <= 0)
+        {
+            return 0;
+        }
+        final int read =
+                reader.opaque().readArrayToBlockWithOffset(getPackPath(reader, link.getPackId()),
+                        buffer, n, link.getPackOffset() + offset, memoryOffset);
+        if (read < n)
+        {
+            throw new HDF5JavaException("Pack " + link.getPackId()
+                    + " ends before the end of the packed file.");
+        }
+        return read;
+    }
+
+    /**
+     * Appends the first <var>length</var> bytes of <var>data</var> to a pack.
+     * 
+     * @return The information on the packed file, including its location.
+     */
+    DataSetInfo append(byte[] data, int length, int crc32, boolean compress)
+    {
+        Pack pack = compress ? compressedPackOrNull : uncompressedPackOrNull;
+        if (pack == null || pack.size + length > MAX_PACK_SIZE)
+        {
+            pack = createPack(compress);
+            if (compress)
+            {
+                compressedPackOrNull = pack;
+            } else
+            {
+                uncompressedPackOrNull = pack;
+            }
+        }
+        final long offset = pack.size;
+        if (length > 0)
+        {
+            hdf5Writer.opaque().writeArrayBlockWithOffset(pack.path, pack.type, data, length,
+                    offset);
+            pack.size += length;
+        }
+        return new DataSetInfo(length, crc32, pack.id, offset);
+    }
+
+    private Pack createPack(boolean compress)
+    {
+        if (nextPackId == LinkRecord.NOT_PACKED)
+        {
+            nextPackId = 0;
+            while (hdf5Writer.exists(getPackPath(hdf5Writer, nextPackId)))
+            {
+                ++nextPackId;
+            }
+        }
+        final int id = nextPackId++;
+        final String path = getPackPath(hdf5Writer, id);
+        final HDF5OpaqueType type =
+                hdf5Writer.opaque().createArray(path, OPAQUE_TAG_PACK, 0, PACK_CHUNK_SIZE,
+                        compress ? HDF5GenericStorageFeatures.GENERIC_DEFLATE
+                                : HDF5GenericStorageFeatures.GENERIC_NO_COMPRESSION);
+        return new Pack(id, path, type);
+    }
+}
@@ -0,0 +1,494 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.systemsx.cisd.hdf5.h5ar;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reader for the entries of a tar stream, as written by GNU tar and POSIX (ustar, pax) tar
+ * implementations.
+ * <p>
+ * Supports regular files, directories, symbolic and hard links, GNU long names and pax extended
+ * headers (<code>path</code>, <code>linkpath</code>, <code>size</code>, <code>uid</code>,
+ * <code>gid</code>, <code>mtime</code>). Sparse files and device entries are returned with their
+ * raw type flag and are expected to be skipped by the caller.
+ */
+final class TarInputReader
+{
+    private static final int BLOCK_SIZE = 512;
+
+    private static final int MAX_EXTENDED_HEADER_SIZE = 1024 * 1024;
+
+    static final char TYPE_REGULAR_FILE = '0';
+
+    static final char TYPE_HARD_LINK = '1';
+
+    static final char TYPE_SYMLINK = '2';
+
+    static final char TYPE_DIRECTORY = '5';
+
+    private static final char TYPE_CONTIGUOUS_FILE = '7';
+
+    private static final char TYPE_GNU_LONG_NAME = 'L';
+
+    private static final char TYPE_GNU_LONG_LINK_NAME = 'K';
+
+    private static final char TYPE_PAX_HEADER = 'x';
+
+    private static final char TYPE_PAX_GLOBAL_HEADER = 'g';
+
+    /**
+     * The header of a tar entry.
+     */
+    static final class Entry
+    {
+        String name;
+
+        String linkName;
+
+        char type;
+
+        short permissions;
+
+        int uid;
+
+        int gid;
+
+        long size;
+
+        long lastModified;
+
+        boolean isRegularFile()
+        {
+            return type == TYPE_REGULAR_FILE || type == TYPE_CONTIGUOUS_FILE;
+        }
+    }
+
+    private final InputStream input;
+
+    private final byte[] header = new byte[BLOCK_SIZE];
+
+    private long remainingInEntry;
+
+    private int paddingOfEntry;
+
+    TarInputReader(InputStream input)
+    {
+        this.input = input;
+    }
+
+    /**
+     * Returns the next entry of the tar stream, or <code>null</code>, if the end of the stream has
+     * been reached. Skips what has not been read of the data of the previous entry.
+     */
+    Entry tryGetNextEntry() throws IOException
+    {
+        String longNameOrNull = null;
+        String longLinkNameOrNull = null;
+        Entry paxOrNull = null;
+        while (true)
+        {
+            skipRemainingData();
+            if (readHeader() == false)
+            {
+                return null;
+            }
+            final Entry entry = parseHeader();
+            startEntry(entry.size);
+            switch (entry.type)
+            {
+                case TYPE_GNU_LONG_NAME:
+                    longNameOrNull = trimAtNul(new String(readData(entry.size),
+                            StandardCharsets.UTF_8));
+                    continue;
+                case TYPE_GNU_LONG_LINK_NAME:
+                    longLinkNameOrNull = trimAtNul(new String(readData(entry.size),
+                            StandardCharsets.UTF_8));
+                    continue;
+                case TYPE_PAX_HEADER:
+                    paxOrNull = parsePaxHeader(entry.name, readData(entry.size));
+                    continue;
+                case TYPE_PAX_GLOBAL_HEADER:
+                    continue;
+                default:
+                    break;
+            }
+            if (longNameOrNull != null)
+            {
+                entry.name = longNameOrNull;
+            }
+            if (longLinkNameOrNull != null)
+            {
+                entry.linkName = longLinkNameOrNull;
+            }
+            if (paxOrNull != null)
+            {
+                applyPaxHeader(paxOrNull, entry);
+                startEntry(entry.size);
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Returns a stream of the data of the current entry. Closing the stream does not close the
+     * underlying tar stream.
+     */
+    InputStream getEntryInputStream()
+    {
+        return new InputStream()
+            {
+                @Override
+                public int read() throws IOException
+                {
+                    if (remainingInEntry == 0)
+                    {
+                        return -1;
+                    }
+                    final int b = input.read();
+                    if (b < 0)
+                    {
+                        throw new EOFException("Truncated tar entry.");
+                    }
+                    --remainingInEntry;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException
+                {
+                    if (remainingInEntry == 0)
+                    {
+                        return -1;
+                    }
+                    final int n = input.read(b, off, (int) Math.min(len, remainingInEntry));
+                    if (n < 0)
+                    {
+                        throw new EOFException("Truncated tar entry.");
+                    }
+                    remainingInEntry -= n;
+                    return n;
+                }
+
+                @Override
+                public void close()
+                {
+                    // Keep the tar stream open.
+                }
+            };
+    }
+
+    private void startEntry(long size)
+    {
+        this.remainingInEntry = size;
+        this.paddingOfEntry = (int) ((BLOCK_SIZE - (size % BLOCK_SIZE)) % BLOCK_SIZE);
+    }
+
+    private void skipRemainingData() throws IOException
+    {
+        skipFully(remainingInEntry + paddingOfEntry);
+        remainingInEntry = 0;
+        paddingOfEntry = 0;
+    }
+
+    private void skipFully(long n) throws IOException
+    {
+        long remaining = n;
+        while (remaining > 0)
+        {
+            final long skipped = input.skip(remaining);
+            if (skipped > 0)
+            {
+                remaining -= skipped;
+            } else
+            {
+                if (input.read() < 0)
+                {
+                    throw new EOFException("Truncated tar stream.");
+                }
+                --remaining;
+            }
+        }
+    }
+
+    private byte[] readData(long size) throws IOException
+    {
+        if (size > MAX_EXTENDED_HEADER_SIZE)
+        {
+            throw new IOException("Extended tar header too large: " + size + " bytes.");
+        }
+        final byte[] data = new byte[(int) size];
+        readFully(data);
+        remainingInEntry = 0;
+        return data;
+    }
+
+    private void readFully(byte[] data) throws IOException
+    {
+        int ofs = 0;
+        while (ofs < data.length)
+        {
+            final int n = input.read(data, ofs, data.length - ofs);
+            if (n < 0)
+            {
+                throw new EOFException("Truncated tar stream.");
+            }
+            ofs += n;
+        }
+    }
+
+    /**
+     * Reads the next header block.
+     * 
+     * @return <code>false</code>, if the end of the archive (a block of zeros or the end of the
+     *         stream) has been reached.
+     */
+    private boolean readHeader() throws IOException
+    {
+        int ofs = 0;
+        while (ofs < BLOCK_SIZE)
+        {
+            final int n = input.read(header, ofs, BLOCK_SIZE - ofs);
+            if (n < 0)
+            {
+                if (ofs == 0)
+                {
+                    return false;
+                }
+                throw new EOFException("Truncated tar header.");
+            }
+            ofs += n;
+        }
+        for (byte b : header)
+        {
+            if (b != 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Entry parseHeader() throws IOException
+    {
+        final long storedChecksum = parseNumber(148, 8);
+        long checksum = 0;
+        for (int i = 0; i < BLOCK_SIZE; ++i)
+        {
+            checksum += (i >= 148 && i < 156) ? ' ' : (header[i] & 0xff);
+        }
+        if (checksum != storedChecksum)
+        {
+            throw new IOException("Checksum mismatch in tar header (not a tar stream?).");
+        }
+        final Entry entry = new Entry();
+        entry.name = parseString(0, 100);
+        entry.permissions = (short) (parseNumber(100, 8) & 07777);
+        entry.uid = (int) parseNumber(108, 8);
+        entry.gid = (int) parseNumber(116, 8);
+        entry.size = parseNumber(124, 12);
+        entry.lastModified = parseNumber(136, 12);
+        entry.type = (header[156] == 0) ? TYPE_REGULAR_FILE : (char) header[156];
+        entry.linkName = parseString(157, 100);
+        if (isPosixUstar())
+        {
+            final String prefix = parseString(345, 155);
+            if (prefix.length() > 0)
+            {
+                entry.name = prefix + "/" + entry.name;
+            }
+        }
+        if (entry.type == TYPE_DIRECTORY || entry.type == TYPE_SYMLINK
+                || entry.type == TYPE_HARD_LINK)
+        {
+            entry.size = 0;
+        }
+        return entry;
+    }
+
+    /**
+     * Returns <code>true</code> if the header has the POSIX magic <code>"ustar\0"</code> and
+     * version <code>"00"</code>. Old GNU headers have the magic <code>"ustar  \0"</code> instead
+     * and store other fields (like access and change time) where POSIX has the name prefix.
+     */
+    private boolean isPosixUstar()
+    {
+        return parseString(257, 6).equals("ustar") && header[262] == 0 && header[263] == '0'
+                && header[264] == '0';
+    }
+
+    private String parseString(int offset, int length)
+    {
+        int end = offset;
+        while (end < offset + length && header[end] != 0)
+        {
+            ++end;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses an octal number, or a big-endian binary number if the highest bit of the first byte
+     * is set (GNU extension for large values).
+     */
+    private long parseNumber(int offset, int length)
+    {
+        if ((header[offset] & 0x80) != 0)
+        {
+            long value = header[offset] & 0x7f;
+            for (int i = offset + 1; i < offset + length; ++i)
+            {
+                value = (value << 8) | (header[i] & 0xff);
+            }
+            return value;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; ++i)
+        {
+            final byte b = header[i];
+            if (b >= '0' && b <= '7')
+            {
+                value = (value << 3) + (b - '0');
+            } else if (b == 0 || (b == ' ' && value > 0))
+            {
+                break;
+            }
+        }
+        return value;
+    }
+
+    private static String trimAtNul(String s)
+    {
+        final int idx = s.indexOf('\0');
+        return (idx < 0) ? s : s.substring(0, idx);
+    }
+
+    /**
+     * Parses the records of a pax extended header. Each record has the form
+     * <code>"length key=value\n"</code>, where <code>length</code> is the length of the record in
+     * bytes.
+     * 
+     * @param entryName The name of the pax header entry, for error messages.
+     */
+    private static Entry parsePaxHeader(String entryName, byte[] data) throws IOException
+    {
+        final Entry pax = new Entry();
+        pax.size = pax.uid = pax.gid = -1;
+        pax.lastModified = -1;
+        int pos = 0;
+        while (pos < data.length)
+        {
+            int spacePos = pos;
+            while (spacePos < data.length && data[spacePos] != ' ')
+            {
+                ++spacePos;
+            }
+            final int recordLength;
+            try
+            {
+                recordLength =
+                        Integer.parseInt(new String(data, pos, spacePos - pos,
+                                StandardCharsets.US_ASCII));
+            } catch (NumberFormatException ex)
+            {
+                throw new IOException("Malformed pax header '" + entryName + "'.", ex);
+            }
+            if (recordLength <= 0 || pos + recordLength > data.length
+                    || spacePos + 1 >= pos + recordLength)
+            {
+                throw new IOException("Malformed pax header '" + entryName + "'.");
+            }
+            final String record =
+                    new String(data, spacePos + 1, pos + recordLength - spacePos - 2,
+                            StandardCharsets.UTF_8);
+            final int eqPos = record.indexOf('=');
+            if (eqPos > 0)
+            {
+                final String key = record.substring(0, eqPos);
+                final String value = record.substring(eqPos + 1);
+                try
+                {
+                    parsePaxRecord(key, value, pax);
+                } catch (NumberFormatException ex)
+                {
+                    throw new IOException("Malformed value of '" + key + "' in pax header '"
+                            + entryName + "': " + value, ex);
+                }
+            }
+            pos += recordLength;
+        }
+        return pax;
+    }
+
+    private static void parsePaxRecord(String key, String value, Entry pax)
+    {
+        switch (key)
+        {
+            case "path":
+                pax.name = value;
+                break;
+            case "linkpath":
+                pax.linkName = value;
+                break;
+            case "size":
+                pax.size = Long.parseLong(value);
+                break;
+            case "uid":
+                pax.uid = Integer.parseInt(value);
+                break;
+            case "gid":
+                pax.gid = Integer.parseInt(value);
+                break;
+            case "mtime":
+                pax.lastModified = (long) Double.parseDouble(value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void applyPaxHeader(Entry pax, Entry entry)
+    {
+        if (pax.name != null)
+        {
+            entry.name = pax.name;
+        }
+        if (pax.linkName != null)
+        {
+            entry.linkName = pax.linkName;
+        }
+        if (pax.size >= 0 && entry.isRegularFile())
+        {
+            entry.size = pax.size;
+        }
+        if (pax.uid >= 0)
+        {
+            entry.uid = pax.uid;
+        }
+        if (pax.gid >= 0)
+        {
+            entry.gid = pax.gid;
+        }
+        if (pax.lastModified >= 0)
+        {
+            entry.lastModified = pax.lastModified;
+        }
+    }
+}
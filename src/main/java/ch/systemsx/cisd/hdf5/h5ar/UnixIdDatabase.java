@@ -0,0 +1,103 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ch.systemsx.cisd.hdf5.h5ar;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reader for the local user and group databases (<code>/etc/passwd</code> and
+ * <code>/etc/group</code>), to resolve all ids with one sequential read rather than one system
+ * call per id.
+ * <p>
+ * Ids from other sources of the name service, like LDAP, are not in these files and need to be
+ * resolved one by one.
+ */
+final class UnixIdDatabase
+{
+    static final File PASSWD_FILE = new File("/etc/passwd");
+
+    static final File GROUP_FILE = new File("/etc/group");
+
+    private UnixIdDatabase()
+    {
+        // Not to be instantiated.
+    }
+
+    /**
+     * Reads the entries of <var>database</var>, a file in the format of <code>/etc/passwd</code>
+     * or <code>/etc/group</code>.
+     * 
+     * @return The map of id (the third field) to all fields of the entry. Empty if the file cannot
+     *         be read. If an id occurs more than once, the first entry wins, like for the name
+     *         service.
+     */
+    static Map<Integer, String[]> read(File database)
+    {
+        final List<String> lines;
+        try
+        {
+            lines = Files.readAllLines(database.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException | RuntimeException ex)
+        {
+            return Collections.emptyMap();
+        }
+        final Map<Integer, String[]> entries = new HashMap<Integer, String[]>(lines.size());
+        for (String line : lines)
+        {
+            // Skip comments and NIS compat entries.
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith("+")
+                    || line.startsWith("-"))
+            {
+                continue;
+            }
+            final String[] fields = line.split(":", -1);
+            if (fields.length < 3 || fields[0].isEmpty())
+            {
+                continue;
+            }
+            try
+            {
+                final Integer id = Integer.valueOf(fields[2].trim());
+                if (entries.containsKey(id) == false)
+                {
+                    entries.put(id, fields);
+                }
+            } catch (NumberFormatException ex)
+            {
+                // Skip malformed entry.
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the members of the group entry <var>fields</var> read from
+     * <code>/etc/group</code>.
+     */
+    static String[] getGroupMembers(String[] fields)
+    {
+        return (fields.length < 4 || fields[3].isEmpty()) ? new String[0] : fields[3].split(",");
+    }
+}
@@ -32,7 +32,9 @@ public final class VerifyParameters
 
     private final boolean verifyAttributes;
 
-    public static final VerifyParameters DEFAULT = new VerifyParameters(true, false, false);
+    private final int parallelism;
+
+    public static final VerifyParameters DEFAULT = new VerifyParameters(true, false, false, 1);
 
     /**
      * A class for constructing a new verify parameters object.
@@ -45,6 +47,8 @@ public final class VerifyParameters
 
         private boolean verifyAttributes = false;
 
+        private int parallelism = 1;
+
         private VerifyParametersBuilder()
         {
         }
@@ -118,12 +122,30 @@ public final class VerifyParameters
             return this;
         }
 
+        /**
+         * Sets the number of threads that check entries against the file system. With more than
+         * one thread, file system checks (including the computation of checksums) run in parallel,
+         * while the archive is still read by one thread. Entries are reported in the same order
+         * as for one thread. Default: 1.
+         */
+        public VerifyParametersBuilder parallelism(@SuppressWarnings("hiding")
+        int parallelism)
+        {
+            if (parallelism < 1)
+            {
+                throw new IllegalArgumentException(
+                        "Number of threads needs to be at least 1, but is " + parallelism + ".");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
         /**
          * Returns the {@link VerifyParameters} object constructed.
          */
         public VerifyParameters get()
         {
-            return new VerifyParameters(recursive, numeric, verifyAttributes);
+            return new VerifyParameters(recursive, numeric, verifyAttributes, parallelism);
         }
     }
 
@@ -137,11 +159,13 @@ public final class VerifyParameters
         return new VerifyParametersBuilder();
     }
 
-    private VerifyParameters(boolean recursive, boolean numeric, boolean verifyAttributes)
+    private VerifyParameters(boolean recursive, boolean numeric, boolean verifyAttributes,
+            int parallelism)
     {
         this.recursive = recursive;
         this.numeric = numeric;
         this.verifyAttributes = verifyAttributes;
+        this.parallelism = parallelism;
     }
 
     /**
@@ -176,4 +200,14 @@ public final class VerifyParameters
         return verifyAttributes;
     }
 
+    /**
+     * Returns the number of threads that check entries against the file system.
+     * 
+     * @see VerifyParametersBuilder#parallelism(int)
+     */
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
 }
@@ -0,0 +1,527 @@
+/*
+ * Copyright 2007 - 2018 ETH Zuerich, CISD and SIS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ch.systemsx.cisd.hdf5.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.SeekableByteChannel;
+
+import hdf.hdf5lib.exceptions.HDF5Exception;
+import ch.systemsx.cisd.base.exceptions.IOExceptionUnchecked;
+import ch.systemsx.cisd.hdf5.HDF5DataSetInformation;
+import ch.systemsx.cisd.hdf5.HDF5GenericStorageFeatures;
+import ch.systemsx.cisd.hdf5.HDF5OpaqueType;
+import ch.systemsx.cisd.hdf5.HDF5StorageLayout;
+import ch.systemsx.cisd.hdf5.IHDF5Reader;
+import ch.systemsx.cisd.hdf5.IHDF5Writer;
+
+/**
+ * A {@link SeekableByteChannel} backed by an HDF5 dataset. The HDF5 dataset needs to be a byte
+ * array (or opaque byte array) of rank 1.
+ * <p>
+ * Contrary to {@link HDF5DataSetRandomAccessFile}, this channel is not buffered: each call reads
+ * or writes the requested range of the dataset with one HDF5 call, regardless of how many chunks
+ * it spans. Buffers backed by an array and direct buffers are read into and written from
+ * directly, the latter by handing their native memory to HDF5. Scattering / gathering calls do
+ * one HDF5 call per buffer when all buffers can be accessed that way. Only the remaining cases
+ * (e.g. read-only heap buffers) go through one transfer array, which is filled by a single HDF5
+ * call of up to {@link #MAX_TRANSFER_SIZE} bytes.
+ */
+public class HDF5DataSetByteChannel implements SeekableByteChannel, ScatteringByteChannel,
+        GatheringByteChannel
+{
+    /**
+     * The maximal size of the transfer array.
+     */
+    public static final int MAX_TRANSFER_SIZE = 16 * 1024 * 1024;
+
+    private final IHDF5Reader reader;
+
+    private final IHDF5Writer writerOrNull;
+
+    private final String dataSetPath;
+
+    private final HDF5OpaqueType opaqueTypeOrNull;
+
+    private final boolean extendable;
+
+    private final boolean closeReaderOnClose;
+
+    private long length;
+
+    private long position;
+
+    private boolean open = true;
+
+    private byte[] transferBufferOrNull;
+
+    /**
+     * Creates a new HDF5DataSetByteChannel for the given hdf5File and dataSetPath.
+     */
+    HDF5DataSetByteChannel(File hdf5File, String dataSetPath,
+            HDF5GenericStorageFeatures creationStorageFeature, int size, String opaqueTagOrNull,
+            boolean readOnly)
+    {
+        this(HDF5DataSetRandomAccessFile.createHDF5ReaderOrWriter(hdf5File, readOnly),
+                dataSetPath, creationStorageFeature, size, opaqueTagOrNull, true);
+    }
+
+    /**
+     * Creates a new HDF5DataSetByteChannel for the given reader and dataSetPath.
+     * <p>
+     * If <code>reader instanceof IHDF5Writer</code>, the channel will be in read-write mode, else
+     * it will be in readonly mode.
+     */
+    HDF5DataSetByteChannel(IHDF5Reader reader, String dataSetPath,
+            HDF5GenericStorageFeatures creationStorageFeature, int size, String opaqueTagOrNull,
+            boolean closeReaderOnClose) throws IOExceptionUnchecked
+    {
+        this.reader = reader;
+        this.writerOrNull = (reader instanceof IHDF5Writer) ? (IHDF5Writer) reader : null;
+        this.dataSetPath = dataSetPath;
+        this.closeReaderOnClose = closeReaderOnClose;
+        try
+        {
+            if (writerOrNull != null)
+            {
+                HDF5DataSetRandomAccessFile.createDataSetIfMissing(writerOrNull, dataSetPath,
+                        creationStorageFeature, size, opaqueTagOrNull);
+            }
+            final HDF5DataSetInformation info =
+                    HDF5DataSetRandomAccessFile.getAndCheckDataSetInformation(reader,
+                            dataSetPath);
+            this.opaqueTypeOrNull =
+                    (writerOrNull != null) ? HDF5DataSetRandomAccessFile.tryGetOpaqueType(reader,
+                            info, dataSetPath) : null;
+            this.extendable = (info.getStorageLayout() == HDF5StorageLayout.CHUNKED);
+            this.length = info.getSize();
+        } catch (HDF5Exception ex)
+        {
+            throw new IOExceptionUnchecked(ex);
+        }
+    }
+
+    public File getHdf5File()
+    {
+        return reader.file().getFile();
+    }
+
+    public String getDataSetPath()
+    {
+        return dataSetPath;
+    }
+
+    /**
+     * Returns <code>true</code> if the HDF5 file has been opened in read-only mode.
+     */
+    public boolean isReadOnly()
+    {
+        return (writerOrNull == null);
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    @Override
+    public long position() throws IOException
+    {
+        checkOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException
+    {
+        checkOpen();
+        if (newPosition < 0)
+        {
+            throw new IllegalArgumentException("New position may not be negative.");
+        }
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException
+    {
+        checkOpen();
+        return length;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) throws IOException
+    {
+        checkOpen();
+        checkWritable();
+        if (size < 0)
+        {
+            throw new IllegalArgumentException("Size may not be negative.");
+        }
+        if (size < length)
+        {
+            setLength(size);
+        }
+        if (position > size)
+        {
+            this.position = size;
+        }
+        return this;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException
+    {
+        checkOpen();
+        if (position >= length)
+        {
+            return -1;
+        }
+        final int count;
+        if (dst.hasArray())
+        {
+            final int len = (int) Math.min(dst.remaining(), length - position);
+            count = readData(dst.array(), dst.arrayOffset() + dst.position(), len, position);
+            dst.position(dst.position() + count);
+        } else if (dst.isDirect())
+        {
+            final int len = (int) Math.min(dst.remaining(), length - position);
+            count = readData(dst, len, position);
+        } else
+        {
+            count = (int) readThroughTransferBuffer(new ByteBuffer[]
+                { dst }, 0, 1);
+        }
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts) throws IOException
+    {
+        return read(dsts, 0, dsts.length);
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int len) throws IOException
+    {
+        checkOpen();
+        if (position >= length)
+        {
+            return -1;
+        }
+        if (len == 1 || allAccessibleDirectly(dsts, offset, len, false))
+        {
+            // No copying needed, one HDF5 call per buffer.
+            long count = 0;
+            for (int i = offset; i < offset + len && position < length; ++i)
+            {
+                count += Math.max(0, read(dsts[i]));
+            }
+            return count;
+        }
+        final long count = readThroughTransferBuffer(dsts, offset, len);
+        position += count;
+        return count;
+    }
+
+    private long readThroughTransferBuffer(ByteBuffer[] dsts, int offset, int len)
+            throws IOException
+    {
+        final int transferSize =
+                (int) Math.min(Math.min(remaining(dsts, offset, len), length - position),
+                        MAX_TRANSFER_SIZE);
+        final byte[] buffer = getTransferBuffer(transferSize);
+        final int count = readData(buffer, 0, transferSize, position);
+        int bufferOffset = 0;
+        for (int i = offset; i < offset + len && bufferOffset < count; ++i)
+        {
+            final int n = Math.min(dsts[i].remaining(), count - bufferOffset);
+            dsts[i].put(buffer, bufferOffset, n);
+            bufferOffset += n;
+        }
+        return count;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException
+    {
+        checkOpen();
+        checkWritable();
+        final int len = src.remaining();
+        if (len == 0)
+        {
+            return 0;
+        }
+        ensureLength(position + len);
+        if (src.hasArray() && src.arrayOffset() + src.position() == 0)
+        {
+            writeData(src.array(), len, position);
+            src.position(src.position() + len);
+            position += len;
+        } else if (src.isDirect())
+        {
+            writeData(src, len, position);
+            position += len;
+        } else
+        {
+            final ByteBuffer[] srcs = new ByteBuffer[]
+                { src };
+            while (src.hasRemaining())
+            {
+                writeThroughTransferBuffer(srcs, 0, 1);
+            }
+        }
+        return len;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException
+    {
+        return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int len) throws IOException
+    {
+        checkOpen();
+        checkWritable();
+        final long total = remaining(srcs, offset, len);
+        if (total == 0)
+        {
+            return 0;
+        }
+        ensureLength(position + total);
+        if (allAccessibleDirectly(srcs, offset, len, true))
+        {
+            // No copying needed, one HDF5 call per buffer.
+            for (int i = offset; i < offset + len; ++i)
+            {
+                write(srcs[i]);
+            }
+            return total;
+        }
+        long count = 0;
+        while (count < total)
+        {
+            count += writeThroughTransferBuffer(srcs, offset, len);
+        }
+        return count;
+    }
+
+    /**
+     * Writes (up to {@link #MAX_TRANSFER_SIZE} bytes of) <var>srcs</var> with one HDF5 call. The
+     * caller needs to ensure the dataset is long enough.
+     */
+    private int writeThroughTransferBuffer(ByteBuffer[] srcs, int offset, int len)
+            throws IOException
+    {
+        final int transferSize = (int) Math.min(remaining(srcs, offset, len), MAX_TRANSFER_SIZE);
+        final byte[] buffer = getTransferBuffer(transferSize);
+        int bufferOffset = 0;
+        for (int i = offset; i < offset + len && bufferOffset < transferSize; ++i)
+        {
+            final int n = Math.min(srcs[i].remaining(), transferSize - bufferOffset);
+            srcs[i].get(buffer, bufferOffset, n);
+            bufferOffset += n;
+        }
+        writeData(buffer, transferSize, position);
+        position += transferSize;
+        return transferSize;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (open == false)
+        {
+            return;
+        }
+        this.open = false;
+        this.transferBufferOrNull = null;
+        if (closeReaderOnClose)
+        {
+            try
+            {
+                reader.close();
+            } catch (HDF5Exception ex)
+            {
+                throw new IOException(ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private int readData(byte[] data, int dataOffset, int len, long offset) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        try
+        {
+            return reader.opaque().readArrayToBlockWithOffset(dataSetPath, data, len, offset,
+                    dataOffset);
+        } catch (HDF5Exception ex)
+        {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    private int readData(ByteBuffer data, int len, long offset) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        try
+        {
+            return reader.opaque().readArrayToBlockWithOffset(dataSetPath, data, len, offset);
+        } catch (HDF5Exception ex)
+        {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    private void writeData(ByteBuffer data, int len, long offset) throws IOException
+    {
+        try
+        {
+            if (opaqueTypeOrNull != null)
+            {
+                writerOrNull.opaque().writeArrayBlockWithOffset(dataSetPath, opaqueTypeOrNull,
+                        data, len, offset);
+            } else
+            {
+                writerOrNull.int8().writeArrayBlockWithOffset(dataSetPath, data, len, offset);
+            }
+        } catch (HDF5Exception ex)
+        {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    private void writeData(byte[] data, int len, long offset) throws IOException
+    {
+        try
+        {
+            if (opaqueTypeOrNull != null)
+            {
+                writerOrNull.opaque().writeArrayBlockWithOffset(dataSetPath, opaqueTypeOrNull,
+                        data, len, offset);
+            } else
+            {
+                writerOrNull.int8().writeArrayBlockWithOffset(dataSetPath, data, len, offset);
+            }
+        } catch (HDF5Exception ex)
+        {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    private void ensureLength(long minLength) throws IOException
+    {
+        if (minLength > length)
+        {
+            if (extendable == false)
+            {
+                throw new IOException("Unable to extend dataset from " + length + " to "
+                        + minLength + ": dataset is not extendable.");
+            }
+            setLength(minLength);
+        }
+    }
+
+    private void setLength(long newLength) throws IOException
+    {
+        try
+        {
+            writerOrNull.object().setDataSetSize(dataSetPath, newLength);
+        } catch (HDF5Exception ex)
+        {
+            throw new IOException(ex.getMessage(), ex);
+        }
+        this.length = newLength;
+    }
+
+    private byte[] getTransferBuffer(int minSize)
+    {
+        if (transferBufferOrNull == null || transferBufferOrNull.length < minSize)
+        {
+            transferBufferOrNull = new byte[minSize];
+        }
+        return transferBufferOrNull;
+    }
+
+    /**
+     * Returns <code>true</code> if HDF5 can read into or write from all <var>buffers</var> without
+     * going through the transfer array. For <var>writing</var>, an array needs to start at the
+     * position of the buffer.
+     */
+    private static boolean allAccessibleDirectly(ByteBuffer[] buffers, int offset, int len,
+            boolean writing)
+    {
+        for (int i = offset; i < offset + len; ++i)
+        {
+            final ByteBuffer buffer = buffers[i];
+            if (buffer.isDirect())
+            {
+                continue;
+            }
+            if (buffer.hasArray() == false
+                    || (writing && buffer.arrayOffset() + buffer.position() != 0))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long remaining(ByteBuffer[] buffers, int offset, int len)
+    {
+        long remaining = 0;
+        for (int i = offset; i < offset + len; ++i)
+        {
+            remaining += buffers[i].remaining();
+        }
+        return remaining;
+    }
+
+    private void checkOpen() throws ClosedChannelException
+    {
+        if (open == false)
+        {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private void checkWritable()
+    {
+        if (isReadOnly())
+        {
+            throw new NonWritableChannelException();
+        }
+    }
+
+}
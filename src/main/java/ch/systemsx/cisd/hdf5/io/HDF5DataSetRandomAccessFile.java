@@ -24,6 +24,17 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteOrder;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import hdf.hdf5lib.exceptions.HDF5Exception;
 import ch.systemsx.cisd.base.convert.NativeData;
@@ -44,11 +55,78 @@ import ch.systemsx.cisd.hdf5.exceptions.HDF5FileNotFoundException;
 /**
  * A {@link IRandomAccessFile} backed by an HDF5 dataset. The HDF5 dataset needs to be a byte array
  * (or opaque byte array) of rank 1.
+ * <p>
+ * The dataset is accessed in blocks of the size of one chunk (or of
+ * {@link #CONTIGUOUS_BLOCK_SIZE} for datasets which are not chunked). The most recently used blocks are
+ * kept in a cache (see {@link #setBlockCacheSize(int)}), modified blocks are written back to the
+ * dataset when they are evicted from the cache or when the file is flushed. In read-only mode,
+ * forward scans over the dataset are detected and the next blocks are read ahead on a background
+ * thread (see {@link #setMaxReadAheadBlocks(int)}).
  * 
  * @author Bernd Rinn
  */
 public class HDF5DataSetRandomAccessFile implements IRandomAccessFile, Flushable
 {
+    /**
+     * The default number of blocks held in memory.
+     */
+    public static final int DEFAULT_BLOCK_CACHE_SIZE = 4;
+
+    /**
+     * The default maximal number of blocks read ahead of a forward scan.
+     */
+    public static final int DEFAULT_MAX_READ_AHEAD_BLOCKS = 2;
+
+    /**
+     * The size of the window through which datasets with a contiguous or compact layout are
+     * accessed.
+     */
+    public static final int CONTIGUOUS_BLOCK_SIZE = 1024 * 1024;
+
+    /**
+     * The number of consecutive forward block transitions after which a scan is considered
+     * sequential.
+     */
+    private static final int SEQUENTIAL_TRANSITIONS_BEFORE_READ_AHEAD = 2;
+
+    /**
+     * A block which is not the current block, but kept in memory.
+     */
+    private static final class CachedBlock
+    {
+        final byte[] data;
+
+        final int size;
+
+        boolean dirty;
+
+        CachedBlock(byte[] data, int size, boolean dirty)
+        {
+            this.data = data;
+            this.size = size;
+            this.dirty = dirty;
+        }
+    }
+
+    /**
+     * The executor for reading ahead. As the HDF5 library serializes all calls, one thread is
+     * enough for all files.
+     */
+    private static final class ReadAheadExecutorHolder
+    {
+        static final ExecutorService EXECUTOR = Executors
+                .newSingleThreadExecutor(new ThreadFactory()
+                    {
+                        @Override
+                        public Thread newThread(Runnable r)
+                        {
+                            final Thread thread = new Thread(r, "HDF5 Read-Ahead");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+    }
+
     private final IHDF5Reader reader;
 
     private final IHDF5Writer writerOrNull;
@@ -83,6 +161,21 @@ public class HDF5DataSetRandomAccessFile implements IRandomAccessFile, Flushable
 
     private boolean extensionPending;
 
+    /**
+     * The blocks other than the current one, in order of their last access.
+     */
+    private final LinkedHashMap<Long, CachedBlock> blockCache =
+            new LinkedHashMap<Long, CachedBlock>(16, 0.75f, true);
+
+    private final Map<Long, Future<CachedBlock>> pendingReadAheads =
+            new HashMap<Long, Future<CachedBlock>>();
+
+    private int blockCacheSize = DEFAULT_BLOCK_CACHE_SIZE;
+
+    private int maxReadAheadBlocks = DEFAULT_MAX_READ_AHEAD_BLOCKS;
+
+    private int sequentialTransitions;
+
     private ch.systemsx.cisd.base.convert.NativeData.ByteOrder byteOrder =
             ch.systemsx.cisd.base.convert.NativeData.ByteOrder.BIG_ENDIAN;
 
@@ -97,7 +190,7 @@ public class HDF5DataSetRandomAccessFile implements IRandomAccessFile, Flushable
                 size, opaqueTagOrNull, true);
     }
 
-    private static IHDF5Reader createHDF5ReaderOrWriter(File hdf5File, boolean readOnly)
+    static IHDF5Reader createHDF5ReaderOrWriter(File hdf5File, boolean readOnly)
     {
         try
         {
@@ -140,65 +233,90 @@ public class HDF5DataSetRandomAccessFile implements IRandomAccessFile, Flushable
                 this.writerOrNull = (IHDF5Writer) reader;
                 this.writerOrNull.file().addFlushable(this);
                 this.reader = writerOrNull;
-                if (writerOrNull.exists(dataSetPath) == false)
-                {
-                    long maxSize = requiresFixedMaxSize(creationStorageFeature) ? size : 0;
-                    if (opaqueTagOrNull == null)
-                    {
-                        writerOrNull.int8().createArray(dataSetPath, maxSize, size,
-                                HDF5IntStorageFeatures.createFromGeneric(creationStorageFeature));
-                    } else
-                    {
-                        writerOrNull.opaque().createArray(dataSetPath, opaqueTagOrNull, maxSize,
-                                size, creationStorageFeature);
-                    }
-                }
+                createDataSetIfMissing(writerOrNull, dataSetPath, creationStorageFeature, size,
+                        opaqueTagOrNull);
             }
         } catch (HDF5Exception ex)
         {
             throw new IOExceptionUnchecked(ex);
         }
         this.dataSetPath = dataSetPath;
-        this.dataSetInfo = reader.getDataSetInformation(dataSetPath);
-        if (readOnly == false
-                && dataSetInfo.getTypeInformation().getDataClass() == HDF5DataClass.OPAQUE)
+        this.dataSetInfo = getAndCheckDataSetInformation(reader, dataSetPath);
+        this.opaqueTypeOrNull = readOnly ? null : tryGetOpaqueType(reader, dataSetInfo, dataSetPath);
+        this.length = dataSetInfo.getSize();
+
+        // Chunked data sets are read chunk by chunk, other layouts through a window of fixed size,
+        // so memory consumption does not depend on the size of the dataset.
+        if (dataSetInfo.getStorageLayout() == HDF5StorageLayout.CHUNKED)
         {
-            this.opaqueTypeOrNull = reader.opaque().tryGetOpaqueType(dataSetPath);
+            this.blockSize = dataSetInfo.tryGetChunkSizes()[0];
         } else
         {
-            this.opaqueTypeOrNull = null;
+            this.blockSize = (int) Math.max(1, Math.min(length, CONTIGUOUS_BLOCK_SIZE));
+        }
+        this.extendable = (dataSetInfo.getStorageLayout() == HDF5StorageLayout.CHUNKED);
+        this.blockOffset = 0;
+        this.block = new byte[blockSize];
+        this.realBlockSize = -1;
+        this.positionInBlock = 0;
+    }
+
+    /**
+     * Creates the byte dataset <var>dataSetPath</var>, if it doesn't exist yet.
+     */
+    static void createDataSetIfMissing(IHDF5Writer writer, String dataSetPath,
+            HDF5GenericStorageFeatures creationStorageFeature, int size, String opaqueTagOrNull)
+            throws HDF5Exception
+    {
+        if (writer.exists(dataSetPath) == false)
+        {
+            long maxSize = requiresFixedMaxSize(creationStorageFeature) ? size : 0;
+            if (opaqueTagOrNull == null)
+            {
+                writer.int8().createArray(dataSetPath, maxSize, size,
+                        HDF5IntStorageFeatures.createFromGeneric(creationStorageFeature));
+            } else
+            {
+                writer.opaque().createArray(dataSetPath, opaqueTagOrNull, maxSize, size,
+                        creationStorageFeature);
+            }
         }
-        if (dataSetInfo.getRank() != 1)
+    }
+
+    /**
+     * Returns the information of <var>dataSetPath</var>, checking that it is a byte dataset of
+     * rank 1.
+     */
+    static HDF5DataSetInformation getAndCheckDataSetInformation(IHDF5Reader reader,
+            String dataSetPath) throws IOExceptionUnchecked
+    {
+        final HDF5DataSetInformation info = reader.getDataSetInformation(dataSetPath);
+        if (info.getRank() != 1)
         {
-            throw new IOExceptionUnchecked("Dataset has wrong rank (r=" + dataSetInfo.getRank()
-                    + ")");
+            throw new IOExceptionUnchecked("Dataset has wrong rank (r=" + info.getRank() + ")");
         }
-        if (dataSetInfo.getTypeInformation().getElementSize() != 1)
+        if (info.getTypeInformation().getElementSize() != 1)
         {
             throw new IOExceptionUnchecked("Dataset has wrong element size (size="
-                    + dataSetInfo.getTypeInformation().getElementSize() + " bytes)");
+                    + info.getTypeInformation().getElementSize() + " bytes)");
         }
-        this.length = dataSetInfo.getSize();
+        return info;
+    }
 
-        // Chunked data sets are read chunk by chunk, other layouts are read completely.
-        if (dataSetInfo.getStorageLayout() == HDF5StorageLayout.CHUNKED)
+    /**
+     * Returns the opaque type to write <var>dataSetPath</var> with, or <code>null</code>, if it
+     * is not an opaque dataset.
+     */
+    static HDF5OpaqueType tryGetOpaqueType(IHDF5Reader reader, HDF5DataSetInformation info,
+            String dataSetPath)
+    {
+        if (info.getTypeInformation().getDataClass() == HDF5DataClass.OPAQUE)
         {
-            this.blockSize = dataSetInfo.tryGetChunkSizes()[0];
+            return reader.opaque().tryGetOpaqueType(dataSetPath);
         } else
         {
-            // Limitation: we do not yet handle the case of contiguous data sets larger than 2GB
-            if ((int) length != length())
-            {
-                throw new IOExceptionUnchecked("Dataset is too large (size=" + length + " bytes)");
-
-            }
-            this.blockSize = (int) length;
+            return null;
         }
-        this.extendable = (dataSetInfo.getStorageLayout() == HDF5StorageLayout.CHUNKED);
-        this.blockOffset = 0;
-        this.block = new byte[blockSize];
-        this.realBlockSize = -1;
-        this.positionInBlock = 0;
     }
 
     private static boolean requiresFixedMaxSize(HDF5GenericStorageFeatures features)
@@ -267,20 +385,221 @@ public class HDF5DataSetRandomAccessFile implements IRandomAccessFile, Flushable
     {
         if (newBlockOffset != blockOffset)
         {
-            flush();
-            try
+            updateAccessPattern(newBlockOffset);
+            retireBlock();
+            final CachedBlock cachedBlockOrNull = tryTakeCachedBlock(newBlockOffset);
+            this.blockOffset = newBlockOffset;
+            if (cachedBlockOrNull != null)
             {
-                this.realBlockSize =
-                        reader.opaque().readArrayToBlockWithOffset(dataSetPath, block, blockSize,
-                                newBlockOffset, 0);
-            } catch (HDF5Exception ex)
+                this.block = cachedBlockOrNull.data;
+                this.realBlockSize = cachedBlockOrNull.size;
+                this.blockDirty = cachedBlockOrNull.dirty;
+            } else
             {
-                throw new IOExceptionUnchecked(ex);
+                if (isAligned(newBlockOffset) == false)
+                {
+                    // Unaligned blocks overlap with the cached blocks.
+                    flush();
+                    blockCache.clear();
+                }
+                this.realBlockSize = -1;
+                this.realBlockSize = readBlockData(block, newBlockOffset);
             }
-            this.blockOffset = newBlockOffset;
+            scheduleReadAhead();
         }
     }
 
+    private int readBlockData(byte[] data, long offset) throws IOExceptionUnchecked
+    {
+        try
+        {
+            return reader.opaque().readArrayToBlockWithOffset(dataSetPath, data, blockSize,
+                    offset, 0);
+        } catch (HDF5Exception ex)
+        {
+            throw new IOExceptionUnchecked(ex);
+        }
+    }
+
+    private void writeBlockData(byte[] data, int size, long offset) throws IOExceptionUnchecked
+    {
+        try
+        {
+            if (opaqueTypeOrNull != null)
+            {
+                writerOrNull.opaque().writeArrayBlockWithOffset(dataSetPath, opaqueTypeOrNull,
+                        data, size, offset);
+            } else
+            {
+                writerOrNull.int8().writeArrayBlockWithOffset(dataSetPath, data, size, offset);
+            }
+        } catch (HDF5Exception ex)
+        {
+            throw new IOExceptionUnchecked(ex);
+        }
+    }
+
+    private boolean isAligned(long offset)
+    {
+        return (offset % blockSize) == 0;
+    }
+
+    /**
+     * Moves the current block to the cache, or writes it back if it cannot be cached. Afterwards,
+     * {@link #block} is free to receive a new block.
+     */
+    private void retireBlock() throws IOExceptionUnchecked
+    {
+        if (realBlockSize < 0)
+        {
+            return;
+        }
+        // In read-write mode, a short block may grow with the dataset, so only full blocks are
+        // cached.
+        final boolean cacheable =
+                blockCacheSize > 1 && isAligned(blockOffset)
+                        && (realBlockSize == blockSize || isReadOnly());
+        if (cacheable)
+        {
+            final byte[] freeDataOrNull = evictBlocks(blockCacheSize - 2);
+            blockCache.put(blockOffset, new CachedBlock(block, realBlockSize, blockDirty));
+            this.block = (freeDataOrNull != null) ? freeDataOrNull : new byte[blockSize];
+        } else if (isReadOnly() == false && blockDirty)
+        {
+            writeBlockData(block, realBlockSize, blockOffset);
+        }
+        this.blockDirty = false;
+    }
+
+    /**
+     * Evicts the least recently used blocks until at most <var>maxCachedBlocks</var> are left,
+     * writing back dirty blocks.
+     * 
+     * @return The data array of an evicted block for reuse, or <code>null</code>, if no block has
+     *         been evicted.
+     */
+    private byte[] evictBlocks(int maxCachedBlocks) throws IOExceptionUnchecked
+    {
+        byte[] freeDataOrNull = null;
+        final Iterator<Map.Entry<Long, CachedBlock>> it = blockCache.entrySet().iterator();
+        while (blockCache.size() > Math.max(0, maxCachedBlocks) && it.hasNext())
+        {
+            final Map.Entry<Long, CachedBlock> entry = it.next();
+            final CachedBlock cachedBlock = entry.getValue();
+            if (cachedBlock.dirty)
+            {
+                writeBlockData(cachedBlock.data, cachedBlock.size, entry.getKey());
+            }
+            it.remove();
+            freeDataOrNull = cachedBlock.data;
+        }
+        return freeDataOrNull;
+    }
+
+    private CachedBlock tryTakeCachedBlock(long offset)
+    {
+        final CachedBlock cachedBlockOrNull = blockCache.remove(offset);
+        if (cachedBlockOrNull != null)
+        {
+            return cachedBlockOrNull;
+        }
+        final Future<CachedBlock> readAheadOrNull = pendingReadAheads.remove(offset);
+        return (readAheadOrNull != null) ? tryGetReadAhead(readAheadOrNull) : null;
+    }
+
+    /**
+     * Returns the block read ahead by <var>future</var>, or <code>null</code>, if reading ahead
+     * failed. In this case, the caller reads the block itself and gets to see the error.
+     */
+    private static CachedBlock tryGetReadAhead(Future<CachedBlock> future)
+    {
+        try
+        {
+            return future.get();
+        } catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ex)
+        {
+            return null;
+        } catch (CancellationException ex)
+        {
+            return null;
+        }
+    }
+
+    private void updateAccessPattern(long newBlockOffset)
+    {
+        if (realBlockSize >= 0 && newBlockOffset == blockOffset + blockSize)
+        {
+            ++sequentialTransitions;
+        } else
+        {
+            sequentialTransitions = 0;
+            cancelReadAheads(false);
+        }
+    }
+
+    /**
+     * Schedules reading the blocks following the current one, if the access pattern is a forward
+     * scan. The number of blocks read ahead grows with the length of the scan.
+     */
+    private void scheduleReadAhead()
+    {
+        if (isReadOnly() == false || maxReadAheadBlocks == 0
+                || sequentialTransitions < SEQUENTIAL_TRANSITIONS_BEFORE_READ_AHEAD)
+        {
+            return;
+        }
+        final int numberOfBlocks =
+                Math.min(maxReadAheadBlocks, sequentialTransitions
+                        - SEQUENTIAL_TRANSITIONS_BEFORE_READ_AHEAD + 1);
+        for (int i = 1; i <= numberOfBlocks; ++i)
+        {
+            final long offset = blockOffset + (long) i * blockSize;
+            if (offset >= length())
+            {
+                break;
+            }
+            if (blockCache.containsKey(offset) || pendingReadAheads.containsKey(offset))
+            {
+                continue;
+            }
+            pendingReadAheads.put(offset,
+                    ReadAheadExecutorHolder.EXECUTOR.submit(createReadAheadCallable(offset)));
+        }
+    }
+
+    private Callable<CachedBlock> createReadAheadCallable(final long offset)
+    {
+        return new Callable<CachedBlock>()
+            {
+                @Override
+                public CachedBlock call() throws Exception
+                {
+                    final byte[] data = new byte[blockSize];
+                    return new CachedBlock(data, readBlockData(data, offset), false);
+                }
+            };
+    }
+
+    /**
+     * Cancels all pending read-aheads. If <var>waitForRunning</var> is <code>true</code>, waits
+     * for read-aheads that have already started to finish.
+     */
+    private void cancelReadAheads(boolean waitForRunning)
+    {
+        for (Future<CachedBlock> future : pendingReadAheads.values())
+        {
+            if (future.cancel(false) == false && waitForRunning)
+            {
+                tryGetReadAhead(future);
+            }
+        }
+        pendingReadAheads.clear();
+    }
+
     private void readNextBlockResetPosition()
     {
         readBlock(blockOffset + realBlockSize);
@@ -318,6 +637,59 @@ public class HDF5DataSetRandomAccessFile implements IRandomAccessFile, Flushable
         return (writerOrNull == null);
     }
 
+    /**
+     * Returns the number of blocks held in memory.
+     */
+    public int getBlockCacheSize()
+    {
+        return blockCacheSize;
+    }
+
+    /**
+     * Sets the number of blocks held in memory, including the block at the file pointer. A block
+     * has the size of one chunk of the dataset. Modified blocks are written back to the dataset
+     * when they are evicted or on {@link #flush()}. A value of 1 disables caching.
+     * <p>
+     * Default: {@link #DEFAULT_BLOCK_CACHE_SIZE}.
+     */
+    public void setBlockCacheSize(int numberOfBlocks) throws IOExceptionUnchecked
+    {
+        if (numberOfBlocks < 1)
+        {
+            throw new IllegalArgumentException("Invalid block cache size " + numberOfBlocks);
+        }
+        evictBlocks(numberOfBlocks - 1);
+        this.blockCacheSize = numberOfBlocks;
+    }
+
+    /**
+     * Returns the maximal number of blocks read ahead.
+     */
+    public int getMaxReadAheadBlocks()
+    {
+        return maxReadAheadBlocks;
+    }
+
+    /**
+     * Sets the maximal number of blocks read ahead on a background thread once a forward scan is
+     * detected. Reading ahead is only done in read-only mode. A value of 0 disables reading ahead.
+     * <p>
+     * Default: {@link #DEFAULT_MAX_READ_AHEAD_BLOCKS}.
+     */
+    public void setMaxReadAheadBlocks(int numberOfBlocks)
+    {
+        if (numberOfBlocks < 0)
+        {
+            throw new IllegalArgumentException("Invalid number of read-ahead blocks "
+                    + numberOfBlocks);
+        }
+        if (numberOfBlocks == 0)
+        {
+            cancelReadAheads(false);
+        }
+        this.maxReadAheadBlocks = numberOfBlocks;
+    }
+
     private void extend(int numberOfBytesToExtend) throws IOExceptionUnchecked
     {
         final long len = length();
@@ -446,7 +818,9 @@ public class HDF5DataSetRandomAccessFile implements IRandomAccessFile, Flushable
     @Override
     public void close() throws IOExceptionUnchecked
     {
+        cancelReadAheads(true);
         flush();
+        blockCache.clear();
         if (closeReaderOnCloseFile)
         {
             try
@@ -489,24 +863,23 @@ public class HDF5DataSetRandomAccessFile implements IRandomAccessFile, Flushable
     @Override
     public void flush() throws IOExceptionUnchecked
     {
-        if (isReadOnly() == false && blockDirty)
+        if (isReadOnly())
         {
-            try
-            {
-                if (opaqueTypeOrNull != null)
-                {
-                    writerOrNull.opaque().writeArrayBlockWithOffset(dataSetPath, opaqueTypeOrNull,
-                            block, realBlockSize, blockOffset);
-                } else
-                {
-                    writerOrNull.int8().writeArrayBlockWithOffset(dataSetPath, block,
-                            realBlockSize, blockOffset);
-                }
-            } catch (HDF5Exception ex)
+            return;
+        }
+        if (blockDirty)
+        {
+            writeBlockData(block, realBlockSize, blockOffset);
+            blockDirty = false;
+        }
+        for (Map.Entry<Long, CachedBlock> entry : blockCache.entrySet())
+        {
+            final CachedBlock cachedBlock = entry.getValue();
+            if (cachedBlock.dirty)
             {
-                throw new IOExceptionUnchecked(ex);
+                writeBlockData(cachedBlock.data, cachedBlock.size, entry.getKey());
+                cachedBlock.dirty = false;
             }
-            blockDirty = false;
         }
     }
 
@@ -564,6 +937,8 @@ public class HDF5DataSetRandomAccessFile implements IRandomAccessFile, Flushable
             readBlock(newBlockOffset);
         } else
         {
+            retireBlock();
+            Arrays.fill(block, (byte) 0);
             this.blockOffset = newBlockOffset;
             this.realBlockSize = positionInBlock + 1;
         }
@@ -587,6 +962,12 @@ public class HDF5DataSetRandomAccessFile implements IRandomAccessFile, Flushable
         {
             throw new IOExceptionUnchecked("setLength() called on non-extendable dataset.");
         }
+        if (newLength < length)
+        {
+            // Cached blocks beyond the new end must not be written back later.
+            flush();
+            blockCache.clear();
+        }
         try
         {
             writerOrNull.object().setDataSetSize(dataSetPath, newLength);
@@ -190,6 +190,36 @@ public class HDF5IOAdapterFactory
         return new HDF5DataSetRandomAccessFile(hdf5File, dataSetPath, null, 0, null, true);
     }
 
+    /**
+     * Creates an adapter of the <var>hdf5File</var> as an {@link HDF5DataSetByteChannel} in
+     * read/write mode.
+     * <p>
+     * If the dataset does not yet exist, it will create a chunked opaque dataset with a chunk size
+     * of 1MB and an opaque tag <code>FILE</code>.
+     * 
+     * @param hdf5File The HDF5 file to create the adapter for.
+     * @param dataSetPath The path of the HDF5 dataset in the HDF5 container to use as a file.
+     * @return The {@link HDF5DataSetByteChannel}.
+     */
+    public static HDF5DataSetByteChannel asByteChannelReadWrite(File hdf5File, String dataSetPath)
+    {
+        return new HDF5DataSetByteChannel(hdf5File, dataSetPath,
+                HDF5GenericStorageFeatures.GENERIC_CHUNKED, BUFFER_SIZE, OPAQUE_TAG_FILE, false);
+    }
+
+    /**
+     * Creates an adapter of the <var>hdf5File</var> as an {@link HDF5DataSetByteChannel} in
+     * read-only mode.
+     * 
+     * @param hdf5File The HDF5 file to create the adapter for.
+     * @param dataSetPath The path of the HDF5 dataset in the HDF5 container to use as a file.
+     * @return The {@link HDF5DataSetByteChannel}.
+     */
+    public static HDF5DataSetByteChannel asByteChannelReadOnly(File hdf5File, String dataSetPath)
+    {
+        return new HDF5DataSetByteChannel(hdf5File, dataSetPath, null, 0, null, true);
+    }
+
     //
     // Writer methods
     //
@@ -326,6 +356,45 @@ public class HDF5IOAdapterFactory
                 HDF5GenericStorageFeatures.GENERIC_CHUNKED, BUFFER_SIZE, OPAQUE_TAG_FILE, false);
     }
 
+    /**
+     * Creates an adapter of the <var>writer</var> as an {@link HDF5DataSetByteChannel}.
+     * <p>
+     * If the dataset does not yet exist, it will create a chunked opaque dataset with a chunk size
+     * of 1MB and an opaque tag <code>FILE</code>.
+     * 
+     * @param writer The HDF5 writer to create the adapter for. The writer will <i>not be closed
+     *            when the returned object is closed.
+     * @param dataSetPath The path of the HDF5 dataset in the HDF5 container to use as a file.
+     * @return The {@link HDF5DataSetByteChannel}.
+     */
+    public static HDF5DataSetByteChannel asByteChannel(IHDF5Writer writer, String dataSetPath)
+    {
+        return new HDF5DataSetByteChannel(writer, dataSetPath,
+                HDF5GenericStorageFeatures.GENERIC_CHUNKED, BUFFER_SIZE, OPAQUE_TAG_FILE, false);
+    }
+
+    /**
+     * Creates an adapter of the <var>writer</var> as an {@link HDF5DataSetByteChannel}.
+     * 
+     * @param writer The HDF5 writer to create the adapter for. The writer will <i>not be closed
+     *            when the returned object is closed.
+     * @param dataSetPath The path of the HDF5 dataset in the HDF5 container to use as a file.
+     * @param creationStorageFeature If the dataset does not yet exist, use this value as the
+     *            storage features when creating it.
+     * @param chunkSize If the dataset does not yet exist, use this value as the chunk size.
+     * @param opaqueTagOrNull If the dataset does not yet exist and this value is not
+     *            <code>null</code>, then an opaque dataset will be created using this value will be
+     *            used as opaque tag.
+     * @return The {@link HDF5DataSetByteChannel}.
+     */
+    public static HDF5DataSetByteChannel asByteChannel(IHDF5Writer writer, String dataSetPath,
+            HDF5GenericStorageFeatures creationStorageFeature, int chunkSize,
+            String opaqueTagOrNull)
+    {
+        return new HDF5DataSetByteChannel(writer, dataSetPath, creationStorageFeature, chunkSize,
+                opaqueTagOrNull, false);
+    }
+
     //
     // Reader methods
     //
@@ -370,4 +439,17 @@ public class HDF5IOAdapterFactory
         return new HDF5DataSetRandomAccessFile(reader, dataSetPath, null, 0, null, false);
     }
 
+    /**
+     * Creates an adapter of the <var>reader</var> as an {@link HDF5DataSetByteChannel}.
+     * 
+     * @param reader The HDF5 reader to create the adapter for. The reader will <i>not be closed
+     *            when the returned object is closed.
+     * @param dataSetPath The path of the HDF5 dataset in the HDF5 container to use as a file.
+     * @return The {@link HDF5DataSetByteChannel}.
+     */
+    public static HDF5DataSetByteChannel asByteChannel(IHDF5Reader reader, String dataSetPath)
+    {
+        return new HDF5DataSetByteChannel(reader, dataSetPath, null, 0, null, false);
+    }
+
 }